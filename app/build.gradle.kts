@@ -33,12 +33,21 @@ android {
 //    Enable ViewBinding for easier UI handling
     buildFeatures {
         viewBinding = true
+        // BuildConfig.DEBUG decides which diagnostics run from launch
+        buildConfig = true
+    }
+    // Local tests run against Robolectric's Android framework
+    testOptions {
+        unitTests.isIncludeAndroidResources = true
     }
 
 }
 
 dependencies {
 
+    // Headless chat engine (connection, codecs, outbox, room state) and the models it shares
+    implementation(project(":engine"))
+
     // Core Android dependencies
     implementation(libs.appcompat)
     implementation(libs.material)
@@ -58,6 +67,7 @@ dependencies {
 
     // Supports fetching, decoding, and displaying video stills, images, and animated GIFs
     implementation (libs.glide)
+    annotationProcessor (libs.glide.compiler)
 
     // Network dependencies for API communication
     implementation(libs.retrofit)
@@ -77,6 +87,7 @@ dependencies {
 
     // Core Android Testing dependencies
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.project.realtimechatui;
 
 import android.content.Context;
 
+import com.project.realtimechatui.cache.MessagePrefetcher;
+import com.project.realtimechatui.cache.MessageStore;
+import com.project.realtimechatui.perf.MainThreadWatchdog;
 import com.project.realtimechatui.utils.SharedPrefManager;
 
 public class Application extends android.app.Application {
@@ -12,6 +15,18 @@ public class Application extends android.app.Application {
 
         // Initialize SharedPrefManager
         SharedPrefManager.getInstance(this);
+
+        // Needs the connectivity service to hold back on metered networks
+        MessagePrefetcher.getInstance().init(this);
+
+        // Where chat screens keep the pages of long conversations they aren't showing
+        MessageStore.getInstance().init(this);
+
+        // Debug builds time main-thread stalls from the start; release builds only once it is
+        // turned on from the metrics screen, as the looper logging it needs costs every message
+        if (BuildConfig.DEBUG) {
+            MainThreadWatchdog.getInstance().start();
+        }
     }
 
     @Override
@@ -27,29 +27,30 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.gson.Gson;
 import com.project.realtimechatui.adapters.ChatMessageAdapter;
+import com.project.realtimechatui.adapters.ChatViewPool;
 import com.project.realtimechatui.api.ApiService;
 import com.project.realtimechatui.api.ApiClient;
 import com.project.realtimechatui.api.models.BaseDTO;
 import com.project.realtimechatui.api.models.ChatMessage;
 import com.project.realtimechatui.api.models.ChatRoom;
 import com.project.realtimechatui.api.models.Participant;
+import com.project.realtimechatui.cache.MessageCache;
+import com.project.realtimechatui.cache.MessagePrefetcher;
+import com.project.realtimechatui.cache.PersonalRoomIndex;
+import com.project.realtimechatui.cache.RoomHistory;
+import com.project.realtimechatui.cache.RoomListCache;
 import com.project.realtimechatui.enums.EnumRoomType;
+import com.project.realtimechatui.perf.FrameMonitor;
+import com.project.realtimechatui.utils.ChatScrollCoordinator;
 import com.project.realtimechatui.utils.Constants;
 import com.project.realtimechatui.utils.SharedPrefManager;
+import com.project.realtimechatui.utils.TimestampCodec;
 import com.project.realtimechatui.websocket.WebSocketChatManager;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Date;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Set;
-import java.util.TimeZone;
-import java.util.stream.Collectors;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -62,7 +63,7 @@ public class ChatActivity extends AppCompatActivity implements
     private static final String TAG = "ChatActivity";
 
     // UI Components
-    private TextView tvUserName, tvUserStatus, tvConnectionStatus, tvTypingIndicator;
+    private TextView tvUserName, tvUserStatus, tvConnectionStatus, tvTypingIndicator, tvNewMessagesPill;
     private ImageView ivBack, ivUserProfile;
     private RecyclerView rvMessages;
     private EditText etMessage;
@@ -79,19 +80,33 @@ public class ChatActivity extends AppCompatActivity implements
     private WebSocketChatManager webSocketManager;
     private ApiService apiService;
     private SharedPrefManager sharedPrefManager;
+    private PersonalRoomIndex personalRoomIndex;
     private ChatMessageAdapter messageAdapter;
     private LinearLayoutManager layoutManager;
+    private ChatScrollCoordinator scrollCoordinator;
+    private FrameMonitor frameMonitor;
     private Handler typingHandler;
+    private final Handler dayHandler = new Handler(Looper.getMainLooper());
+    // Relabels "Today" and "Yesterday" at local midnight while the screen is showing
+    private final Runnable dayRollover = new Runnable() {
+        @Override
+        public void run() {
+            messageAdapter.refreshDayLabels();
+            scheduleDayRollover();
+        }
+    };
     private Set<String> typingUsers;
     private boolean isTyping = false;
     private Runnable stopTypingRunnable;
 
     // For duplicate prevention
     private boolean isSendingMessage = false;
-    private Set<Long> receivedMessageIds = new HashSet<>();
     private String lastSentContent = "";
     private long lastSentTime = 0;
 
+    // True while chatRoomId came from the local index and has not been confirmed by the server
+    private boolean roomResolvedFromIndex = false;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -104,6 +119,7 @@ public class ChatActivity extends AppCompatActivity implements
         });
 
         sharedPrefManager = SharedPrefManager.getInstance();
+        personalRoomIndex = PersonalRoomIndex.getInstance();
         typingHandler = new Handler(Looper.getMainLooper());
         typingUsers = new HashSet<>();
 
@@ -122,6 +138,7 @@ public class ChatActivity extends AppCompatActivity implements
         if (chatRoomId != -1) {
             // Existing chat room - join and load messages
             Log.d(TAG, "Using existing chat room: " + chatRoomId);
+            personalRoomIndex.put(sharedPrefManager.getId(), targetUserId, chatRoomId);
             joinChatRoom();
             loadChatMessages();
         } else {
@@ -136,6 +153,7 @@ public class ChatActivity extends AppCompatActivity implements
         tvUserStatus = findViewById(R.id.tvUserStatus);
         tvConnectionStatus = findViewById(R.id.tvConnectionStatus);
         tvTypingIndicator = findViewById(R.id.tvTypingIndicator);
+        tvNewMessagesPill = findViewById(R.id.tvNewMessagesPill);
         ivBack = findViewById(R.id.ivBack);
         ivUserProfile = findViewById(R.id.ivUserProfile);
         rvMessages = findViewById(R.id.rvMessages);
@@ -181,20 +199,25 @@ public class ChatActivity extends AppCompatActivity implements
 
     private void setupRecyclerView() {
         messageAdapter = new ChatMessageAdapter(this);
+        messageAdapter.setOnRetryListener(this::retrySend);
         layoutManager = new LinearLayoutManager(this);
         layoutManager.setStackFromEnd(true); // Start from bottom
 
         rvMessages.setLayoutManager(layoutManager);
+        // Holders come from the pool MainActivity prewarmed, so opening a chat inflates nothing
+        ChatViewPool.getInstance().attach(rvMessages, layoutManager);
         rvMessages.setAdapter(messageAdapter);
+        // Scrolling back through history holds background prefetching back
+        rvMessages.addOnScrollListener(MessagePrefetcher.getInstance().getScrollListener());
+        rvMessages.addOnScrollListener(messageAdapter.createImagePreloader());
+        // Only pages near the viewport stay in memory; the rest are read back from the message store
+        rvMessages.addOnScrollListener(messageAdapter.createWindowScrollListener(layoutManager));
+        frameMonitor = new FrameMonitor(this, "chat");
+        frameMonitor.track(rvMessages);
+        frameMonitor.trackUpdates(messageAdapter);
 
-        // Scroll to bottom when new message is added
-        messageAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
-            @Override
-            public void onItemRangeInserted(int positionStart, int itemCount) {
-                super.onItemRangeInserted(positionStart, itemCount);
-                scrollToBottom();
-            }
-        });
+        // Follows new messages (one scroll per frame, however many arrive) unless the user scrolled up
+        scrollCoordinator = new ChatScrollCoordinator(rvMessages, layoutManager, messageAdapter, tvNewMessagesPill);
     }
 
     private void setupWebSocket() {
@@ -273,6 +296,24 @@ public class ChatActivity extends AppCompatActivity implements
             return;
         }
 
+        // Common case: the room is already known from the chat list, no network call needed
+        Long indexedRoomId = personalRoomIndex.getRoomId(currentUserId, targetUserId);
+        if (indexedRoomId != null) {
+            chatRoomId = indexedRoomId;
+            roomResolvedFromIndex = true;
+            Log.d(TAG, "✅ Resolved personal chat room " + chatRoomId + " from local index");
+            joinChatRoom();
+            loadChatMessages();
+            return;
+        }
+
+        fetchPersonalChatRoom();
+    }
+
+    private void fetchPersonalChatRoom() {
+        Long currentUserId = sharedPrefManager.getId();
+        roomResolvedFromIndex = false;
+
         Log.d(TAG, "Looking for existing personal chat between user " + currentUserId + " and " + targetUserId);
 
         // Use getChatRoomsByUserId to get only user's chat rooms
@@ -288,15 +329,12 @@ public class ChatActivity extends AppCompatActivity implements
                         List<ChatRoom> userChatRooms = result.getData();
                         Log.d(TAG, "Found " + userChatRooms.size() + " chat rooms for user " + currentUserId);
 
-                        // Filter for personal chats only to improve performance
-                        List<ChatRoom> personalChats = userChatRooms.stream()
-                                .filter(room -> room.getType() == EnumRoomType.PERSONAL)
-                                .collect(Collectors.toList());
-
-                        ChatRoom existingRoom = findPersonalChatRoom(personalChats, currentUserId, targetUserId);
-                        if (existingRoom != null) {
+                        // Also refreshes the personal room index and the room list on MainActivity
+                        RoomListCache.getInstance().put(userChatRooms, currentUserId);
+                        Long existingRoomId = personalRoomIndex.getRoomId(currentUserId, targetUserId);
+                        if (existingRoomId != null) {
                             // Found existing chat room
-                            chatRoomId = existingRoom.getId();
+                            chatRoomId = existingRoomId;
                             Log.d(TAG, "✅ Found existing Personal chat room: " + chatRoomId + " for users " + currentUserId + " and " + targetUserId);
 
                             // Clear any existing messages before loading
@@ -326,36 +364,6 @@ public class ChatActivity extends AppCompatActivity implements
         });
     }
 
-    private ChatRoom findPersonalChatRoom(List<ChatRoom> chatRooms, Long currentUserId, Long targetUserId) {
-        Log.d(TAG, "🔍 Searching for personal chat between " + currentUserId + " and " + targetUserId);
-
-        for (ChatRoom room : chatRooms) {
-            Log.d(TAG, "Checking room: " + room.getId() + ", type: " + room.getType() + ", name: " + room.getName());
-
-            if (room.getType() == EnumRoomType.PERSONAL && room.getParticipants() != null) {
-
-                // Count participants and collect their IDs
-                Set<Long> participantIds = new HashSet<>();
-                for (Participant participant : room.getParticipants()) {
-                    if (participant != null && participant.getUserId() != null) {
-                        participantIds.add(participant.getUserId());
-                        Log.d(TAG, "  Found participant: " + participant.getUserId());
-                    }
-                }
-
-                // For personal chat, must have exactly 2 participants: current user and target user
-                if (participantIds.size() == 2 &&
-                        participantIds.contains(currentUserId) &&
-                        participantIds.contains(targetUserId)) {
-                    return room;
-                }
-            }
-        }
-
-        Log.d(TAG, "❌ No matching personal chat room found");
-        return null;
-    }
-
     private void createPersonalChatRoom() {
         Long currentUserId = sharedPrefManager.getId();
 
@@ -386,6 +394,7 @@ public class ChatActivity extends AppCompatActivity implements
                     BaseDTO<ChatRoom> result = response.body();
                     if (result.isSuccess() && result.getData() != null) {
                         chatRoomId = result.getData().getId();
+                        personalRoomIndex.put(currentUserId, targetUserId, chatRoomId);
                         Log.d(TAG, "Created chat room: " + chatRoomId);
                         joinChatRoom();
                         loadChatMessages();
@@ -398,7 +407,7 @@ public class ChatActivity extends AppCompatActivity implements
                             String errorBody = response.errorBody().string();
                             if (errorBody.contains("personal chat already exists")) {
                                 // Chat room already exists, try to find it again
-                                findOrCreatePersonalChatRoom();
+                                fetchPersonalChatRoom();
                                 return;
                             }
                         } catch (Exception e) {
@@ -428,7 +437,16 @@ public class ChatActivity extends AppCompatActivity implements
     private void loadChatMessages() {
         if (chatRoomId == null) return;
 
-        Call<BaseDTO<List<ChatMessage>>> call = apiService.getMessagesByChatRoom(chatRoomId, 0, 50);
+        messageAdapter.setMessageSource(new RoomHistory(chatRoomId));
+
+        // Render the cached page (warmed at login or from a previous visit) while the network catches up
+        List<ChatMessage> cachedMessages = MessageCache.getInstance().get(chatRoomId);
+        if (cachedMessages != null) {
+            messageAdapter.setMessages(cachedMessages, this::scrollToBottom);
+        }
+
+        Long requestedRoomId = chatRoomId;
+        Call<BaseDTO<List<ChatMessage>>> call = apiService.getMessagesByChatRoom(chatRoomId, 0, Constants.MESSAGE_PAGE_SIZE);
         call.enqueue(new Callback<BaseDTO<List<ChatMessage>>>() {
             @Override
             public void onResponse(Call<BaseDTO<List<ChatMessage>>> call, Response<BaseDTO<List<ChatMessage>>> response) {
@@ -437,24 +455,21 @@ public class ChatActivity extends AppCompatActivity implements
                     if (result.isSuccess() && result.getData() != null) {
                         List<ChatMessage> messages = result.getData();
 
-                        // Sort messages by timestamp (oldest first, latest at bottom) - ADD THIS
-                        Collections.sort(messages, new Comparator<ChatMessage>() {
-                            @Override
-                            public int compare(ChatMessage m1, ChatMessage m2) {
-                                try {
-                                    // Parse timestamps and compare
-                                    long time1 = parseTimestamp(m1.getTimestamp());
-                                    long time2 = parseTimestamp(m2.getTimestamp());
-                                    return Long.compare(time1, time2); // Ascending order (oldest first)
-                                } catch (Exception e) {
-                                    return 0;
-                                }
-                            }
-                        });
 
-                        messageAdapter.setMessages(messages);
-                        scrollToBottom();
+                        roomResolvedFromIndex = false;
+                        // Sorted off the main thread; cache the page as the adapter ordered it
+                        messageAdapter.setMessages(messages, () -> {
+                            MessageCache.getInstance().put(requestedRoomId, messageAdapter.getMessages());
+                            scrollToBottom();
+                        });
                     }
+                } else if (roomResolvedFromIndex && (response.code() == 403 || response.code() == 404)) {
+                    // The indexed room is gone or no longer ours - drop it and ask the server
+                    Log.w(TAG, "Indexed chat room " + chatRoomId + " is stale, refetching");
+                    personalRoomIndex.remove(targetUserId);
+                    webSocketManager.unsubscribeFromChatRoom(chatRoomId);
+                    chatRoomId = null;
+                    fetchPersonalChatRoom();
                 }
             }
 
@@ -465,34 +480,6 @@ public class ChatActivity extends AppCompatActivity implements
         });
     }
 
-    private long parseTimestamp(String timestamp) {
-        try {
-            if (TextUtils.isEmpty(timestamp)) {
-                return 0;
-            }
-
-            // If timestamp is already in milliseconds (13 digits)
-            if (timestamp.matches("\\d{13}")) {
-                return Long.parseLong(timestamp);
-            }
-
-            // If timestamp is in seconds (10 digits), convert to milliseconds
-            if (timestamp.matches("\\d{10}")) {
-                return Long.parseLong(timestamp) * 1000;
-            }
-
-            // If timestamp is in ISO format, parse it
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-            sdf.setTimeZone(TimeZone.getTimeZone("UTC")); // Parse as UTC
-            Date date = sdf.parse(timestamp);
-            return date != null ? date.getTime() : System.currentTimeMillis();
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing timestamp: " + timestamp, e);
-            return System.currentTimeMillis();
-        }
-    }
-
     private void sendMessage() {
         String messageText = etMessage.getText().toString().trim();
         if (TextUtils.isEmpty(messageText) || chatRoomId == null) {
@@ -524,8 +511,18 @@ public class ChatActivity extends AppCompatActivity implements
         // Stop typing indicator
         stopTyping();
 
+        // Shown right away as a local echo; the server's copy takes its place when it comes back
+        ChatMessage echo = new ChatMessage(chatRoomId, sharedPrefManager.getId(), messageText, Constants.MESSAGE_TYPE_TEXT);
+        echo.setSenderName(sharedPrefManager.getUsername());
+        echo.setStatus(Constants.MESSAGE_STATUS_PENDING);
+        String localKey = echo.getLocalKey();
+        // Our own message should come into view even if the user had scrolled up
+        messageAdapter.addLocalEcho(echo, scrollCoordinator::scrollToBottom);
+
         // Send message via WebSocket
-        webSocketManager.sendMessage(chatRoomId, messageText);
+        if (!webSocketManager.sendMessage(chatRoomId, messageText, localKey)) {
+            messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_FAILED);
+        }
 
         // Clear the input
         etMessage.setText("");
@@ -536,12 +533,23 @@ public class ChatActivity extends AppCompatActivity implements
         }, 1000);
     }
 
-    private void scrollToBottom() {
-        if (messageAdapter.getItemCount() > 0) {
-            rvMessages.smoothScrollToPosition(messageAdapter.getItemCount() - 1);
+    // A failed message was tapped: send it again, keeping its place in the list
+    private void retrySend(ChatMessage message) {
+        if (!webSocketManager.isConnected()) {
+            showError("Not connected to chat server");
+            return;
+        }
+        String localKey = message.getLocalKey();
+        messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_PENDING);
+        if (!webSocketManager.sendMessage(chatRoomId, message.getContent(), localKey)) {
+            messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_FAILED);
         }
     }
 
+    private void scrollToBottom() {
+        scrollCoordinator.scrollToBottom();
+    }
+
     private void updateConnectionStatus(String status) {
         tvConnectionStatus.setText(status);
         switch (status) {
@@ -577,30 +585,17 @@ public class ChatActivity extends AppCompatActivity implements
     // WebSocketChatManager.ChatMessageListener implementation
     @Override
     public void onMessageReceived(ChatMessage message) {
-        // Prevent duplicate messages
-        if (message.getId() != null && receivedMessageIds.contains(message.getId())) {
-            Log.d(TAG, "Duplicate message received, ignoring: " + message.getId());
-            return;
-        }
+        // Redeliveries were already dropped by the engine's per-room dedupe
 
-        // Add to received set
-        if (message.getId() != null) {
-            receivedMessageIds.add(message.getId());
-
-            // Keep only last 1000 message IDs to prevent memory issues
-            if (receivedMessageIds.size() > 1000) {
-                Iterator<Long> iterator = receivedMessageIds.iterator();
-                for (int i = 0; i < 500 && iterator.hasNext(); i++) {
-                    iterator.next();
-                    iterator.remove();
-                }
-            }
+        // A message from the partner confirms which room we share with them
+        if (message.getChatRoomId() != null && targetUserId != null && targetUserId.equals(message.getSenderId())) {
+            personalRoomIndex.put(sharedPrefManager.getId(), targetUserId, message.getChatRoomId());
         }
 
-        runOnUiThread(() -> {
-            messageAdapter.addMessage(message);
-            scrollToBottom();
-        });
+        MessageCache.getInstance().append(message.getChatRoomId() != null ? message.getChatRoomId() : chatRoomId, message);
+
+        // The scroll coordinator follows the insert (or counts it while the user reads history)
+        runOnUiThread(() -> messageAdapter.addMessage(message));
     }
 
     @Override
@@ -655,6 +650,16 @@ public class ChatActivity extends AppCompatActivity implements
         runOnUiThread(() -> showError("Chat error: " + error));
     }
 
+    @Override
+    public void onMessageSent(String localKey) {
+        runOnUiThread(() -> messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_SENT));
+    }
+
+    @Override
+    public void onMessageFailed(String localKey) {
+        runOnUiThread(() -> messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_FAILED));
+    }
+
     // WebSocketChatManager.ConnectionListener implementation
     @Override
     public void onConnected() {
@@ -678,14 +683,25 @@ public class ChatActivity extends AppCompatActivity implements
     @Override
     protected void onResume() {
         super.onResume();
+        frameMonitor.start();
+        // The screen may have been left open, or in the background, past midnight
+        messageAdapter.refreshDayLabels();
+        scheduleDayRollover();
         if (!webSocketManager.isConnected()) {
             webSocketManager.connect();
         }
     }
 
+    private void scheduleDayRollover() {
+        dayHandler.removeCallbacks(dayRollover);
+        dayHandler.postDelayed(dayRollover, TimestampCodec.millisUntilNextDay(System.currentTimeMillis()));
+    }
+
     @Override
     protected void onPause() {
         super.onPause();
+        frameMonitor.stop();
+        dayHandler.removeCallbacks(dayRollover);
         // Stop typing indicator when leaving
         stopTyping();
     }
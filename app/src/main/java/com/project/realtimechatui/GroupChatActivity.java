@@ -25,6 +25,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.project.realtimechatui.adapters.ChatMessageAdapter;
+import com.project.realtimechatui.adapters.ChatViewPool;
 import com.project.realtimechatui.adapters.UserListAdapter;
 import com.project.realtimechatui.api.ApiClient;
 import com.project.realtimechatui.api.ApiService;
@@ -32,19 +33,20 @@ import com.project.realtimechatui.api.models.BaseDTO;
 import com.project.realtimechatui.api.models.ChatMessage;
 import com.project.realtimechatui.api.models.ChatRoom;
 import com.project.realtimechatui.api.models.Participant;
+import com.project.realtimechatui.cache.MessageCache;
+import com.project.realtimechatui.cache.MessagePrefetcher;
+import com.project.realtimechatui.cache.RoomHistory;
 import com.project.realtimechatui.enums.EnumRoomType;
+import com.project.realtimechatui.perf.FrameMonitor;
+import com.project.realtimechatui.utils.ChatScrollCoordinator;
 import com.project.realtimechatui.utils.Constants;
 import com.project.realtimechatui.utils.SharedPrefManager;
+import com.project.realtimechatui.utils.TimestampCodec;
 import com.project.realtimechatui.websocket.WebSocketChatManager;
 
-import java.text.SimpleDateFormat;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Set;
 
 import retrofit2.Call;
@@ -58,7 +60,7 @@ public class GroupChatActivity extends AppCompatActivity implements
     private static final String TAG = "GroupChatActivity";
 
     // UI Components
-    private TextView tvGroupName, tvMemberCount, tvConnectionStatus, tvTypingIndicator;
+    private TextView tvGroupName, tvMemberCount, tvConnectionStatus, tvTypingIndicator, tvNewMessagesPill;
     private ImageView ivBack, ivGroupProfile, ivGroupInfo;
     private RecyclerView rvMessages;
     private EditText etMessage;
@@ -75,14 +77,24 @@ public class GroupChatActivity extends AppCompatActivity implements
     private SharedPrefManager sharedPrefManager;
     private ChatMessageAdapter messageAdapter;
     private LinearLayoutManager layoutManager;
+    private ChatScrollCoordinator scrollCoordinator;
+    private FrameMonitor frameMonitor;
     private Handler typingHandler;
+    private final Handler dayHandler = new Handler(Looper.getMainLooper());
+    // Relabels "Today" and "Yesterday" at local midnight while the screen is showing
+    private final Runnable dayRollover = new Runnable() {
+        @Override
+        public void run() {
+            messageAdapter.refreshDayLabels();
+            scheduleDayRollover();
+        }
+    };
     private Set<String> typingUsers;
     private boolean isTyping = false;
     private Runnable stopTypingRunnable;
 
     // For duplicate prevention
     private boolean isSendingMessage = false;
-    private Set<Long> receivedMessageIds = new HashSet<>();
     private String lastSentContent = "";
     private long lastSentTime = 0;
 
@@ -123,6 +135,7 @@ public class GroupChatActivity extends AppCompatActivity implements
         tvMemberCount = findViewById(R.id.tvMemberCount);
         tvConnectionStatus = findViewById(R.id.tvConnectionStatus);
         tvTypingIndicator = findViewById(R.id.tvTypingIndicator);
+        tvNewMessagesPill = findViewById(R.id.tvNewMessagesPill);
         ivBack = findViewById(R.id.ivBack);
         ivGroupProfile = findViewById(R.id.ivGroupProfile);
         ivGroupInfo = findViewById(R.id.ivGroupInfo);
@@ -175,20 +188,25 @@ public class GroupChatActivity extends AppCompatActivity implements
 
     private void setupRecyclerView() {
         messageAdapter = new ChatMessageAdapter(this);
+        messageAdapter.setOnRetryListener(this::retrySend);
         layoutManager = new LinearLayoutManager(this);
         layoutManager.setStackFromEnd(true); // Start from bottom
 
         rvMessages.setLayoutManager(layoutManager);
+        // Holders come from the pool MainActivity prewarmed, so opening a chat inflates nothing
+        ChatViewPool.getInstance().attach(rvMessages, layoutManager);
         rvMessages.setAdapter(messageAdapter);
-
-        // Scroll to bottom when new message is added
-        messageAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
-            @Override
-            public void onItemRangeInserted(int positionStart, int itemCount) {
-                super.onItemRangeInserted(positionStart, itemCount);
-                scrollToBottom();
-            }
-        });
+        // Scrolling back through history holds background prefetching back
+        rvMessages.addOnScrollListener(MessagePrefetcher.getInstance().getScrollListener());
+        rvMessages.addOnScrollListener(messageAdapter.createImagePreloader());
+        // Only pages near the viewport stay in memory; the rest are read back from the message store
+        rvMessages.addOnScrollListener(messageAdapter.createWindowScrollListener(layoutManager));
+        frameMonitor = new FrameMonitor(this, "group_chat");
+        frameMonitor.track(rvMessages);
+        frameMonitor.trackUpdates(messageAdapter);
+
+        // Follows new messages (one scroll per frame, however many arrive) unless the user scrolled up
+        scrollCoordinator = new ChatScrollCoordinator(rvMessages, layoutManager, messageAdapter, tvNewMessagesPill);
     }
 
     private void setupWebSocket() {
@@ -270,7 +288,16 @@ public class GroupChatActivity extends AppCompatActivity implements
     private void loadChatMessages() {
         if (chatRoomId == null) return;
 
-        Call<BaseDTO<List<ChatMessage>>> call = apiService.getMessagesByChatRoom(chatRoomId, 0, 50);
+        messageAdapter.setMessageSource(new RoomHistory(chatRoomId));
+
+        // Render the cached page (warmed at login or from a previous visit) while the network catches up
+        List<ChatMessage> cachedMessages = MessageCache.getInstance().get(chatRoomId);
+        if (cachedMessages != null) {
+            messageAdapter.setMessages(cachedMessages, this::scrollToBottom);
+        }
+
+        Long requestedRoomId = chatRoomId;
+        Call<BaseDTO<List<ChatMessage>>> call = apiService.getMessagesByChatRoom(chatRoomId, 0, Constants.MESSAGE_PAGE_SIZE);
         call.enqueue(new Callback<BaseDTO<List<ChatMessage>>>() {
             @Override
             public void onResponse(Call<BaseDTO<List<ChatMessage>>> call, Response<BaseDTO<List<ChatMessage>>> response) {
@@ -279,22 +306,12 @@ public class GroupChatActivity extends AppCompatActivity implements
                     if (result.isSuccess() && result.getData() != null) {
                         List<ChatMessage> messages = result.getData();
 
-                        // Sort messages by timestamp (oldest first, latest at bottom)
-                        Collections.sort(messages, new Comparator<ChatMessage>() {
-                            @Override
-                            public int compare(ChatMessage m1, ChatMessage m2) {
-                                try {
-                                    long time1 = parseTimestamp(m1.getTimestamp());
-                                    long time2 = parseTimestamp(m2.getTimestamp());
-                                    return Long.compare(time1, time2);
-                                } catch (Exception e) {
-                                    return 0;
-                                }
-                            }
-                        });
 
-                        messageAdapter.setMessages(messages);
-                        scrollToBottom();
+                        // Sorted off the main thread; cache the page as the adapter ordered it
+                        messageAdapter.setMessages(messages, () -> {
+                            MessageCache.getInstance().put(requestedRoomId, messageAdapter.getMessages());
+                            scrollToBottom();
+                        });
                     }
                 }
             }
@@ -306,33 +323,6 @@ public class GroupChatActivity extends AppCompatActivity implements
         });
     }
 
-    private long parseTimestamp(String timestamp) {
-        try {
-            if (TextUtils.isEmpty(timestamp)) {
-                return 0;
-            }
-
-            // If timestamp is already in milliseconds (13 digits)
-            if (timestamp.matches("\\d{13}")) {
-                return Long.parseLong(timestamp);
-            }
-
-            // If timestamp is in seconds (10 digits), convert to milliseconds
-            if (timestamp.matches("\\d{10}")) {
-                return Long.parseLong(timestamp) * 1000;
-            }
-
-            // If timestamp is in ISO format, parse it
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-            Date date = sdf.parse(timestamp);
-            return date != null ? date.getTime() : System.currentTimeMillis();
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing timestamp: " + timestamp, e);
-            return System.currentTimeMillis();
-        }
-    }
-
     private void sendMessage() {
         String messageText = etMessage.getText().toString().trim();
         if (TextUtils.isEmpty(messageText) || chatRoomId == null) {
@@ -364,8 +354,18 @@ public class GroupChatActivity extends AppCompatActivity implements
         // Stop typing indicator
         stopTyping();
 
+        // Shown right away as a local echo; the server's copy takes its place when it comes back
+        ChatMessage echo = new ChatMessage(chatRoomId, sharedPrefManager.getId(), messageText, Constants.MESSAGE_TYPE_TEXT);
+        echo.setSenderName(sharedPrefManager.getUsername());
+        echo.setStatus(Constants.MESSAGE_STATUS_PENDING);
+        String localKey = echo.getLocalKey();
+        // Our own message should come into view even if the user had scrolled up
+        messageAdapter.addLocalEcho(echo, scrollCoordinator::scrollToBottom);
+
         // Send message via WebSocket
-        webSocketManager.sendMessage(chatRoomId, messageText);
+        if (!webSocketManager.sendMessage(chatRoomId, messageText, localKey)) {
+            messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_FAILED);
+        }
 
         // Clear the input
         etMessage.setText("");
@@ -376,12 +376,23 @@ public class GroupChatActivity extends AppCompatActivity implements
         }, 1000);
     }
 
-    private void scrollToBottom() {
-        if (messageAdapter.getItemCount() > 0) {
-            rvMessages.smoothScrollToPosition(messageAdapter.getItemCount() - 1);
+    // A failed message was tapped: send it again, keeping its place in the list
+    private void retrySend(ChatMessage message) {
+        if (!webSocketManager.isConnected()) {
+            showError("Not connected to chat server");
+            return;
+        }
+        String localKey = message.getLocalKey();
+        messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_PENDING);
+        if (!webSocketManager.sendMessage(chatRoomId, message.getContent(), localKey)) {
+            messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_FAILED);
         }
     }
 
+    private void scrollToBottom() {
+        scrollCoordinator.scrollToBottom();
+    }
+
     private void updateConnectionStatus(String status) {
         tvConnectionStatus.setText(status);
         switch (status) {
@@ -422,30 +433,11 @@ public class GroupChatActivity extends AppCompatActivity implements
     // WebSocketChatManager.ChatMessageListener implementation
     @Override
     public void onMessageReceived(ChatMessage message) {
-        // Prevent duplicate messages
-        if (message.getId() != null && receivedMessageIds.contains(message.getId())) {
-            Log.d(TAG, "Duplicate message received, ignoring: " + message.getId());
-            return;
-        }
-
-        // Add to received set
-        if (message.getId() != null) {
-            receivedMessageIds.add(message.getId());
+        // Redeliveries were already dropped by the engine's per-room dedupe
+        MessageCache.getInstance().append(message.getChatRoomId() != null ? message.getChatRoomId() : chatRoomId, message);
 
-            // Keep only last 1000 message IDs to prevent memory issues
-            if (receivedMessageIds.size() > 1000) {
-                Iterator<Long> iterator = receivedMessageIds.iterator();
-                for (int i = 0; i < 500 && iterator.hasNext(); i++) {
-                    iterator.next();
-                    iterator.remove();
-                }
-            }
-        }
-
-        runOnUiThread(() -> {
-            messageAdapter.addMessage(message);
-            scrollToBottom();
-        });
+        // The scroll coordinator follows the insert (or counts it while the user reads history)
+        runOnUiThread(() -> messageAdapter.addMessage(message));
     }
 
     @Override
@@ -499,6 +491,16 @@ public class GroupChatActivity extends AppCompatActivity implements
         runOnUiThread(() -> showError("Chat error: " + error));
     }
 
+    @Override
+    public void onMessageSent(String localKey) {
+        runOnUiThread(() -> messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_SENT));
+    }
+
+    @Override
+    public void onMessageFailed(String localKey) {
+        runOnUiThread(() -> messageAdapter.updateMessageStatus(localKey, Constants.MESSAGE_STATUS_FAILED));
+    }
+
     // WebSocketChatManager.ConnectionListener implementation
     @Override
     public void onConnected() {
@@ -522,14 +524,25 @@ public class GroupChatActivity extends AppCompatActivity implements
     @Override
     protected void onResume() {
         super.onResume();
+        frameMonitor.start();
+        // The screen may have been left open, or in the background, past midnight
+        messageAdapter.refreshDayLabels();
+        scheduleDayRollover();
         if (!webSocketManager.isConnected()) {
             webSocketManager.connect();
         }
     }
 
+    private void scheduleDayRollover() {
+        dayHandler.removeCallbacks(dayRollover);
+        dayHandler.postDelayed(dayRollover, TimestampCodec.millisUntilNextDay(System.currentTimeMillis()));
+    }
+
     @Override
     protected void onPause() {
         super.onPause();
+        frameMonitor.stop();
+        dayHandler.removeCallbacks(dayRollover);
         // Stop typing indicator when leaving
         stopTyping();
     }
@@ -17,6 +17,7 @@ import com.project.realtimechatui.api.models.BaseDTO;
 import com.project.realtimechatui.api.models.LoginRequest;
 import com.project.realtimechatui.api.models.LoginResponse;
 import com.project.realtimechatui.api.models.User;
+import com.project.realtimechatui.bootstrap.SessionBootstrap;
 import com.project.realtimechatui.databinding.ActivityLoginBinding;
 import com.project.realtimechatui.utils.SharedPrefManager;
 
@@ -112,6 +113,9 @@ public class LoginActivity extends AppCompatActivity {
                                 user
                         );
 
+                        // Connect and warm caches while MainActivity is starting
+                        SessionBootstrap.getInstance().start();
+
                         Toast.makeText(LoginActivity.this, "Login successful", Toast.LENGTH_SHORT).show();
                         navigateToMain();
                     } else {
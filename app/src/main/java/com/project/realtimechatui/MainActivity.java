@@ -27,17 +27,29 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
+import com.project.realtimechatui.adapters.ChatViewPool;
 import com.project.realtimechatui.adapters.UserListAdapter;
 import com.project.realtimechatui.adapters.UserSuggestionAdapter;
 import com.project.realtimechatui.api.ApiClient;
 import com.project.realtimechatui.api.ApiService;
+import com.project.realtimechatui.api.UsernameLookup;
 import com.project.realtimechatui.api.models.BaseDTO;
 import com.project.realtimechatui.api.models.ChatRoom;
 import com.project.realtimechatui.api.models.Participant;
 import com.project.realtimechatui.api.models.User;
+import com.project.realtimechatui.bootstrap.SessionBootstrap;
+import com.project.realtimechatui.cache.MessageCache;
+import com.project.realtimechatui.cache.MessagePrefetcher;
+import com.project.realtimechatui.cache.MessageStore;
+import com.project.realtimechatui.cache.PersonalRoomIndex;
+import com.project.realtimechatui.cache.RoomListCache;
 import com.project.realtimechatui.enums.EnumRoomType;
+import com.project.realtimechatui.perf.FrameMonitor;
 import com.project.realtimechatui.utils.AuthDebugHelper;
+import com.project.realtimechatui.utils.Constants;
+import com.project.realtimechatui.utils.MessageDictionary;
 import com.project.realtimechatui.utils.SharedPrefManager;
+import com.project.realtimechatui.websocket.WebSocketChatManager;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -45,6 +57,7 @@ import retrofit2.Response;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -53,18 +66,22 @@ import java.util.Set;
 
 public class MainActivity extends AppCompatActivity implements
         UserListAdapter.OnUserClickListener,
-        UserSuggestionAdapter.OnUserClickListener {
+        UserSuggestionAdapter.OnUserClickListener,
+        RoomListCache.OnRoomListUpdatedListener,
+        WebSocketChatManager.PresenceListener {
 
     private static final String TAG = "MainActivity";
     private EditText etSearch;
-    private ImageView ivClearSearch, ivNewChat;
+    private ImageView ivClearSearch, ivNewChat, ivLogOut;
     private RecyclerView rvChatList;
     private LinearLayout llEmptyState;
     private ProgressBar pbLoading;
 
     private UserListAdapter userListAdapter;
     private UserSuggestionAdapter userSuggestionAdapter;
+    private FrameMonitor frameMonitor;
     private ApiService apiService;
+    private UsernameLookup usernameLookup;
     private SharedPrefManager sharedPrefManager;
 
     private boolean isSearchMode = false;
@@ -97,6 +114,15 @@ public class MainActivity extends AppCompatActivity implements
         setupRecyclerView();
         setupApiService();
         setupSearchFunctionality();
+
+        // No-op when LoginActivity already started it for this user
+        SessionBootstrap.getInstance().start();
+        // Inflate chat bubbles while the list sits idle so the first chat opens without inflating
+        ChatViewPool.getInstance().prewarm(this);
+        RoomListCache.getInstance().addListener(this);
+        // Partners going on or offline in any watched room update their row's online dot
+        WebSocketChatManager.getInstance().setPresenceListener(this);
+
 //        loadParticipants();
         loadChatRooms();
     }
@@ -104,12 +130,30 @@ public class MainActivity extends AppCompatActivity implements
     @Override
     protected void onResume() {
         super.onResume();
+        frameMonitor.start();
         // Refresh chat rooms when returning to this activity
         if (!isSearchMode) {
             loadChatRooms();
         }
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        frameMonitor.stop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        RoomListCache.getInstance().removeListener(this);
+        WebSocketChatManager.getInstance().setPresenceListener(null);
+        WebSocketChatManager.getInstance().watchPresence(Collections.emptyList());
+        if (usernameLookup != null) {
+            usernameLookup.cancel();
+        }
+    }
+
     private void redirectToLogin() {
         Toast.makeText(this, "Please login first", Toast.LENGTH_LONG).show();
         finish();
@@ -119,6 +163,7 @@ public class MainActivity extends AppCompatActivity implements
         etSearch = findViewById(R.id.etSearch);
         ivClearSearch = findViewById(R.id.ivClearSearch);
         ivNewChat = findViewById(R.id.ivNewChat);
+        ivLogOut = findViewById(R.id.ivLogOut);
         rvChatList = findViewById(R.id.rvChatList);
         llEmptyState = findViewById(R.id.llEmptyState);
         pbLoading = findViewById(R.id.pbLoading);
@@ -130,10 +175,17 @@ public class MainActivity extends AppCompatActivity implements
 
         rvChatList.setLayoutManager(new LinearLayoutManager(this));
         rvChatList.setAdapter(userListAdapter); // Default adapter
+        rvChatList.addOnScrollListener(MessagePrefetcher.getInstance().getScrollListener());
+        rvChatList.addOnScrollListener(userListAdapter.createImagePreloader());
+        frameMonitor = new FrameMonitor(this, "rooms");
+        frameMonitor.track(rvChatList);
+        frameMonitor.trackUpdates(userListAdapter);
+        frameMonitor.trackUpdates(userSuggestionAdapter);
     }
 
     private void setupApiService() {
         apiService = ApiClient.getApiService();
+        usernameLookup = new UsernameLookup(apiService);
     }
 
     private void setupSearchFunctionality() {
@@ -164,12 +216,16 @@ public class MainActivity extends AppCompatActivity implements
                     // Filter existing users
                     userSuggestionAdapter.filter(query);
 
-                    // If searching for specific username with @, also search via API
+                    // If searching for specific username with @, also search via API (debounced)
                     if (query.startsWith("@") && query.length() > 1) {
                         String username = query.substring(1);
                         searchUserByUsername(username);
+                    } else {
+                        usernameLookup.cancel();
                     }
                 } else {
+                    usernameLookup.cancel();
+
                     // Switch back to participant list mode
                     if (isSearchMode) {
                         isSearchMode = false;
@@ -186,6 +242,7 @@ public class MainActivity extends AppCompatActivity implements
         ivClearSearch.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                usernameLookup.cancel();
                 etSearch.setText("");
                 etSearch.clearFocus();
                 // Switch back to participant list
@@ -213,6 +270,18 @@ public class MainActivity extends AppCompatActivity implements
                         .show();
             }
         });
+
+        ivLogOut.setOnClickListener(v -> new AlertDialog.Builder(MainActivity.this)
+                .setMessage(R.string.log_out_confirm)
+                .setPositiveButton(R.string.log_out, (dialog, which) -> logOut())
+                .setNegativeButton(android.R.string.cancel, null)
+                .show());
+
+        // Hidden way into the metrics screen, in every build so production latency can be read off a device
+        ivNewChat.setOnLongClickListener(v -> {
+            startActivity(new Intent(MainActivity.this, MetricsActivity.class));
+            return true;
+        });
     }
 
 //    private void startPersonalChatMode() {
@@ -257,6 +326,8 @@ public class MainActivity extends AppCompatActivity implements
         rvUserList.setLayoutManager(new LinearLayoutManager(this));
         rvUserList.setAdapter(adapter);
 
+        UsernameLookup dialogLookup = new UsernameLookup(apiService);
+
         // Create dialog
         AlertDialog groupDialog = new AlertDialog.Builder(this)
 //                .setTitle("Create Group Chat")
@@ -267,6 +338,7 @@ public class MainActivity extends AppCompatActivity implements
 
         // Handle back button click
         btnBack.setOnClickListener(v -> groupDialog.dismiss());
+        groupDialog.setOnDismissListener(d -> dialogLookup.cancel());
 
         groupDialog.setOnShowListener(d -> {
             Button btnCreate = groupDialog.getButton(AlertDialog.BUTTON_POSITIVE);
@@ -335,8 +407,10 @@ public class MainActivity extends AppCompatActivity implements
                 String query = s.toString().trim();
                 if (!TextUtils.isEmpty(query)) {
                     // Search users when user types
-                    searchUsersForGroupDialog(query, adapter);
+                    searchUsersForGroupDialog(query, adapter, dialogLookup);
                 } else {
+                    dialogLookup.cancel();
+
                     // Show all users when search is empty
                     if (userSuggestionAdapter != null && userSuggestionAdapter.users != null) {
                         adapter.setUsers(userSuggestionAdapter.users);
@@ -510,41 +584,34 @@ public class MainActivity extends AppCompatActivity implements
     }
 
     // Modified method to search users specifically for group dialog
-    private void searchUsersForGroupDialog(String query, UserSuggestionAdapter adapter) {
+    private void searchUsersForGroupDialog(String query, UserSuggestionAdapter adapter, UsernameLookup lookup) {
         // If query looks like a username (starts with @ or is a simple string), search by username
         String searchQuery = query.startsWith("@") ? query.substring(1) : query;
 
         // First, filter existing users
         adapter.filter(query);
 
-        // Then, if the query looks like a username, also search the API
+        // Then, if the query looks like a username, also search the API once typing pauses
         if (searchQuery.length() >= 2) { // Only search if query has at least 2 characters
-            Call<BaseDTO<User>> call = apiService.getUserByUsername(searchQuery);
-            call.enqueue(new Callback<BaseDTO<User>>() {
+            lookup.lookup(searchQuery, new UsernameLookup.OnLookupListener() {
                 @Override
-                public void onResponse(Call<BaseDTO<User>> call, Response<BaseDTO<User>> response) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        BaseDTO<User> result = response.body();
-                        if (result.isSuccess() && result.getData() != null) {
-                            User foundUser = result.getData();
-                            Long currentUserId = sharedPrefManager.getId();
-                            if (currentUserId == null || !foundUser.getId().equals(currentUserId)) {
-                                runOnUiThread(() -> {
-                                    // Add the found user to the adapter
-                                    adapter.addUser(foundUser);
-                                    Log.d(TAG, "Added user to group dialog: " + foundUser.getUsername());
-                                });
-                            }
-                        }
+                public void onUserFound(User foundUser) {
+                    Long currentUserId = sharedPrefManager.getId();
+                    if (currentUserId == null || !foundUser.getId().equals(currentUserId)) {
+                        // Add the found user to the adapter
+                        adapter.addUser(foundUser);
+                        Log.d(TAG, "Added user to group dialog: " + foundUser.getUsername());
                     }
                 }
 
                 @Override
-                public void onFailure(Call<BaseDTO<User>> call, Throwable t) {
+                public void onLookupFailed(String username, Throwable t) {
                     Log.e(TAG, "Search by username failed in group dialog", t);
                     // Don't show error toast for search failures in group dialog
                 }
             });
+        } else {
+            lookup.cancel();
         }
     }
 
@@ -601,14 +668,29 @@ public class MainActivity extends AppCompatActivity implements
 
     // Updated method to load chat rooms instead of participants
     private void loadChatRooms() {
-        showLoading(true);
-
         Long currentUserId = sharedPrefManager.getId();
         if (currentUserId == null || currentUserId == -1L) {
             showError("User ID not found");
             return;
         }
 
+        // Show whatever we already have right away, then refresh in the background
+        RoomListCache roomListCache = RoomListCache.getInstance();
+        List<ChatRoom> cachedRooms = roomListCache.get();
+        if (cachedRooms != null) {
+            onRoomListUpdated(cachedRooms);
+        }
+
+        // Just fetched (or being fetched) by the post-login bootstrap - the listener will deliver it
+        if (roomListCache.isFresh(Constants.ROOM_LIST_FRESH_MS) || SessionBootstrap.getInstance().isLoadingRooms()) {
+            if (cachedRooms == null) {
+                showLoading(true);
+            }
+            return;
+        }
+
+        showLoading(cachedRooms == null);
+
         Call<BaseDTO<List<ChatRoom>>> call = apiService.getChatRoomsByUserId(currentUserId);
         call.enqueue(new Callback<BaseDTO<List<ChatRoom>>>() {
             @Override
@@ -621,13 +703,10 @@ public class MainActivity extends AppCompatActivity implements
                         List<ChatRoom> chatRooms = result.getData();
 
                         Log.d(TAG, "Loaded " + chatRooms.size() + " chat rooms");
-                        for (ChatRoom room : chatRooms) {
-                            Log.d(TAG, "Chat room: " + room.getName() +
-                                    " (" + room.getType() + "), Last message: " + room.getLastMessageContent());
-                        }
 
-                        userListAdapter.setChatRooms(chatRooms);
-                        updateUIState();
+                        // Listeners (this activity included) re-render from the cache, and the
+                        // personal room index is refreshed so chats started from search open instantly
+                        roomListCache.put(chatRooms, currentUserId);
                     } else {
                         showError("Failed to load chat rooms: " + result.getMessage());
                     }
@@ -649,6 +728,36 @@ public class MainActivity extends AppCompatActivity implements
         });
     }
 
+    @Override
+    public void onRoomListUpdated(List<ChatRoom> chatRooms) {
+        showLoading(false);
+        // Rows are built off the main thread; the empty state follows once they are showing
+        userListAdapter.setChatRooms(chatRooms, this::updateUIState);
+        watchPresence(chatRooms);
+
+        // Rooms already cached or queued are skipped, so repeated updates are cheap
+        MessagePrefetcher.getInstance().prefetch(chatRooms, sharedPrefManager.getId());
+    }
+
+    // Online dots belong to personal rooms; their status topics are watched even while no chat is open
+    private void watchPresence(List<ChatRoom> chatRooms) {
+        List<Long> personalRoomIds = new ArrayList<>();
+        for (ChatRoom chatRoom : chatRooms) {
+            if (chatRoom.getType() == EnumRoomType.PERSONAL && chatRoom.getId() != null) {
+                personalRoomIds.add(chatRoom.getId());
+            }
+        }
+        WebSocketChatManager.getInstance().watchPresence(personalRoomIds);
+    }
+
+    // Main thread, from the watched personal rooms and the room that is open
+    @Override
+    public void onUserStatusChanged(Long userId, boolean isOnline) {
+        if (userListAdapter != null) {
+            userListAdapter.updatePresence(userId, isOnline);
+        }
+    }
+
     // Load all users for search functionality
     // This is used when user wants to start a new chat
     private void loadAllUsersForSearch() {
@@ -677,44 +786,30 @@ public class MainActivity extends AppCompatActivity implements
         });
     }
 
+    // Debounced: only the username typed last is requested, superseded requests are cancelled
     private void searchUserByUsername(String username) {
-        Call<BaseDTO<User>> call = apiService.getUserByUsername(username);
-        call.enqueue(new Callback<BaseDTO<User>>() {
+        usernameLookup.lookup(username, new UsernameLookup.OnLookupListener() {
             @Override
-            public void onResponse(Call<BaseDTO<User>> call, Response<BaseDTO<User>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    BaseDTO<User> result = response.body();
-                    if (result.isSuccess() && result.getData() != null) {
-                        User foundUser = result.getData();
-                        Long currentUserId = sharedPrefManager.getId();
-                        if (currentUserId == null || !foundUser.getId().equals(currentUserId)) {
-                            // Run on UI thread to ensure proper updates
-                            runOnUiThread(() -> {
-                                // Show toast notification
-                                Toast.makeText(MainActivity.this, "User found: @" + foundUser.getUsername(), Toast.LENGTH_SHORT).show();
-
-                                // Add the found user to search results
-                                userSuggestionAdapter.addUser(foundUser);
-
-                                // Ensure we're in search mode and UI is visible
-                                if (isSearchMode) {
-                                    llEmptyState.setVisibility(View.GONE);
-                                    rvChatList.setVisibility(View.VISIBLE);
-                                }
-
-                                Log.d(TAG, "Added user to search results: " + foundUser.getUsername());
-                            });
-                        }
+            public void onUserFound(User foundUser) {
+                Long currentUserId = sharedPrefManager.getId();
+                if (currentUserId == null || !foundUser.getId().equals(currentUserId)) {
+                    // Add the found user to search results
+                    userSuggestionAdapter.addUser(foundUser);
+
+                    // Ensure we're in search mode and UI is visible
+                    if (isSearchMode) {
+                        llEmptyState.setVisibility(View.GONE);
+                        rvChatList.setVisibility(View.VISIBLE);
                     }
+
+                    Log.d(TAG, "Added user to search results: " + foundUser.getUsername());
                 }
             }
 
             @Override
-            public void onFailure(Call<BaseDTO<User>> call, Throwable t) {
+            public void onLookupFailed(String username, Throwable t) {
                 Log.e(TAG, "Search by username failed", t);
-                runOnUiThread(() -> {
-                    Toast.makeText(MainActivity.this, "Search failed: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+                Toast.makeText(MainActivity.this, "Search failed: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -742,10 +837,31 @@ public class MainActivity extends AppCompatActivity implements
     }
 
     private void handleUnauthorized() {
-        sharedPrefManager.clearAuthData();
+        signOut();
         redirectToLogin();
     }
 
+    private void logOut() {
+        signOut();
+        Intent intent = new Intent(this, LoginActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        startActivity(intent);
+        finish();
+    }
+
+    // Drops the session and everything cached for it, so the next login starts clean
+    private void signOut() {
+        WebSocketChatManager.getInstance().disconnect();
+        sharedPrefManager.clearAuthData();
+        PersonalRoomIndex.getInstance().clear();
+        RoomListCache.getInstance().clear();
+        MessagePrefetcher.getInstance().cancel();
+        MessageCache.getInstance().clear();
+        MessageStore.getInstance().clear();
+        SessionBootstrap.getInstance().reset();
+        MessageDictionary.getInstance().clear();
+    }
+
     // UserListAdapter click listener (for participants)
     @Override
     public void onUserClick(ChatRoom chatRoom, Participant otherParticipant) {
@@ -0,0 +1,106 @@
+package com.project.realtimechatui;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.activity.EdgeToEdge;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+
+import com.project.realtimechatui.databinding.ActivityMetricsBinding;
+import com.project.realtimechatui.metrics.Metrics;
+import com.project.realtimechatui.perf.MainThreadWatchdog;
+
+import java.util.List;
+
+// Live view of the in-process metrics: socket lifecycle, frame stages, adapter inserts, REST calls,
+// the outbox, frame times and main-thread stalls with their stacks. Share sends it all as text
+// and writes it to the log.
+public class MetricsActivity extends AppCompatActivity {
+    private static final String TAG = "MetricsActivity";
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
+    private ActivityMetricsBinding binding;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            binding.tvMetrics.setText(report());
+            mainHandler.postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+
+        binding = ActivityMetricsBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+        ViewCompat.setOnApplyWindowInsetsListener(binding.metrics, (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        binding.btnBack.setOnClickListener(v -> finish());
+        binding.btnReset.setOnClickListener(v -> {
+            Metrics.getInstance().reset();
+            binding.tvMetrics.setText(report());
+        });
+        binding.btnShare.setOnClickListener(v -> shareSnapshot());
+        // Off by default in release builds; the choice here lasts until the process ends
+        binding.btnWatchdog.setOnClickListener(v -> {
+            MainThreadWatchdog watchdog = MainThreadWatchdog.getInstance();
+            if (watchdog.isRunning()) {
+                watchdog.stop();
+            } else {
+                watchdog.start();
+            }
+            updateWatchdogButton();
+        });
+        updateWatchdogButton();
+    }
+
+    private void updateWatchdogButton() {
+        binding.btnWatchdog.setText(MainThreadWatchdog.getInstance().isRunning()
+                ? R.string.metrics_stop_watching : R.string.metrics_watch_stalls);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mainHandler.post(refresh);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mainHandler.removeCallbacks(refresh);
+    }
+
+    private String report() {
+        StringBuilder builder = new StringBuilder(Metrics.getInstance().snapshot().dump());
+        List<MainThreadWatchdog.Stall> stalls = MainThreadWatchdog.getInstance().getRecentStalls();
+        for (int i = stalls.size() - 1; i >= 0; i--) {
+            builder.append('\n').append(stalls.get(i).format());
+        }
+        return builder.toString();
+    }
+
+    private void shareSnapshot() {
+        String dump = report();
+        Log.d(TAG, "Metrics snapshot\n" + dump);
+
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/plain");
+        intent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.app_name) + " metrics");
+        intent.putExtra(Intent.EXTRA_TEXT, dump);
+        startActivity(Intent.createChooser(intent, getString(R.string.metrics_share)));
+    }
+}
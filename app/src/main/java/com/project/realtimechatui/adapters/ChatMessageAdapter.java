@@ -3,6 +3,9 @@ package com.project.realtimechatui.adapters;
 import android.content.Context;
 import android.graphics.Color;
 import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -10,49 +13,213 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.project.realtimechatui.R;
 import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.images.ImageLoader;
+import com.project.realtimechatui.images.ImagePreloadScrollListener;
+import com.project.realtimechatui.metrics.Gauge;
+import com.project.realtimechatui.metrics.Histogram;
+import com.project.realtimechatui.metrics.Metrics;
 import com.project.realtimechatui.utils.Constants;
 import com.project.realtimechatui.utils.SharedPrefManager;
+import com.project.realtimechatui.utils.TimestampCodec;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
-public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<String> {
 
-    private static final int VIEW_TYPE_MESSAGE_SENT = 1;
-    private static final int VIEW_TYPE_MESSAGE_RECEIVED = 2;
-    private static final int VIEW_TYPE_MESSAGE_SYSTEM = 3;
+    // Shared with ChatViewPool, which keeps holders of these types across screens
+    static final int VIEW_TYPE_MESSAGE_SENT = 1;
+    static final int VIEW_TYPE_MESSAGE_RECEIVED = 2;
+    static final int VIEW_TYPE_MESSAGE_SYSTEM = 3;
+    // Stands in for a message dropped from the window; not pooled across screens
+    private static final int VIEW_TYPE_PLACEHOLDER = 4;
+
+    // Placeholder row IDs start here, above every local-echo ID and far below the day separators
+    private static final long PLACEHOLDER_ID_BASE = Long.MIN_VALUE / 2;
+
+    // addMessage() to the row being in the list, and frame arrival to the same point
+    private static final Histogram INSERT_TIME = Metrics.getInstance().histogram("adapter.insert");
+    private static final Histogram RECEIVE_TO_INSERT_TIME = Metrics.getInstance().histogram("message.receive_to_insert");
+    private static final Histogram DIFF_TIME = Metrics.getInstance().histogram("adapter.diff");
+    private static final Gauge RESIDENT_MESSAGES = Metrics.getInstance().gauge("adapter.resident_messages");
+
+    // Live messages may run this far over the resident budget before the oldest are trimmed,
+    // so the list is rebuilt once per batch rather than on every message
+    private static final int TRIM_SLACK = 100;
+
+    // With a message source, messages kept either side of the viewport. A side is trimmed once it
+    // holds a page more than this, and a page is read back once the viewport comes within
+    // WINDOW_PREFETCH_ROWS of a window edge.
+    private static final int WINDOW_PAGE = Constants.MESSAGE_PAGE_SIZE;
+    private static final int WINDOW_MARGIN = Constants.MESSAGE_PAGE_SIZE * Constants.MESSAGE_WINDOW_PAGES;
+    private static final int WINDOW_PREFETCH_ROWS = Constants.MESSAGE_PAGE_SIZE / 2;
+
+    // Partial rebinds for single-row changes
+    private static final String PAYLOAD_CONTENT = "content";
+    private static final String PAYLOAD_STATUS = "status";
+
+    // Sorting, merging and diffing all happen here, in submission order
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "message-diff");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final DiffUtil.ItemCallback<ChatMessage> DIFF_CALLBACK = new DiffUtil.ItemCallback<ChatMessage>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ChatMessage oldItem, @NonNull ChatMessage newItem) {
+            return oldItem.getStableId() == newItem.getStableId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ChatMessage oldItem, @NonNull ChatMessage newItem) {
+            return TextUtils.equals(oldItem.getContent(), newItem.getContent()) &&
+                    oldItem.getTimestampMillis() == newItem.getTimestampMillis() &&
+                    TextUtils.equals(oldItem.getSenderName(), newItem.getSenderName()) &&
+                    TextUtils.equals(oldItem.getType(), newItem.getType()) &&
+                    oldItem.isEdited() == newItem.isEdited() &&
+                    oldItem.isDeleted() == newItem.isDeleted() &&
+                    oldItem.isGroupedWithPrevious() == newItem.isGroupedWithPrevious() &&
+                    TextUtils.equals(oldItem.getStatus(), newItem.getStatus()) &&
+                    oldItem.hasSameSender(newItem) &&
+                    Objects.equals(oldItem.getAttachmentUrls(), newItem.getAttachmentUrls());
+        }
+
+        // Patches change either a message's body or its status, which rebind just that part
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull ChatMessage oldItem, @NonNull ChatMessage newItem) {
+            boolean sameRow = oldItem.getTimestampMillis() == newItem.getTimestampMillis() &&
+                    TextUtils.equals(oldItem.getSenderName(), newItem.getSenderName()) &&
+                    TextUtils.equals(oldItem.getType(), newItem.getType()) &&
+                    oldItem.isGroupedWithPrevious() == newItem.isGroupedWithPrevious() &&
+                    oldItem.hasSameSender(newItem);
+            if (!sameRow) {
+                return null;
+            }
+            boolean sameBody = TextUtils.equals(oldItem.getContent(), newItem.getContent()) &&
+                    oldItem.isEdited() == newItem.isEdited() &&
+                    oldItem.isDeleted() == newItem.isDeleted() &&
+                    Objects.equals(oldItem.getAttachmentUrls(), newItem.getAttachmentUrls());
+            if (sameBody) {
+                return PAYLOAD_STATUS;
+            }
+            return TextUtils.equals(oldItem.getStatus(), newItem.getStatus()) ? PAYLOAD_CONTENT : null;
+        }
+    };
+
+    /**
+     * Where a windowed adapter keeps the messages it drops and reads them back from. Called on a
+     * background thread; callbacks may come on any thread.
+     */
+    public interface MessageSource {
+        // Everything the list takes in goes here: a whole new list, later additions, and edits
+        void replace(List<ChatMessage> messages);
+        void save(List<ChatMessage> messages);
+        void patch(Long messageId, Consumer<ChatMessage> patch);
+
+        // Up to limit messages just before the anchor (the newest when it is null) or just after
+        // it, oldest first. Fewer than limit means there are no more; null means they could not
+        // be loaded right now.
+        void loadBefore(@Nullable ChatMessage anchor, int limit, Consumer<List<ChatMessage>> callback);
+        void loadAfter(ChatMessage anchor, int limit, Consumer<List<ChatMessage>> callback);
+    }
+
+    // Tapping a local echo whose send failed
+    public interface OnRetryListener {
+        void onRetry(ChatMessage message);
+    }
 
     private Context context;
-    private List<ChatMessage> messages;
     private SharedPrefManager sharedPrefManager;
-    private SimpleDateFormat timeFormat;
 
-    private Set<Long> messageIds = new HashSet<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MessageTextCache textCache = new MessageTextCache();
+    // Created on first use, so ChatViewPool's holder factory never starts Glide
+    private RequestManager requestManager;
+    private final int attachmentWidthPx;
+    private final int attachmentHeightPx;
+
+    // Owned by DIFF_EXECUTOR: the messages (oldest first) and the rows built from them, as they will
+    // look once every queued change is applied. The timeline adds a day separator row before the
+    // first message of each day; section flags are derived here so binding never has to.
+    private final List<ChatMessage> workingMessages = new ArrayList<>();
+    private final List<ChatMessage> timeline = new ArrayList<>();
+    private final Set<Long> messageIds = new HashSet<>();
+    private final MessagePositionIndex positions = new MessagePositionIndex(workingMessages, timeline);
+    // Owned by DIFF_EXECUTOR: the rows as last handed to the main thread, which the next diff starts from
+    private List<ChatMessage> dispatched = new ArrayList<>();
+    // Owned by DIFF_EXECUTOR: the local day the separators' Today/Yesterday labels were worked out on
+    private long labelledDay;
+    // Owned by DIFF_EXECUTOR: local echoes of the user's sends, oldest first, until the server's copy
+    // arrives. Not in the message source, so they are put back whenever the newest rows are rebuilt.
+    private final List<ChatMessage> pendingEchoes = new ArrayList<>();
+
+    // Owned by DIFF_EXECUTOR: the window over a long conversation. Placeholder rows stand in for
+    // the messages dropped above and below the resident ones, so no row ever changes position when
+    // a page is dropped or read back. headContext is the message just before the first resident
+    // one, so that message keeps its separator and grouping. Viewport rows are timeline indices
+    // and may fall outside it, into the placeholders.
+    private volatile MessageSource messageSource;
+    private int workingLeading = 0;
+    private int workingTrailing = 0;
+    private ChatMessage headContext;
+    private boolean olderExhausted = false;
+    private boolean newerDetached = false; // the newest messages are only in the source
+    private boolean loadingOlder = false;
+    private boolean loadingNewer = false;
+    private int skippedWhileLoadingNewer = 0;
+    private boolean viewportKnown = false;
+    private int viewFirst = 0;
+    private int viewLast = 0;
+    private int windowGeneration = 0; // loads started before a reset are ignored
+
+    // Main thread only. shown is the resident rows on screen: replaced by each diffed list, and
+    // changed in place by single-row updates
+    private List<ChatMessage> shown = new ArrayList<>();
+    private OnRetryListener retryListener;
+    private final WindowUpdateCallback window = new WindowUpdateCallback();
+    private int reportedFirst = RecyclerView.NO_POSITION;
+    private int reportedLast = RecyclerView.NO_POSITION;
 
     public ChatMessageAdapter(Context context) {
         this.context = context;
-        this.messages = new ArrayList<>();
         this.sharedPrefManager = SharedPrefManager.getInstance();
-        this.timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+        this.attachmentWidthPx = context.getResources().getDimensionPixelSize(R.dimen.attachment_preview_width);
+        this.attachmentHeightPx = context.getResources().getDimensionPixelSize(R.dimen.attachment_preview_height);
+        setHasStableIds(true);
     }
 
     @Override
     public int getItemViewType(int position) {
-        ChatMessage message = messages.get(position);
+        ChatMessage message = getMessage(position);
 
-        if (message.isSystemMessage() || isDateSeparator(message)) {
+        if (message == null) {
+            return VIEW_TYPE_PLACEHOLDER;
+        } else if (message.isSystemMessage()) {
             return VIEW_TYPE_MESSAGE_SYSTEM;
         } else if (message.isFromCurrentUser(sharedPrefManager.getId())) {
             return VIEW_TYPE_MESSAGE_SENT;
@@ -61,201 +228,1131 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
         }
     }
 
+    @Override
+    public long getItemId(int position) {
+        ChatMessage message = getMessage(position);
+        if (message != null) {
+            return message.getStableId();
+        }
+        // Numbered outwards from the resident rows: even above them, odd below
+        return position < window.leading
+                ? PLACEHOLDER_ID_BASE + 2L * (window.leading - 1 - position)
+                : PLACEHOLDER_ID_BASE + 2L * (position - window.leading - shown.size()) + 1;
+    }
+
     @NonNull
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        LayoutInflater inflater = LayoutInflater.from(context);
+        // Pooled views outlive this screen, so they are inflated from the pool's context, not the activity
+        LayoutInflater inflater = LayoutInflater.from(ChatViewPool.getInstance().viewContext(context));
 
         switch (viewType) {
             case VIEW_TYPE_MESSAGE_SENT:
-                return new SentMessageViewHolder(inflater.inflate(R.layout.item_message_sent, parent, false));
+                SentMessageViewHolder sentHolder = new SentMessageViewHolder(inflater.inflate(R.layout.item_message_sent, parent, false));
+                learnTextParams(true, sentHolder.tvMessageContent);
+                return sentHolder;
             case VIEW_TYPE_MESSAGE_RECEIVED:
-                return new ReceivedMessageViewHolder(inflater.inflate(R.layout.item_message_received, parent, false));
+                ReceivedMessageViewHolder receivedHolder = new ReceivedMessageViewHolder(inflater.inflate(R.layout.item_message_received, parent, false));
+                learnTextParams(false, receivedHolder.tvMessageContent);
+                return receivedHolder;
             case VIEW_TYPE_MESSAGE_SYSTEM:
                 return new SystemMessageViewHolder(inflater.inflate(R.layout.item_message_system, parent, false));
+            case VIEW_TYPE_PLACEHOLDER:
+                return new PlaceholderViewHolder(inflater.inflate(R.layout.item_message_placeholder, parent, false));
             default:
                 throw new IllegalArgumentException("Unknown view type: " + viewType);
         }
     }
 
+    // The first bubble of each kind tells us which metrics to precompute for; catch up on what's loaded
+    private void learnTextParams(boolean sent, TextView textView) {
+        if (!textCache.hasParams(sent)) {
+            textCache.setParams(sent, textView);
+            textCache.precompute(new ArrayList<>(shown), sharedPrefManager.getId());
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        ChatMessage message = messages.get(position);
+        ChatMessage message = getMessage(position);
+        if (message == null) {
+            // Placeholders have nothing to show until their message is read back
+            return;
+        }
+
+        Trace.beginSection("ChatMessageAdapter.bind");
+        try {
+            switch (holder.getItemViewType()) {
+                case VIEW_TYPE_MESSAGE_SENT:
+                    SentMessageViewHolder sentHolder = (SentMessageViewHolder) holder;
+                    sentHolder.bind(this, message);
+                    bindAttachment(message, sentHolder.ivAttachment, sentHolder.tvAttachment);
+                    break;
+                case VIEW_TYPE_MESSAGE_RECEIVED:
+                    ReceivedMessageViewHolder receivedHolder = (ReceivedMessageViewHolder) holder;
+                    receivedHolder.bind(this, message);
+                    bindAttachment(message, receivedHolder.ivAttachment, receivedHolder.tvAttachment);
+                    break;
+                case VIEW_TYPE_MESSAGE_SYSTEM:
+                    ((SystemMessageViewHolder) holder).bind(message, message.isDaySeparator());
+                    break;
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        ChatMessage message = getMessage(position);
+        if (message == null) {
+            return;
+        }
+        boolean content = payloads.contains(PAYLOAD_CONTENT);
+        boolean status = payloads.contains(PAYLOAD_STATUS);
 
         switch (holder.getItemViewType()) {
             case VIEW_TYPE_MESSAGE_SENT:
-                ((SentMessageViewHolder) holder).bind(message);
+                SentMessageViewHolder sentHolder = (SentMessageViewHolder) holder;
+                if (content) {
+                    sentHolder.bindContent(this, message);
+                    bindAttachment(message, sentHolder.ivAttachment, sentHolder.tvAttachment);
+                }
+                if (status) sentHolder.bindStatus(message);
                 break;
             case VIEW_TYPE_MESSAGE_RECEIVED:
-                ((ReceivedMessageViewHolder) holder).bind(message);
+                if (content) {
+                    ReceivedMessageViewHolder receivedHolder = (ReceivedMessageViewHolder) holder;
+                    receivedHolder.bindContent(this, message);
+                    bindAttachment(message, receivedHolder.ivAttachment, receivedHolder.tvAttachment);
+                }
                 break;
-            case VIEW_TYPE_MESSAGE_SYSTEM:
-                ((SystemMessageViewHolder) holder).bind(message, isDateSeparator(message));
+            default:
+                onBindViewHolder(holder, position);
                 break;
         }
     }
 
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        // Stop loading attachments for rows that are no longer shown
+        if (holder instanceof SentMessageViewHolder) {
+            ImageLoader.clear(getRequestManager(), ((SentMessageViewHolder) holder).ivAttachment);
+        } else if (holder instanceof ReceivedMessageViewHolder) {
+            ImageLoader.clear(getRequestManager(), ((ReceivedMessageViewHolder) holder).ivAttachment);
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return messages.size();
+        return window.leading + shown.size() + window.trailing;
+    }
+
+    // Add to the chat's RecyclerView to load images of the messages about to scroll into view
+    public RecyclerView.OnScrollListener createImagePreloader() {
+        return new ImagePreloadScrollListener<>(getRequestManager(), this,
+                new FixedPreloadSizeProvider<>(attachmentWidthPx, attachmentHeightPx));
+    }
+
+    // Backs the list with a source so only a window around the viewport stays in memory. Set it
+    // before the first list for a room is submitted.
+    public void setMessageSource(MessageSource source) {
+        this.messageSource = source;
+    }
+
+    // Add to the chat's RecyclerView so the window follows the viewport
+    public RecyclerView.OnScrollListener createWindowScrollListener(LinearLayoutManager layoutManager) {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Also called after layouts that change what is visible, e.g. a page read back
+                reportViewport(layoutManager.findFirstVisibleItemPosition(), layoutManager.findLastVisibleItemPosition());
+            }
+        };
+    }
+
+    private void reportViewport(int firstPosition, int lastPosition) {
+        if (firstPosition == RecyclerView.NO_POSITION || messageSource == null) {
+            return;
+        }
+        int first = firstPosition - window.leading;
+        int last = lastPosition - window.leading;
+        if (first == reportedFirst && last == reportedLast) {
+            return;
+        }
+        reportedFirst = first;
+        reportedLast = last;
+        apply(() -> {
+            viewportKnown = true;
+            viewFirst = first;
+            viewLast = last;
+            return updateWindow();
+        }, null);
+    }
+
+    @NonNull
+    @Override
+    public List<String> getPreloadItems(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            return Collections.emptyList();
+        }
+        ChatMessage message = getMessage(position);
+        String url = message != null ? imageAttachmentOf(message) : null;
+        return url != null ? Collections.singletonList(url) : Collections.emptyList();
+    }
+
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String url) {
+        return ImageLoader.attachment(getRequestManager(), url, attachmentWidthPx, attachmentHeightPx);
+    }
+
+    // Tied to the chat screen's lifecycle: loads pause when it stops and are cancelled when it's destroyed
+    private RequestManager getRequestManager() {
+        if (requestManager == null) {
+            requestManager = Glide.with(context);
+        }
+        return requestManager;
+    }
+
+    // Runs on the adapter that binds the row rather than inside the holder: pooled holders may have
+    // been created by another adapter, and image loads must follow this screen's lifecycle
+    private void bindAttachment(ChatMessage message, ImageView ivAttachment, TextView tvAttachment) {
+        String imageUrl = imageAttachmentOf(message);
+        if (imageUrl != null) {
+            ivAttachment.setVisibility(View.VISIBLE);
+            ImageLoader.attachment(getRequestManager(), imageUrl, attachmentWidthPx, attachmentHeightPx).into(ivAttachment);
+        } else {
+            ImageLoader.clear(getRequestManager(), ivAttachment);
+            ivAttachment.setVisibility(View.GONE);
+        }
+
+        if (!message.isDeleted() && message.hasAttachments()
+                && Constants.MESSAGE_TYPE_FILE.equals(message.getType())) {
+            Iterator<String> urls = message.getAttachmentUrls().iterator();
+            String label = fileNameOf(urls.next());
+            int more = message.getAttachmentUrls().size() - 1;
+            tvAttachment.setText(more > 0 ? label + " +" + more : label);
+            tvAttachment.setVisibility(View.VISIBLE);
+        } else {
+            tvAttachment.setVisibility(View.GONE);
+        }
+    }
+
+    // The image shown in the bubble: the first attachment of a live IMAGE message
+    private static String imageAttachmentOf(ChatMessage message) {
+        if (message.isDeleted() || !message.hasAttachments()
+                || !Constants.MESSAGE_TYPE_IMAGE.equals(message.getType())) {
+            return null;
+        }
+        return message.getAttachmentUrls().iterator().next();
+    }
+
+    private static String fileNameOf(String url) {
+        int end = url.indexOf('?');
+        if (end < 0) {
+            end = url.length();
+        }
+        int start = url.lastIndexOf('/', end - 1) + 1;
+        return start < end ? url.substring(start, end) : url;
     }
 
-    // Public methods for managing messages
+    // Null for a placeholder row
+    private ChatMessage getMessage(int position) {
+        int index = position - window.leading;
+        return index >= 0 && index < shown.size() ? shown.get(index) : null;
+    }
+
+    // False for the virtual day separator rows and placeholders
+    public boolean isMessageAt(int position) {
+        ChatMessage message = getMessage(position);
+        return message != null && !isVirtualRow(message);
+    }
+
+    private static boolean isVirtualRow(ChatMessage row) {
+        return row.hasId() && row.getIdValue() < 0;
+    }
+
+    // The messages currently on screen, oldest first, without the day separator rows or local
+    // echoes, which only this screen knows about
+    public List<ChatMessage> getMessages() {
+        List<ChatMessage> messages = new ArrayList<>(shown.size());
+        for (ChatMessage message : shown) {
+            if (message.hasId() && !isVirtualRow(message)) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    // Public methods for managing messages. Every change is applied on DIFF_EXECUTOR and shows up
+    // once its diff has been dispatched; onCommitted (optional) then runs on the main thread.
+
+    // Replaces the whole list, e.g. after a reload. The caller's list is not modified.
     public void setMessages(List<ChatMessage> messages) {
-        this.messages.clear();
-        messageIds.clear();
-
-        if (messages != null) {
-            Collections.sort(messages, new Comparator<ChatMessage>() {
-                @Override
-                public int compare(ChatMessage m1, ChatMessage m2) {
-                    try {
-                        long time1 = parseTimestamp(m1.getTimestamp());
-                        long time2 = parseTimestamp(m2.getTimestamp());
-                        return Long.compare(time1, time2);
-                    } catch (Exception e) {
-                        return 0;
-                    }
+        setMessages(messages, null);
+    }
+
+    public void setMessages(List<ChatMessage> messages, Runnable onCommitted) {
+        List<ChatMessage> incoming = messages != null ? new ArrayList<>(messages) : new ArrayList<>();
+        // Start laying out text now, in parallel with sorting and diffing
+        textCache.precompute(incoming, sharedPrefManager.getId());
+        reportedFirst = RecyclerView.NO_POSITION;
+        apply(() -> {
+            resetWindow();
+            workingMessages.clear();
+            messageIds.clear();
+            addAllUnique(incoming);
+            sortByTimestamp(workingMessages);
+            MessageSource source = messageSource;
+            if (source != null) {
+                source.replace(new ArrayList<>(workingMessages));
+            } else {
+                dropOverBudget();
+            }
+            restorePendingEchoes();
+            rebuildTimeline();
+            updateWindow();
+            RESIDENT_MESSAGES.set(workingMessages.size());
+            return true;
+        }, onCommitted);
+    }
+
+    // Add clear messages method
+    public void clearMessages() {
+        reportedFirst = RecyclerView.NO_POSITION;
+        apply(() -> {
+            resetWindow();
+            workingMessages.clear();
+            timeline.clear();
+            positions.clear();
+            messageIds.clear();
+            pendingEchoes.clear();
+            return true;
+        }, null);
+    }
+
+    public void addMessage(ChatMessage message) {
+        if (message == null) {
+            return;
+        }
+        long insertStart = System.nanoTime();
+        Long currentUserId = sharedPrefManager.getId();
+        textCache.precompute(Collections.singletonList(message), currentUserId);
+        // Live messages arrive in order, so they are appended rather than re-sorted and only the
+        // new row's sections are worked out
+        apply(() -> {
+            MessageSource source = messageSource;
+            if (source != null) {
+                source.save(Collections.singletonList(message));
+            }
+            ChatMessage echo = claimEcho(message, currentUserId);
+            if (echo != null) {
+                MessagePositionIndex.Position at = positions.findLocalKey(echo.getLocalKey());
+                if (at != null) {
+                    return replaceEcho(at, message);
                 }
-            });
+            }
+            if (newerDetached) {
+                // The user is reading far back; this is read back with the rest of the newer pages,
+                // unless it's their own, which takes them to the newest messages. The server's copy
+                // of an echo that was dropped with the newest rows doesn't: they saw it go.
+                if (loadingNewer) {
+                    skippedWhileLoadingNewer++;
+                }
+                if (echo == null && message.isFromCurrentUser(currentUserId)) {
+                    jumpToNewest(source, null);
+                }
+                return false;
+            }
+            if (!addAllUnique(Collections.singletonList(message))) {
+                return false;
+            }
+            if (source == null && workingMessages.size() > Constants.MAX_RESIDENT_MESSAGES + TRIM_SLACK) {
+                dropOverBudget();
+                rebuildTimeline();
+            } else {
+                appendToTimeline(workingMessages.size() - 1);
+                updateWindow();
+            }
+            RESIDENT_MESSAGES.set(workingMessages.size());
+            return true;
+        }, () -> {
+            INSERT_TIME.recordSince(insertStart);
+            if (message.getReceivedAtNanos() != 0) {
+                RECEIVE_TO_INSERT_TIME.recordSince(message.getReceivedAtNanos());
+            }
+        });
+    }
+
+    // Shows the user's own message right away, before the server has it. The echo needs a local
+    // key (getLocalKey() assigns one), the sender ID and a pending status; when the server's copy
+    // comes through addMessage() it takes over the echo's row, wherever that is. onShown (optional)
+    // runs on the main thread once the echo's row is in the list.
+    public void addLocalEcho(ChatMessage echo, Runnable onShown) {
+        textCache.precompute(Collections.singletonList(echo), sharedPrefManager.getId());
+        // Set on DIFF_EXECUTOR before the commit callback is posted, when the echo waits for a reload
+        boolean[] reloading = new boolean[1];
+        apply(() -> {
+            pendingEchoes.add(echo);
+            if (newerDetached) {
+                // Put back at the end once the newest messages are read back
+                reloading[0] = true;
+                jumpToNewest(messageSource, onShown);
+                return false;
+            }
+            workingMessages.add(echo);
+            appendToTimeline(workingMessages.size() - 1);
+            updateWindow();
+            RESIDENT_MESSAGES.set(workingMessages.size());
+            return true;
+        }, onShown == null ? null : () -> {
+            if (!reloading[0]) {
+                onShown.run();
+            }
+        });
+    }
+
+    // Edits, deletions and status changes touch a single message. It is found through the position
+    // index, a patched copy takes its place, and just that row is rebound with a payload; the list
+    // isn't diffed, and the shown instance is never changed, as the main thread may be binding it.
 
-            for (ChatMessage message : messages) {
-                // Only track real messages (positive IDs)
-                if (message.getId() != null && message.getId() > 0) {
-                    messageIds.add(message.getId());
+    public void updateMessage(Long messageId, String newContent) {
+        patchMessage(messageId, message -> {
+            message.setContent(newContent);
+            message.setEdited(true);
+        });
+    }
+
+    // Deleted messages stay in place as a placeholder so the rows around them don't jump
+    public void removeMessage(Long messageId) {
+        patchMessage(messageId, message -> message.setDeleted(true));
+    }
+
+    public void updateMessageStatus(Long messageId, String status) {
+        patchMessage(messageId, message -> message.setStatus(status));
+    }
+
+    // Same as above for a local echo. Ignored once the server's copy has taken over its row,
+    // which carries the server's status.
+    public void updateMessageStatus(String localKey, String status) {
+        DIFF_EXECUTOR.execute(() -> {
+            // An echo dropped from the window is only here
+            for (int i = 0; i < pendingEchoes.size(); i++) {
+                ChatMessage echo = pendingEchoes.get(i);
+                if (localKey.equals(echo.getLocalKey())) {
+                    ChatMessage updated = new ChatMessage(echo);
+                    updated.setStatus(status);
+                    pendingEchoes.set(i, updated);
                 }
             }
+            MessagePositionIndex.Position at = positions.findLocalKey(localKey);
+            if (at == null || workingMessages.get(at.index).hasId()) {
+                return;
+            }
+            ChatMessage updated = new ChatMessage(workingMessages.get(at.index));
+            updated.setStatus(status);
+            replaceWorking(at, updated);
+        });
+    }
+
+    public void setOnRetryListener(OnRetryListener listener) {
+        this.retryListener = listener;
+    }
 
-            this.messages.addAll(messages);
+    // Main thread only. The message is looked up now rather than when the row was bound.
+    private void onRetryClicked(int position) {
+        ChatMessage message = getMessage(position);
+        if (message != null && retryListener != null && Constants.MESSAGE_STATUS_FAILED.equals(message.getStatus())) {
+            retryListener.onRetry(message);
         }
+    }
 
-        notifyDataSetChanged();
+    private void patchMessage(Long messageId, Consumer<ChatMessage> patch) {
+        if (messageId == null) {
+            return;
+        }
+        DIFF_EXECUTOR.execute(() -> {
+            // The source's copy too, which is what a dropped page comes back from
+            MessageSource source = messageSource;
+            if (source != null) {
+                source.patch(messageId, patch);
+            }
+            MessagePositionIndex.Position at = positions.find(messageId);
+            if (at == null) {
+                return;
+            }
+            ChatMessage updated = new ChatMessage(workingMessages.get(at.index));
+            patch.accept(updated);
+            replaceWorking(at, updated);
+        });
     }
 
-    // Add clear messages method
-    public void clearMessages() {
-        this.messages.clear();
-        this.messageIds.clear();
-        notifyDataSetChanged();
+    // Day separators read "Today" and "Yesterday" as of when they were built; once the day has
+    // turned since, rebuilds the rows so they read right again. Cheap to call when it hasn't.
+    public void refreshDayLabels() {
+        apply(() -> {
+            if (TimestampCodec.localDay(System.currentTimeMillis()) == labelledDay) {
+                return false;
+            }
+            rebuildTimeline();
+            return true;
+        }, null);
     }
 
-    private long parseTimestamp(String timestamp) {
+    // The change returns whether the timeline needs diffing; a single row replaced in place has
+    // already been handed over by replaceWorking()
+    private void apply(BooleanSupplier change, Runnable onCommitted) {
+        DIFF_EXECUTOR.execute(() -> {
+            boolean changed;
+            Trace.beginSection("ChatMessageAdapter.merge");
+            try {
+                changed = change.getAsBoolean();
+            } finally {
+                Trace.endSection();
+            }
+            if (!changed) {
+                if (onCommitted != null) {
+                    mainHandler.post(onCommitted);
+                }
+                return;
+            }
+            dispatchTimeline(onCommitted);
+        });
+    }
+
+    // DIFF_EXECUTOR only. Diffs the timeline against the rows last handed over and posts the new
+    // rows with their updates. Posts run in the order the changes did, so each diff applies to the
+    // rows the one before it left on screen.
+    private void dispatchTimeline(Runnable onCommitted) {
+        List<ChatMessage> rows = new ArrayList<>(timeline);
+        DiffUtil.DiffResult diff;
+        long diffStart = System.nanoTime();
+        Trace.beginSection("ChatMessageAdapter.diff");
         try {
-            if (TextUtils.isEmpty(timestamp)) {
-                return 0;
+            diff = DiffUtil.calculateDiff(new RowDiff(dispatched, rows));
+        } finally {
+            Trace.endSection();
+            DIFF_TIME.recordSince(diffStart);
+        }
+        dispatched = rows;
+        // The main thread's own copy, as single-row updates change it in place
+        List<ChatMessage> shownRows = new ArrayList<>(rows);
+        int leading = workingLeading;
+        int trailing = workingTrailing;
+        mainHandler.post(() -> {
+            window.expect(leading, trailing);
+            shown = shownRows;
+            diff.dispatchUpdatesTo(window);
+            window.reconcile();
+            if (onCommitted != null) {
+                onCommitted.run();
+            }
+        });
+    }
+
+    // DIFF_EXECUTOR only. Hands over one row whose message was replaced in place, rebinding just
+    // that row with the payload for what changed.
+    private void dispatchRowChange(int row, ChatMessage old, ChatMessage updated) {
+        if (row >= dispatched.size() || dispatched.get(row) != old) {
+            // The rows handed over don't line up with the timeline; diff the whole list instead
+            dispatchTimeline(null);
+            return;
+        }
+        dispatched.set(row, updated);
+        boolean same = DIFF_CALLBACK.areContentsTheSame(old, updated);
+        Object payload = same ? null : DIFF_CALLBACK.getChangePayload(old, updated);
+        mainHandler.post(() -> {
+            shown.set(row, updated);
+            if (!same) {
+                window.onChanged(row, 1, payload);
+            }
+        });
+    }
+
+    // DIFF_EXECUTOR only
+    private boolean addAllUnique(List<ChatMessage> messages) {
+        boolean added = false;
+        for (ChatMessage message : messages) {
+            if (admit(message)) {
+                workingMessages.add(message);
+                added = true;
             }
+        }
+        return added;
+    }
+
+    // DIFF_EXECUTOR only. Registers a message about to join the working list, unless it's already there.
+    private boolean admit(ChatMessage message) {
+        if (message == null || isDuplicateMessage(message)) {
+            return false;
+        }
+        // Only track positive IDs (real messages)
+        if (message.hasId() && message.getIdValue() > 0) {
+            messageIds.add(message.getIdValue());
+        }
+        if (message.isSystemMessage() && !message.isDaySeparator() && looksLikeDateSeparator(message)) {
+            // Decided once here instead of running the regexes on every bind
+            message.setDaySeparator(true);
+        }
+        return true;
+    }
 
-            if (timestamp.matches("\\d{13}")) {
-                return Long.parseLong(timestamp);
+    // DIFF_EXECUTOR only. Without a source there is nothing to read dropped messages back from:
+    // drops the oldest messages beyond the resident budget for good. The timeline needs rebuilding
+    // afterwards.
+    private void dropOverBudget() {
+        int overflow = workingMessages.size() - Constants.MAX_RESIDENT_MESSAGES;
+        if (overflow <= 0) {
+            return;
+        }
+        List<ChatMessage> dropped = workingMessages.subList(0, overflow);
+        for (ChatMessage message : dropped) {
+            if (message.hasId()) {
+                messageIds.remove(message.getIdValue());
             }
+        }
+        dropped.clear();
+    }
+
+    // DIFF_EXECUTOR only
+    private void resetWindow() {
+        windowGeneration++;
+        workingLeading = 0;
+        workingTrailing = 0;
+        headContext = null;
+        olderExhausted = false;
+        newerDetached = false;
+        loadingOlder = false;
+        loadingNewer = false;
+        skippedWhileLoadingNewer = 0;
+        viewportKnown = false;
+    }
+
+    // DIFF_EXECUTOR only. Drops what lies too far from the viewport and starts reading back pages
+    // it is about to reach. Returns whether the working list changed.
+    private boolean updateWindow() {
+        MessageSource source = messageSource;
+        if (source == null || workingMessages.isEmpty()) {
+            return false;
+        }
+
+        // Until the first report, the screen shows the newest messages
+        boolean changed = false;
+        int above = messageRowsIn(0, viewportKnown ? viewFirst : timeline.size() - 1);
+        if (above > WINDOW_MARGIN + WINDOW_PAGE) {
+            dropOldest(above - WINDOW_MARGIN);
+            changed = true;
+        }
+        int below = messageRowsIn((viewportKnown ? viewLast : timeline.size() - 1) + 1, timeline.size());
+        if (below > WINDOW_MARGIN + WINDOW_PAGE) {
+            dropNewest(below - WINDOW_MARGIN);
+            changed = true;
+        }
+
+        if (viewportKnown && !loadingOlder && viewFirst < WINDOW_PREFETCH_ROWS
+                && (workingLeading > 0 || !olderExhausted)) {
+            loadOlder(source);
+        }
+        if (viewportKnown && !loadingNewer && newerDetached && viewLast >= timeline.size() - WINDOW_PREFETCH_ROWS) {
+            loadNewer(source);
+        }
+        return changed;
+    }
 
-            if (timestamp.matches("\\d{10}")) {
-                return Long.parseLong(timestamp) * 1000;
+    // DIFF_EXECUTOR only. Real messages among timeline[from, to).
+    private int messageRowsIn(int from, int to) {
+        int count = 0;
+        for (int i = Math.max(0, from); i < Math.min(to, timeline.size()); i++) {
+            if (!isVirtualRow(timeline.get(i))) {
+                count++;
             }
+        }
+        return count;
+    }
 
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-            Date date = sdf.parse(timestamp);
-            return date != null ? date.getTime() : System.currentTimeMillis();
+    // DIFF_EXECUTOR only. The rows of the remaining messages are unchanged, so the drop is exactly
+    // the rows at the top of the timeline, and that many placeholders take their place.
+    private void dropOldest(int count) {
+        int rowsBefore = timeline.size();
+        headContext = workingMessages.get(count - 1);
+        forget(workingMessages.subList(0, count));
+        rebuildTimeline();
+        int dropped = rowsBefore - timeline.size();
+        workingLeading += dropped;
+        viewFirst -= dropped;
+        viewLast -= dropped;
+    }
 
-        } catch (Exception e) {
-            return System.currentTimeMillis();
+    // DIFF_EXECUTOR only. Live messages now go to the source alone until the newest are read back.
+    private void dropNewest(int count) {
+        int rowsBefore = timeline.size();
+        forget(workingMessages.subList(workingMessages.size() - count, workingMessages.size()));
+        rebuildTimeline();
+        workingTrailing += rowsBefore - timeline.size();
+        newerDetached = true;
+    }
+
+    // DIFF_EXECUTOR only
+    private void forget(List<ChatMessage> dropped) {
+        for (ChatMessage message : dropped) {
+            if (message.hasId()) {
+                messageIds.remove(message.getIdValue());
+            }
         }
+        dropped.clear();
     }
 
-    public void addMessage(ChatMessage message) {
-        if (message != null && !isDuplicateMessage(message)) {
-            messages.add(message);
+    // DIFF_EXECUTOR only
+    private void loadOlder(MessageSource source) {
+        loadingOlder = true;
+        int generation = windowGeneration;
+        ChatMessage anchor = workingMessages.get(0);
+        // A page and one more: the oldest is only context for the first row
+        source.loadBefore(anchor, WINDOW_PAGE + 1,
+                older -> apply(() -> restoreOlder(generation, anchor, older), null));
+    }
+
+    // DIFF_EXECUTOR only
+    private boolean restoreOlder(int generation, ChatMessage anchor, List<ChatMessage> older) {
+        if (generation != windowGeneration) {
+            return false;
+        }
+        loadingOlder = false;
+        if (older == null) {
+            // Tried again on the next scroll
+            return false;
+        }
+        if (workingMessages.isEmpty() || workingMessages.get(0).getStableId() != anchor.getStableId()) {
+            // The window moved while this was loading
+            return updateWindow();
+        }
 
-            // Only track positive IDs (real messages)
-            if (message.getId() != null && message.getId() > 0) {
-                messageIds.add(message.getId());
+        boolean reachedStart = older.size() <= WINDOW_PAGE;
+        List<ChatMessage> restored = new ArrayList<>(older.size());
+        for (ChatMessage message : reachedStart ? older : older.subList(1, older.size())) {
+            if (admit(message)) {
+                restored.add(message);
             }
+        }
+        if (restored.isEmpty()) {
+            reachedStart = true;
+        }
+        textCache.precompute(restored, sharedPrefManager.getId());
+
+        int rowsBefore = timeline.size();
+        workingMessages.addAll(0, restored);
+        headContext = reachedStart ? null : older.get(0);
+        rebuildTimeline();
+        int added = timeline.size() - rowsBefore;
+        viewFirst += added;
+        viewLast += added;
+        workingLeading = reachedStart ? 0 : Math.max(0, workingLeading - added);
+        olderExhausted = reachedStart;
+
+        updateWindow();
+        RESIDENT_MESSAGES.set(workingMessages.size());
+        return true;
+    }
+
+    // DIFF_EXECUTOR only
+    private void loadNewer(MessageSource source) {
+        loadingNewer = true;
+        skippedWhileLoadingNewer = 0;
+        int generation = windowGeneration;
+        ChatMessage anchor = workingMessages.get(workingMessages.size() - 1);
+        source.loadAfter(anchor, WINDOW_PAGE,
+                newer -> apply(() -> restoreNewer(generation, anchor, newer), null));
+    }
 
-            notifyItemInserted(messages.size() - 1);
+    // DIFF_EXECUTOR only
+    private boolean restoreNewer(int generation, ChatMessage anchor, List<ChatMessage> newer) {
+        if (generation != windowGeneration) {
+            return false;
         }
+        loadingNewer = false;
+        if (newer == null) {
+            return false;
+        }
+        if (workingMessages.isEmpty()
+                || workingMessages.get(workingMessages.size() - 1).getStableId() != anchor.getStableId()) {
+            return updateWindow();
+        }
+
+        int firstNew = workingMessages.size();
+        int rowsBefore = timeline.size();
+        boolean added = addAllUnique(newer);
+        textCache.precompute(new ArrayList<>(workingMessages.subList(firstNew, workingMessages.size())),
+                sharedPrefManager.getId());
+        for (int i = firstNew; i < workingMessages.size(); i++) {
+            appendToTimeline(i);
+        }
+        workingTrailing = Math.max(0, workingTrailing - (timeline.size() - rowsBefore));
+        // Live messages that arrived after the query was made aren't in it; go round again
+        if ((newer.size() < WINDOW_PAGE || !added) && skippedWhileLoadingNewer == 0) {
+            newerDetached = false;
+            workingTrailing = 0;
+            int firstEcho = workingMessages.size();
+            restorePendingEchoes();
+            for (int i = firstEcho; i < workingMessages.size(); i++) {
+                appendToTimeline(i);
+            }
+        }
+
+        updateWindow();
+        RESIDENT_MESSAGES.set(workingMessages.size());
+        return true;
     }
 
-    public void updateMessage(Long messageId, String newContent) {
-        for (int i = 0; i < messages.size(); i++) {
-            ChatMessage message = messages.get(i);
-            if (message.getId().equals(messageId)) {
-                message.setContent(newContent);
-                message.setEdited(true);
-                notifyItemChanged(i);
-                break;
+    // DIFF_EXECUTOR only. The user's own message arrived while they were reading far back: start
+    // over from the newest messages, which brings it into view. onCommitted (optional) runs once
+    // they are shown, or the load came to nothing.
+    private void jumpToNewest(MessageSource source, Runnable onCommitted) {
+        if (source == null) {
+            return;
+        }
+        int generation = ++windowGeneration;
+        loadingOlder = false;
+        loadingNewer = true; // nothing else is read back meanwhile
+        source.loadBefore(null, WINDOW_PAGE + 1, newest -> apply(() -> {
+            if (generation != windowGeneration) {
+                return false;
+            }
+            if (newest == null) {
+                loadingNewer = false;
+                return false;
+            }
+            resetWindow();
+            workingMessages.clear();
+            messageIds.clear();
+            boolean full = newest.size() > WINDOW_PAGE;
+            addAllUnique(full ? newest.subList(1, newest.size()) : newest);
+            restorePendingEchoes();
+            headContext = full ? newest.get(0) : null;
+            textCache.precompute(new ArrayList<>(workingMessages), sharedPrefManager.getId());
+            rebuildTimeline();
+            RESIDENT_MESSAGES.set(workingMessages.size());
+            return true;
+        }, onCommitted));
+    }
+
+    // DIFF_EXECUTOR only. The oldest pending echo the server's copy of one of the user's messages
+    // stands for, taken off the pending list; null if it isn't one. Messages carry no client key
+    // on the wire, so they are paired by content, in the order they were sent.
+    private ChatMessage claimEcho(ChatMessage message, Long currentUserId) {
+        if (!message.hasId() || pendingEchoes.isEmpty() || !message.isFromCurrentUser(currentUserId)) {
+            return null;
+        }
+        for (Iterator<ChatMessage> it = pendingEchoes.iterator(); it.hasNext(); ) {
+            ChatMessage echo = it.next();
+            if (TextUtils.equals(echo.getContent(), message.getContent())) {
+                it.remove();
+                return echo;
             }
         }
+        return null;
     }
 
-    public void removeMessage(Long messageId) {
-        for (int i = 0; i < messages.size(); i++) {
-            ChatMessage message = messages.get(i);
-            if (message.getId().equals(messageId)) {
-                messages.remove(i);
-                notifyItemRemoved(i);
-                break;
+    // DIFF_EXECUTOR only. The server's copy takes the echo's place and row: no re-sort, and the
+    // row is rebound rather than replaced. If the copy is already in the list (a reload can bring
+    // it in first), the echo just goes.
+    private boolean replaceEcho(MessagePositionIndex.Position at, ChatMessage message) {
+        ChatMessage echo = workingMessages.get(at.index);
+        if (isDuplicateMessage(message)) {
+            workingMessages.remove(at.index);
+            rebuildTimeline();
+            updateWindow();
+            RESIDENT_MESSAGES.set(workingMessages.size());
+            return true;
+        }
+        admit(message);
+        message.setLocalKey(echo.getLocalKey());
+        message.setGroupedWithPrevious(echo.isGroupedWithPrevious());
+        replaceWorking(at, message);
+        return false;
+    }
+
+    // DIFF_EXECUTOR only. Appends the pending echoes that aren't in the working list, e.g. after
+    // it was rebuilt from the server or the source. The timeline needs updating afterwards, so
+    // the position index may not cover the list yet; the keys are collected here instead.
+    private void restorePendingEchoes() {
+        if (pendingEchoes.isEmpty()) {
+            return;
+        }
+        Set<String> present = new HashSet<>();
+        for (ChatMessage message : workingMessages) {
+            if (message.hasLocalKey()) {
+                present.add(message.getLocalKey());
             }
         }
+        for (ChatMessage echo : pendingEchoes) {
+            if (!present.contains(echo.getLocalKey())) {
+                workingMessages.add(echo);
+            }
+        }
+    }
+
+    // DIFF_EXECUTOR only
+    private void rebuildTimeline() {
+        labelledDay = TimestampCodec.localDay(System.currentTimeMillis());
+        timeline.clear();
+        positions.clear();
+        for (int i = 0; i < workingMessages.size(); i++) {
+            appendToTimeline(i);
+        }
+    }
+
+    // DIFF_EXECUTOR only. Adds workingMessages[index], which must be the last message in the timeline
+    // so far, preceded by a day separator when it starts a new day.
+    private void appendToTimeline(int index) {
+        ChatMessage message = workingMessages.get(index);
+        ChatMessage previous = index > 0 ? workingMessages.get(index - 1) : headContext;
+
+        long millis = message.getTimestampMillis();
+        boolean timed = !message.isSystemMessage() && millis != TimestampCodec.UNKNOWN;
+        boolean previousTimed = previous != null && !previous.isSystemMessage()
+                && previous.getTimestampMillis() != TimestampCodec.UNKNOWN;
+
+        if (timed && (!previousTimed || TimestampCodec.localDay(previous.getTimestampMillis()) != TimestampCodec.localDay(millis))) {
+            timeline.add(createDaySeparator(millis));
+            previousTimed = false; // a separator breaks the group
+        }
+
+        boolean grouped = timed && previousTimed
+                && previous.hasSameSender(message)
+                && millis - previous.getTimestampMillis() <= Constants.MESSAGE_GROUP_WINDOW_MS;
+        if (grouped != message.isGroupedWithPrevious()) {
+            // Copy so the diff sees the row change (a shown instance is never mutated here)
+            message = new ChatMessage(message);
+            message.setGroupedWithPrevious(grouped);
+            workingMessages.set(index, message);
+        }
+        positions.put(message, index, timeline.size());
+        timeline.add(message);
+    }
+
+    // DIFF_EXECUTOR only. Sections only depend on sender and time, which patches never change, so
+    // no other row is affected and the change is handed over on its own.
+    private void replaceWorking(MessagePositionIndex.Position at, ChatMessage updated) {
+        workingMessages.set(at.index, updated);
+        ChatMessage old = timeline.set(at.row, updated);
+        positions.put(updated, at.index, at.row);
+        dispatchRowChange(at.row, old, updated);
+    }
+
+    // Virtual row (negative ID, stable per day) rendered with the system message layout
+    private static ChatMessage createDaySeparator(long millis) {
+        long day = TimestampCodec.localDay(millis);
+        ChatMessage separator = new ChatMessage();
+        separator.setId(-1 - Math.abs(day));
+        separator.setType(Constants.MESSAGE_TYPE_SYSTEM);
+        separator.setContent(TimestampCodec.formatDay(millis, System.currentTimeMillis()));
+        separator.setTimestampMillis(millis);
+        separator.setDaySeparator(true);
+        return separator;
+    }
+
+    // Primitive comparison: timestamps were parsed once when the messages were decoded. Messages
+    // without a time go last.
+    private static void sortByTimestamp(List<ChatMessage> messages) {
+        Collections.sort(messages, (m1, m2) -> Long.compare(TimestampCodec.sortKey(m1.getTimestampMillis()),
+                TimestampCodec.sortKey(m2.getTimestampMillis())));
     }
 
     private boolean isDuplicateMessage(ChatMessage newMessage) {
-        if (newMessage.getId() == null || newMessage.getId() < 0) {
+        if (!newMessage.hasId() || newMessage.getIdValue() < 0) {
             // Virtual messages (negative IDs) are never considered duplicates
             return false;
         }
-        return messageIds.contains(newMessage.getId());
+        return messageIds.contains(newMessage.getIdValue());
+    }
 
-//        for (ChatMessage existingMessage : messages) {
-//            if (newMessage.getId().equals(existingMessage.getId())) {
-//                return true;
-//            }
-//        }
-//        return false;
+    private void bindMessageBody(ChatMessage message, TextView tvContent, TextView tvEdited) {
+        if (message.isDeleted()) {
+            tvContent.setText(R.string.message_deleted);
+            tvContent.setTypeface(null, Typeface.ITALIC);
+            tvContent.setVisibility(View.VISIBLE);
+            tvEdited.setVisibility(View.GONE);
+        } else {
+            // Typeface first: the precomputed text is only used if the metrics still match
+            tvContent.setTypeface(null, Typeface.NORMAL);
+            // An image or file sent without a caption has no text to show
+            tvContent.setVisibility(TextUtils.isEmpty(message.getContent()) && message.hasAttachments()
+                    ? View.GONE : View.VISIBLE);
+            textCache.bind(tvContent, message);
+            tvEdited.setVisibility(message.isEdited() ? View.VISIBLE : View.GONE);
+        }
     }
 
-    private String formatTimestamp(String timestamp) {
-        try {
-            if (TextUtils.isEmpty(timestamp)) {
-                return "";
-            }
+    // DiffUtil over two lists of rows, compared as the item callback above does
+    private static class RowDiff extends DiffUtil.Callback {
+        private final List<ChatMessage> oldRows;
+        private final List<ChatMessage> newRows;
 
-            long timestampLong;
-            if (timestamp.length() == 13) {
-                timestampLong = Long.parseLong(timestamp);
-            } else {
-                // Parse UTC timestamp and convert to local
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-                sdf.setTimeZone(TimeZone.getTimeZone("UTC")); // Parse as UTC
-                Date date = sdf.parse(timestamp);
-                timestampLong = date != null ? date.getTime() : System.currentTimeMillis();
-            }
+        RowDiff(List<ChatMessage> oldRows, List<ChatMessage> newRows) {
+            this.oldRows = oldRows;
+            this.newRows = newRows;
+        }
 
-            Date localDate = new Date(timestampLong);
-            SimpleDateFormat localFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-            localFormat.setTimeZone(TimeZone.getDefault()); // Display in local timezone
-            return localFormat.format(localDate);
-        } catch (Exception e) {
-            return "";
+        @Override
+        public int getOldListSize() {
+            return oldRows.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newRows.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return DIFF_CALLBACK.areItemsTheSame(oldRows.get(oldItemPosition), newRows.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return DIFF_CALLBACK.areContentsTheSame(oldRows.get(oldItemPosition), newRows.get(newItemPosition));
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return DIFF_CALLBACK.getChangePayload(oldRows.get(oldItemPosition), newRows.get(newItemPosition));
         }
     }
 
-    // Add method to identify system messages as date separators
-    private boolean isDateSeparator(ChatMessage message) {
+    // Server-sent system messages that read like a date are styled as separators too
+    private static boolean looksLikeDateSeparator(ChatMessage message) {
         return message.getType() != null &&
                 message.getType().equals("SYSTEM") &&
+                message.getContent() != null &&
                 (message.getContent().contains("Today") ||
                         message.getContent().contains("Yesterday") ||
                         message.getContent().matches(".*\\d{2}:\\d{2}.*") ||
                         message.getContent().matches(".*\\d{2}/\\d{2}/\\d{4}.*"));
     }
 
+    // Main thread only. Hands each diff's updates to the adapter shifted past the leading
+    // placeholders. Rows dropped at either end of the window become placeholders, and placeholders
+    // read back become rows, as in-place changes, so nothing around them moves.
+    private class WindowUpdateCallback implements ListUpdateCallback {
+        int leading = 0;
+        int trailing = 0;
+        private int residentRows = 0;
+        private int targetLeading = 0;
+        private int targetTrailing = 0;
+
+        // The placeholder counts that go with the list about to be submitted
+        void expect(int leading, int trailing) {
+            targetLeading = leading;
+            targetTrailing = trailing;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            residentRows += count;
+            if (position == 0 && leading > targetLeading) {
+                // The newest of the rows read back take over the placeholders right above them
+                int converted = Math.min(count, leading - targetLeading);
+                leading -= converted;
+                notifyItemRangeChanged(leading, converted);
+                if (count > converted) {
+                    notifyItemRangeInserted(leading, count - converted);
+                }
+            } else if (position == residentRows - count && trailing > targetTrailing) {
+                // The oldest of the rows read back take over the placeholders right below them
+                int converted = Math.min(count, trailing - targetTrailing);
+                trailing -= converted;
+                notifyItemRangeChanged(leading + position, converted);
+                if (count > converted) {
+                    notifyItemRangeInserted(leading + position + converted, count - converted);
+                }
+            } else {
+                notifyItemRangeInserted(leading + position, count);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            boolean atEnd = position + count == residentRows;
+            residentRows -= count;
+            if (position == 0 && leading < targetLeading) {
+                int converted = Math.min(count, targetLeading - leading);
+                notifyItemRangeChanged(leading, converted);
+                leading += converted;
+                if (count > converted) {
+                    notifyItemRangeRemoved(leading, count - converted);
+                }
+            } else if (atEnd && trailing < targetTrailing) {
+                int converted = Math.min(count, targetTrailing - trailing);
+                trailing += converted;
+                if (count > converted) {
+                    notifyItemRangeRemoved(leading + position, count - converted);
+                }
+                notifyItemRangeChanged(leading + position, converted);
+            } else {
+                notifyItemRangeRemoved(leading + position, count);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(leading + fromPosition, leading + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            notifyItemRangeChanged(leading + position, count, payload);
+        }
+
+        // After each commit: placeholders the updates didn't account for (a page that came back
+        // shorter than what was dropped, say) are added or removed at the ends
+        void reconcile() {
+            if (leading != targetLeading) {
+                int difference = targetLeading - leading;
+                leading = targetLeading;
+                if (difference > 0) {
+                    notifyItemRangeInserted(0, difference);
+                } else {
+                    notifyItemRangeRemoved(0, -difference);
+                }
+            }
+            if (trailing != targetTrailing) {
+                int difference = targetTrailing - trailing;
+                int end = leading + residentRows;
+                trailing = targetTrailing;
+                if (difference > 0) {
+                    notifyItemRangeInserted(end, difference);
+                } else {
+                    notifyItemRangeRemoved(end, -difference);
+                }
+            }
+        }
+    }
+
+    // Stands in for a message dropped from the window until it is read back
+    private static class PlaceholderViewHolder extends RecyclerView.ViewHolder {
+        PlaceholderViewHolder(@NonNull View itemView) {
+            super(itemView);
+        }
+    }
+
+    // The holders are static and take the adapter binding them: they are kept in ChatViewPool
+    // after their screen closes and must not hold on to it
+
     // ViewHolder for sent messages (right side)
-    public class SentMessageViewHolder extends RecyclerView.ViewHolder {
+    public static class SentMessageViewHolder extends RecyclerView.ViewHolder {
         private TextView tvSenderName;
         private TextView tvMessageContent;
         private TextView tvTimestamp;
         private TextView tvEditedIndicator;
         private ImageView ivMessageStatus;
+        private ImageView ivAttachment;
+        private TextView tvAttachment;
 
         public SentMessageViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -263,40 +1360,73 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             tvMessageContent = itemView.findViewById(R.id.tvMessageContent);
             tvTimestamp = itemView.findViewById(R.id.tvTimestamp);
             tvEditedIndicator = itemView.findViewById(R.id.tvEditedIndicator);
+            ivAttachment = itemView.findViewById(R.id.ivAttachment);
+            tvAttachment = itemView.findViewById(R.id.tvAttachment);
             ivMessageStatus = itemView.findViewById(R.id.ivMessageStatus);
+            // Holders move between screens through the shared pool, so a tap goes to whichever
+            // adapter has this row bound right now
+            itemView.setOnClickListener(v -> {
+                RecyclerView.Adapter<?> adapter = getBindingAdapter();
+                int position = getBindingAdapterPosition();
+                if (adapter instanceof ChatMessageAdapter && position != RecyclerView.NO_POSITION) {
+                    ((ChatMessageAdapter) adapter).onRetryClicked(position);
+                }
+            });
+            itemView.setClickable(false);
         }
 
-        public void bind(ChatMessage message) {
+        public void bind(ChatMessageAdapter adapter, ChatMessage message) {
             String senderName = message.getSenderName();
             if (TextUtils.isEmpty(senderName)) {
                 senderName = "User " + message.getSenderId();
             }
             tvSenderName.setText(senderName);
+            // Follow-ups from the same sender only show the bubble
+            tvSenderName.setVisibility(message.isGroupedWithPrevious() ? View.GONE : View.VISIBLE);
 
-            tvMessageContent.setText(message.getContent());
-            tvTimestamp.setText(formatTimestamp(message.getTimestamp()));
-
-            if (message.isEdited()) {
-                tvEditedIndicator.setVisibility(View.VISIBLE);
-            } else {
-                tvEditedIndicator.setVisibility(View.GONE);
-            }
-
-            ivMessageStatus.setImageResource(R.drawable.ic_check);
+            bindContent(adapter, message);
+            bindStatus(message);
 
             itemView.setOnLongClickListener(v -> {
                 return true;
             });
         }
+
+        void bindContent(ChatMessageAdapter adapter, ChatMessage message) {
+            adapter.bindMessageBody(message, tvMessageContent, tvEditedIndicator);
+        }
+
+        void bindStatus(ChatMessage message) {
+            String status = message.getStatus();
+            boolean failed = Constants.MESSAGE_STATUS_FAILED.equals(status);
+            if (failed) {
+                ivMessageStatus.setImageResource(R.drawable.ic_error);
+            } else if (Constants.MESSAGE_STATUS_PENDING.equals(status)) {
+                ivMessageStatus.setImageResource(R.drawable.ic_schedule);
+            } else if (Constants.MESSAGE_STATUS_DELIVERED.equals(status) || Constants.MESSAGE_STATUS_READ.equals(status)) {
+                ivMessageStatus.setImageResource(R.drawable.ic_check_double);
+            } else {
+                ivMessageStatus.setImageResource(R.drawable.ic_check);
+            }
+            // Not acknowledged by the server yet
+            ivMessageStatus.setAlpha(!message.hasId() && !failed ? 0.4f : 1f);
+
+            tvTimestamp.setText(failed ? itemView.getContext().getString(R.string.message_not_sent)
+                    : TimestampCodec.formatTime(message.getTimestampMillis()));
+            // Only a failed send can be tapped, to retry it
+            itemView.setClickable(failed);
+        }
     }
 
     // ViewHolder for received messages (left side)
-    public class ReceivedMessageViewHolder extends RecyclerView.ViewHolder {
+    public static class ReceivedMessageViewHolder extends RecyclerView.ViewHolder {
         private TextView tvSenderName;
         private TextView tvMessageContent;
         private TextView tvTimestamp;
         private TextView tvEditedIndicator;
         private ImageView ivUserAvatar;
+        private ImageView ivAttachment;
+        private TextView tvAttachment;
 
         public ReceivedMessageViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -304,33 +1434,36 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             tvMessageContent = itemView.findViewById(R.id.tvMessageContent);
             tvTimestamp = itemView.findViewById(R.id.tvTimestamp);
             tvEditedIndicator = itemView.findViewById(R.id.tvEditedIndicator);
+            ivAttachment = itemView.findViewById(R.id.ivAttachment);
+            tvAttachment = itemView.findViewById(R.id.tvAttachment);
             ivUserAvatar = itemView.findViewById(R.id.ivUserAvatar);
         }
 
-        public void bind(ChatMessage message) {
+        public void bind(ChatMessageAdapter adapter, ChatMessage message) {
             String senderName = message.getSenderName();
             if (TextUtils.isEmpty(senderName)) {
                 senderName = "User " + message.getSenderId();
             }
             tvSenderName.setText(senderName);
+            // Follow-ups from the same sender only show the bubble; the avatar keeps its space
+            tvSenderName.setVisibility(message.isGroupedWithPrevious() ? View.GONE : View.VISIBLE);
+            ivUserAvatar.setVisibility(message.isGroupedWithPrevious() ? View.INVISIBLE : View.VISIBLE);
 
-            tvMessageContent.setText(message.getContent());
-            tvTimestamp.setText(formatTimestamp(message.getTimestamp()));
-
-            if (message.isEdited()) {
-                tvEditedIndicator.setVisibility(View.VISIBLE);
-            } else {
-                tvEditedIndicator.setVisibility(View.GONE);
-            }
+            tvTimestamp.setText(TimestampCodec.formatTime(message.getTimestampMillis()));
+            bindContent(adapter, message);
 
             itemView.setOnLongClickListener(v -> {
                 return true;
             });
         }
+
+        void bindContent(ChatMessageAdapter adapter, ChatMessage message) {
+            adapter.bindMessageBody(message, tvMessageContent, tvEditedIndicator);
+        }
     }
 
     // ViewHolder for system messages (center) - UPDATED
-    public class SystemMessageViewHolder extends RecyclerView.ViewHolder {
+    public static class SystemMessageViewHolder extends RecyclerView.ViewHolder {
         private TextView tvSystemMessage;
 
         public SystemMessageViewHolder(@NonNull View itemView) {
@@ -0,0 +1,115 @@
+package com.project.realtimechatui.adapters;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.project.realtimechatui.R;
+
+import java.util.ArrayDeque;
+
+/**
+ * Message view holders shared by every chat screen.
+ *
+ * One process-wide {@link RecyclerView.RecycledViewPool} backs all message lists, with room for a
+ * screenful of each bubble type. While the app is idle on the chat list, holders are inflated into
+ * the pool one per idle callback, so opening a chat takes them from there instead of inflating and
+ * no idle slot holds up input for more than one inflation. Screens that use the pool hand their holders back when they close.
+ */
+public class ChatViewPool {
+    private static final String TAG = "ChatViewPool";
+    private static ChatViewPool instance;
+
+    private static final int MAX_BUBBLES = 20;
+    private static final int MAX_SYSTEM_ROWS = 8;
+    private static final int PREWARM_BUBBLES = 12;
+    private static final int PREWARM_SYSTEM_ROWS = 3;
+
+    private final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+    private Context viewContext;
+    private boolean prewarmStarted = false;
+
+    private ChatViewPool() {
+        pool.setMaxRecycledViews(ChatMessageAdapter.VIEW_TYPE_MESSAGE_SENT, MAX_BUBBLES);
+        pool.setMaxRecycledViews(ChatMessageAdapter.VIEW_TYPE_MESSAGE_RECEIVED, MAX_BUBBLES);
+        pool.setMaxRecycledViews(ChatMessageAdapter.VIEW_TYPE_MESSAGE_SYSTEM, MAX_SYSTEM_ROWS);
+    }
+
+    public static synchronized ChatViewPool getInstance() {
+        if (instance == null) {
+            instance = new ChatViewPool();
+        }
+        return instance;
+    }
+
+    // Main thread only
+    public void attach(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+        recyclerView.setRecycledViewPool(pool);
+        // Return the holders to the shared pool when the screen goes away
+        layoutManager.setRecycleChildrenOnDetach(true);
+    }
+
+    // Main thread only. What message views are inflated from: the application context with the app
+    // theme, so a view left in the pool when its screen closes doesn't keep that activity alive.
+    public Context viewContext(Context context) {
+        if (viewContext == null) {
+            viewContext = new ContextThemeWrapper(context.getApplicationContext(), R.style.Theme_RealTimeChatUI);
+        }
+        return viewContext;
+    }
+
+    // Main thread only. Inflates the holders a chat screen needs in idle time, one per idle callback.
+    public void prewarm(Context context) {
+        if (prewarmStarted) {
+            return;
+        }
+        prewarmStarted = true;
+
+        Context themed = viewContext(context);
+        ChatMessageAdapter factory = new ChatMessageAdapter(themed);
+        RecyclerView parent = new RecyclerView(themed);
+        parent.setLayoutManager(new LinearLayoutManager(themed));
+
+        // Round-robin so a short stretch of idle time still warms every type a little
+        ArrayDeque<Integer> order = new ArrayDeque<>();
+        for (int i = 0; i < Math.max(PREWARM_BUBBLES, PREWARM_SYSTEM_ROWS); i++) {
+            if (i < PREWARM_BUBBLES) {
+                order.add(ChatMessageAdapter.VIEW_TYPE_MESSAGE_SENT);
+                order.add(ChatMessageAdapter.VIEW_TYPE_MESSAGE_RECEIVED);
+            }
+            if (i < PREWARM_SYSTEM_ROWS) {
+                order.add(ChatMessageAdapter.VIEW_TYPE_MESSAGE_SYSTEM);
+            }
+        }
+
+        Handler handler = new Handler(Looper.getMainLooper());
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                Integer viewType = order.poll();
+                if (viewType != null && pool.getRecycledViewCount(viewType) < target(viewType)) {
+                    pool.putRecycledView(factory.createViewHolder(parent, viewType));
+                }
+                if (order.isEmpty()) {
+                    Log.d(TAG, "Message view holders prewarmed");
+                    return false;
+                }
+                // A kept handler only runs again once some other message has gone through, so
+                // re-arm through the queue: the next holder waits for its own idle slot, behind
+                // any input that arrived meanwhile
+                handler.post(() -> Looper.myQueue().addIdleHandler(this));
+                return false;
+            }
+        });
+    }
+
+    private static int target(int viewType) {
+        return viewType == ChatMessageAdapter.VIEW_TYPE_MESSAGE_SYSTEM ? PREWARM_SYSTEM_ROWS : PREWARM_BUBBLES;
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.realtimechatui.adapters;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps server message IDs and local-echo keys to where the message sits in ChatMessageAdapter's
+ * working list and timeline, so an edit, deletion or status change finds its row without a scan.
+ *
+ * Entries are added as rows are appended to the timeline and replaced when a row's message is;
+ * a rebuilt timeline starts from a cleared index. Lookups check the message they land on, so an
+ * entry left behind by a row that has since gone is never returned.
+ *
+ * Not thread-safe; owned by the adapter's DIFF_EXECUTOR, like the lists it indexes.
+ */
+class MessagePositionIndex {
+    private final List<ChatMessage> messages;
+    private final List<ChatMessage> rows;
+    private final Map<Long, Position> byServerId = new HashMap<>();
+    private final Map<String, Position> byLocalKey = new HashMap<>();
+
+    MessagePositionIndex(List<ChatMessage> messages, List<ChatMessage> rows) {
+        this.messages = messages;
+        this.rows = rows;
+    }
+
+    // index into the working list, row into the timeline
+    static final class Position {
+        final int index;
+        final int row;
+
+        Position(int index, int row) {
+            this.index = index;
+            this.row = row;
+        }
+    }
+
+    // Null when the message isn't resident
+    Position find(long messageId) {
+        Position position = byServerId.get(messageId);
+        if (position != null && holds(position)) {
+            ChatMessage message = messages.get(position.index);
+            if (message.hasId() && message.getIdValue() == messageId) {
+                return position;
+            }
+        }
+        return null;
+    }
+
+    Position findLocalKey(String localKey) {
+        Position position = byLocalKey.get(localKey);
+        if (position != null && holds(position)) {
+            ChatMessage message = messages.get(position.index);
+            if (message.hasLocalKey() && localKey.equals(message.getLocalKey())) {
+                return position;
+            }
+        }
+        return null;
+    }
+
+    void put(ChatMessage message, int index, int row) {
+        Position position = new Position(index, row);
+        if (message.hasId()) {
+            byServerId.put(message.getIdValue(), position);
+        }
+        if (message.hasLocalKey()) {
+            byLocalKey.put(message.getLocalKey(), position);
+        }
+    }
+
+    void clear() {
+        byServerId.clear();
+        byLocalKey.clear();
+    }
+
+    private boolean holds(Position position) {
+        return position.index < messages.size() && position.row < rows.size()
+                && rows.get(position.row) == messages.get(position.index);
+    }
+}
@@ -0,0 +1,104 @@
+package com.project.realtimechatui.adapters;
+
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.TextView;
+
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.utils.Constants;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Message bodies measured and laid out ahead of binding with {@link PrecomputedTextCompat}.
+ *
+ * Text is precomputed on a background thread as soon as a page or live message reaches the
+ * adapter, using the metrics of the bubble it will be shown in. Results are kept in an LRU bounded
+ * by total text length, keyed by message identity and content version, so an edit invalidates its own entry only. A
+ * bind that finds nothing (or finds text measured for different metrics) falls back to setText.
+ */
+class MessageTextCache {
+    private static final String TAG = "MessageTextCache";
+
+    private static final ExecutorService TEXT_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "message-text");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Shared by every chat screen, so reopening a room finds its text already laid out. Sized by
+    // text length, since one long message costs as much as hundreds of short ones.
+    private static final LruCache<String, PrecomputedTextCompat> cache =
+            new LruCache<String, PrecomputedTextCompat>(Constants.MESSAGE_TEXT_CACHE_CHARS) {
+                @Override
+                protected int sizeOf(String key, PrecomputedTextCompat value) {
+                    return Math.max(1, value.length());
+                }
+            };
+
+    // Metrics of the sent and received bubbles, learned from the first holder of each kind and
+    // kept for later screens, so their first page can be precomputed before anything is inflated
+    private static volatile PrecomputedTextCompat.Params sentParams;
+    private static volatile PrecomputedTextCompat.Params receivedParams;
+
+    void setParams(boolean sent, TextView textView) {
+        PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(textView);
+        if (sent) {
+            sentParams = params;
+        } else {
+            receivedParams = params;
+        }
+    }
+
+    boolean hasParams(boolean sent) {
+        return (sent ? sentParams : receivedParams) != null;
+    }
+
+    // Queues background precomputation for messages that will be shown in the given bubbles
+    void precompute(List<ChatMessage> messages, Long currentUserId) {
+        PrecomputedTextCompat.Params sent = sentParams;
+        PrecomputedTextCompat.Params received = receivedParams;
+        if (sent == null && received == null) {
+            return;
+        }
+        TEXT_EXECUTOR.execute(() -> {
+            for (ChatMessage message : messages) {
+                if (message.isSystemMessage() || message.isDeleted() || TextUtils.isEmpty(message.getContent())) {
+                    continue;
+                }
+                PrecomputedTextCompat.Params params = message.isFromCurrentUser(currentUserId) ? sent : received;
+                if (params == null) {
+                    continue;
+                }
+                String key = keyOf(message);
+                if (cache.get(key) == null) {
+                    try {
+                        cache.put(key, PrecomputedTextCompat.create(message.getContent(), params));
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Failed to precompute message " + key, e);
+                    }
+                }
+            }
+        });
+    }
+
+    // Applies the laid-out text when it was measured for this view, otherwise sets plain text
+    void bind(TextView textView, ChatMessage message) {
+        PrecomputedTextCompat text = cache.get(keyOf(message));
+        if (text != null && text.getParams().equals(TextViewCompat.getTextMetricsParams(textView))) {
+            TextViewCompat.setPrecomputedText(textView, text);
+        } else {
+            textView.setText(message.getContent());
+        }
+    }
+
+    private static String keyOf(ChatMessage message) {
+        return message.getStableId() + "#" + message.getContentVersion();
+    }
+}
@@ -0,0 +1,240 @@
+package com.project.realtimechatui.adapters;
+
+import com.project.realtimechatui.R;
+import com.project.realtimechatui.api.models.ChatRoom;
+import com.project.realtimechatui.api.models.Participant;
+import com.project.realtimechatui.enums.EnumRoomType;
+import com.project.realtimechatui.utils.SessionSnapshot;
+import com.project.realtimechatui.utils.TimestampCodec;
+
+import java.util.Objects;
+
+/**
+ * Everything a chat list row shows, worked out once per room when the data arrives.
+ *
+ * Models are built off the main thread from the room and the session, so binding a row is plain
+ * field assignment: no participant lookups, string building or timestamp formatting while the
+ * list scrolls. Instances are immutable; a change produces a new model. What a row shows of the
+ * other participant is copied in, so a model never changes with the room or participant objects.
+ */
+class RoomRowModel {
+    // Its ID and the click hand-off only; nothing shown is read from it after building
+    private final ChatRoom chatRoom;
+    // PERSONAL rooms with a known partner only
+    private final Long otherUserId;
+    private final String otherUsername;
+    private final String otherFullName;
+    private final String title;
+    private final String subtitle; // null hides the subtitle
+    private final String preview;
+    private final String timeLabel; // null hides the time
+    private final long sortKey;
+    private final String avatarKey;
+    private final int avatarPlaceholderRes;
+    private final int typeIconRes; // 0 hides the icon
+    private final int typeIndicatorRes; // 0 hides the indicator
+    private final boolean online;
+    private final boolean unread;
+    private final boolean muted;
+
+    private RoomRowModel(ChatRoom chatRoom, Long otherUserId, String otherUsername, String otherFullName,
+                         String title, String subtitle, String preview, String timeLabel, long sortKey,
+                         String avatarKey, int avatarPlaceholderRes, int typeIconRes, int typeIndicatorRes,
+                         boolean online, boolean unread, boolean muted) {
+        this.chatRoom = chatRoom;
+        this.otherUserId = otherUserId;
+        this.otherUsername = otherUsername;
+        this.otherFullName = otherFullName;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.preview = preview;
+        this.timeLabel = timeLabel;
+        this.sortKey = sortKey;
+        this.avatarKey = avatarKey;
+        this.avatarPlaceholderRes = avatarPlaceholderRes;
+        this.typeIconRes = typeIconRes;
+        this.typeIndicatorRes = typeIndicatorRes;
+        this.online = online;
+        this.unread = unread;
+        this.muted = muted;
+    }
+
+    // Any thread. Relative time labels are as of nowMillis.
+    static RoomRowModel from(ChatRoom chatRoom, SessionSnapshot session, long nowMillis) {
+        Long currentUserId = session.getUserId();
+        EnumRoomType type = chatRoom.getType();
+        int participantCount = chatRoom.getParticipants() != null ? chatRoom.getParticipants().size() : 0;
+
+        Long otherUserId = null;
+        String otherUsername = null;
+        String otherFullName = null;
+        String title;
+        String subtitle = null;
+        String avatarKey = null;
+        int avatarPlaceholderRes;
+        int typeIconRes = 0;
+        int typeIndicatorRes = 0;
+        boolean online = false;
+
+        if (type == EnumRoomType.PERSONAL) {
+            // For personal chats, show the other participant
+            Participant otherParticipant = chatRoom.getOtherParticipant(currentUserId);
+            avatarPlaceholderRes = R.drawable.ic_person;
+            if (otherParticipant != null) {
+                otherUserId = otherParticipant.getUserId();
+                otherUsername = otherParticipant.getUsername();
+                otherFullName = otherParticipant.getFullName();
+                String username = otherParticipant.getUsername();
+                title = username != null && !username.isEmpty() ? username : "@unknown";
+                online = otherParticipant.isOnline();
+                avatarKey = otherParticipant.getAvatarUrl();
+                typeIndicatorRes = R.drawable.ic_person;
+            } else {
+                title = "@unknown";
+                subtitle = "Unknown User";
+            }
+        } else if (type == EnumRoomType.GROUP) {
+            // For group chats, show room name and participant count
+            String groupName = chatRoom.getName();
+            title = groupName != null && !groupName.isEmpty() ? groupName : "Group Chat";
+            subtitle = participantCount + " members";
+            avatarPlaceholderRes = R.drawable.ic_group;
+            typeIconRes = R.drawable.ic_group;
+        } else if (type == EnumRoomType.CHANNEL) {
+            // For channels, show channel name and # prefix
+            String channelName = chatRoom.getName();
+            title = "#" + (channelName != null && !channelName.isEmpty() ? channelName : "Channel");
+            subtitle = participantCount + " subscribers";
+            avatarPlaceholderRes = R.drawable.ic_channel;
+            typeIconRes = R.drawable.ic_channel;
+        } else {
+            title = chatRoom.getName() != null ? chatRoom.getName() : "Unknown Chat";
+            subtitle = "Unknown type";
+            avatarPlaceholderRes = R.drawable.ic_search;
+        }
+
+        String preview;
+        String timeLabel = null;
+        if (chatRoom.hasLastMessage()) {
+            // Prefix the sender: "You:" for the current user, their username otherwise
+            preview = chatRoom.getLastMessageContent();
+            String senderUsername = chatRoom.getLastMessageSenderUsername();
+            if (senderUsername != null && !senderUsername.isEmpty()) {
+                preview = (senderUsername.equals(session.getUsername()) ? "You" : senderUsername) + ": " + preview;
+            }
+            if (chatRoom.getLastMessageTimestamp() != null) {
+                timeLabel = TimestampCodec.formatRelative(chatRoom.getLastMessageTimestampMillis(), nowMillis);
+            }
+        } else if (type == EnumRoomType.PERSONAL) {
+            preview = "Start a conversation";
+        } else if (type == EnumRoomType.GROUP) {
+            preview = "No messages yet";
+        } else if (type == EnumRoomType.CHANNEL) {
+            preview = "No posts yet";
+        } else {
+            preview = "No messages";
+        }
+
+        Participant currentParticipant = chatRoom.getCurrentParticipant(currentUserId);
+        boolean muted = currentParticipant != null && currentParticipant.isMuted();
+
+        return new RoomRowModel(chatRoom, otherUserId, otherUsername, otherFullName, title, subtitle,
+                preview, timeLabel, chatRoom.getLastMessageTimestampMillis(), avatarKey, avatarPlaceholderRes,
+                typeIconRes, typeIndicatorRes, online, chatRoom.hasUnread(currentUserId), muted);
+    }
+
+    RoomRowModel withOnline(boolean online) {
+        return new RoomRowModel(chatRoom, otherUserId, otherUsername, otherFullName, title, subtitle,
+                preview, timeLabel, sortKey, avatarKey, avatarPlaceholderRes, typeIconRes, typeIndicatorRes,
+                online, unread, muted);
+    }
+
+    // Same title, subtitle, avatar and type icons - anything else can be rebound piecemeal
+    boolean hasSameIdentity(RoomRowModel other) {
+        return Objects.equals(title, other.title)
+                && Objects.equals(subtitle, other.subtitle)
+                && Objects.equals(avatarKey, other.avatarKey)
+                && avatarPlaceholderRes == other.avatarPlaceholderRes
+                && typeIconRes == other.typeIconRes
+                && typeIndicatorRes == other.typeIndicatorRes;
+    }
+
+    boolean hasSameLastMessage(RoomRowModel other) {
+        return Objects.equals(preview, other.preview) && Objects.equals(timeLabel, other.timeLabel);
+    }
+
+    ChatRoom getChatRoom() {
+        return chatRoom;
+    }
+
+    Long getRoomId() {
+        return chatRoom.getId();
+    }
+
+    boolean hasOtherParticipant() {
+        return otherUserId != null;
+    }
+
+    // A new participant built from the copied fields, for the click listener; null without a partner
+    Participant createOtherParticipant() {
+        if (otherUserId == null) {
+            return null;
+        }
+        Participant participant = new Participant();
+        participant.setUserId(otherUserId);
+        participant.setChatRoomId(getRoomId());
+        participant.setUsername(otherUsername);
+        participant.setFullName(otherFullName);
+        participant.setAvatarUrl(avatarKey);
+        participant.setOnline(online);
+        return participant;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    String getSubtitle() {
+        return subtitle;
+    }
+
+    String getPreview() {
+        return preview;
+    }
+
+    String getTimeLabel() {
+        return timeLabel;
+    }
+
+    long getSortKey() {
+        return sortKey;
+    }
+
+    String getAvatarKey() {
+        return avatarKey;
+    }
+
+    int getAvatarPlaceholderRes() {
+        return avatarPlaceholderRes;
+    }
+
+    int getTypeIconRes() {
+        return typeIconRes;
+    }
+
+    int getTypeIndicatorRes() {
+        return typeIndicatorRes;
+    }
+
+    boolean isOnline() {
+        return online;
+    }
+
+    boolean isUnread() {
+        return unread;
+    }
+
+    boolean isMuted() {
+        return muted;
+    }
+}
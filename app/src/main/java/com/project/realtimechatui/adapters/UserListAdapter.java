@@ -1,7 +1,9 @@
 package com.project.realtimechatui.adapters;
 
 import android.content.Context;
-import android.text.TextUtils;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,28 +12,59 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.project.realtimechatui.R;
 import com.project.realtimechatui.api.models.ChatRoom;
 import com.project.realtimechatui.api.models.Participant;
-import com.project.realtimechatui.api.models.User;
+import com.project.realtimechatui.cache.PersonalRoomIndex;
 import com.project.realtimechatui.enums.EnumRoomType;
+import com.project.realtimechatui.images.ImageLoader;
+import com.project.realtimechatui.images.ImagePreloadScrollListener;
+import com.project.realtimechatui.utils.SessionSnapshot;
 import com.project.realtimechatui.utils.SharedPrefManager;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.TimeZone;
-
-public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserViewHolder> {
-
-    private List<ChatRoom> chatRooms;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserViewHolder>
+        implements ListPreloader.PreloadModelProvider<RoomRowModel> {
+
+    // Partial rebinds: each payload refreshes only the views it names
+    private static final String PAYLOAD_LAST_MESSAGE = "last_message";
+    private static final String PAYLOAD_PRESENCE = "presence";
+    private static final String PAYLOAD_UNREAD = "unread";
+    private static final String PAYLOAD_MUTE = "mute";
+
+    // Row models are built here, in submission order, and handed to the main thread when ready
+    private static final ExecutorService ROW_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "room-rows");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<RoomRowModel> rows;
+    // Room id -> adapter position, rebuilt on structural changes and checked on every lookup
+    private final Map<Long, Integer> positionsById = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Bumped by every setChatRooms; an older list still being built is dropped when it lands
+    private int listGeneration = 0;
     private Context context;
     private OnUserClickListener listener;
     private SharedPrefManager sharedPrefManager;
+    // Tied to the activity's lifecycle: loads pause when it stops and are cancelled when it's destroyed
+    private final RequestManager requestManager;
+    // Learns the avatar size from the first row, so preloads decode at the size rows will show
+    private final ViewPreloadSizeProvider<RoomRowModel> avatarSizeProvider = new ViewPreloadSizeProvider<>();
 
     public interface OnUserClickListener {
         void onUserClick(ChatRoom chatRoom, Participant otherParticipant);
@@ -40,8 +73,36 @@ public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserVi
     public UserListAdapter(Context context, OnUserClickListener listener) {
         this.context = context;
         this.listener = listener;
-        this.chatRooms = new ArrayList<>();
+        this.rows = new ArrayList<>();
         this.sharedPrefManager = SharedPrefManager.getInstance();
+        this.requestManager = Glide.with(context);
+    }
+
+    // Add to the list's RecyclerView to load avatars of the rows about to scroll into view
+    public RecyclerView.OnScrollListener createImagePreloader() {
+        return new ImagePreloadScrollListener<>(requestManager, this, avatarSizeProvider);
+    }
+
+    @NonNull
+    @Override
+    public List<RoomRowModel> getPreloadItems(int position) {
+        if (position < 0 || position >= rows.size()) {
+            return Collections.emptyList();
+        }
+        RoomRowModel row = rows.get(position);
+        String avatarKey = row.getAvatarKey();
+        return avatarKey != null && !avatarKey.isEmpty() ? Collections.singletonList(row) : Collections.emptyList();
+    }
+
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull RoomRowModel row) {
+        return ImageLoader.avatar(requestManager, row.getAvatarKey(), row.getAvatarPlaceholderRes());
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull UserViewHolder holder) {
+        // Stop work for a row that is no longer shown
+        ImageLoader.clear(requestManager, holder.ivProfilePicture);
     }
 
     @NonNull
@@ -53,83 +114,215 @@ public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserVi
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        ChatRoom chatRoom = chatRooms.get(position);
-        holder.bind(chatRoom);
+        Trace.beginSection("UserListAdapter.bind");
+        try {
+            holder.bind(rows.get(position));
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull UserViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        RoomRowModel row = rows.get(position);
+        if (payloads.contains(PAYLOAD_LAST_MESSAGE)) {
+            holder.bindLastMessage(row);
+        }
+        if (payloads.contains(PAYLOAD_PRESENCE)) {
+            holder.bindPresence(row);
+        }
+        if (payloads.contains(PAYLOAD_UNREAD)) {
+            holder.bindUnread(row);
+        }
+        if (payloads.contains(PAYLOAD_MUTE)) {
+            holder.bindMuted(row);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return chatRooms.size();
+        return rows.size();
     }
 
-    // Updated method to accept ChatRoom list instead of Participant list
     public void setChatRooms(List<ChatRoom> chatRooms) {
-        this.chatRooms = chatRooms != null ? chatRooms : new ArrayList<>();
-
-        // Sort chat rooms by last message timestamp (newest first)
-        Collections.sort(this.chatRooms, new Comparator<ChatRoom>() {
-            @Override
-            public int compare(ChatRoom room1, ChatRoom room2) {
-                try {
-                    String timestamp1 = room1.getLastMessageTimestamp();
-                    String timestamp2 = room2.getLastMessageTimestamp();
-
-                    if (timestamp1 == null && timestamp2 == null) return 0;
-                    if (timestamp1 == null) return 1; // room1 goes to bottom
-                    if (timestamp2 == null) return -1; // room2 goes to bottom
-
-                    long time1 = parseTimestamp(timestamp1);
-                    long time2 = parseTimestamp(timestamp2);
-
-                    return Long.compare(time2, time1); // Descending order (newest first)
-                } catch (Exception e) {
-                    return 0;
+        setChatRooms(chatRooms, null);
+    }
+
+    // The list is read on a background thread and never modified. onCommitted runs on the main
+    // thread once the rows are showing (it doesn't run if a newer list replaced this one first).
+    public void setChatRooms(List<ChatRoom> chatRooms, Runnable onCommitted) {
+        int generation = ++listGeneration;
+        List<ChatRoom> source = chatRooms != null ? chatRooms : new ArrayList<>();
+
+        ROW_EXECUTOR.execute(() -> {
+            List<RoomRowModel> built = buildRows(source);
+
+            // Sort chat rooms by last message timestamp (newest first); rooms without one go to the bottom
+            Collections.sort(built, new Comparator<RoomRowModel>() {
+                @Override
+                public int compare(RoomRowModel row1, RoomRowModel row2) {
+                    return Long.compare(row2.getSortKey(), row1.getSortKey());
                 }
-            }
+            });
+
+            mainHandler.post(() -> {
+                if (generation != listGeneration) {
+                    return;
+                }
+                applyRows(built);
+                if (onCommitted != null) {
+                    onCommitted.run();
+                }
+            });
         });
+    }
 
-        notifyDataSetChanged();
+    public void addChatRoom(ChatRoom chatRoom) {
+        if (chatRoom == null) {
+            return;
+        }
+        buildRow(chatRoom, row -> {
+            rows.add(0, row); // Add at top
+            rebuildPositions();
+            notifyItemInserted(0);
+        });
     }
 
-    private long parseTimestamp(String timestamp) {
-        try {
-            if (TextUtils.isEmpty(timestamp)) {
-                return 0;
+    public void removeChatRoom(Long chatRoomId) {
+        int position = positionOf(chatRoomId);
+        if (position != RecyclerView.NO_POSITION) {
+            rows.remove(position);
+            rebuildPositions();
+            notifyItemRemoved(position);
+        }
+    }
+
+    public void updateChatRoom(ChatRoom updatedChatRoom) {
+        if (updatedChatRoom == null) {
+            return;
+        }
+        buildRow(updatedChatRoom, row -> {
+            int position = positionOf(row.getRoomId());
+            if (position != RecyclerView.NO_POSITION) {
+                RoomRowModel previous = rows.get(position);
+                rows.set(position, row);
+                dispatchChanges(position, previous, row);
             }
+        });
+    }
 
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-            Date date = sdf.parse(timestamp);
-            return date != null ? date.getTime() : 0;
-        } catch (Exception e) {
-            return 0;
+    // Presence event for a chat partner: only the online dot of their personal room is rebound
+    public void updatePresence(Long userId, boolean online) {
+        Long roomId = PersonalRoomIndex.getInstance().getRoomId(sharedPrefManager.getSession().getUserId(), userId);
+        int position = positionOf(roomId);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        RoomRowModel row = rows.get(position);
+        if (row.hasOtherParticipant() && row.isOnline() != online) {
+            // A new model; the room and its participants are left as the server sent them
+            rows.set(position, row.withOnline(online));
+            notifyItemChanged(position, PAYLOAD_PRESENCE);
         }
     }
 
-    public void addChatRoom(ChatRoom chatRoom) {
-        if (chatRoom != null) {
-            chatRooms.add(0, chatRoom); // Add at top
-            notifyItemInserted(0);
+    private interface OnRowBuiltListener {
+        void onRowBuilt(RoomRowModel row);
+    }
+
+    // Builds one row on ROW_EXECUTOR, after any list still being built, and delivers it on the main thread
+    private void buildRow(ChatRoom chatRoom, OnRowBuiltListener onBuilt) {
+        ROW_EXECUTOR.execute(() -> {
+            RoomRowModel row = RoomRowModel.from(chatRoom, sharedPrefManager.getSession(), System.currentTimeMillis());
+            mainHandler.post(() -> onBuilt.onRowBuilt(row));
+        });
+    }
+
+    private List<RoomRowModel> buildRows(List<ChatRoom> chatRooms) {
+        SessionSnapshot session = sharedPrefManager.getSession();
+        long nowMillis = System.currentTimeMillis();
+        List<RoomRowModel> built = new ArrayList<>(chatRooms.size());
+        for (ChatRoom chatRoom : chatRooms) {
+            if (chatRoom != null) {
+                built.add(RoomRowModel.from(chatRoom, session, nowMillis));
+            }
         }
+        return built;
     }
 
-    public void removeChatRoom(Long chatRoomId) {
-        for (int i = 0; i < chatRooms.size(); i++) {
-            if (chatRooms.get(i).getId().equals(chatRoomId)) {
-                chatRooms.remove(i);
-                notifyItemRemoved(i);
-                break;
+    private void applyRows(List<RoomRowModel> built) {
+        // A refresh with the same rooms in the same order only rebinds what changed in each row
+        if (hasSameOrder(built)) {
+            List<RoomRowModel> previous = rows;
+            rows = built;
+            for (int i = 0; i < built.size(); i++) {
+                dispatchChanges(i, previous.get(i), built.get(i));
             }
+            return;
         }
+
+        rows = built;
+        rebuildPositions();
+        notifyDataSetChanged();
     }
 
-    public void updateChatRoom(ChatRoom updatedChatRoom) {
-        for (int i = 0; i < chatRooms.size(); i++) {
-            if (chatRooms.get(i).getId().equals(updatedChatRoom.getId())) {
-                chatRooms.set(i, updatedChatRoom);
-                notifyItemChanged(i);
-                break;
+    private int positionOf(Long chatRoomId) {
+        if (chatRoomId == null) {
+            return RecyclerView.NO_POSITION;
+        }
+        Integer position = positionsById.get(chatRoomId);
+        if (position == null || position >= rows.size()
+                || !chatRoomId.equals(rows.get(position).getRoomId())) {
+            // The list was changed behind the index; rebuild once and look again
+            rebuildPositions();
+            position = positionsById.get(chatRoomId);
+        }
+        return position != null ? position : RecyclerView.NO_POSITION;
+    }
+
+    private void rebuildPositions() {
+        positionsById.clear();
+        for (int i = 0; i < rows.size(); i++) {
+            positionsById.put(rows.get(i).getRoomId(), i);
+        }
+    }
+
+    private boolean hasSameOrder(List<RoomRowModel> built) {
+        if (built.size() != rows.size()) {
+            return false;
+        }
+        for (int i = 0; i < built.size(); i++) {
+            Long roomId = built.get(i).getRoomId();
+            if (roomId == null || !roomId.equals(rows.get(i).getRoomId())) {
+                return false;
             }
         }
+        return true;
+    }
+
+    // Notifies one payload per changed part of the row, or a full rebind when its identity changed
+    private void dispatchChanges(int position, RoomRowModel previous, RoomRowModel current) {
+        if (!previous.hasSameIdentity(current)) {
+            notifyItemChanged(position);
+            return;
+        }
+        if (!previous.hasSameLastMessage(current)) {
+            notifyItemChanged(position, PAYLOAD_LAST_MESSAGE);
+        }
+        if (previous.isOnline() != current.isOnline()) {
+            notifyItemChanged(position, PAYLOAD_PRESENCE);
+        }
+        if (previous.isUnread() != current.isUnread()) {
+            notifyItemChanged(position, PAYLOAD_UNREAD);
+        }
+        if (previous.isMuted() != current.isMuted()) {
+            notifyItemChanged(position, PAYLOAD_MUTE);
+        }
     }
 
     public class UserViewHolder extends RecyclerView.ViewHolder {
@@ -158,20 +351,19 @@ public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserVi
             ivChatTypeIndicator = itemView.findViewById(R.id.ivChatTypeIndicator);
             ivMutedIndicator = itemView.findViewById(R.id.ivMutedIndicator);
             ivPinnedIndicator = itemView.findViewById(R.id.ivPinnedIndicator);
+            avatarSizeProvider.setView(ivProfilePicture);
 
             itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
                     int position = getAdapterPosition();
                     if (position != RecyclerView.NO_POSITION && listener != null) {
-                        ChatRoom chatRoom = chatRooms.get(position);
-                        Long currentUserId = sharedPrefManager.getId();
-                        Participant otherParticipant = null;
+                        RoomRowModel row = rows.get(position);
+                        ChatRoom chatRoom = row.getChatRoom();
 
-                        // Only get other participant for personal chats
-                        if (chatRoom.getType() == EnumRoomType.PERSONAL) {
-                            otherParticipant = chatRoom.getOtherParticipant(currentUserId);
-                        }
+                        // Only pass the other participant for personal chats
+                        Participant otherParticipant = chatRoom.getType() == EnumRoomType.PERSONAL
+                                ? row.createOtherParticipant() : null;
 
                         listener.onUserClick(chatRoom, otherParticipant);
                     }
@@ -179,320 +371,78 @@ public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserVi
             });
         }
 
-        public void bind(ChatRoom chatRoom) {
-            if (chatRoom == null) {
-                return;
-            }
-
-            Long currentUserId = sharedPrefManager.getId();
-            String currentUsername = sharedPrefManager.getUsername();
-
-            // Reset all indicators
-            resetIndicators();
-
-            // Bind based on chat room type
-            switch (chatRoom.getType()) {
-                case PERSONAL:
-                    bindPersonalChat(chatRoom, currentUserId);
-                    break;
-                case GROUP:
-                    bindGroupChat(chatRoom, currentUserId, currentUsername);
-                    break;
-                case CHANNEL:
-                    bindChannelChat(chatRoom, currentUserId, currentUsername);
-                    break;
-                default:
-                    bindUnknownChat(chatRoom);
-                    break;
-            }
-
-//            if (chatRoom.getType() == EnumRoomType.PERSONAL) {
-//                bindPersonalChat(chatRoom, currentUserId);
-//            } else if (chatRoom.getType() == EnumRoomType.GROUP) {
-//                bindGroupChat(chatRoom, currentUserId, currentUsername);
-//            } else {
-//                bindChannelChat(chatRoom, currentUserId, currentUsername);
-//            }
+        // Everything was worked out when the model was built; this only copies it into the views
+        public void bind(RoomRowModel row) {
+            tvUsername.setText(row.getTitle());
+            bindOptionalText(tvFullName, row.getSubtitle());
+            bindOptionalIcon(ivChatTypeIcon, row.getTypeIconRes());
+            bindOptionalIcon(ivChatTypeIndicator, row.getTypeIndicatorRes());
+            loadProfilePicture(row.getAvatarKey(), row.getAvatarPlaceholderRes());
 
             // Set last message content (common for all types)
-            bindLastMessage(chatRoom, currentUsername);
+            bindLastMessage(row);
 
             // Set additional features
-            bindAdditionalFeatures(chatRoom, currentUserId);
-        }
+            bindPresence(row);
+            bindUnread(row);
+            bindMuted(row);
 
-        private void resetIndicators() {
-            vOnlineStatus.setVisibility(View.GONE);
-            ivChatTypeIcon.setVisibility(View.GONE);
-            ivChatTypeIndicator.setVisibility(View.GONE);
-            ivMutedIndicator.setVisibility(View.GONE);
+            // Show pinned indicator
+//            if (chatRoom.isPinned()) {
+//                ivPinnedIndicator.setVisibility(View.VISIBLE);
+//            } else {
+//                ivPinnedIndicator.setVisibility(View.GONE);
+//            }
             ivPinnedIndicator.setVisibility(View.GONE);
-            tvUnreadBadge.setVisibility(View.GONE);
-            tvFullName.setVisibility(View.GONE);
-        }
-
-        private void bindPersonalChat(ChatRoom chatRoom, Long currentUserId) {
-            // For personal chats, show the other participant
-            Participant otherParticipant = chatRoom.getOtherParticipant(currentUserId);
-
-            if (otherParticipant != null) {
-                // Set username
-                String username = otherParticipant.getUsername();
-                if (username != null && !username.isEmpty()) {
-//                    tvUsername.setText("@" + username);
-                    tvUsername.setText(username);
-                } else {
-                    tvUsername.setText("@unknown");
-                }
-
-//                // Set full name
-//                String fullName = otherParticipant.getFullName();
-//                if (fullName != null && !fullName.isEmpty()) {
-//                    tvFullName.setText(fullName);
-//                    tvFullName.setVisibility(View.VISIBLE);
-//                }
-
-                // Set online status for personal chats
-                vOnlineStatus.setVisibility(otherParticipant.isOnline() ? View.VISIBLE : View.GONE);
-
-                // Load profile picture
-                loadProfilePicture(otherParticipant.getAvatarUrl(), false);
-
-                // Set personal chat type indicator (optional)
-                ivChatTypeIndicator.setImageResource(R.drawable.ic_person);
-                ivChatTypeIndicator.setVisibility(View.VISIBLE);
-            } else {
-                setUnknownUser();
-            }
         }
 
-        private void bindGroupChat(ChatRoom chatRoom, Long currentUserId, String currentUsername) {
-            // For group chats, show room name and participant count
-            String groupName = chatRoom.getName();
-            if (groupName == null || groupName.isEmpty()) {
-                groupName = "Group Chat";
-            }
-
-            tvUsername.setText(groupName);
-
-            // Show participant count as subtitle
-            int participantCount = chatRoom.getParticipants() != null ? chatRoom.getParticipants().size() : 0;
-            tvFullName.setText(participantCount + " members");
-            tvFullName.setVisibility(View.VISIBLE);
-
-            // No online status for group chats
-            vOnlineStatus.setVisibility(View.GONE);
-
-            // Show group type indicator
-            ivChatTypeIcon.setImageResource(R.drawable.ic_group);
-            ivChatTypeIcon.setVisibility(View.VISIBLE);
-
-            // Group chat icon
-            loadProfilePicture(null, true);
+        void bindLastMessage(RoomRowModel row) {
+            tvLastMessage.setText(row.getPreview());
+            tvLastMessage.setVisibility(View.VISIBLE);
+            bindOptionalText(tvLastMessageTime, row.getTimeLabel());
         }
 
-        private void bindChannelChat(ChatRoom chatRoom, Long currentUserId, String currentUsername) {
-            // For channels, show channel name and # prefix
-            String channelName = chatRoom.getName();
-            if (channelName == null || channelName.isEmpty()) {
-                channelName = "Channel";
-            }
-
-            tvUsername.setText("#" + channelName);
-
-            // Show channel info as subtitle
-            int participantCount = chatRoom.getParticipants() != null ? chatRoom.getParticipants().size() : 0;
-            tvFullName.setText(participantCount + " subscribers");
-            tvFullName.setVisibility(View.VISIBLE);
-
-            // No online status for channels
-            vOnlineStatus.setVisibility(View.GONE);
-
-            // Show channel type indicator
-            ivChatTypeIcon.setImageResource(R.drawable.ic_channel);
-            ivChatTypeIcon.setVisibility(View.VISIBLE);
-
-            // Channel icon
-            loadProfilePicture(null, false);
-            ivProfilePicture.setImageResource(R.drawable.ic_channel);
-        }
-
-        private void bindUnknownChat(ChatRoom chatRoom) {
-            tvUsername.setText(chatRoom.getName() != null ? chatRoom.getName() : "Unknown Chat");
-            tvFullName.setText("Unknown type");
-            tvFullName.setVisibility(View.VISIBLE);
-            vOnlineStatus.setVisibility(View.GONE);
-            ivProfilePicture.setImageResource(R.drawable.ic_search);
-        }
-
-        private void bindLastMessage(ChatRoom chatRoom, String currentUsername) {
-            // Set last message content
-            if (chatRoom.hasLastMessage()) {
-                String lastMessageText = chatRoom.getLastMessageContent();
-                String senderUsername = chatRoom.getLastMessageSenderUsername();
-
-                // Handle message display based on chat type and sender
-                if (chatRoom.getType() != EnumRoomType.PERSONAL) {
-                    // Personal chat - show "You:" only if current user sent it
-                    // For Other user will sent username
-                    if (senderUsername != null && !senderUsername.isEmpty()) {
-                        if (senderUsername.equals(currentUsername)) {
-                            lastMessageText = "You: " + lastMessageText;
-                        } else {
-                            lastMessageText = senderUsername + ": " + lastMessageText;
-                        }
-                    }
-                }  else {
-                    // Group chat or channel - always show sender name
-                    if (senderUsername != null && !senderUsername.isEmpty()) {
-                        if (senderUsername.equals(currentUsername)) {
-                            lastMessageText = "You: " + lastMessageText;
-                        } else {
-                            lastMessageText = senderUsername + ": " + lastMessageText;
-                        }
-                    }
-                }
-
-                tvLastMessage.setText(lastMessageText);
-                tvLastMessage.setVisibility(View.VISIBLE);
+        // Online status, personal chats only
+        void bindPresence(RoomRowModel row) {
+            vOnlineStatus.setVisibility(row.isOnline() ? View.VISIBLE : View.GONE);
+        }
 
-                // Set last message timestamp
-                if (chatRoom.getLastMessageTimestamp() != null) {
-                    String formattedTime = formatMessageTime(chatRoom.getLastMessageTimestamp());
-                    tvLastMessageTime.setText(formattedTime);
-                    tvLastMessageTime.setVisibility(View.VISIBLE);
-                } else {
-                    tvLastMessageTime.setVisibility(View.GONE);
-                }
+        // The server only tells us whether the room is read, not how many messages are unread,
+        // so the badge is shown as a plain dot
+        void bindUnread(RoomRowModel row) {
+            if (row.isUnread()) {
+                tvUnreadBadge.setText("");
+                tvUnreadBadge.setVisibility(View.VISIBLE);
             } else {
-                // No messages yet
-                switch (chatRoom.getType()) {
-                    case PERSONAL:
-                        tvLastMessage.setText("Start a conversation");
-                        break;
-                    case GROUP:
-                        tvLastMessage.setText("No messages yet");
-                        break;
-                    case CHANNEL:
-                        tvLastMessage.setText("No posts yet");
-                        break;
-                    default:
-                        tvLastMessage.setText("No messages");
-                        break;
-                }
-
-                tvLastMessage.setVisibility(View.VISIBLE);
-                tvLastMessageTime.setVisibility(View.GONE);
+                tvUnreadBadge.setVisibility(View.GONE);
             }
         }
 
-        private void bindAdditionalFeatures(ChatRoom chatRoom, Long currentUserId) {
-            // Show unread message count (if available)
-            // Uncomment when unread count is implemented
-//            if (chatRoom.getUnreadCount() > 0) {
-//                tvUnreadBadge.setText(String.valueOf(chatRoom.getUnreadCount()));
-//                tvUnreadBadge.setVisibility(View.VISIBLE);
-//            } else {
-//                tvUnreadBadge.setVisibility(View.GONE);
-//            }
-
+        // Show muted indicator
+        void bindMuted(RoomRowModel row) {
+            ivMutedIndicator.setVisibility(row.isMuted() ? View.VISIBLE : View.GONE);
+        }
 
-            // Show muted indicator
-            Participant currentParticipant = chatRoom.getCurrentParticipant(currentUserId);
-            if (currentParticipant != null && currentParticipant.isMuted()) {
-                ivMutedIndicator.setVisibility(View.VISIBLE);
+        private void bindOptionalText(TextView textView, String text) {
+            if (text != null) {
+                textView.setText(text);
+                textView.setVisibility(View.VISIBLE);
             } else {
-                ivMutedIndicator.setVisibility(View.GONE);
+                textView.setVisibility(View.GONE);
             }
-
-            // Show pinned indicator
-//            if (chatRoom.isPinned()) {
-//                ivPinnedIndicator.setVisibility(View.VISIBLE);
-//            } else {
-//                ivPinnedIndicator.setVisibility(View.GONE);
-//            }
-
-            // Show admin badge for group/channel admins
-//            if ((chatRoom.getType() == EnumRoomType.GROUP || chatRoom.getType() == EnumRoomType.CHANNEL)
-//                    && currentParticipant != null && "ADMIN".equals(currentParticipant.getRole())) {
-//                // Could add an admin badge here if needed
-//            }
         }
 
-        private void loadProfilePicture(String avatarUrl, boolean isGroup) {
-            if (avatarUrl != null && !avatarUrl.isEmpty()) {
-                // TODO: Implement image loading with Glide or Picasso
-                // Glide.with(context)
-                //     .load(avatarUrl)
-                //     .placeholder(isGroup ? R.drawable.ic_group : R.drawable.ic_person)
-                //     .error(isGroup ? R.drawable.ic_group : R.drawable.ic_person)
-                //     .into(ivProfilePicture);
-                ivProfilePicture.setImageResource(isGroup ? R.drawable.ic_group : R.drawable.ic_person);
+        private void bindOptionalIcon(ImageView imageView, int iconRes) {
+            if (iconRes != 0) {
+                imageView.setImageResource(iconRes);
+                imageView.setVisibility(View.VISIBLE);
             } else {
-                ivProfilePicture.setImageResource(isGroup ? R.drawable.ic_group : R.drawable.ic_person);
+                imageView.setVisibility(View.GONE);
             }
         }
 
-        private void setUnknownUser() {
-            tvUsername.setText("@unknown");
-            tvFullName.setText("Unknown User");
-            tvFullName.setVisibility(View.VISIBLE);
-            vOnlineStatus.setVisibility(View.GONE);
-            ivProfilePicture.setImageResource(R.drawable.ic_person);
-            tvLastMessage.setText("No messages");
-            tvLastMessage.setVisibility(View.VISIBLE);
-            tvLastMessageTime.setVisibility(View.GONE);
-        }
-
-        private String formatMessageTime(String timestamp) {
-            try {
-                // Handle different timestamp formats
-                SimpleDateFormat inputFormat;
-                Date messageDate = null;
-
-                if (timestamp.contains("T")) {
-                    inputFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-                    inputFormat.setTimeZone(TimeZone.getTimeZone("UTC")); // Parse as UTC
-                    messageDate = inputFormat.parse(timestamp);
-                } else {
-//                    inputFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-                    inputFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-                    inputFormat.setTimeZone(TimeZone.getTimeZone("UTC")); // Parse as UTC
-                    messageDate = inputFormat.parse(timestamp);
-                }
-
-                android.util.Log.e("UserListAdapter", "inputFormat: " + inputFormat);
-                android.util.Log.e("UserListAdapter", "messageDate: " + messageDate);
-
-                if (messageDate != null) {
-                    // Convert UTC time to local timezone for display
-                    long messageTimeInLocal = messageDate.getTime(); // This is already in local time after parsing
-                    long currentTime = System.currentTimeMillis();
-
-                    long diffInMillis = currentTime - messageTimeInLocal;
-                    long diffInMinutes = diffInMillis / (60 * 1000);
-                    long diffInHours = diffInMinutes / 60;
-                    long diffInDays = diffInHours / 24;
-
-                    if (diffInMinutes < 1) {
-                        return "now";
-                    } else if (diffInMinutes < 60) {
-                        return diffInMinutes + "m";
-                    } else if (diffInHours < 24) {
-                        return diffInHours + "h";
-                    } else if (diffInDays < 7) {
-                        return diffInDays + "d";
-                    } else {
-                        // For dates older than 7 days, show in user's local timezone
-                        SimpleDateFormat outputFormat = new SimpleDateFormat("MMM dd", Locale.getDefault());
-                        outputFormat.setTimeZone(TimeZone.getDefault()); // Use local timezone for display
-                        return outputFormat.format(messageDate);
-                    }
-                }
-            } catch (Exception e) {
-                android.util.Log.e("UserListAdapter", "Error parsing timestamp: " + timestamp, e);
-            }
-            return "";
+        private void loadProfilePicture(String avatarUrl, int placeholderRes) {
+            ImageLoader.loadAvatar(requestManager, ivProfilePicture, avatarUrl, placeholderRes);
         }
     }
-}
\ No newline at end of file
+}
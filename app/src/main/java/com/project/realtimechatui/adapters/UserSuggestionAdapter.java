@@ -1,7 +1,8 @@
 package com.project.realtimechatui.adapters;
 
 import android.content.Context;
-import android.text.TextUtils;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,22 +10,65 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.project.realtimechatui.R;
 import com.project.realtimechatui.api.models.User;
+import com.project.realtimechatui.utils.UserSearchIndex;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class UserSuggestionAdapter extends RecyclerView.Adapter<UserSuggestionAdapter.UserViewHolder> {
 
+    // One background thread shared by all suggestion adapters: it owns every search index,
+    // so index building and queries never run on the main thread and never race each other
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // DiffUtil is quadratic in the number of edits, so large result sets are swapped in without a diff
+    private static final int MAX_DIFF_SIZE = 1000;
+
+    private static final DiffUtil.ItemCallback<User> DIFF_CALLBACK = new DiffUtil.ItemCallback<User>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull User oldUser, @NonNull User newUser) {
+            return Objects.equals(oldUser.getId(), newUser.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull User oldUser, @NonNull User newUser) {
+            return Objects.equals(oldUser.getUsername(), newUser.getUsername()) &&
+                    Objects.equals(oldUser.getFullName(), newUser.getFullName()) &&
+                    Objects.equals(oldUser.getAvatarUrl(), newUser.getAvatarUrl());
+        }
+    };
+
     public List<User> users;
-    private List<User> filteredUsers;
+    private final Set<Long> userIds = new HashSet<>();
+    private final AsyncListDiffer<User> differ;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private Context context;
     private OnUserClickListener listener;
 
+    // Only touched from SEARCH_EXECUTOR
+    private UserSearchIndex searchIndex = new UserSearchIndex(null);
+
+    // Bumped on every new query so results of superseded queries are dropped
+    private volatile int filterGeneration = 0;
+    private Future<?> pendingFilter;
+    private String currentQuery = "";
+
     public interface OnUserClickListener {
         void onUserClick(User user);
     }
@@ -33,7 +77,7 @@ public class UserSuggestionAdapter extends RecyclerView.Adapter<UserSuggestionAd
         this.context = context;
         this.listener = listener;
         this.users = new ArrayList<>();
-        this.filteredUsers = new ArrayList<>();
+        this.differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     }
 
     @NonNull
@@ -45,19 +89,29 @@ public class UserSuggestionAdapter extends RecyclerView.Adapter<UserSuggestionAd
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User user = filteredUsers.get(position);
+        User user = differ.getCurrentList().get(position);
         holder.bind(user);
     }
 
     @Override
     public int getItemCount() {
-        return filteredUsers.size();
+        return differ.getCurrentList().size();
     }
 
     public void setUsers(List<User> users) {
         this.users = users != null ? users : new ArrayList<>();
-        this.filteredUsers = new ArrayList<>(this.users);
-        notifyDataSetChanged();
+
+        userIds.clear();
+        for (User user : this.users) {
+            userIds.add(user.getId());
+        }
+
+        // Snapshot the list: the index is built on the search thread while the UI may keep adding users
+        final List<User> snapshot = new ArrayList<>(this.users);
+        SEARCH_EXECUTOR.execute(() -> searchIndex = new UserSearchIndex(snapshot));
+
+        // Re-apply the current query instead of showing every user
+        filter(currentQuery);
     }
 
     // ADD THIS METHOD to add a single user
@@ -66,23 +120,13 @@ public class UserSuggestionAdapter extends RecyclerView.Adapter<UserSuggestionAd
             if (users == null) {
                 users = new ArrayList<>();
             }
-            if (filteredUsers == null) {
-                filteredUsers = new ArrayList<>();
-            }
 
             // Check if user already exists
-            boolean exists = false;
-            for (User existingUser : users) {
-                if (existingUser.getId().equals(user.getId())) {
-                    exists = true;
-                    break;
-                }
-            }
-
-            if (!exists) {
+            if (!userIds.contains(user.getId())) {
                 users.add(0, user); // Add at the top
-                filteredUsers.add(0, user);
-                notifyItemInserted(0);
+                userIds.add(user.getId());
+                SEARCH_EXECUTOR.execute(() -> searchIndex.addPinned(user));
+                filter(currentQuery);
                 Log.d("UserSuggestionAdapter", "User added: " + user.getUsername() + ", total users: " + users.size());
             } else {
                 Log.d("UserSuggestionAdapter", "User already exists: " + user.getUsername());
@@ -90,71 +134,38 @@ public class UserSuggestionAdapter extends RecyclerView.Adapter<UserSuggestionAd
         }
     }
 
+    // Runs the query against the search index on the search thread and applies the result with DiffUtil.
+    // A newer call cancels the previous one, so only the latest query ever reaches the list.
     public void filter(String query) {
-        filteredUsers.clear();
-
-        if (TextUtils.isEmpty(query)) {
-            filteredUsers.addAll(users);
-        } else {
-            String searchQuery = query.toLowerCase().trim();
-            // Remove @ symbol if present
-            if (searchQuery.startsWith("@")) {
-                searchQuery = searchQuery.substring(1);
-            }
+        currentQuery = query != null ? query : "";
+        final String searchQuery = currentQuery;
+        final int generation = ++filterGeneration;
 
-            for (User user : users) {
-                if (matchesQuery(user, searchQuery)) {
-                    filteredUsers.add(user);
-                }
-            }
+        if (pendingFilter != null) {
+            pendingFilter.cancel(false);
         }
 
-        notifyDataSetChanged();
-    }
-
-    private boolean matchesQuery(User user, String query) {
-        if (TextUtils.isEmpty(query)) {
-            return true;
-        }
-
-        // Check username match
-        if (user.getUsername() != null &&
-                user.getUsername().toLowerCase().contains(query)) {
-            return true;
-        }
-
-        // Check full name match
-        if (user.getFullName() != null &&
-                user.getFullName().toLowerCase().contains(query)) {
-            return true;
-        }
-
-        // Check email match
-        if (user.getEmail() != null &&
-                user.getEmail().toLowerCase().contains(query)) {
-            return true;
-        }
-
-        // Regex pattern matching for similar names
-        try {
-            String regexPattern = ".*" + Pattern.quote(query) + ".*";
-            Pattern pattern = Pattern.compile(regexPattern, Pattern.CASE_INSENSITIVE);
-
-            if (user.getUsername() != null && pattern.matcher(user.getUsername()).matches()) {
-                return true;
+        pendingFilter = SEARCH_EXECUTOR.submit(() -> {
+            if (generation != filterGeneration) {
+                return;
             }
 
-            if (user.getFullName() != null && pattern.matcher(user.getFullName()).matches()) {
-                return true;
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+            List<User> result = searchIndex.search(searchQuery);
 
-        return false;
+            mainHandler.post(() -> {
+                if (generation == filterGeneration) {
+                    submitResult(result);
+                }
+            });
+        });
     }
 
-
+    private void submitResult(List<User> result) {
+        if (differ.getCurrentList().size() + result.size() > MAX_DIFF_SIZE) {
+            differ.submitList(null);
+        }
+        differ.submitList(result);
+    }
 
     public class UserViewHolder extends RecyclerView.ViewHolder {
         private ImageView ivProfilePicture;
@@ -174,7 +185,7 @@ public class UserSuggestionAdapter extends RecyclerView.Adapter<UserSuggestionAd
                 public void onClick(View v) {
                     int position = getAdapterPosition();
                     if (position != RecyclerView.NO_POSITION && listener != null) {
-                        listener.onUserClick(filteredUsers.get(position));
+                        listener.onUserClick(differ.getCurrentList().get(position));
                     }
                 }
             });
@@ -1,5 +1,7 @@
 package com.project.realtimechatui.api;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.project.realtimechatui.utils.Constants;
 import com.project.realtimechatui.utils.SharedPrefManager;
 
@@ -17,6 +19,7 @@ import retrofit2.converter.gson.GsonConverterFactory;
 public class ApiClient {
     private static Retrofit retrofit;
     private static ApiService apiService;
+    private static Gson gson;
 
     public static ApiService getApiService() {
         if (apiService == null) {
@@ -25,6 +28,16 @@ public class ApiClient {
         return apiService;
     }
 
+    // Shared by Retrofit and the WebSocket client so every decoded model gets its post-decode hook
+    public static synchronized Gson getGson() {
+        if (gson == null) {
+            gson = new GsonBuilder()
+                    .registerTypeAdapterFactory(new PostDecodeTypeAdapterFactory())
+                    .create();
+        }
+        return gson;
+    }
+
     private static Retrofit getRetrofitInstance() {
         if (retrofit == null) {
             // Create logging interceptor
@@ -60,6 +73,8 @@ public class ApiClient {
             OkHttpClient client = new OkHttpClient.Builder()
                     .addInterceptor(loggingInterceptor)
                     .addInterceptor(authInterceptor)
+                    // Last, so logging and auth aren't counted in the call time
+                    .addInterceptor(new CallMetricsInterceptor())
                     .connectTimeout(30, TimeUnit.SECONDS)
                     .readTimeout(30, TimeUnit.SECONDS)
                     .writeTimeout(30, TimeUnit.SECONDS)
@@ -68,7 +83,7 @@ public class ApiClient {
             retrofit = new Retrofit.Builder()
                     .baseUrl(Constants.BASE_URL)
                     .client(client)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .addConverterFactory(GsonConverterFactory.create(getGson()))
                     .build();
         }
         return retrofit;
@@ -0,0 +1,66 @@
+package com.project.realtimechatui.api;
+
+import com.project.realtimechatui.metrics.Counter;
+import com.project.realtimechatui.metrics.Histogram;
+import com.project.realtimechatui.metrics.Metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * Times every REST call per {@link ApiService} method ("rest.getChatRooms"), up to the response
+ * headers, and counts the ones that fail or come back unsuccessful ("rest.getChatRooms.errors").
+ */
+class CallMetricsInterceptor implements Interceptor {
+    private final Map<Method, Histogram> callTimes = new ConcurrentHashMap<>();
+    private final Map<Method, Counter> callErrors = new ConcurrentHashMap<>();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation == null) {
+            return chain.proceed(request);
+        }
+
+        Method method = invocation.method();
+        long start = System.nanoTime();
+        try {
+            Response response = chain.proceed(request);
+            if (!response.isSuccessful()) {
+                errorsFor(method).increment();
+            }
+            return response;
+        } catch (IOException e) {
+            errorsFor(method).increment();
+            throw e;
+        } finally {
+            timeFor(method).recordSince(start);
+        }
+    }
+
+    private Histogram timeFor(Method method) {
+        Histogram histogram = callTimes.get(method);
+        if (histogram == null) {
+            histogram = Metrics.getInstance().histogram("rest." + method.getName());
+            callTimes.put(method, histogram);
+        }
+        return histogram;
+    }
+
+    private Counter errorsFor(Method method) {
+        Counter counter = callErrors.get(method);
+        if (counter == null) {
+            counter = Metrics.getInstance().counter("rest." + method.getName() + ".errors");
+            callErrors.put(method, counter);
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,186 @@
+package com.project.realtimechatui.api;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.project.realtimechatui.api.models.BaseDTO;
+import com.project.realtimechatui.api.models.User;
+import com.project.realtimechatui.utils.Constants;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Debounced getUserByUsername lookups for search-as-you-type.
+ *
+ * Only the last username typed within the debounce window is requested, a newer lookup cancels
+ * the Retrofit call of the one it supersedes, and both hits and misses are cached with a TTL.
+ * The API has no batch endpoint, so batching is limited to coalescing: a lookup for the username
+ * that is already in flight joins that request instead of opening a new one.
+ *
+ * Must be used from the main thread.
+ */
+public class UsernameLookup {
+    private static final String TAG = "UsernameLookup";
+    private static final int MAX_CACHE_ENTRIES = 200;
+
+    // Shared by all instances so the main search and the group dialog reuse each other's results
+    private static final Map<String, CacheEntry> cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return size() > MAX_CACHE_ENTRIES;
+        }
+    };
+
+    private final ApiService apiService;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private Runnable pendingLookup;
+    private Call<BaseDTO<User>> inFlightCall;
+    private String inFlightUsername;
+    private OnLookupListener inFlightListener;
+
+    public interface OnLookupListener {
+        void onUserFound(User user);
+        void onLookupFailed(String username, Throwable t);
+    }
+
+    private static class CacheEntry {
+        final User user; // null for a cached miss
+        final long expiresAt;
+
+        CacheEntry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public UsernameLookup(ApiService apiService) {
+        this.apiService = apiService;
+    }
+
+    public void lookup(String username, OnLookupListener listener) {
+        cancelPending();
+
+        if (TextUtils.isEmpty(username)) {
+            cancelInFlight();
+            return;
+        }
+
+        pendingLookup = () -> {
+            pendingLookup = null;
+            execute(username, listener);
+        };
+        handler.postDelayed(pendingLookup, Constants.USERNAME_LOOKUP_DEBOUNCE_MS);
+    }
+
+    // Drops the pending lookup and cancels the request in flight, e.g. when the search is cleared
+    public void cancel() {
+        cancelPending();
+        cancelInFlight();
+    }
+
+    private void execute(String username, OnLookupListener listener) {
+        CacheEntry cached = getCached(username);
+        if (cached != null) {
+            cancelInFlight();
+            if (cached.user != null) {
+                listener.onUserFound(cached.user);
+            }
+            return;
+        }
+
+        // Same username still in flight - join it instead of sending another request
+        if (inFlightCall != null && username.equals(inFlightUsername)) {
+            inFlightListener = listener;
+            return;
+        }
+
+        cancelInFlight();
+
+        Log.d(TAG, "Looking up username: " + username);
+        Call<BaseDTO<User>> call = apiService.getUserByUsername(username);
+        inFlightCall = call;
+        inFlightUsername = username;
+        inFlightListener = listener;
+
+        call.enqueue(new Callback<BaseDTO<User>>() {
+            @Override
+            public void onResponse(Call<BaseDTO<User>> call, Response<BaseDTO<User>> response) {
+                if (call != inFlightCall) {
+                    return;
+                }
+                OnLookupListener target = inFlightListener;
+                clearInFlight();
+
+                if (response.isSuccessful() && response.body() != null) {
+                    BaseDTO<User> result = response.body();
+                    User user = result.isSuccess() ? result.getData() : null;
+                    putCached(username, user);
+                    if (user != null) {
+                        target.onUserFound(user);
+                    }
+                } else if (response.code() == 404) {
+                    putCached(username, null);
+                } else {
+                    Log.w(TAG, "Lookup for " + username + " failed with code " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<BaseDTO<User>> call, Throwable t) {
+                if (call.isCanceled() || call != inFlightCall) {
+                    return;
+                }
+                OnLookupListener target = inFlightListener;
+                clearInFlight();
+                target.onLookupFailed(username, t);
+            }
+        });
+    }
+
+    private void cancelPending() {
+        if (pendingLookup != null) {
+            handler.removeCallbacks(pendingLookup);
+            pendingLookup = null;
+        }
+    }
+
+    private void cancelInFlight() {
+        if (inFlightCall != null) {
+            Log.d(TAG, "Cancelling superseded lookup: " + inFlightUsername);
+            inFlightCall.cancel();
+        }
+        clearInFlight();
+    }
+
+    private void clearInFlight() {
+        inFlightCall = null;
+        inFlightUsername = null;
+        inFlightListener = null;
+    }
+
+    private static CacheEntry getCached(String username) {
+        CacheEntry entry = cache.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= SystemClock.elapsedRealtime()) {
+            cache.remove(username);
+            return null;
+        }
+        return entry;
+    }
+
+    private static void putCached(String username, User user) {
+        long ttl = user != null ? Constants.USERNAME_LOOKUP_HIT_TTL_MS : Constants.USERNAME_LOOKUP_MISS_TTL_MS;
+        cache.put(username, new CacheEntry(user, SystemClock.elapsedRealtime() + ttl));
+    }
+}
@@ -0,0 +1,176 @@
+package com.project.realtimechatui.bootstrap;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.project.realtimechatui.api.ApiClient;
+import com.project.realtimechatui.api.ApiService;
+import com.project.realtimechatui.api.models.BaseDTO;
+import com.project.realtimechatui.api.models.ChatRoom;
+import com.project.realtimechatui.cache.MessagePrefetcher;
+import com.project.realtimechatui.cache.RoomListCache;
+import com.project.realtimechatui.utils.Constants;
+import com.project.realtimechatui.utils.SessionSnapshot;
+import com.project.realtimechatui.utils.SharedPrefManager;
+import com.project.realtimechatui.websocket.WebSocketChatManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.Response;
+
+/**
+ * Warms everything the first screens need as soon as login returns a token.
+ *
+ * Stages run in parallel on a small bounded pool:
+ *  - session: loads the SharedPreferences snapshot off the main thread
+ *  - socket:  opens the STOMP connection so the first room can join right away
+ *  - rooms:   fetches the room list into {@link RoomListCache}
+ *  - warm:    once rooms are in, has {@link MessagePrefetcher} pull the latest page of the top rooms
+ *
+ * Each stage's duration is recorded and logged when all of them are done.
+ */
+public class SessionBootstrap {
+    private static final String TAG = "SessionBootstrap";
+    private static SessionBootstrap instance;
+
+    public static final String STAGE_SESSION = "session";
+    public static final String STAGE_SOCKET = "socket";
+    public static final String STAGE_ROOMS = "rooms";
+    public static final String STAGE_WARM = "warm";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(Constants.BOOTSTRAP_CONCURRENCY, runnable -> {
+        Thread thread = new Thread(runnable, "session-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Map<String, Long> stageDurations = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final AtomicInteger pendingStages = new AtomicInteger();
+    private volatile Long bootstrappedUserId;
+    private volatile boolean loadingRooms = false;
+    private long startedAt;
+
+    private SessionBootstrap() {
+    }
+
+    public static synchronized SessionBootstrap getInstance() {
+        if (instance == null) {
+            instance = new SessionBootstrap();
+        }
+        return instance;
+    }
+
+    // Safe to call more than once: a session that is already bootstrapped is left alone.
+    // Must be called on the main thread after the auth data has been saved.
+    public void start() {
+        SharedPrefManager sharedPrefManager = SharedPrefManager.getInstance();
+        Long userId = sharedPrefManager.getId();
+        if (userId == null || userId == -1L || userId.equals(bootstrappedUserId)) {
+            return;
+        }
+
+        bootstrappedUserId = userId;
+        stageDurations.clear();
+        startedAt = SystemClock.elapsedRealtime();
+        pendingStages.set(4);
+        Log.d(TAG, "Starting bootstrap for user " + userId);
+
+        executor.execute(() -> {
+            long stageStart = SystemClock.elapsedRealtime();
+            SessionSnapshot session = sharedPrefManager.getSession();
+            finishStage(STAGE_SESSION, stageStart);
+            Log.d(TAG, "Session ready for " + session.getUsername());
+        });
+
+        startSocket();
+
+        loadingRooms = true;
+        executor.execute(() -> loadRooms(userId));
+    }
+
+    public boolean isLoadingRooms() {
+        return loadingRooms;
+    }
+
+    public Map<String, Long> getStageDurations() {
+        synchronized (stageDurations) {
+            return new LinkedHashMap<>(stageDurations);
+        }
+    }
+
+    // Called from MainActivity's sign-out (Log out, or a 401) so the next login bootstraps again
+    public void reset() {
+        bootstrappedUserId = null;
+        loadingRooms = false;
+    }
+
+    private void startSocket() {
+        long stageStart = SystemClock.elapsedRealtime();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        Runnable finishSocketStage = () -> {
+            if (finished.compareAndSet(false, true)) {
+                finishStage(STAGE_SOCKET, stageStart);
+            }
+        };
+
+        WebSocketChatManager webSocketManager = WebSocketChatManager.getInstance();
+        webSocketManager.whenConnected(finishSocketStage);
+        webSocketManager.connect();
+
+        // Don't let an unreachable server keep the bootstrap open forever
+        mainHandler.postDelayed(() -> {
+            if (!finished.get()) {
+                Log.w(TAG, "Socket did not open within " + Constants.BOOTSTRAP_SOCKET_TIMEOUT_MS + "ms");
+                finishSocketStage.run();
+            }
+        }, Constants.BOOTSTRAP_SOCKET_TIMEOUT_MS);
+    }
+
+    private void loadRooms(Long userId) {
+        long stageStart = SystemClock.elapsedRealtime();
+        ApiService apiService = ApiClient.getApiService();
+        List<ChatRoom> chatRooms = null;
+
+        try {
+            Response<BaseDTO<List<ChatRoom>>> response = apiService.getChatRoomsByUserId(userId).execute();
+            if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                chatRooms = response.body().getData();
+            } else {
+                Log.w(TAG, "Room list request failed: " + response.code());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Room list request failed", e);
+        }
+
+        if (chatRooms != null) {
+            RoomListCache.getInstance().put(chatRooms, userId);
+        }
+        loadingRooms = false;
+        finishStage(STAGE_ROOMS, stageStart);
+
+        warmTopRooms(chatRooms, userId);
+    }
+
+    private void warmTopRooms(List<ChatRoom> chatRooms, Long userId) {
+        long stageStart = SystemClock.elapsedRealtime();
+        MessagePrefetcher.getInstance().prefetch(chatRooms, userId, () -> finishStage(STAGE_WARM, stageStart));
+    }
+
+    private void finishStage(String stage, long stageStart) {
+        stageDurations.put(stage, SystemClock.elapsedRealtime() - stageStart);
+        if (pendingStages.decrementAndGet() == 0) {
+            long total = SystemClock.elapsedRealtime() - startedAt;
+            mainHandler.post(() -> Log.d(TAG, "Bootstrap finished in " + total + "ms: " + getStageDurations()));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.project.realtimechatui.cache;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory copy of the latest page of messages for recently used rooms.
+ *
+ * Chat screens render from here as soon as they open and then refresh from the network.
+ * Pages are stored oldest first, exactly as the adapter shows them. Least recently used rooms
+ * are evicted once {@link Constants#MESSAGE_CACHE_MAX_ROOMS} is reached.
+ */
+public class MessageCache {
+    private static MessageCache instance;
+
+    private final Map<Long, List<ChatMessage>> pages =
+            new LinkedHashMap<Long, List<ChatMessage>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, List<ChatMessage>> eldest) {
+                    return size() > Constants.MESSAGE_CACHE_MAX_ROOMS;
+                }
+            };
+
+    private MessageCache() {
+    }
+
+    public static synchronized MessageCache getInstance() {
+        if (instance == null) {
+            instance = new MessageCache();
+        }
+        return instance;
+    }
+
+    // Returns a copy the caller is free to modify, or null when the room is not cached
+    public synchronized List<ChatMessage> get(Long chatRoomId) {
+        List<ChatMessage> page = pages.get(chatRoomId);
+        return page != null ? new ArrayList<>(page) : null;
+    }
+
+    public synchronized boolean contains(Long chatRoomId) {
+        return pages.containsKey(chatRoomId);
+    }
+
+    public synchronized void put(Long chatRoomId, List<ChatMessage> sortedMessages) {
+        if (chatRoomId == null || sortedMessages == null) {
+            return;
+        }
+        List<ChatMessage> page = new ArrayList<>(sortedMessages);
+        trim(page);
+        pages.put(chatRoomId, page);
+    }
+
+    // Keeps a cached page current with live traffic; rooms that are not cached are ignored
+    public synchronized void append(Long chatRoomId, ChatMessage message) {
+        List<ChatMessage> page = pages.get(chatRoomId);
+        if (page == null || message == null) {
+            return;
+        }
+        if (message.hasId()) {
+            for (int i = page.size() - 1; i >= 0; i--) {
+                ChatMessage cached = page.get(i);
+                if (cached.hasId() && cached.getIdValue() == message.getIdValue()) {
+                    return;
+                }
+            }
+        }
+        page.add(message);
+        trim(page);
+    }
+
+    public synchronized void remove(Long chatRoomId) {
+        pages.remove(chatRoomId);
+    }
+
+    public synchronized void clear() {
+        pages.clear();
+    }
+
+    private static void trim(List<ChatMessage> page) {
+        int overflow = page.size() - Constants.MESSAGE_PAGE_SIZE;
+        if (overflow > 0) {
+            page.subList(0, overflow).clear();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.project.realtimechatui.cache;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.project.realtimechatui.api.ApiClient;
+import com.project.realtimechatui.api.models.BaseDTO;
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.api.models.ChatRoom;
+import com.project.realtimechatui.utils.Constants;
+import com.project.realtimechatui.utils.TimestampCodec;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import retrofit2.Response;
+
+/**
+ * Pulls the latest page of the rooms the user is most likely to open into {@link MessageCache}.
+ *
+ * Rooms with unread messages come first, then the most recently active ones. At most
+ * {@link Constants#PREFETCH_CONCURRENCY} requests run at a time on background-priority threads.
+ * Nothing new is started while a list is being scrolled or while the active network is metered.
+ */
+public class MessagePrefetcher {
+    private static final String TAG = "MessagePrefetcher";
+    private static MessagePrefetcher instance;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(Constants.PREFETCH_CONCURRENCY, runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "message-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Guarded by "this"
+    private final ArrayDeque<Long> queue = new ArrayDeque<>();
+    private final Set<Long> scheduled = new HashSet<>();
+    private final List<Runnable> idleCallbacks = new ArrayList<>();
+    private int activeFetches = 0;
+    private boolean resumeScheduled = false;
+
+    private volatile long pausedUntil = 0;
+    private ConnectivityManager connectivityManager;
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                pausedUntil = 0;
+                drain();
+            } else {
+                pauseForScroll();
+            }
+        }
+
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            pauseForScroll();
+        }
+    };
+
+    private MessagePrefetcher() {
+    }
+
+    public static synchronized MessagePrefetcher getInstance() {
+        if (instance == null) {
+            instance = new MessagePrefetcher();
+        }
+        return instance;
+    }
+
+    // Called once from Application so metered networks can be detected
+    public void init(Context context) {
+        connectivityManager = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    // Attach to any RecyclerView whose scrolling should hold prefetching back
+    public RecyclerView.OnScrollListener getScrollListener() {
+        return scrollListener;
+    }
+
+    public void prefetch(List<ChatRoom> chatRooms, Long currentUserId) {
+        prefetch(chatRooms, currentUserId, null);
+    }
+
+    // onIdle runs once nothing is queued or in flight any more, on whichever thread got there
+    public void prefetch(List<ChatRoom> chatRooms, Long currentUserId, Runnable onIdle) {
+        List<ChatRoom> ranked = rank(chatRooms, currentUserId);
+        MessageCache messageCache = MessageCache.getInstance();
+
+        synchronized (this) {
+            int added = 0;
+            for (ChatRoom room : ranked) {
+                if (added >= Constants.PREFETCH_ROOM_COUNT) {
+                    break;
+                }
+                Long chatRoomId = room.getId();
+                if (scheduled.contains(chatRoomId) || messageCache.contains(chatRoomId)) {
+                    continue;
+                }
+                scheduled.add(chatRoomId);
+                queue.add(chatRoomId);
+                added++;
+            }
+            if (onIdle != null) {
+                idleCallbacks.add(onIdle);
+            }
+            Log.d(TAG, "Queued " + added + " rooms for prefetch");
+        }
+        drain();
+    }
+
+    // Drops everything not yet started, e.g. on logout
+    public void cancel() {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            scheduled.removeAll(queue);
+            queue.clear();
+            callbacks = takeIdleCallbacksIfIdle();
+        }
+        runAll(callbacks);
+    }
+
+    private void drain() {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            if (!queue.isEmpty()) {
+                if (isMetered()) {
+                    // Don't spend the user's data on something they may never open
+                    Log.d(TAG, "Metered network, dropping " + queue.size() + " queued prefetches");
+                    scheduled.removeAll(queue);
+                    queue.clear();
+                } else if (isPaused()) {
+                    scheduleResume();
+                    return;
+                }
+            }
+
+            while (activeFetches < Constants.PREFETCH_CONCURRENCY && !queue.isEmpty()) {
+                Long chatRoomId = queue.poll();
+                activeFetches++;
+                executor.execute(() -> {
+                    fetchLatestPage(chatRoomId);
+                    synchronized (MessagePrefetcher.this) {
+                        activeFetches--;
+                        scheduled.remove(chatRoomId);
+                    }
+                    drain();
+                });
+            }
+            callbacks = takeIdleCallbacksIfIdle();
+        }
+        runAll(callbacks);
+    }
+
+    private void pauseForScroll() {
+        pausedUntil = SystemClock.elapsedRealtime() + Constants.PREFETCH_SCROLL_PAUSE_MS;
+    }
+
+    private boolean isPaused() {
+        return SystemClock.elapsedRealtime() < pausedUntil;
+    }
+
+    // Resumes by itself even if the scrolling screen goes away before reporting idle
+    private void scheduleResume() {
+        if (resumeScheduled) {
+            return;
+        }
+        resumeScheduled = true;
+        long delay = Math.max(0, pausedUntil - SystemClock.elapsedRealtime());
+        mainHandler.postDelayed(() -> {
+            synchronized (MessagePrefetcher.this) {
+                resumeScheduled = false;
+            }
+            drain();
+        }, delay);
+    }
+
+    // Fails closed: until init() has found the connectivity service, assume the data costs money
+    private boolean isMetered() {
+        return connectivityManager == null || connectivityManager.isActiveNetworkMetered();
+    }
+
+    private List<Runnable> takeIdleCallbacksIfIdle() {
+        if (activeFetches > 0 || !queue.isEmpty() || idleCallbacks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Runnable> callbacks = new ArrayList<>(idleCallbacks);
+        idleCallbacks.clear();
+        return callbacks;
+    }
+
+    private static void runAll(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    private void fetchLatestPage(Long chatRoomId) {
+        try {
+            Response<BaseDTO<List<ChatMessage>>> response = ApiClient.getApiService()
+                    .getMessagesByChatRoom(chatRoomId, 0, Constants.MESSAGE_PAGE_SIZE)
+                    .execute();
+            if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                    && response.body().getData() != null) {
+                List<ChatMessage> messages = response.body().getData();
+                // Same ordering the chat screens apply: oldest first
+                Collections.sort(messages, (m1, m2) -> Long.compare(TimestampCodec.sortKey(m1.getTimestampMillis()),
+                        TimestampCodec.sortKey(m2.getTimestampMillis())));
+                MessageCache.getInstance().put(chatRoomId, messages);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to prefetch messages for room " + chatRoomId, e);
+        }
+    }
+
+    // Unread rooms first, then by last activity (newest first); rooms without messages are skipped
+    static List<ChatRoom> rank(List<ChatRoom> chatRooms, Long currentUserId) {
+        List<ChatRoom> ranked = new ArrayList<>();
+        if (chatRooms == null) {
+            return ranked;
+        }
+        for (ChatRoom room : chatRooms) {
+            if (room != null && room.getId() != null && room.hasLastMessage()) {
+                ranked.add(room);
+            }
+        }
+
+        Collections.sort(ranked, new Comparator<ChatRoom>() {
+            @Override
+            public int compare(ChatRoom room1, ChatRoom room2) {
+                boolean unread1 = room1.hasUnread(currentUserId);
+                boolean unread2 = room2.hasUnread(currentUserId);
+                if (unread1 != unread2) {
+                    return unread1 ? -1 : 1;
+                }
+                return Long.compare(room2.getLastMessageTimestampMillis(), room1.getLastMessageTimestampMillis());
+            }
+        });
+        return ranked;
+    }
+}
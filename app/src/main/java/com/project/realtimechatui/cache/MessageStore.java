@@ -0,0 +1,256 @@
+package com.project.realtimechatui.cache;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.project.realtimechatui.api.ApiClient;
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.utils.TimestampCodec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * On-disk copy of the messages chat screens have taken in, per room and ordered by time.
+ *
+ * A chat screen keeps only a window of a long conversation in memory; the pages it drops are read
+ * back from here when the user scrolls to them again. Each room is replaced whenever its screen
+ * loads a fresh latest page, so what is stored for a room is always one unbroken stretch of
+ * history ending at the newest message. Nothing is kept across launches: the store empties itself
+ * when it opens, and MainActivity's sign-out (Log out, or a 401) empties it again.
+ *
+ * Every operation runs on one background thread in submission order; results are handed to the
+ * callback on that thread, or null when the query failed.
+ */
+public class MessageStore {
+    private static final String TAG = "MessageStore";
+    private static final String DATABASE_NAME = "messages.db";
+    private static final int DATABASE_VERSION = 1;
+    private static MessageStore instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "message-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Gson gson = ApiClient.getGson();
+    private volatile OpenHelper helper;
+
+    private MessageStore() {
+    }
+
+    public static synchronized MessageStore getInstance() {
+        if (instance == null) {
+            instance = new MessageStore();
+        }
+        return instance;
+    }
+
+    public void init(Context context) {
+        helper = new OpenHelper(context.getApplicationContext());
+        // Left over from the previous launch, and no longer known to be contiguous with the server
+        clear();
+    }
+
+    // Makes these messages the whole of what is stored for the room
+    public void replace(Long chatRoomId, List<ChatMessage> messages) {
+        List<ChatMessage> copy = new ArrayList<>(messages);
+        run(db -> {
+            db.beginTransaction();
+            try {
+                db.delete("messages", "room_id = ?", new String[]{String.valueOf(chatRoomId)});
+                insert(db, chatRoomId, copy);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    // Adds or overwrites messages; those without a server ID yet are skipped
+    public void save(Long chatRoomId, List<ChatMessage> messages) {
+        List<ChatMessage> copy = new ArrayList<>(messages);
+        run(db -> {
+            db.beginTransaction();
+            try {
+                insert(db, chatRoomId, copy);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    // Applies an edit or deletion to the stored copy of a message, if there is one
+    public void patch(Long messageId, Consumer<ChatMessage> patch) {
+        run(db -> {
+            try (Cursor cursor = db.rawQuery("SELECT room_id, body FROM messages WHERE id = ?",
+                    new String[]{String.valueOf(messageId)})) {
+                if (!cursor.moveToFirst()) {
+                    return;
+                }
+                long chatRoomId = cursor.getLong(0);
+                ChatMessage message = decode(cursor.getString(1));
+                if (message != null) {
+                    patch.accept(message);
+                    insert(db, chatRoomId, Collections.singletonList(message));
+                }
+            }
+        });
+    }
+
+    // Up to limit messages just before the anchor (or the newest, when it is null), oldest first
+    public void loadBefore(Long chatRoomId, ChatMessage anchor, int limit, Consumer<List<ChatMessage>> callback) {
+        run(db -> {
+            String[] args;
+            String where;
+            if (anchor == null) {
+                where = "room_id = ?";
+                args = new String[]{String.valueOf(chatRoomId), String.valueOf(limit)};
+            } else {
+                where = "room_id = ? AND (sent_at < ? OR (sent_at = ? AND id < ?))";
+                args = new String[]{String.valueOf(chatRoomId), String.valueOf(sentAtOf(anchor)),
+                        String.valueOf(sentAtOf(anchor)), String.valueOf(sortIdOf(anchor)), String.valueOf(limit)};
+            }
+            List<ChatMessage> messages = query(db, "SELECT body FROM messages WHERE " + where
+                    + " ORDER BY sent_at DESC, id DESC LIMIT ?", args);
+            Collections.reverse(messages);
+            callback.accept(messages);
+        }, () -> callback.accept(null));
+    }
+
+    // Up to limit messages just after the anchor, oldest first
+    public void loadAfter(Long chatRoomId, ChatMessage anchor, int limit, Consumer<List<ChatMessage>> callback) {
+        run(db -> callback.accept(query(db, "SELECT body FROM messages WHERE room_id = ?"
+                        + " AND (sent_at > ? OR (sent_at = ? AND id > ?)) ORDER BY sent_at, id LIMIT ?",
+                new String[]{String.valueOf(chatRoomId), String.valueOf(sentAtOf(anchor)),
+                        String.valueOf(sentAtOf(anchor)), String.valueOf(sortIdOf(anchor)), String.valueOf(limit)})),
+                () -> callback.accept(null));
+    }
+
+    // How many stored messages of the room are newer than the anchor, or the anchor itself
+    public void countFrom(Long chatRoomId, ChatMessage anchor, Consumer<Integer> callback) {
+        run(db -> {
+            try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM messages WHERE room_id = ?"
+                            + " AND (sent_at > ? OR (sent_at = ? AND id >= ?))",
+                    new String[]{String.valueOf(chatRoomId), String.valueOf(sentAtOf(anchor)),
+                            String.valueOf(sentAtOf(anchor)), String.valueOf(sortIdOf(anchor))})) {
+                callback.accept(cursor.moveToFirst() ? cursor.getInt(0) : 0);
+            }
+        }, () -> callback.accept(null));
+    }
+
+    public void clear() {
+        run(db -> db.delete("messages", null, null));
+    }
+
+    private void run(Consumer<SQLiteDatabase> operation) {
+        run(operation, null);
+    }
+
+    // A failed query still answers its caller, so a waiting window isn't left hanging
+    private void run(Consumer<SQLiteDatabase> operation, Runnable onFailure) {
+        executor.execute(() -> {
+            OpenHelper openHelper = helper;
+            if (openHelper == null) {
+                Log.w(TAG, "Message store used before init");
+                if (onFailure != null) {
+                    onFailure.run();
+                }
+                return;
+            }
+            try {
+                operation.accept(openHelper.getWritableDatabase());
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Message store operation failed", e);
+                if (onFailure != null) {
+                    onFailure.run();
+                }
+            }
+        });
+    }
+
+    private void insert(SQLiteDatabase db, Long chatRoomId, List<ChatMessage> messages) {
+        SQLiteStatement statement = db.compileStatement(
+                "INSERT OR REPLACE INTO messages (id, room_id, sent_at, body) VALUES (?, ?, ?, ?)");
+        try {
+            for (ChatMessage message : messages) {
+                if (message == null || !message.hasId() || message.getIdValue() <= 0) {
+                    continue;
+                }
+                statement.bindLong(1, message.getIdValue());
+                statement.bindLong(2, chatRoomId);
+                statement.bindLong(3, sentAtOf(message));
+                statement.bindString(4, gson.toJson(message));
+                statement.executeInsert();
+                statement.clearBindings();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private List<ChatMessage> query(SQLiteDatabase db, String sql, String[] args) {
+        List<ChatMessage> messages = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                ChatMessage message = decode(cursor.getString(0));
+                if (message != null) {
+                    messages.add(message);
+                }
+            }
+        }
+        return messages;
+    }
+
+    // Goes through the shared Gson, so the timestamp is parsed once here like any decoded message
+    private ChatMessage decode(String body) {
+        try {
+            return gson.fromJson(body, ChatMessage.class);
+        } catch (JsonParseException e) {
+            Log.w(TAG, "Dropping unreadable stored message", e);
+            return null;
+        }
+    }
+
+    // Same order as the chat screens: a message without a time sorts after every timed one
+    private static long sentAtOf(ChatMessage message) {
+        return TimestampCodec.sortKey(message.getTimestampMillis());
+    }
+
+    // A local echo has no ID yet and sorts after every stored message of the same millisecond
+    private static long sortIdOf(ChatMessage message) {
+        return message.hasId() ? message.getIdValue() : Long.MAX_VALUE;
+    }
+
+    private static final class OpenHelper extends SQLiteOpenHelper {
+        OpenHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE messages (id INTEGER PRIMARY KEY, room_id INTEGER NOT NULL,"
+                    + " sent_at INTEGER NOT NULL, body TEXT NOT NULL)");
+            // Every window query is a range over one room's timeline
+            db.execSQL("CREATE INDEX messages_room_time ON messages (room_id, sent_at, id)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Only ever a cache of the server
+            db.execSQL("DROP TABLE IF EXISTS messages");
+            onCreate(db);
+        }
+    }
+}
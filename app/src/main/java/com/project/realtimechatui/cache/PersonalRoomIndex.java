@@ -0,0 +1,115 @@
+package com.project.realtimechatui.cache;
+
+import com.project.realtimechatui.api.models.ChatRoom;
+import com.project.realtimechatui.api.models.Participant;
+import com.project.realtimechatui.enums.EnumRoomType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps a chat partner's user ID to the ID of the personal chat room shared with the current user.
+ *
+ * It is refreshed from every room list the app downloads, updated when a personal room is
+ * created, and learns from inbound messages, so opening a chat from search usually resolves the
+ * room without a network call.
+ */
+public class PersonalRoomIndex {
+    private static PersonalRoomIndex instance;
+
+    private final Map<Long, Long> roomIdByPartnerId = new ConcurrentHashMap<>();
+    private volatile Long ownerUserId;
+
+    private PersonalRoomIndex() {
+    }
+
+    public static synchronized PersonalRoomIndex getInstance() {
+        if (instance == null) {
+            instance = new PersonalRoomIndex();
+        }
+        return instance;
+    }
+
+    public Long getRoomId(Long currentUserId, Long partnerUserId) {
+        if (partnerUserId == null || currentUserId == null || !currentUserId.equals(ownerUserId)) {
+            return null;
+        }
+        return roomIdByPartnerId.get(partnerUserId);
+    }
+
+    // The room list from the server is authoritative, so it replaces everything known so far
+    public void replaceAll(List<ChatRoom> chatRooms, Long currentUserId) {
+        switchOwner(currentUserId);
+        roomIdByPartnerId.clear();
+        if (chatRooms == null) {
+            return;
+        }
+        for (ChatRoom room : chatRooms) {
+            indexRoom(room, currentUserId);
+        }
+    }
+
+    public void indexRoom(ChatRoom room, Long currentUserId) {
+        if (room == null || room.getId() == null) {
+            return;
+        }
+        Long partnerId = findPartnerId(room, currentUserId);
+        if (partnerId != null) {
+            put(currentUserId, partnerId, room.getId());
+        }
+    }
+
+    public void put(Long currentUserId, Long partnerUserId, Long chatRoomId) {
+        if (currentUserId == null || partnerUserId == null || chatRoomId == null) {
+            return;
+        }
+        switchOwner(currentUserId);
+        roomIdByPartnerId.put(partnerUserId, chatRoomId);
+    }
+
+    public void remove(Long partnerUserId) {
+        if (partnerUserId != null) {
+            roomIdByPartnerId.remove(partnerUserId);
+        }
+    }
+
+    public void clear() {
+        roomIdByPartnerId.clear();
+        ownerUserId = null;
+    }
+
+    // Returns the other user of a personal room made of exactly the current user and one partner
+    public static Long findPartnerId(ChatRoom room, Long currentUserId) {
+        if (room == null || room.getType() != EnumRoomType.PERSONAL ||
+                room.getParticipants() == null || currentUserId == null) {
+            return null;
+        }
+
+        boolean hasCurrentUser = false;
+        Long partnerId = null;
+        for (Participant participant : room.getParticipants()) {
+            if (participant == null || participant.getUserId() == null) {
+                continue;
+            }
+            Long userId = participant.getUserId();
+            if (userId.equals(currentUserId)) {
+                hasCurrentUser = true;
+            } else if (partnerId == null) {
+                partnerId = userId;
+            } else if (!partnerId.equals(userId)) {
+                // A third user - not a personal chat between two people
+                return null;
+            }
+        }
+        return hasCurrentUser ? partnerId : null;
+    }
+
+    // Entries belong to one account; logging in as someone else starts from scratch
+    private synchronized void switchOwner(Long currentUserId) {
+        if (currentUserId != null && !currentUserId.equals(ownerUserId)) {
+            roomIdByPartnerId.clear();
+            ownerUserId = currentUserId;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.realtimechatui.cache;
+
+import android.util.Log;
+
+import com.project.realtimechatui.adapters.ChatMessageAdapter;
+import com.project.realtimechatui.api.ApiClient;
+import com.project.realtimechatui.api.models.BaseDTO;
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.utils.Constants;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * The history behind one chat screen's message window: pages it dropped come back from
+ * {@link MessageStore}, and history older than anything stored is paged in from the server and
+ * stored on the way.
+ */
+public class RoomHistory implements ChatMessageAdapter.MessageSource {
+    private static final String TAG = "RoomHistory";
+    // Server pages to try when the one worked out from the stored count holds nothing older
+    private static final int MAX_PAGE_ATTEMPTS = 3;
+
+    private final Long chatRoomId;
+    private final MessageStore store = MessageStore.getInstance();
+
+    public RoomHistory(Long chatRoomId) {
+        this.chatRoomId = chatRoomId;
+    }
+
+    @Override
+    public void replace(List<ChatMessage> messages) {
+        store.replace(chatRoomId, messages);
+    }
+
+    @Override
+    public void save(List<ChatMessage> messages) {
+        store.save(chatRoomId, messages);
+    }
+
+    @Override
+    public void patch(Long messageId, Consumer<ChatMessage> patch) {
+        store.patch(messageId, patch);
+    }
+
+    @Override
+    public void loadBefore(ChatMessage anchor, int limit, Consumer<List<ChatMessage>> callback) {
+        store.loadBefore(chatRoomId, anchor, limit, stored -> {
+            if (stored == null || stored.size() >= limit || anchor == null) {
+                callback.accept(stored);
+                return;
+            }
+            // The store runs unbroken from the newest message, so counting it gives the offset of
+            // its oldest message from the newest; server pages count back from the newest too.
+            // Rounding down overlaps a little with what is stored rather than leaving a gap.
+            ChatMessage oldest = stored.isEmpty() ? anchor : stored.get(0);
+            store.countFrom(chatRoomId, oldest, known -> {
+                if (known == null) {
+                    callback.accept(null);
+                } else {
+                    fetchOlder(anchor, limit, known / Constants.MESSAGE_PAGE_SIZE, 1, callback);
+                }
+            });
+        });
+    }
+
+    @Override
+    public void loadAfter(ChatMessage anchor, int limit, Consumer<List<ChatMessage>> callback) {
+        store.loadAfter(chatRoomId, anchor, limit, callback);
+    }
+
+    private void fetchOlder(ChatMessage anchor, int limit, int page, int attempt, Consumer<List<ChatMessage>> callback) {
+        Call<BaseDTO<List<ChatMessage>>> call = ApiClient.getApiService()
+                .getMessagesByChatRoom(chatRoomId, page, Constants.MESSAGE_PAGE_SIZE);
+        call.enqueue(new Callback<BaseDTO<List<ChatMessage>>>() {
+            @Override
+            public void onResponse(Call<BaseDTO<List<ChatMessage>>> call, Response<BaseDTO<List<ChatMessage>>> response) {
+                if (!response.isSuccessful() || response.body() == null || !response.body().isSuccess()
+                        || response.body().getData() == null) {
+                    Log.w(TAG, "Failed to load page " + page + " of room " + chatRoomId + ": " + response.code());
+                    callback.accept(null);
+                    return;
+                }
+                List<ChatMessage> messages = response.body().getData();
+                boolean lastPage = messages.size() < Constants.MESSAGE_PAGE_SIZE;
+                store.save(chatRoomId, messages);
+                // Read back through the store so the answer is ordered and free of overlap
+                store.loadBefore(chatRoomId, anchor, limit, stored -> {
+                    if (stored == null || stored.size() >= limit || lastPage) {
+                        callback.accept(stored);
+                    } else if (attempt < MAX_PAGE_ATTEMPTS) {
+                        fetchOlder(anchor, limit, page + 1, attempt + 1, callback);
+                    } else {
+                        callback.accept(null);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Call<BaseDTO<List<ChatMessage>>> call, Throwable t) {
+                Log.w(TAG, "Failed to load page " + page + " of room " + chatRoomId, t);
+                callback.accept(null);
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.project.realtimechatui.cache;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.project.realtimechatui.api.models.ChatRoom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Last room list downloaded for the current user.
+ *
+ * Whoever fetches the list (the post-login bootstrap, MainActivity or ChatActivity) stores it
+ * here, and screens listening for updates are notified on the main thread. Storing a list also
+ * refreshes the {@link PersonalRoomIndex}.
+ */
+public class RoomListCache {
+    private static RoomListCache instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<OnRoomListUpdatedListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile List<ChatRoom> chatRooms;
+    private volatile long updatedAt;
+
+    public interface OnRoomListUpdatedListener {
+        void onRoomListUpdated(List<ChatRoom> chatRooms);
+    }
+
+    private RoomListCache() {
+    }
+
+    public static synchronized RoomListCache getInstance() {
+        if (instance == null) {
+            instance = new RoomListCache();
+        }
+        return instance;
+    }
+
+    // Unmodifiable; copy before sorting or mutating
+    public List<ChatRoom> get() {
+        return chatRooms;
+    }
+
+    public boolean isFresh(long maxAgeMs) {
+        return chatRooms != null && SystemClock.elapsedRealtime() - updatedAt <= maxAgeMs;
+    }
+
+    // Can be called from any thread
+    public void put(List<ChatRoom> rooms, Long currentUserId) {
+        List<ChatRoom> snapshot = Collections.unmodifiableList(new ArrayList<>(rooms));
+        chatRooms = snapshot;
+        updatedAt = SystemClock.elapsedRealtime();
+
+        PersonalRoomIndex.getInstance().replaceAll(snapshot, currentUserId);
+
+        mainHandler.post(() -> {
+            for (OnRoomListUpdatedListener listener : listeners) {
+                listener.onRoomListUpdated(snapshot);
+            }
+        });
+    }
+
+    public void addListener(OnRoomListUpdatedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OnRoomListUpdatedListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void clear() {
+        chatRooms = null;
+        updatedAt = 0;
+    }
+}
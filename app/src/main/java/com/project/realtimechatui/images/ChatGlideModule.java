@@ -0,0 +1,47 @@
+package com.project.realtimechatui.images;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+import com.project.realtimechatui.utils.Constants;
+
+/**
+ * App-wide Glide configuration: bounded memory, bitmap pool and disk caches.
+ *
+ * Memory limits are expressed in screens of pixels so they scale with the device. Images without
+ * transparency decode as RGB_565, which halves their memory next to ARGB_8888.
+ */
+@GlideModule
+public final class ChatGlideModule extends AppGlideModule {
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(Constants.IMAGE_MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(Constants.IMAGE_BITMAP_POOL_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(
+                context, Constants.IMAGE_DISK_CACHE_DIR, Constants.IMAGE_DISK_CACHE_BYTES));
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        builder.setLogLevel(Log.ERROR);
+    }
+
+    // No legacy manifest modules to look for; skipping the scan speeds up Glide's first use
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,91 @@
+package com.project.realtimechatui.images;
+
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.LazyHeaders;
+import com.project.realtimechatui.R;
+import com.project.realtimechatui.utils.Constants;
+import com.project.realtimechatui.utils.SharedPrefManager;
+
+import java.net.URI;
+
+/**
+ * Requests for avatars and message attachments.
+ *
+ * Loads and preloads of the same image must build identical requests, or the preloaded copy
+ * won't be found in the memory cache; both go through the builders here. Images are decoded
+ * downsampled to the target size (the view, or an explicit override), never at full resolution.
+ *
+ * Relative URLs are resolved against the API server, and requests to it carry the session token.
+ * The token is read when the request runs, so a refreshed token is picked up without changing
+ * cache keys.
+ */
+public final class ImageLoader {
+    private static final URI API_BASE = URI.create(Constants.BASE_URL);
+
+    // One shared instance: GlideUrl equality (and so the memory cache key) includes the headers
+    private static final LazyHeaders AUTH_HEADERS = new LazyHeaders.Builder()
+            .addHeader("Authorization", () -> {
+                String token = SharedPrefManager.getInstance().getAccessToken();
+                return token != null ? "Bearer " + token : null;
+            })
+            .build();
+
+    private ImageLoader() {
+    }
+
+    // Fills the view, cropped to it
+    public static RequestBuilder<Drawable> avatar(RequestManager requestManager, String url, int placeholderRes) {
+        return requestManager.load(toModel(url))
+                .placeholder(placeholderRes)
+                .error(placeholderRes)
+                .centerCrop()
+                .dontAnimate();
+    }
+
+    // Decoded at exactly widthPx x heightPx, so a preload made before the view exists still matches
+    public static RequestBuilder<Drawable> attachment(RequestManager requestManager, String url,
+                                                      int widthPx, int heightPx) {
+        return requestManager.load(toModel(url))
+                .override(widthPx, heightPx)
+                .centerCrop()
+                .error(R.drawable.ic_attachment);
+    }
+
+    public static void loadAvatar(RequestManager requestManager, ImageView imageView, String url, int placeholderRes) {
+        if (url == null || url.isEmpty()) {
+            requestManager.clear(imageView);
+            imageView.setImageResource(placeholderRes);
+            return;
+        }
+        avatar(requestManager, url, placeholderRes).into(imageView);
+    }
+
+    // Cancels any load still running for a recycled row and drops its image
+    public static void clear(RequestManager requestManager, ImageView imageView) {
+        requestManager.clear(imageView);
+    }
+
+    private static Object toModel(String url) {
+        URI uri;
+        try {
+            uri = API_BASE.resolve(url);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+        String resolved = uri.toString();
+        if (isApiHost(uri)) {
+            return new GlideUrl(resolved, AUTH_HEADERS);
+        }
+        return resolved;
+    }
+
+    private static boolean isApiHost(URI uri) {
+        return API_BASE.getHost() != null && API_BASE.getHost().equalsIgnoreCase(uri.getHost())
+                && API_BASE.getPort() == uri.getPort();
+    }
+}
@@ -0,0 +1,53 @@
+package com.project.realtimechatui.images;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestManager;
+import com.project.realtimechatui.utils.Constants;
+
+/**
+ * Starts image loads for the rows just past the visible ones, in the direction of the scroll.
+ *
+ * Feeds a RecyclerView's scroll position to Glide's {@link ListPreloader}, which owns the
+ * bookkeeping: it only requests rows it hasn't requested yet and cancels its oldest preloads
+ * once it holds more than {@link Constants#IMAGE_PRELOAD_ROWS} rows' worth.
+ */
+public class ImagePreloadScrollListener<T> extends RecyclerView.OnScrollListener {
+    private final ListPreloader<T> preloader;
+
+    private int lastFirstVisible = -1;
+    private int lastVisibleCount = -1;
+    private int lastItemCount = -1;
+
+    public ImagePreloadScrollListener(RequestManager requestManager,
+                                      ListPreloader.PreloadModelProvider<T> modelProvider,
+                                      ListPreloader.PreloadSizeProvider<T> sizeProvider) {
+        this.preloader = new ListPreloader<>(requestManager, modelProvider, sizeProvider, Constants.IMAGE_PRELOAD_ROWS);
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager) || recyclerView.getAdapter() == null) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int firstVisible = layoutManager.findFirstVisibleItemPosition();
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (firstVisible == RecyclerView.NO_POSITION || lastVisible == RecyclerView.NO_POSITION) {
+            return;
+        }
+        // Both ends are visible, so a single row counts as one
+        int visibleCount = lastVisible - firstVisible + 1;
+        int itemCount = recyclerView.getAdapter().getItemCount();
+
+        if (firstVisible != lastFirstVisible || visibleCount != lastVisibleCount || itemCount != lastItemCount) {
+            lastFirstVisible = firstVisible;
+            lastVisibleCount = visibleCount;
+            lastItemCount = itemCount;
+            preloader.onScroll(null, firstVisible, visibleCount, itemCount);
+        }
+    }
+}
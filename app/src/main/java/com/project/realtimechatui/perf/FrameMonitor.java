@@ -0,0 +1,154 @@
+package com.project.realtimechatui.perf;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Trace;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.project.realtimechatui.metrics.Counter;
+import com.project.realtimechatui.metrics.Histogram;
+import com.project.realtimechatui.metrics.Metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame render time for one screen, recorded while its list scrolls or takes a burst of
+ * updates: the moments jank shows. Frames go into "ui.frame.<screen>", and those over the
+ * display's frame budget also count in "ui.frame.<screen>.janky".
+ *
+ * Frame durations come from the window's FrameMetrics, delivered on a shared background thread.
+ * Create in onCreate, call {@link #start()} and {@link #stop()} from onResume and onPause.
+ */
+public class FrameMonitor implements Window.OnFrameMetricsAvailableListener {
+    // An update keeps frames recorded for this long after it, covering the layout and animation it starts
+    private static final long BURST_WINDOW_MS = 1000;
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private static HandlerThread frameMetricsThread;
+    private static Handler frameMetricsHandler;
+
+    private final Window window;
+    private final String traceName;
+    private final Histogram frameTime;
+    private final Counter jankyFrames;
+    private final long frameBudgetNanos;
+
+    private volatile boolean scrolling;
+    private volatile long burstUntilNanos;
+    private boolean started;
+
+    public FrameMonitor(Activity activity, String screen) {
+        this.window = activity.getWindow();
+        this.traceName = "scroll " + screen;
+        this.frameTime = Metrics.getInstance().histogram("ui.frame." + screen);
+        this.jankyFrames = Metrics.getInstance().counter("ui.frame." + screen + ".janky");
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        this.frameBudgetNanos = (long) (TimeUnit.SECONDS.toNanos(1) / (refreshRate > 0 ? refreshRate : DEFAULT_REFRESH_RATE));
+    }
+
+    private static synchronized Handler frameMetricsHandler() {
+        if (frameMetricsHandler == null) {
+            frameMetricsThread = new HandlerThread("frame-metrics");
+            frameMetricsThread.start();
+            frameMetricsHandler = new Handler(frameMetricsThread.getLooper());
+        }
+        return frameMetricsHandler;
+    }
+
+    // Records frames while the list is being dragged or flung
+    public void track(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+                onScrollStateChanged(newState != RecyclerView.SCROLL_STATE_IDLE);
+            }
+        });
+    }
+
+    // Records frames for a moment after the adapter changes, so bursts of messages are covered
+    public void trackUpdates(RecyclerView.Adapter<?> adapter) {
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                onUpdate(System.nanoTime());
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                onUpdate(System.nanoTime());
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                onUpdate(System.nanoTime());
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                onUpdate(System.nanoTime());
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                onUpdate(System.nanoTime());
+            }
+        });
+    }
+
+    public void start() {
+        if (!started) {
+            window.addOnFrameMetricsAvailableListener(this, frameMetricsHandler());
+            started = true;
+        }
+    }
+
+    public void stop() {
+        if (started) {
+            window.removeOnFrameMetricsAvailableListener(this);
+            started = false;
+        }
+        onScrollStateChanged(false);
+    }
+
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        onFrame(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION), System.nanoTime());
+    }
+
+    // Main thread
+    void onScrollStateChanged(boolean nowScrolling) {
+        if (nowScrolling == scrolling) {
+            return;
+        }
+        scrolling = nowScrolling;
+        // Scrolls span many frames, so they show in traces as async sections (API 29+)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            if (nowScrolling) {
+                Trace.beginAsyncSection(traceName, 0);
+            } else {
+                Trace.endAsyncSection(traceName, 0);
+            }
+        }
+    }
+
+    void onUpdate(long nowNanos) {
+        burstUntilNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(BURST_WINDOW_MS);
+    }
+
+    // Frame metrics thread
+    void onFrame(long durationNanos, long nowNanos) {
+        if (!scrolling && nowNanos - burstUntilNanos > 0) {
+            return;
+        }
+        frameTime.recordNanos(durationNanos);
+        if (durationNanos > frameBudgetNanos) {
+            jankyFrames.increment();
+        }
+    }
+}
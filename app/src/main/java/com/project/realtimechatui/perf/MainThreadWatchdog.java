@@ -0,0 +1,182 @@
+package com.project.realtimechatui.perf;
+
+import android.os.Looper;
+import android.util.Log;
+import android.util.Printer;
+
+import com.project.realtimechatui.metrics.Counter;
+import com.project.realtimechatui.metrics.Histogram;
+import com.project.realtimechatui.metrics.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every message the main looper dispatches and catches the ones that stall it.
+ *
+ * The looper's message logging marks where each dispatch starts and ends; every dispatch goes
+ * into the "main.message" histogram and those over the threshold count as stalls. A daemon thread
+ * checks the dispatch in progress, and once one has run past the threshold it captures the main
+ * thread's stack while it is still stuck, which is what says whether it was JSON, sorting, a
+ * full rebind or date formatting. The last few stalls are kept for the metrics screen.
+ *
+ * The looper builds its log lines for every message once logging is set, so this only runs from
+ * launch in debug builds; release builds start it from the metrics screen when needed.
+ */
+public class MainThreadWatchdog {
+    private static final String TAG = "MainThreadWatchdog";
+    public static final long STALL_THRESHOLD_MS = 200;
+    private static final int KEPT_STALLS = 5;
+
+    private static final Histogram MESSAGE_TIME = Metrics.getInstance().histogram("main.message");
+    private static final Histogram STALL_TIME = Metrics.getInstance().histogram("main.stall");
+    private static final Counter STALLS = Metrics.getInstance().counter("main.stalls");
+
+    private static MainThreadWatchdog instance;
+
+    public static final class Stall {
+        private final long capturedAtMillis;
+        private final long blockedMillis;
+        private final StackTraceElement[] stack;
+
+        Stall(long capturedAtMillis, long blockedMillis, StackTraceElement[] stack) {
+            this.capturedAtMillis = capturedAtMillis;
+            this.blockedMillis = blockedMillis;
+            this.stack = stack;
+        }
+
+        public long getCapturedAtMillis() { return capturedAtMillis; }
+        // How long the message had been running when the stack was taken, not its final duration
+        public long getBlockedMillis() { return blockedMillis; }
+        public StackTraceElement[] getStack() { return stack; }
+
+        public String format() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("Main thread blocked ").append(blockedMillis).append("ms\n");
+            for (StackTraceElement element : stack) {
+                builder.append("    at ").append(element).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+
+    private final Thread mainThread;
+    private final long thresholdNanos;
+
+    // Written on the main thread, read by the watchdog thread; 0 between dispatches
+    private volatile long dispatchStartNanos;
+    private volatile int dispatchCount;
+    // Watchdog thread only: the dispatch already captured, so a long stall is reported once
+    private int capturedDispatch = -1;
+
+    private final ArrayDeque<Stall> recentStalls = new ArrayDeque<>();
+    private Thread watchdogThread;
+
+    MainThreadWatchdog(Thread mainThread, long thresholdMillis) {
+        this.mainThread = mainThread;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    public static synchronized MainThreadWatchdog getInstance() {
+        if (instance == null) {
+            instance = new MainThreadWatchdog(Looper.getMainLooper().getThread(), STALL_THRESHOLD_MS);
+        }
+        return instance;
+    }
+
+    // Safe to call more than once
+    public synchronized void start() {
+        if (watchdogThread != null) {
+            return;
+        }
+        Looper.getMainLooper().setMessageLogging(new Printer() {
+            @Override
+            public void println(String line) {
+                // ">>>>> Dispatching to ..." and "<<<<< Finished to ..."
+                if (line.charAt(0) == '>') {
+                    onDispatchStart(System.nanoTime());
+                } else if (line.charAt(0) == '<') {
+                    onDispatchEnd(System.nanoTime());
+                }
+            }
+        });
+
+        long checkIntervalMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(thresholdNanos) / 2);
+        watchdogThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(checkIntervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                check(System.nanoTime());
+            }
+        }, "main-watchdog");
+        watchdogThread.setDaemon(true);
+        watchdogThread.start();
+    }
+
+    public synchronized boolean isRunning() {
+        return watchdogThread != null;
+    }
+
+    public synchronized void stop() {
+        if (watchdogThread == null) {
+            return;
+        }
+        Looper.getMainLooper().setMessageLogging(null);
+        watchdogThread.interrupt();
+        watchdogThread = null;
+        dispatchStartNanos = 0;
+    }
+
+    // Most recent last
+    public List<Stall> getRecentStalls() {
+        synchronized (recentStalls) {
+            return new ArrayList<>(recentStalls);
+        }
+    }
+
+    void onDispatchStart(long nowNanos) {
+        dispatchCount++;
+        dispatchStartNanos = nowNanos;
+    }
+
+    void onDispatchEnd(long nowNanos) {
+        long start = dispatchStartNanos;
+        dispatchStartNanos = 0;
+        if (start == 0) {
+            return;
+        }
+        long duration = nowNanos - start;
+        MESSAGE_TIME.recordNanos(duration);
+        if (duration >= thresholdNanos) {
+            STALLS.increment();
+            STALL_TIME.recordNanos(duration);
+        }
+    }
+
+    // Captures the main thread's stack if the dispatch in progress has run past the threshold.
+    // Returns true when it did.
+    boolean check(long nowNanos) {
+        int dispatch = dispatchCount;
+        long start = dispatchStartNanos;
+        if (start == 0 || dispatch == capturedDispatch || nowNanos - start < thresholdNanos) {
+            return false;
+        }
+        capturedDispatch = dispatch;
+
+        Stall stall = new Stall(System.currentTimeMillis(), TimeUnit.NANOSECONDS.toMillis(nowNanos - start),
+                mainThread.getStackTrace());
+        synchronized (recentStalls) {
+            if (recentStalls.size() == KEPT_STALLS) {
+                recentStalls.pollFirst();
+            }
+            recentStalls.addLast(stall);
+        }
+        Log.w(TAG, stall.format());
+        return true;
+    }
+}
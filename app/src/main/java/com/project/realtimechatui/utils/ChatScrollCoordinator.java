@@ -0,0 +1,119 @@
+package com.project.realtimechatui.utils;
+
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.project.realtimechatui.R;
+import com.project.realtimechatui.adapters.ChatMessageAdapter;
+
+/**
+ * Keeps a chat timeline pinned to the newest message without fighting the user.
+ *
+ * Inserts are merged so that at most one scroll starts per frame, however many messages arrive.
+ * Short distances are smooth-scrolled; anything further jumps. When the user has scrolled up to
+ * read history, inserts leave the position alone and a "N new messages" pill counts them instead.
+ */
+public class ChatScrollCoordinator {
+    // Beyond this many rows a smooth scroll would take several frames per row; jump instead
+    private static final int SMOOTH_SCROLL_MAX_DISTANCE = 8;
+
+    private final RecyclerView recyclerView;
+    private final LinearLayoutManager layoutManager;
+    private final ChatMessageAdapter adapter;
+    private final TextView newMessagesPill;
+
+    private boolean scrollPending = false;
+    private int unseenCount = 0;
+
+    private final Runnable scrollToBottomRunnable = this::performScrollToBottom;
+
+    public ChatScrollCoordinator(RecyclerView recyclerView, LinearLayoutManager layoutManager,
+                                 ChatMessageAdapter adapter, TextView newMessagesPill) {
+        this.recyclerView = recyclerView;
+        this.layoutManager = layoutManager;
+        this.adapter = adapter;
+        this.newMessagesPill = newMessagesPill;
+
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                onInserted(positionStart, itemCount);
+            }
+        });
+
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (unseenCount > 0 && isAtBottom()) {
+                    clearUnseen();
+                }
+            }
+        });
+
+        newMessagesPill.setOnClickListener(v -> scrollToBottom());
+    }
+
+    // Scrolls to the newest message at the next frame, however many times it is called before then
+    public void scrollToBottom() {
+        clearUnseen();
+        if (!scrollPending) {
+            scrollPending = true;
+            recyclerView.postOnAnimation(scrollToBottomRunnable);
+        }
+    }
+
+    private void onInserted(int positionStart, int itemCount) {
+        int total = adapter.getItemCount();
+        if (positionStart + itemCount < total) {
+            // Inserted above the end (backfill/older page), nothing new to follow
+            return;
+        }
+
+        // The layout hasn't seen the insert yet, so this still describes the position before it
+        boolean wasAtBottom = positionStart == 0 || layoutManager.findLastVisibleItemPosition() >= positionStart - 1;
+        if (wasAtBottom) {
+            scrollToBottom();
+            return;
+        }
+
+        for (int position = positionStart; position < positionStart + itemCount; position++) {
+            if (adapter.isMessageAt(position)) {
+                unseenCount++;
+            }
+        }
+        if (unseenCount > 0) {
+            newMessagesPill.setText(recyclerView.getResources()
+                    .getQuantityString(R.plurals.new_messages, unseenCount, unseenCount));
+            newMessagesPill.setVisibility(View.VISIBLE);
+        }
+    }
+
+    private void performScrollToBottom() {
+        scrollPending = false;
+        int target = adapter.getItemCount() - 1;
+        if (target < 0) {
+            return;
+        }
+
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible == RecyclerView.NO_POSITION || target - lastVisible > SMOOTH_SCROLL_MAX_DISTANCE) {
+            recyclerView.stopScroll();
+            layoutManager.scrollToPosition(target);
+        } else if (target > lastVisible || recyclerView.canScrollVertically(1)) {
+            recyclerView.smoothScrollToPosition(target);
+        }
+    }
+
+    private boolean isAtBottom() {
+        return layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - 1;
+    }
+
+    private void clearUnseen() {
+        unseenCount = 0;
+        newMessagesPill.setVisibility(View.GONE);
+    }
+}
@@ -8,16 +8,6 @@ public class Constants {
     // WebSocket Configuration
     public static final String WS_BASE_URL = "ws://10.0.2.2:8080/ws";
 
-    // WebSocket Topics and Destinations
-    public static final String WS_CHAT_TOPIC = "/topic/chat/";
-    public static final String WS_TYPING_TOPIC = "/typing";
-    public static final String WS_EVENTS_TOPIC = "/events";
-    public static final String WS_ERROR_QUEUE = "/queue/errors";
-    public static final String WS_SEND_MESSAGE = "/app/chat.sendMessage/";
-    public static final String WS_TYPING_INDICATOR = "/app/chat.typing/";
-    public static final String WS_JOIN_ROOM = "/app/chat.join/";
-    public static final String WS_LEAVE_ROOM = "/app/chat.leave/";
-
     // SharedPreferences Keys
     public static final String PREF_NAME = "RealtimeChatPrefs";
     public static final String KEY_ACCESS_TOKEN = "access_token";
@@ -52,15 +42,9 @@ public class Constants {
     public static final String MESSAGE_STATUS_SENT = "SENT";
     public static final String MESSAGE_STATUS_DELIVERED = "DELIVERED";
     public static final String MESSAGE_STATUS_READ = "READ";
-
-    // WebSocket Message Types
-    public static final String WS_TYPE_MESSAGE = "message";
-    public static final String WS_TYPE_TYPING = "typing";
-    public static final String WS_TYPE_USER_STATUS = "user_status";
-    public static final String WS_TYPE_USER_JOINED = "user_joined";
-    public static final String WS_TYPE_USER_LEFT = "user_left";
-    public static final String WS_TYPE_MESSAGE_UPDATED = "message_updated";
-    public static final String WS_TYPE_MESSAGE_DELETED = "message_deleted";
+    // Local echoes only: queued but not sent yet, or given up on until the user retries
+    public static final String MESSAGE_STATUS_PENDING = "PENDING";
+    public static final String MESSAGE_STATUS_FAILED = "FAILED";
 
     // Connection States
     public static final String CONNECTION_STATE_CONNECTING = "CONNECTING";
@@ -69,7 +53,39 @@ public class Constants {
     public static final String CONNECTION_STATE_ERROR = "ERROR";
 
     // Typing Indicator Constants
-    public static final long TYPING_INDICATOR_DELAY = 3000; // 3 seconds
     public static final int HEARTBEAT_INTERVAL = 10000; // 10 seconds
     public static final int TYPING_TIMEOUT = 3000; // 3 seconds
+
+    // Username Lookup Constants
+    public static final long USERNAME_LOOKUP_DEBOUNCE_MS = 350;
+    public static final long USERNAME_LOOKUP_HIT_TTL_MS = 5 * 60 * 1000; // 5 minutes
+    public static final long USERNAME_LOOKUP_MISS_TTL_MS = 30 * 1000; // 30 seconds
+
+    // Message Paging and Caching
+    public static final int MESSAGE_PAGE_SIZE = 50;
+    public static final int MESSAGE_CACHE_MAX_ROOMS = 20;
+    public static final long MESSAGE_GROUP_WINDOW_MS = 5 * 60 * 1000; // same sender within 5 minutes
+    public static final int MESSAGE_TEXT_CACHE_CHARS = 100 * 1024; // precomputed message bodies, by length
+    public static final long ROOM_LIST_FRESH_MS = 5000; // 5 seconds
+    // A chat screen keeps at most this many messages; live traffic beyond it pushes out the oldest
+    public static final int MAX_RESIDENT_MESSAGES = 1000;
+    // A chat screen backed by the message store keeps this many pages either side of the viewport
+    // instead, and reads the rest back as they are scrolled to
+    public static final int MESSAGE_WINDOW_PAGES = 2;
+
+    // Post-login Bootstrap
+    public static final int BOOTSTRAP_CONCURRENCY = 3;
+    public static final long BOOTSTRAP_SOCKET_TIMEOUT_MS = 10000; // 10 seconds
+
+    // Message Prefetching
+    public static final int PREFETCH_ROOM_COUNT = 5;
+    public static final int PREFETCH_CONCURRENCY = 2;
+    public static final long PREFETCH_SCROLL_PAUSE_MS = 500; // resume this long after the last scroll event
+
+    // Image Loading
+    public static final float IMAGE_MEMORY_CACHE_SCREENS = 2; // decoded images, in full screens of pixels
+    public static final float IMAGE_BITMAP_POOL_SCREENS = 3;
+    public static final String IMAGE_DISK_CACHE_DIR = "images";
+    public static final long IMAGE_DISK_CACHE_BYTES = 64L * 1024 * 1024; // 64 MB
+    public static final int IMAGE_PRELOAD_ROWS = 8; // rows ahead of the scroll direction
 }
@@ -0,0 +1,41 @@
+package com.project.realtimechatui.utils;
+
+/**
+ * Immutable copy of the logged-in user's identity, read from SharedPreferences once.
+ * Hot paths (binding rows, filtering events) read this instead of hitting SharedPreferences.
+ */
+public class SessionSnapshot {
+    private final boolean loggedIn;
+    private final Long userId;
+    private final String username;
+    private final String fullName;
+    private final String email;
+
+    public SessionSnapshot(boolean loggedIn, Long userId, String username, String fullName, String email) {
+        this.loggedIn = loggedIn;
+        this.userId = userId;
+        this.username = username;
+        this.fullName = fullName;
+        this.email = email;
+    }
+
+    public boolean isLoggedIn() {
+        return loggedIn;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -4,11 +4,14 @@ import android.content.Context;
 import android.content.SharedPreferences;
 
 import com.project.realtimechatui.api.models.User;
+import com.project.realtimechatui.engine.SessionStore;
 
-public class SharedPrefManager {
+// Also the chat engine's session: it reads the token and username straight from here
+public class SharedPrefManager implements SessionStore {
     private static SharedPrefManager instance;
     private static Context context;
     private SharedPreferences sharedPreferences;
+    private volatile SessionSnapshot sessionSnapshot;
 
     private SharedPrefManager(Context context) {
         SharedPrefManager.context = context;
@@ -39,6 +42,7 @@ public class SharedPrefManager {
         editor.putString(Constants.KEY_FULL_NAME, user.getFullName());
         editor.putBoolean(Constants.KEY_IS_LOGGED_IN, true);
         editor.apply();
+        sessionSnapshot = null;
     }
 
     public String getAccessToken() {
@@ -79,6 +83,18 @@ public class SharedPrefManager {
         editor.remove(Constants.KEY_FULL_NAME);
         editor.putBoolean(Constants.KEY_IS_LOGGED_IN, false);
         editor.apply();
+        sessionSnapshot = null;
+    }
+
+    // Cached until the auth data changes. The first call loads the preferences file,
+    // so call it from a background thread (see SessionBootstrap) to keep the disk read off the UI
+    public SessionSnapshot getSession() {
+        SessionSnapshot snapshot = sessionSnapshot;
+        if (snapshot == null) {
+            snapshot = new SessionSnapshot(isLoggedIn(), getId(), getUsername(), getFullName(), getEmail());
+            sessionSnapshot = snapshot;
+        }
+        return snapshot;
     }
 
     public User getCurrentUser() {
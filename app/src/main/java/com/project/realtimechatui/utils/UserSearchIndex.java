@@ -0,0 +1,222 @@
+package com.project.realtimechatui.utils;
+
+import com.project.realtimechatui.api.models.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prebuilt search index over the user directory.
+ *
+ * Every user is normalized once (lowercase username, full name and email joined into a single
+ * haystack) and every trigram of that haystack is recorded in a posting list. A query is answered
+ * by intersecting against the shortest posting list of its trigrams and verifying the few
+ * candidates with a plain substring check, so the cost depends on the number of matches rather
+ * than on the size of the directory.
+ *
+ * The index also remembers the result of the previous query: when the new query contains the
+ * previous one (the user kept typing), only the previous matches are re-checked.
+ *
+ * Not thread-safe. All calls must come from the same (background) thread.
+ */
+public class UserSearchIndex {
+
+    // Separates the fields of a haystack so a query can never match across two fields
+    private static final char FIELD_SEPARATOR = '\u0000';
+    private static final int[] EMPTY = new int[0];
+
+    private final User[] users;
+    private final String[] haystacks;
+    private final Map<Long, int[]> trigramPostings;
+
+    // Users added after the index was built (e.g. found through an @username lookup).
+    // They are few, so they are scanned linearly and always listed first.
+    private final List<User> pinnedUsers = new ArrayList<>();
+    private final List<String> pinnedHaystacks = new ArrayList<>();
+
+    private String lastQuery;
+    private int[] lastResult;
+
+    public UserSearchIndex(List<User> users) {
+        int size = users != null ? users.size() : 0;
+        this.users = new User[size];
+        this.haystacks = new String[size];
+
+        Map<Long, IntList> postings = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            User user = users.get(i);
+            String haystack = buildHaystack(user);
+            this.users[i] = user;
+            this.haystacks[i] = haystack;
+
+            for (int j = 0; j + 3 <= haystack.length(); j++) {
+                long key = trigramKey(haystack, j);
+                if (key < 0) {
+                    continue;
+                }
+                IntList list = postings.get(key);
+                if (list == null) {
+                    list = new IntList();
+                    postings.put(key, list);
+                }
+                // Ordinals are added in increasing order, so a repeated trigram is always the last entry
+                if (list.size == 0 || list.values[list.size - 1] != i) {
+                    list.add(i);
+                }
+            }
+        }
+
+        this.trigramPostings = new HashMap<>(postings.size() * 4 / 3 + 1);
+        for (Map.Entry<Long, IntList> entry : postings.entrySet()) {
+            trigramPostings.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    public int size() {
+        return users.length + pinnedUsers.size();
+    }
+
+    public void addPinned(User user) {
+        if (user == null) {
+            return;
+        }
+        pinnedUsers.add(0, user);
+        pinnedHaystacks.add(0, buildHaystack(user));
+    }
+
+    public List<User> search(String query) {
+        String normalized = normalizeQuery(query);
+
+        List<User> result = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            result.addAll(pinnedUsers);
+            Collections.addAll(result, users);
+            lastQuery = null;
+            lastResult = null;
+            return result;
+        }
+
+        for (int i = 0; i < pinnedUsers.size(); i++) {
+            if (pinnedHaystacks.get(i).indexOf(normalized) >= 0) {
+                result.add(pinnedUsers.get(i));
+            }
+        }
+
+        int[] candidates = null;
+
+        // Incremental narrowing: every match of the new query also matched the previous one
+        if (lastQuery != null && lastResult != null && normalized.contains(lastQuery)) {
+            candidates = lastResult;
+        }
+
+        if (normalized.length() >= 3) {
+            int[] shortest = shortestPosting(normalized);
+            if (candidates == null || shortest.length < candidates.length) {
+                candidates = shortest;
+            }
+        }
+
+        int[] matches = new int[candidates != null ? candidates.length : users.length];
+        int matchCount = 0;
+        if (candidates != null) {
+            for (int ordinal : candidates) {
+                if (haystacks[ordinal].indexOf(normalized) >= 0) {
+                    matches[matchCount++] = ordinal;
+                }
+            }
+        } else {
+            for (int ordinal = 0; ordinal < haystacks.length; ordinal++) {
+                if (haystacks[ordinal].indexOf(normalized) >= 0) {
+                    matches[matchCount++] = ordinal;
+                }
+            }
+        }
+
+        for (int i = 0; i < matchCount; i++) {
+            result.add(users[matches[i]]);
+        }
+
+        lastQuery = normalized;
+        lastResult = Arrays.copyOf(matches, matchCount);
+        return result;
+    }
+
+    // Lowercases the query and drops a leading @ so "@Alex" and "alex" find the same users
+    public static String normalizeQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("@")) {
+            normalized = normalized.substring(1);
+        }
+        return normalized;
+    }
+
+    private int[] shortestPosting(String normalized) {
+        int[] shortest = null;
+        for (int j = 0; j + 3 <= normalized.length(); j++) {
+            long key = trigramKey(normalized, j);
+            if (key < 0) {
+                continue;
+            }
+            int[] posting = trigramPostings.get(key);
+            if (posting == null) {
+                // One trigram of the query appears nowhere, so nothing can match
+                return EMPTY;
+            }
+            if (shortest == null || posting.length < shortest.length) {
+                shortest = posting;
+            }
+        }
+        return shortest != null ? shortest : EMPTY;
+    }
+
+    private static String buildHaystack(User user) {
+        StringBuilder builder = new StringBuilder();
+        appendField(builder, user.getUsername());
+        builder.append(FIELD_SEPARATOR);
+        appendField(builder, user.getFullName());
+        builder.append(FIELD_SEPARATOR);
+        appendField(builder, user.getEmail());
+        return builder.toString();
+    }
+
+    private static void appendField(StringBuilder builder, String value) {
+        if (value != null) {
+            builder.append(value.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    // Packs three chars into one key, or returns -1 when the window spans two fields
+    private static long trigramKey(String text, int start) {
+        char c0 = text.charAt(start);
+        char c1 = text.charAt(start + 1);
+        char c2 = text.charAt(start + 2);
+        if (c0 == FIELD_SEPARATOR || c1 == FIELD_SEPARATOR || c2 == FIELD_SEPARATOR) {
+            return -1;
+        }
+        return ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.project.realtimechatui.websocket;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.project.realtimechatui.engine.EngineScheduler;
+
+// Runs the chat engine on the main thread, where the activities call it and expect its callbacks
+class MainThreadScheduler implements EngineScheduler {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void execute(Runnable task) {
+        handler.post(task);
+    }
+
+    @Override
+    public Cancellable schedule(Runnable task, long delayMillis) {
+        handler.postDelayed(task, delayMillis);
+        return () -> handler.removeCallbacks(task);
+    }
+}
@@ -0,0 +1,124 @@
+package com.project.realtimechatui.websocket;
+
+import android.os.Trace;
+import android.util.Log;
+
+import com.project.realtimechatui.engine.StompTransport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import ua.naiksoftware.stomp.Stomp;
+import ua.naiksoftware.stomp.StompClient;
+import ua.naiksoftware.stomp.dto.StompHeader;
+
+/**
+ * {@link StompTransport} over StompProtocolAndroid. Callbacks arrive on Rx io threads; the engine
+ * moves them onto the main thread itself, after frames have been decoded.
+ */
+class StompClientTransport implements StompTransport {
+    private static final String TAG = "StompClientTransport";
+
+    private final String url;
+    private final int heartbeatMillis;
+    private final CompositeDisposable disposables = new CompositeDisposable();
+    private volatile StompClient stompClient;
+    private Listener listener;
+
+    StompClientTransport(String url, int heartbeatMillis) {
+        this.url = url;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    @Override
+    public void connect(Map<String, String> headers, Listener listener) {
+        disconnect();
+        this.listener = listener;
+        Log.d(TAG, "Connecting to WebSocket: " + url);
+
+        StompClient client = Stomp.over(Stomp.ConnectionProvider.OKHTTP, url);
+        client.withClientHeartbeat(heartbeatMillis)
+                .withServerHeartbeat(heartbeatMillis);
+
+        disposables.add(client.lifecycle()
+                .subscribeOn(Schedulers.io())
+                .subscribe(lifecycleEvent -> {
+                    switch (lifecycleEvent.getType()) {
+                        case OPENED:
+                            listener.onOpened();
+                            break;
+                        case CLOSED:
+                            listener.onClosed();
+                            break;
+                        case ERROR:
+                            listener.onError(lifecycleEvent.getException());
+                            break;
+                        case FAILED_SERVER_HEARTBEAT:
+                            listener.onHeartbeatFailed();
+                            break;
+                    }
+                }, listener::onError));
+
+        List<StompHeader> stompHeaders = new ArrayList<>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            stompHeaders.add(new StompHeader(header.getKey(), header.getValue()));
+        }
+        stompClient = client;
+        client.connect(stompHeaders);
+    }
+
+    @Override
+    public boolean isConnected() {
+        StompClient client = stompClient;
+        return client != null && client.isConnected();
+    }
+
+    @Override
+    public Subscription subscribe(String destination, FrameHandler handler) {
+        StompClient client = stompClient;
+        Listener currentListener = listener;
+        if (client == null) {
+            return () -> { };
+        }
+        Disposable disposable = client.topic(destination)
+                .subscribeOn(Schedulers.io())
+                .subscribe(stompMessage -> {
+                            // The engine decodes inside the handler
+                            Trace.beginSection("StompClientTransport.decode");
+                            try {
+                                handler.onFrame(stompMessage.getPayload());
+                            } finally {
+                                Trace.endSection();
+                            }
+                        },
+                        throwable -> currentListener.onSubscriptionError(destination, throwable));
+        disposables.add(disposable);
+        return () -> disposables.remove(disposable);
+    }
+
+    @Override
+    public void send(String destination, String body, SendCallback callback) {
+        StompClient client = stompClient;
+        if (client == null) {
+            callback.onFailed(new IllegalStateException("Not connected"));
+            return;
+        }
+        client.send(destination, body)
+                .subscribeOn(Schedulers.io())
+                .subscribe(callback::onSent, callback::onFailed);
+    }
+
+    @Override
+    public void disconnect() {
+        disposables.clear();
+        StompClient client = stompClient;
+        stompClient = null;
+        if (client != null) {
+            client.disconnect();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.realtimechatui.adapters;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.project.realtimechatui.utils.SharedPrefManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Holders handed back to the shared pool when a chat screen closes must not keep that screen alive.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ChatViewPoolLeakTest {
+    private static final int[] POOLED_TYPES = {
+            ChatMessageAdapter.VIEW_TYPE_MESSAGE_SENT,
+            ChatMessageAdapter.VIEW_TYPE_MESSAGE_RECEIVED,
+            ChatMessageAdapter.VIEW_TYPE_MESSAGE_SYSTEM
+    };
+
+    @Before
+    public void setUp() {
+        SharedPrefManager.getInstance(RuntimeEnvironment.getApplication());
+    }
+
+    @Test
+    public void pooledHoldersDoNotKeepTheirScreenAlive() throws InterruptedException {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        WeakReference<Activity> screen = openAndCloseScreen(pool);
+
+        for (int i = 0; i < 20 && screen.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull("a closed chat screen is still reachable from the view pool", screen.get());
+        for (int viewType : POOLED_TYPES) {
+            assertTrue(pool.getRecycledViewCount(viewType) > 0);
+        }
+    }
+
+    @Test
+    public void messageViewsUseTheApplicationContext() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        Context viewContext = ChatViewPool.getInstance().viewContext(activity);
+        assertSame(activity.getApplicationContext(), ((ContextWrapper) viewContext).getBaseContext());
+    }
+
+    // Everything that references the screen stays inside this method, so only the pool is left
+    private static WeakReference<Activity> openAndCloseScreen(RecyclerView.RecycledViewPool pool) {
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).setup();
+        Activity activity = controller.get();
+
+        RecyclerView recyclerView = new RecyclerView(activity);
+        recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        recyclerView.setRecycledViewPool(pool);
+        ChatMessageAdapter adapter = new ChatMessageAdapter(activity);
+        recyclerView.setAdapter(adapter);
+
+        // What the screen hands back to the pool when it goes away
+        for (int viewType : POOLED_TYPES) {
+            pool.putRecycledView(adapter.createViewHolder(recyclerView, viewType));
+        }
+
+        controller.pause().stop().destroy();
+        return new WeakReference<>(activity);
+    }
+}
@@ -0,0 +1,93 @@
+package com.project.realtimechatui.images;
+
+import android.content.Context;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.FutureTarget;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Glide, configured by ChatGlideModule, against a stand-in image server on localhost: an image is
+ * fetched once and then served from the disk cache.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ImageServerTest {
+    // A 1x1 PNG
+    private static final byte[] IMAGE = hex("89504e470d0a1a0a0000000d4948445200000001000000010802000000907753de"
+            + "0000000c49444154789c63f8cfc0000003010100c9fe92ef0000000049454e44ae426082");
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ExecutorService background = Executors.newSingleThreadExecutor();
+    private HttpServer server;
+    private Context context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.getApplication();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/attachments/", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, IMAGE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(IMAGE);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        background.shutdownNow();
+        Glide.tearDown();
+    }
+
+    @Test
+    public void imageIsDownloadedOnceThenServedFromTheDiskCache() throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/attachments/photo.png";
+
+        assertArrayEquals(IMAGE, Files.readAllBytes(download(url).toPath()));
+        assertEquals(1, requests.get());
+
+        assertArrayEquals(IMAGE, Files.readAllBytes(download(url).toPath()));
+        assertEquals("second load should come from the disk cache", 1, requests.get());
+    }
+
+    // Glide only waits for a result off the main thread
+    private File download(String url) throws Exception {
+        FutureTarget<File> target = Glide.with(context).asFile().load(url).submit();
+        try {
+            return background.submit(() -> target.get(10, TimeUnit.SECONDS)).get(15, TimeUnit.SECONDS);
+        } finally {
+            Glide.with(context).clear(target);
+        }
+    }
+
+    private static byte[] hex(String text) {
+        byte[] bytes = new byte[text.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(text.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,81 @@
+package com.project.realtimechatui.perf;
+
+import android.app.Activity;
+
+import com.project.realtimechatui.metrics.Counter;
+import com.project.realtimechatui.metrics.Histogram;
+import com.project.realtimechatui.metrics.Metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Which frames get recorded and which count as janky, fed by hand rather than from FrameMetrics.
+ * Robolectric's display runs at 60Hz, so the budget is about 16.7ms.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FrameMonitorTest {
+    private static final long NOW = TimeUnit.SECONDS.toNanos(100);
+    private static final long SMOOTH = TimeUnit.MILLISECONDS.toNanos(8);
+    private static final long JANKY = TimeUnit.MILLISECONDS.toNanos(40);
+
+    private FrameMonitor monitor;
+    private Histogram frames;
+    private Counter janky;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        String screen = "test" + System.nanoTime();
+        monitor = new FrameMonitor(activity, screen);
+        frames = Metrics.getInstance().histogram("ui.frame." + screen);
+        janky = Metrics.getInstance().counter("ui.frame." + screen + ".janky");
+    }
+
+    @Test
+    public void idleFramesAreNotRecorded() {
+        monitor.onFrame(JANKY, NOW);
+        assertEquals(0, frames.getCount());
+        assertEquals(0, janky.get());
+    }
+
+    @Test
+    public void framesWhileScrollingAreRecordedAndSlowOnesCountAsJanky() {
+        monitor.onScrollStateChanged(true);
+        monitor.onFrame(SMOOTH, NOW);
+        monitor.onFrame(JANKY, NOW + 1);
+        monitor.onFrame(SMOOTH, NOW + 2);
+        monitor.onScrollStateChanged(false);
+        monitor.onFrame(JANKY, NOW + 3);
+
+        assertEquals(3, frames.getCount());
+        assertEquals(1, janky.get());
+    }
+
+    @Test
+    public void framesRightAfterAnUpdateAreRecorded() {
+        monitor.onUpdate(NOW);
+        monitor.onFrame(JANKY, NOW + TimeUnit.MILLISECONDS.toNanos(500));
+        monitor.onFrame(JANKY, NOW + TimeUnit.MILLISECONDS.toNanos(1000));
+        // Past the burst window
+        monitor.onFrame(JANKY, NOW + TimeUnit.MILLISECONDS.toNanos(1001));
+
+        assertEquals(2, frames.getCount());
+        assertEquals(2, janky.get());
+    }
+
+    @Test
+    public void frameExactlyOnBudgetIsNotJanky() {
+        monitor.onScrollStateChanged(true);
+        monitor.onFrame(TimeUnit.SECONDS.toNanos(1) / 60, NOW);
+        assertEquals(1, frames.getCount());
+        assertEquals(0, janky.get());
+    }
+}
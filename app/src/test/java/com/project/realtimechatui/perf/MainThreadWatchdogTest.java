@@ -0,0 +1,92 @@
+package com.project.realtimechatui.perf;
+
+import com.project.realtimechatui.metrics.Metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stall detection driven by hand: dispatches are marked with fake nanoTime readings, so no
+ * looper or watchdog thread is involved.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MainThreadWatchdogTest {
+    private static final long THRESHOLD_MS = 200;
+    private static final long START = TimeUnit.SECONDS.toNanos(10);
+
+    private final MainThreadWatchdog watchdog = new MainThreadWatchdog(Thread.currentThread(), THRESHOLD_MS);
+
+    @Test
+    public void quickDispatchIsTimedButNotAStall() {
+        long stalls = stallCount();
+        long timed = Metrics.getInstance().histogram("main.message").getCount();
+
+        watchdog.onDispatchStart(START);
+        assertFalse(watchdog.check(START + millis(THRESHOLD_MS - 1)));
+        watchdog.onDispatchEnd(START + millis(5));
+
+        assertEquals(timed + 1, Metrics.getInstance().histogram("main.message").getCount());
+        assertEquals(stalls, stallCount());
+        assertTrue(watchdog.getRecentStalls().isEmpty());
+    }
+
+    @Test
+    public void longDispatchIsCapturedOnceAndCounted() {
+        long stalls = stallCount();
+
+        watchdog.onDispatchStart(START);
+        assertFalse(watchdog.check(START + millis(THRESHOLD_MS / 2)));
+        assertTrue(watchdog.check(START + millis(THRESHOLD_MS)));
+        // Still the same dispatch: its stack was already taken
+        assertFalse(watchdog.check(START + millis(THRESHOLD_MS * 3)));
+        watchdog.onDispatchEnd(START + millis(THRESHOLD_MS * 4));
+
+        assertEquals(stalls + 1, stallCount());
+        List<MainThreadWatchdog.Stall> recent = watchdog.getRecentStalls();
+        assertEquals(1, recent.size());
+        assertEquals(THRESHOLD_MS, recent.get(0).getBlockedMillis());
+        assertTrue(recent.get(0).getStack().length > 0);
+
+        // Idle between dispatches: nothing to capture however long it has been
+        assertFalse(watchdog.check(START + millis(THRESHOLD_MS * 10)));
+    }
+
+    @Test
+    public void eachStalledDispatchIsReportedAndOnlyTheLastFewKept() {
+        long start = START;
+        for (int i = 0; i < 7; i++) {
+            watchdog.onDispatchStart(start);
+            assertTrue(watchdog.check(start + millis(THRESHOLD_MS + i)));
+            watchdog.onDispatchEnd(start + millis(THRESHOLD_MS + i));
+            start += millis(THRESHOLD_MS * 2);
+        }
+
+        List<MainThreadWatchdog.Stall> recent = watchdog.getRecentStalls();
+        assertEquals(5, recent.size());
+        assertEquals(THRESHOLD_MS + 2, recent.get(0).getBlockedMillis());
+        assertEquals(THRESHOLD_MS + 6, recent.get(4).getBlockedMillis());
+    }
+
+    @Test
+    public void endWithoutStartIsIgnored() {
+        long timed = Metrics.getInstance().histogram("main.message").getCount();
+        watchdog.onDispatchEnd(START);
+        assertEquals(timed, Metrics.getInstance().histogram("main.message").getCount());
+    }
+
+    private static long stallCount() {
+        return Metrics.getInstance().counter("main.stalls").get();
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,46 @@
+// JMH benchmarks for the client's hot paths. Plain JVM, no emulator or device:
+//   ./gradlew :benchmarks:jmh
+// Results are written to benchmarks/build/results/jmh/results.json for comparison against a baseline.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Models and codecs come from :engine. The app is an Android module and can't be a JVM
+// dependency, so its few pure-Java classes under test are compiled straight from its sources.
+// Anything listed here must not import android.*
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/project/realtimechatui/cache/MessageCache.java",
+                "com/project/realtimechatui/utils/Constants.java",
+                "com/project/realtimechatui/utils/UserSearchIndex.java"
+            )
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    implementation(project(":engine"))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    timeOnIteration.set("1s")
+    warmup.set("1s")
+    resultFormat.set("JSON")
+}
@@ -0,0 +1,199 @@
+package com.project.realtimechatui.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.project.realtimechatui.api.models.User;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded generators for benchmark inputs shaped like the server's traffic.
+ *
+ * Messages have a skewed length distribution (mostly short, a few long), arrive in bursts from a
+ * small set of senders, and carry timestamps in every format the server has been seen to send.
+ * The same seed always produces the same data, so runs are comparable.
+ */
+final class Datasets {
+    static final long SEED = 20240611L;
+
+    private static final String[] WORDS = {
+            "ok", "sure", "meeting", "tomorrow", "lunch", "deploy", "build", "failed", "passed", "review",
+            "the", "a", "is", "on", "at", "for", "with", "when", "can", "you", "we", "please", "thanks",
+            "link", "doc", "call", "later", "today", "now", "fix", "bug", "release", "branch", "merge"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Alice", "Bob", "Carol", "Dave", "Erin", "Frank", "Grace", "Heidi", "Ivan", "Judy",
+            "Mallory", "Niaj", "Olivia", "Peggy", "Rupert", "Sybil", "Trent", "Victor", "Walter", "Yuki"
+    };
+    private static final String[] LAST_NAMES = {
+            "Nguyen", "Tran", "Smith", "Garcia", "Kim", "Müller", "Rossi", "Silva", "Khan", "Novak"
+    };
+
+    private static final DateTimeFormatter ISO_MILLIS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter ISO_MICROS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter SPACED = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter OFFSET = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx")
+            .withZone(ZoneOffset.ofHours(7));
+
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    private Datasets() {
+    }
+
+    static String sentence(Random random) {
+        // Mostly short chat lines, occasionally a paragraph
+        int words = random.nextInt(10) == 0 ? 20 + random.nextInt(60) : 1 + random.nextInt(12);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    static String timestamp(Random random, long millis) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return ISO_MICROS.format(Instant.ofEpochMilli(millis));
+            case 1:
+                return SPACED.format(Instant.ofEpochMilli(millis));
+            case 2:
+                return OFFSET.format(Instant.ofEpochMilli(millis));
+            case 3:
+                return String.valueOf(millis);
+            default:
+                return ISO_MILLIS.format(Instant.ofEpochMilli(millis));
+        }
+    }
+
+    static List<String> timestamps(int count) {
+        Random random = new Random(SEED);
+        List<String> result = new ArrayList<>(count);
+        long millis = START_MILLIS;
+        for (int i = 0; i < count; i++) {
+            millis += burstGap(random);
+            result.add(timestamp(random, millis));
+        }
+        return result;
+    }
+
+    // Seconds apart inside a burst, minutes to hours between bursts
+    static long burstGap(Random random) {
+        return random.nextInt(4) == 0 ? 60_000L + random.nextInt(3_600_000) : 500 + random.nextInt(20_000);
+    }
+
+    // A message as the server serializes it
+    static JsonObject messageJson(Random random, long id, long chatRoomId, long millis) {
+        JsonObject message = new JsonObject();
+        long senderId = 1 + random.nextInt(8);
+        message.addProperty("id", id);
+        message.addProperty("chatRoomId", chatRoomId);
+        message.addProperty("senderId", senderId);
+        message.addProperty("senderName", FIRST_NAMES[(int) senderId % FIRST_NAMES.length].toLowerCase());
+        message.addProperty("content", sentence(random));
+        boolean image = random.nextInt(20) == 0;
+        message.addProperty("type", image ? "IMAGE" : "TEXT");
+        message.addProperty("timestamp", timestamp(random, millis));
+        if (image) {
+            JsonArray attachments = new JsonArray();
+            attachments.add("/uploads/" + id + ".jpg");
+            message.add("attachmentUrls", attachments);
+        }
+        boolean edited = random.nextInt(30) == 0;
+        message.addProperty("edited", edited);
+        if (edited) {
+            message.addProperty("editedAt", timestamp(random, millis + 60_000));
+        }
+        message.addProperty("status", "DELIVERED");
+        return message;
+    }
+
+    // Oldest first, as one page of GET /messages returns it
+    static JsonArray messagePage(Random random, int count, long firstId, long chatRoomId) {
+        JsonArray page = new JsonArray();
+        long millis = START_MILLIS;
+        for (int i = 0; i < count; i++) {
+            millis += burstGap(random);
+            page.add(messageJson(random, firstId + i, chatRoomId, millis));
+        }
+        return page;
+    }
+
+    static JsonObject roomJson(Random random, long id, long currentUserId) {
+        JsonObject room = new JsonObject();
+        boolean personal = random.nextInt(3) != 0;
+        room.addProperty("id", id);
+        room.addProperty("type", personal ? "PERSONAL" : (random.nextInt(4) == 0 ? "CHANNEL" : "GROUP"));
+        if (!personal) {
+            room.addProperty("name", WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+        }
+
+        long lastMessageId = 1000 + random.nextInt(100_000);
+        JsonArray participants = new JsonArray();
+        int count = personal ? 2 : 3 + random.nextInt(48);
+        for (int i = 0; i < count; i++) {
+            long userId = i == 0 ? currentUserId : currentUserId + 1 + random.nextInt(5000);
+            JsonObject participant = new JsonObject();
+            participant.addProperty("id", id * 100 + i);
+            participant.addProperty("userId", userId);
+            participant.addProperty("chatRoomId", id);
+            participant.addProperty("role", i == 0 && !personal ? "ADMIN" : "MEMBER");
+            participant.addProperty("muted", random.nextInt(10) == 0);
+            participant.addProperty("lastReadMessageId", lastMessageId - random.nextInt(3));
+            participant.addProperty("online", random.nextBoolean());
+            participant.addProperty("username", "user" + userId);
+            participant.addProperty("fullName", fullName(random));
+            participant.addProperty("joinDate", timestamp(random, START_MILLIS - 86_400_000L));
+            participants.add(participant);
+        }
+        room.add("participants", participants);
+
+        if (random.nextInt(10) != 0) {
+            room.addProperty("lastMessageId", lastMessageId);
+            room.addProperty("lastMessageContent", sentence(random));
+            room.addProperty("lastMessageSenderUsername", "user" + (currentUserId + random.nextInt(3)));
+            room.addProperty("lastMessageTimestamp", timestamp(random, START_MILLIS + random.nextInt(1_000_000_000)));
+            room.addProperty("lastMessageType", "TEXT");
+            room.addProperty("lastMessageAttachmentCount", 0);
+        }
+        return room;
+    }
+
+    // Wraps data the way every REST endpoint does
+    static String envelope(com.google.gson.JsonElement data) {
+        JsonObject dto = new JsonObject();
+        dto.addProperty("statusCode", 200);
+        dto.addProperty("message", "OK");
+        dto.add("data", data);
+        return dto.toString();
+    }
+
+    static List<User> users(int count) {
+        Random random = new Random(SEED);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            String fullName = fullName(random);
+            user.setId((long) i + 1);
+            user.setFullName(fullName);
+            user.setUsername(fullName.toLowerCase().replace(' ', '.').replace('ü', 'u') + (i % 100));
+            user.setEmail(user.getUsername() + "@example.com");
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static String fullName(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+}
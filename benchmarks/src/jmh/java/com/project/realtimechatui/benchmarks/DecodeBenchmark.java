@@ -0,0 +1,107 @@
+package com.project.realtimechatui.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.project.realtimechatui.api.models.BaseDTO;
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.api.models.ChatRoom;
+import com.project.realtimechatui.engine.ChatProtocol;
+import com.project.realtimechatui.engine.FrameCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding REST pages and STOMP frames the way the client does: the shared Gson from
+ * ApiClient.getGson (with the post-decode hook that parses timestamps) for models, and the
+ * engine's FrameCodec for the small event frames.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecodeBenchmark {
+    private static final Type MESSAGE_PAGE = new TypeToken<BaseDTO<List<ChatMessage>>>() {}.getType();
+    private static final Type ROOM_LIST = new TypeToken<BaseDTO<List<ChatRoom>>>() {}.getType();
+
+    @Param({"50"})
+    public int pageSize;
+
+    @Param({"100"})
+    public int roomCount;
+
+    private Gson gson;
+    private FrameCodec codec;
+    private String messagePageJson;
+    private String roomListJson;
+    private String messageFrame;
+    private String statusFrame;
+    private String roomEventFrame;
+
+    @Setup
+    public void setUp() {
+        // Same configuration as ApiClient.getGson
+        gson = FrameCodec.defaultGson();
+        codec = new FrameCodec(gson);
+
+        Random random = new Random(Datasets.SEED);
+        messagePageJson = Datasets.envelope(Datasets.messagePage(random, pageSize, 10_000, 42));
+
+        JsonArray rooms = new JsonArray();
+        for (int i = 0; i < roomCount; i++) {
+            rooms.add(Datasets.roomJson(random, i + 1, 7));
+        }
+        roomListJson = Datasets.envelope(rooms);
+
+        messageFrame = Datasets.messageJson(random, 99_999, 42, 1_700_000_000_000L).toString();
+
+        JsonObject status = new JsonObject();
+        status.addProperty("userId", 1234L);
+        status.addProperty("online", true);
+        statusFrame = status.toString();
+
+        JsonObject roomEvent = new JsonObject();
+        roomEvent.addProperty("type", ChatProtocol.TYPE_MESSAGE_UPDATED);
+        roomEvent.addProperty("messageId", 99_999L);
+        roomEvent.addProperty("newContent", Datasets.sentence(random));
+        roomEvent.addProperty("username", "user1234");
+        roomEventFrame = roomEvent.toString();
+    }
+
+    @Benchmark
+    public BaseDTO<List<ChatMessage>> messagePage() {
+        return gson.fromJson(messagePageJson, MESSAGE_PAGE);
+    }
+
+    @Benchmark
+    public BaseDTO<List<ChatRoom>> roomList() {
+        return gson.fromJson(roomListJson, ROOM_LIST);
+    }
+
+    @Benchmark
+    public ChatMessage messageFrame() {
+        return codec.decodeMessage(messageFrame);
+    }
+
+    @Benchmark
+    public FrameCodec.StatusFrame statusFrame() {
+        return codec.decodeStatus(statusFrame);
+    }
+
+    @Benchmark
+    public FrameCodec.RoomEvent roomEventFrame() {
+        return codec.decodeRoomEvent(roomEventFrame);
+    }
+}
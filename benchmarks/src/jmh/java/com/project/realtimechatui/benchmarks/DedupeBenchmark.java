@@ -0,0 +1,112 @@
+package com.project.realtimechatui.benchmarks;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.cache.MessageCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate filtering on the message paths: the ID set ChatMessageAdapter checks when a page is
+ * merged into what's shown, and MessageCache.append for live traffic, where reconnects and
+ * resends deliver messages the cache already has.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DedupeBenchmark {
+    private static final long ROOM_ID = 42L;
+
+    @Param({"50", "1000"})
+    public int shown;
+
+    private List<ChatMessage> shownMessages;
+    private List<ChatMessage> incomingPage;
+    private List<ChatMessage> liveStream;
+
+    private Set<Long> messageIds;
+    private List<ChatMessage> merged;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Datasets.SEED);
+        shownMessages = new ArrayList<>(shown);
+        for (int i = 0; i < shown; i++) {
+            shownMessages.add(message(i));
+        }
+
+        // A refreshed page overlaps the newest third of what's shown
+        incomingPage = new ArrayList<>();
+        int overlapStart = shown - Math.max(1, shown / 3);
+        for (int i = overlapStart; i < overlapStart + 50; i++) {
+            incomingPage.add(message(i));
+        }
+
+        // Live traffic: mostly new, one in five a redelivery of something recent
+        liveStream = new ArrayList<>();
+        int next = shown;
+        for (int i = 0; i < 200; i++) {
+            if (random.nextInt(5) == 0) {
+                liveStream.add(message(next - 1 - random.nextInt(Math.min(next, 20))));
+            } else {
+                liveStream.add(message(next++));
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        messageIds = new HashSet<>();
+        merged = new ArrayList<>(shownMessages);
+        for (ChatMessage message : shownMessages) {
+            messageIds.add(message.getId());
+        }
+        MessageCache.getInstance().put(ROOM_ID, shownMessages);
+    }
+
+    // ChatMessageAdapter.addAllUnique
+    @Benchmark
+    public List<ChatMessage> mergePage() {
+        for (ChatMessage message : incomingPage) {
+            if (message.getId() != null && message.getId() >= 0 && messageIds.contains(message.getId())) {
+                continue;
+            }
+            if (message.getId() != null && message.getId() > 0) {
+                messageIds.add(message.getId());
+            }
+            merged.add(message);
+        }
+        return merged;
+    }
+
+    @Benchmark
+    public List<ChatMessage> cacheAppend() {
+        MessageCache cache = MessageCache.getInstance();
+        for (ChatMessage message : liveStream) {
+            cache.append(ROOM_ID, message);
+        }
+        return cache.get(ROOM_ID);
+    }
+
+    private static ChatMessage message(long id) {
+        ChatMessage message = new ChatMessage();
+        message.setId(id);
+        message.setChatRoomId(ROOM_ID);
+        message.setTimestampMillis(1_700_000_000_000L + id * 1000);
+        return message;
+    }
+}
@@ -0,0 +1,171 @@
+package com.project.realtimechatui.benchmarks;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.api.models.ChatRoom;
+import com.project.realtimechatui.utils.TimestampCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timestamp parsing, and the sorts ChatMessageAdapter (messages, oldest first) and
+ * UserListAdapter (rooms, newest activity first) run on every list they receive. The legacy
+ * methods run what those adapters did before TimestampCodec, regexes and a SimpleDateFormat per
+ * parse, on the same timestamp strings as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TimestampBenchmark {
+
+    @Param({"50", "5000"})
+    public int size;
+
+    private List<String> timestamps;
+    private List<ChatMessage> decodedMessages;
+    private List<ChatRoom> decodedRooms;
+    private List<String> shuffledTimestamps;
+
+    // Fresh unsorted copies for each invocation; sorting in place would hand later calls sorted input
+    private List<ChatMessage> messages;
+    private List<ChatRoom> rooms;
+    private List<String> legacyTimestamps;
+
+    @Setup
+    public void setUp() {
+        timestamps = Datasets.timestamps(size);
+
+        Random random = new Random(Datasets.SEED);
+        decodedMessages = new ArrayList<>(size);
+        decodedRooms = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setId((long) i);
+            message.setTimestamp(timestamps.get(i));
+            decodedMessages.add(message);
+
+            ChatRoom room = new ChatRoom();
+            room.setId((long) i);
+            room.setLastMessageTimestamp(timestamps.get(i));
+            room.onDecoded();
+            decodedRooms.add(room);
+        }
+        // Pages arrive newest first or interleaved after merges
+        Collections.shuffle(decodedMessages, random);
+        Collections.shuffle(decodedRooms, random);
+        shuffledTimestamps = new ArrayList<>(timestamps);
+        Collections.shuffle(shuffledTimestamps, random);
+    }
+
+    @Setup(Level.Invocation)
+    public void copyLists() {
+        messages = new ArrayList<>(decodedMessages);
+        rooms = new ArrayList<>(decodedRooms);
+        legacyTimestamps = new ArrayList<>(shuffledTimestamps);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (int i = 0; i < timestamps.size(); i++) {
+            blackhole.consume(TimestampCodec.parse(timestamps.get(i)));
+        }
+    }
+
+    // ChatMessageAdapter.sortByTimestamp
+    @Benchmark
+    public List<ChatMessage> sortMessages() {
+        Collections.sort(messages, (m1, m2) -> Long.compare(TimestampCodec.sortKey(m1.getTimestampMillis()),
+                TimestampCodec.sortKey(m2.getTimestampMillis())));
+        return messages;
+    }
+
+    // UserListAdapter.setChatRooms
+    @Benchmark
+    public List<ChatRoom> sortRooms() {
+        Collections.sort(rooms, (r1, r2) -> Long.compare(r2.getLastMessageTimestampMillis(), r1.getLastMessageTimestampMillis()));
+        return rooms;
+    }
+
+    @Benchmark
+    public void formatTime(Blackhole blackhole) {
+        for (int i = 0; i < decodedMessages.size(); i++) {
+            blackhole.consume(TimestampCodec.formatTime(decodedMessages.get(i).getTimestampMillis()));
+        }
+    }
+
+    @Benchmark
+    public void legacyParse(Blackhole blackhole) {
+        for (int i = 0; i < timestamps.size(); i++) {
+            blackhole.consume(legacyParseMessageTime(timestamps.get(i)));
+        }
+    }
+
+    // ChatMessageAdapter.sortByTimestamp before: each timestamp parsed once into an identity map
+    @Benchmark
+    public List<String> legacySortMessages() {
+        Map<String, Long> times = new IdentityHashMap<>();
+        for (String timestamp : legacyTimestamps) {
+            times.put(timestamp, legacyParseMessageTime(timestamp));
+        }
+        Collections.sort(legacyTimestamps, (t1, t2) -> Long.compare(times.get(t1), times.get(t2)));
+        return legacyTimestamps;
+    }
+
+    // UserListAdapter.setChatRooms before: both timestamps parsed again on every comparison
+    @Benchmark
+    public List<String> legacySortRooms() {
+        Collections.sort(legacyTimestamps, (t1, t2) -> Long.compare(legacyParseRoomTime(t2), legacyParseRoomTime(t1)));
+        return legacyTimestamps;
+    }
+
+    private static long legacyParseMessageTime(String timestamp) {
+        try {
+            if (timestamp == null || timestamp.isEmpty()) {
+                return 0;
+            }
+            if (timestamp.matches("\\d{13}")) {
+                return Long.parseLong(timestamp);
+            }
+            if (timestamp.matches("\\d{10}")) {
+                return Long.parseLong(timestamp) * 1000;
+            }
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
+            Date date = sdf.parse(timestamp);
+            return date != null ? date.getTime() : System.currentTimeMillis();
+        } catch (Exception e) {
+            return System.currentTimeMillis();
+        }
+    }
+
+    private static long legacyParseRoomTime(String timestamp) {
+        try {
+            if (timestamp == null || timestamp.isEmpty()) {
+                return 0;
+            }
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+            Date date = sdf.parse(timestamp);
+            return date != null ? date.getTime() : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.realtimechatui.benchmarks;
+
+import com.project.realtimechatui.api.models.User;
+import com.project.realtimechatui.utils.UserSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The user search behind UserSuggestionAdapter.filter: building the index when the directory
+ * loads, a one-off query, and the keystroke-by-keystroke sequence typing a name produces. The
+ * legacy methods run the scan filter() did before the index, as the baseline. At 50000 users each
+ * keystroke of typing has to fit in a frame (16 ms).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserSearchBenchmark {
+    private static final String[] TYPED = {"g", "gr", "gra", "grac", "grace", "grace ", "grace n"};
+
+    @Param({"500", "5000", "50000"})
+    public int directorySize;
+
+    private List<User> users;
+    private UserSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        users = Datasets.users(directorySize);
+        index = new UserSearchIndex(users);
+    }
+
+    @Benchmark
+    public UserSearchIndex buildIndex() {
+        return new UserSearchIndex(users);
+    }
+
+    // Unrelated to the previous query, so the incremental path can't help
+    @Benchmark
+    public void singleQuery(Blackhole blackhole) {
+        blackhole.consume(index.search("nova"));
+        blackhole.consume(index.search("kim"));
+    }
+
+    @Benchmark
+    public void typing(Blackhole blackhole) {
+        for (String query : TYPED) {
+            blackhole.consume(index.search(query));
+        }
+    }
+
+    @Benchmark
+    public void legacySingleQuery(Blackhole blackhole) {
+        blackhole.consume(legacyFilter(users, "nova"));
+        blackhole.consume(legacyFilter(users, "kim"));
+    }
+
+    @Benchmark
+    public void legacyTyping(Blackhole blackhole) {
+        for (String query : TYPED) {
+            blackhole.consume(legacyFilter(users, query));
+        }
+    }
+
+    // UserSuggestionAdapter.filter before the index: every user lowercased and a regex compiled
+    // per user on each keystroke
+    private static List<User> legacyFilter(List<User> users, String query) {
+        List<User> filtered = new ArrayList<>();
+        String searchQuery = query.toLowerCase().trim();
+        if (searchQuery.startsWith("@")) {
+            searchQuery = searchQuery.substring(1);
+        }
+        for (User user : users) {
+            if (legacyMatchesQuery(user, searchQuery)) {
+                filtered.add(user);
+            }
+        }
+        return filtered;
+    }
+
+    private static boolean legacyMatchesQuery(User user, String query) {
+        if (query.isEmpty()) {
+            return true;
+        }
+        if (user.getUsername() != null && user.getUsername().toLowerCase().contains(query)) {
+            return true;
+        }
+        if (user.getFullName() != null && user.getFullName().toLowerCase().contains(query)) {
+            return true;
+        }
+        if (user.getEmail() != null && user.getEmail().toLowerCase().contains(query)) {
+            return true;
+        }
+        Pattern pattern = Pattern.compile(".*" + Pattern.quote(query) + ".*", Pattern.CASE_INSENSITIVE);
+        return (user.getUsername() != null && pattern.matcher(user.getUsername()).matches())
+                || (user.getFullName() != null && pattern.matcher(user.getFullName()).matches());
+    }
+}
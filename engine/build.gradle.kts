@@ -0,0 +1,26 @@
+// Headless chat engine: connection, subscriptions, frame codecs, outbox and per-room state.
+// Plain Java with no Android dependencies, so the client's real-time logic can be driven and
+// profiled on a JVM. The app plugs in its STOMP client, main-thread scheduler and session.
+plugins {
+    `java-library`
+    // The stand-in broker and JVM transport are shared with other modules' tests as test fixtures
+    `java-test-fixtures`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    // ChatMessage and the frame codecs are decoded with Gson, and FrameCodec takes the app's instance
+    api(libs.gson)
+
+    // Stand-in STOMP broker for integration and load tests: ./gradlew :engine:test
+    testFixturesApi(libs.java.websocket)
+    testImplementation(libs.junit)
+}
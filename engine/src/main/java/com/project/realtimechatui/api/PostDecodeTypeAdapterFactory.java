@@ -0,0 +1,41 @@
+package com.project.realtimechatui.api;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.project.realtimechatui.api.models.PostDecode;
+
+import java.io.IOException;
+
+/**
+ * Calls {@link PostDecode#onDecoded()} on every model Gson reads, on the thread doing the decoding.
+ * This keeps derived fields such as parsed timestamps off the main thread and computed exactly once.
+ */
+public class PostDecodeTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!PostDecode.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        return new TypeAdapter<T>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                delegate.write(out, value);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                T value = delegate.read(in);
+                if (value != null) {
+                    ((PostDecode) value).onDecoded();
+                }
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,231 @@
+package com.project.realtimechatui.api.models;
+
+import com.google.gson.annotations.JsonAdapter;
+import com.project.realtimechatui.utils.TimestampCodec;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Kept compact, since chat screens and caches hold thousands: IDs and the timestamp are
+// primitives, and sender names, types and statuses are shared strings (see MessageDictionary).
+// Decoded and encoded by ChatMessageTypeAdapter, which keeps the wire format unchanged.
+@JsonAdapter(ChatMessageTypeAdapter.class)
+public class ChatMessage {
+    private static final AtomicLong LOCAL_KEY_SEQUENCE = new AtomicLong();
+    // Stands for an ID the message doesn't have (yet)
+    static final long NO_ID = Long.MIN_VALUE;
+
+    long id = NO_ID;
+    long chatRoomId = NO_ID;
+    long senderId = NO_ID;
+    String senderName;
+    String content;
+    String type; // TEXT, IMAGE, FILE, SYSTEM
+    // Epoch millis; TimestampCodec.UNKNOWN when missing or unparseable
+    long timestampMillis;
+    Set<String> attachmentUrls;
+    boolean edited;
+    String editedAt;
+    String status; // SENT, DELIVERED, READ
+    boolean deleted;
+
+    // Bumped on every content change so caches of rendered text can tell edits apart
+    private transient int contentVersion;
+
+    // Timeline sections, derived by the chat adapter when the list changes
+    private transient boolean daySeparator;
+    private transient boolean groupedWithPrevious;
+
+    // Client-side identity for messages the server hasn't assigned an ID to yet (local echoes)
+    private transient String localKey;
+
+    // System.nanoTime() when the frame carrying this message arrived, for latency metrics; 0 if it didn't come live
+    private transient long receivedAtNanos;
+
+    // Constructors
+    public ChatMessage() {}
+    public ChatMessage(Long chatRoomId, Long senderId, String content, String type) {
+        setChatRoomId(chatRoomId);
+        setSenderId(senderId);
+        this.content = content;
+        this.type = type;
+        this.timestampMillis = System.currentTimeMillis();
+    }
+
+    // Copy used when a displayed message changes, so list diffing can see old and new state
+    public ChatMessage(ChatMessage other) {
+        this.id = other.id;
+        this.chatRoomId = other.chatRoomId;
+        this.senderId = other.senderId;
+        this.senderName = other.senderName;
+        this.content = other.content;
+        this.type = other.type;
+        this.timestampMillis = other.timestampMillis;
+        this.contentVersion = other.contentVersion;
+        this.attachmentUrls = other.attachmentUrls;
+        this.edited = other.edited;
+        this.editedAt = other.editedAt;
+        this.status = other.status;
+        this.deleted = other.deleted;
+        this.localKey = other.localKey;
+        this.daySeparator = other.daySeparator;
+        this.groupedWithPrevious = other.groupedWithPrevious;
+    }
+
+
+    // Boxes on every call; hot paths use hasId() and getIdValue()
+    public Long getId() {
+        return id != NO_ID ? id : null;
+    }
+    public void setId(Long id) {
+        this.id = id != null ? id : NO_ID;
+    }
+
+    public boolean hasId() {
+        return id != NO_ID;
+    }
+    // Only meaningful when hasId()
+    public long getIdValue() {
+        return id;
+    }
+
+    public Long getChatRoomId() {
+        return chatRoomId != NO_ID ? chatRoomId : null;
+    }
+    public void setChatRoomId(Long chatRoomId) {
+        this.chatRoomId = chatRoomId != null ? chatRoomId : NO_ID;
+    }
+
+    public Long getSenderId() {
+        return senderId != NO_ID ? senderId : null;
+    }
+    public void setSenderId(Long senderId) {
+        this.senderId = senderId != null ? senderId : NO_ID;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+    public void setSenderName(String senderName) {
+        this.senderName = senderName;
+    }
+
+    public String getContent() {
+        return content;
+    }
+    public void setContent(String content) {
+        this.content = content;
+        this.contentVersion++;
+    }
+
+    public int getContentVersion() {
+        return contentVersion;
+    }
+
+    public String getType() {
+        return type;
+    }
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    // Only the parsed time is kept, so this is epoch millis whatever form the server sent
+    public String getTimestamp() {
+        return timestampMillis != TimestampCodec.UNKNOWN ? String.valueOf(timestampMillis) : null;
+    }
+    public void setTimestamp(String timestamp) {
+        this.timestampMillis = TimestampCodec.parse(timestamp);
+    }
+
+    // TimestampCodec.UNKNOWN when the message has no (parseable) timestamp
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+    public void setTimestampMillis(long timestampMillis) {
+        this.timestampMillis = timestampMillis;
+    }
+
+    public Set<String> getAttachmentUrls() {
+        return attachmentUrls;
+    }
+    public void setAttachmentUrls(Set<String> attachmentUrls) {
+        this.attachmentUrls = attachmentUrls;
+    }
+
+    public boolean isEdited() { return edited; }
+    public void setEdited(boolean edited) { this.edited = edited; }
+
+    public String getEditedAt() { return editedAt; }
+    public void setEditedAt(String editedAt) { this.editedAt = editedAt; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+
+    public boolean isDaySeparator() { return daySeparator; }
+    public void setDaySeparator(boolean daySeparator) { this.daySeparator = daySeparator; }
+
+    public boolean isGroupedWithPrevious() { return groupedWithPrevious; }
+    public void setGroupedWithPrevious(boolean groupedWithPrevious) { this.groupedWithPrevious = groupedWithPrevious; }
+
+    public synchronized boolean hasLocalKey() { return localKey != null; }
+    public synchronized String getLocalKey() {
+        if (localKey == null) {
+            localKey = "local-" + LOCAL_KEY_SEQUENCE.incrementAndGet();
+        }
+        return localKey;
+    }
+    public synchronized void setLocalKey(String localKey) { this.localKey = localKey; }
+
+    public long getReceivedAtNanos() { return receivedAtNanos; }
+    public void setReceivedAtNanos(long receivedAtNanos) { this.receivedAtNanos = receivedAtNanos; }
+
+
+    // Helper methods
+    public boolean isFromCurrentUser(Long currentUserId) {
+        return senderId != NO_ID && currentUserId != null && senderId == currentUserId;
+    }
+
+    public boolean hasSameSender(ChatMessage other) {
+        return senderId == other.senderId;
+    }
+
+    public boolean isSystemMessage() {
+        return "SYSTEM".equals(type);
+    }
+
+    public boolean hasAttachments() {
+        return attachmentUrls != null && !attachmentUrls.isEmpty();
+    }
+
+    // Stable list identity: the server ID (virtual rows use negative IDs), or a key derived from
+    // the local key that stays below every virtual ID. A server copy that took over a local echo
+    // keeps the echo's local key, and with it the echo's row.
+    public long getStableId() {
+        if (id != NO_ID && !hasLocalKey()) {
+            return id;
+        }
+        String key = getLocalKey();
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Long.MIN_VALUE + (hash >>> 2);
+    }
+
+    @Override
+    public String toString() {
+        return "ChatMessage{" +
+                "id=" + getId() +
+                ", chatRoomId=" + getChatRoomId() +
+                ", senderId=" + getSenderId() +
+                ", senderName='" + senderName + '\'' +
+                ", content='" + content + '\'' +
+                ", type='" + type + '\'' +
+                ", timestamp=" + timestampMillis +
+                '}';
+    }
+}
@@ -0,0 +1,136 @@
+package com.project.realtimechatui.api.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.project.realtimechatui.utils.MessageDictionary;
+import com.project.realtimechatui.utils.TimestampCodec;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads chat messages straight into ChatMessage's compact fields: IDs as primitives, the
+ * timestamp parsed as it is read, and repeated strings shared through MessageDictionary once the
+ * room is known. Writes the same wire format back, with the timestamp as epoch millis.
+ */
+final class ChatMessageTypeAdapter extends TypeAdapter<ChatMessage> {
+    private final MessageDictionary dictionary = MessageDictionary.getInstance();
+
+    @Override
+    public ChatMessage read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChatMessage message = new ChatMessage();
+        String senderName = null;
+        String type = null;
+        String status = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    message.id = in.nextLong();
+                    break;
+                case "chatRoomId":
+                    message.chatRoomId = in.nextLong();
+                    break;
+                case "senderId":
+                    message.senderId = in.nextLong();
+                    break;
+                case "senderName":
+                    senderName = in.nextString();
+                    break;
+                case "content":
+                    message.content = in.nextString();
+                    break;
+                case "type":
+                    type = in.nextString();
+                    break;
+                case "timestamp":
+                    message.timestampMillis = TimestampCodec.parse(in.nextString());
+                    break;
+                case "attachmentUrls":
+                    message.attachmentUrls = readStrings(in);
+                    break;
+                case "edited":
+                    message.edited = in.nextBoolean();
+                    break;
+                case "editedAt":
+                    message.editedAt = in.nextString();
+                    break;
+                case "status":
+                    status = in.nextString();
+                    break;
+                case "deleted":
+                    message.deleted = in.nextBoolean();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        // The room may come after these fields, so they are shared only now
+        message.senderName = dictionary.senderName(message.chatRoomId, senderName);
+        message.type = dictionary.type(message.chatRoomId, type);
+        message.status = dictionary.status(message.chatRoomId, status);
+        return message;
+    }
+
+    @Override
+    public void write(JsonWriter out, ChatMessage message) throws IOException {
+        if (message == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeId(out, "id", message.id);
+        writeId(out, "chatRoomId", message.chatRoomId);
+        writeId(out, "senderId", message.senderId);
+        out.name("senderName").value(message.senderName);
+        out.name("content").value(message.content);
+        out.name("type").value(message.type);
+        out.name("timestamp").value(message.getTimestamp());
+        if (message.attachmentUrls != null) {
+            out.name("attachmentUrls").beginArray();
+            for (String url : message.attachmentUrls) {
+                out.value(url);
+            }
+            out.endArray();
+        }
+        out.name("edited").value(message.edited);
+        out.name("editedAt").value(message.editedAt);
+        out.name("status").value(message.status);
+        out.name("deleted").value(message.deleted);
+        out.endObject();
+    }
+
+    private static Set<String> readStrings(JsonReader in) throws IOException {
+        Set<String> strings = new LinkedHashSet<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else {
+                strings.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return strings;
+    }
+
+    private static void writeId(JsonWriter out, String name, long id) throws IOException {
+        if (id != ChatMessage.NO_ID) {
+            out.name(name).value(id);
+        }
+    }
+}
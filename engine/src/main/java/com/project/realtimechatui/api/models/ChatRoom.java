@@ -1,12 +1,13 @@
 package com.project.realtimechatui.api.models;
 
 import com.project.realtimechatui.enums.EnumRoomType;
+import com.project.realtimechatui.utils.TimestampCodec;
 
 import java.io.Serializable;
 import java.util.List;
 import java.util.Set;
 
-public class ChatRoom implements Serializable {
+public class ChatRoom implements Serializable, PostDecode {
     private Long id;
     private String name;
     private EnumRoomType type;
@@ -18,6 +19,14 @@ public class ChatRoom implements Serializable {
     private String lastMessageType;
     private Integer lastMessageAttachmentCount;
 
+    // lastMessageTimestamp parsed once; not part of the wire format
+    private transient long lastMessageTimestampMillis;
+
+
+    @Override
+    public void onDecoded() {
+        lastMessageTimestampMillis = TimestampCodec.parse(lastMessageTimestamp);
+    }
 
     // Helper method to get the other participant (for PERSONAL chats)
     public Participant getOtherParticipant(Long currentUserId) {
@@ -43,6 +52,19 @@ public class ChatRoom implements Serializable {
         return null;
     }
 
+    // True when the current user hasn't read up to the room's last message
+    public boolean hasUnread(Long currentUserId) {
+        if (lastMessageId == null) {
+            return false;
+        }
+        Participant me = getCurrentParticipant(currentUserId);
+        if (me == null) {
+            return false;
+        }
+        Long lastRead = me.getLastReadMessageId();
+        return lastRead == null || lastRead < lastMessageId;
+    }
+
     // Helper method to check if there's a last message
     public boolean hasLastMessage() {
         return lastMessageContent != null && !lastMessageContent.trim().isEmpty();
@@ -112,6 +134,16 @@ public class ChatRoom implements Serializable {
 
     public void setLastMessageTimestamp(String lastMessageTimestamp) {
         this.lastMessageTimestamp = lastMessageTimestamp;
+        this.lastMessageTimestampMillis = TimestampCodec.parse(lastMessageTimestamp);
+    }
+
+    // TimestampCodec.UNKNOWN when there is no (parseable) last message time
+    public long getLastMessageTimestampMillis() {
+        if (lastMessageTimestampMillis == TimestampCodec.UNKNOWN && lastMessageTimestamp != null) {
+            // Not decoded through Gson, e.g. restored from a Serializable extra
+            lastMessageTimestampMillis = TimestampCodec.parse(lastMessageTimestamp);
+        }
+        return lastMessageTimestampMillis;
     }
 
     public String getLastMessageType() {
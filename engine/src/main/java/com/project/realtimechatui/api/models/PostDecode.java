@@ -0,0 +1,6 @@
+package com.project.realtimechatui.api.models;
+
+// Implemented by models that derive fields from the wire data once Gson has filled them in
+public interface PostDecode {
+    void onDecoded();
+}
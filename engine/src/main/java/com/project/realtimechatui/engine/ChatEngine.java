@@ -0,0 +1,734 @@
+package com.project.realtimechatui.engine;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.metrics.Counter;
+import com.project.realtimechatui.metrics.Gauge;
+import com.project.realtimechatui.metrics.Histogram;
+import com.project.realtimechatui.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The client's real-time chat logic without Android: one STOMP connection, the rooms subscribed
+ * on it, an outbox for chat messages and per-room state.
+ *
+ * Everything runs on the {@link EngineScheduler}: call the engine from its thread, and listeners
+ * are called back on it. Frames are decoded on the transport's thread before being handed over.
+ * Rooms stay subscribed across reconnects; subscriptions and joins are replayed when the
+ * connection opens again, and queued messages are flushed. Rooms whose presence is watched
+ * without being subscribed get their status topic only.
+ *
+ * Connection lifecycle, each stage of a frame (decode, the hop to the engine thread, listener
+ * dispatch) and the outbox are recorded in {@link Metrics}.
+ */
+public class ChatEngine {
+    private static final String TAG = "ChatEngine";
+    private static final Logger LOG = Logger.getLogger(TAG);
+
+    public static final long TYPING_STOP_DELAY_MS = 3000;
+    public static final long RECONNECT_DELAY_MS = 2000;
+    public static final long SEND_RETRY_DELAY_MS = 1000;
+    public static final int MAX_SEND_ATTEMPTS = 3;
+
+    private static final Metrics METRICS = Metrics.getInstance();
+    private static final Counter CONNECT_ATTEMPTS = METRICS.counter("socket.connect_attempts");
+    private static final Counter CONNECTION_ERRORS = METRICS.counter("socket.errors");
+    private static final Counter CONNECTIONS_CLOSED = METRICS.counter("socket.closed");
+    private static final Counter HEARTBEAT_FAILURES = METRICS.counter("socket.heartbeat_failures");
+    private static final Counter RECONNECTS = METRICS.counter("socket.reconnects");
+    private static final Gauge CONNECTED = METRICS.gauge("socket.connected");
+    // connect() to open, and connection lost to open again
+    private static final Histogram CONNECT_TIME = METRICS.histogram("socket.connect");
+    private static final Histogram RECONNECT_TIME = METRICS.histogram("socket.reconnect");
+
+    private static final Counter FRAMES_RECEIVED = METRICS.counter("frame.received");
+    private static final Counter FRAME_DECODE_ERRORS = METRICS.counter("frame.decode_errors");
+    private static final Counter DUPLICATES_DROPPED = METRICS.counter("frame.duplicates");
+    // Decode on the transport thread, then the wait until the engine thread picks the frame up
+    private static final Histogram DECODE_TIME = METRICS.histogram("frame.decode");
+    private static final Histogram HANDOFF_TIME = METRICS.histogram("frame.handoff");
+    private static final Histogram DISPATCH_TIME = METRICS.histogram("frame.dispatch");
+
+    private static final Gauge OUTBOX_DEPTH = METRICS.gauge("outbox.depth");
+    private static final Counter OUTBOX_REJECTED = METRICS.counter("outbox.rejected");
+    private static final Counter SEND_FAILURES = METRICS.counter("outbox.send_failures");
+    // Queued to acknowledged by the server, including any time spent disconnected
+    private static final Histogram SEND_TIME = METRICS.histogram("outbox.send");
+
+    public interface ConnectionListener {
+        void onConnected();
+        void onDisconnected();
+        void onError(String error);
+    }
+
+    public interface RoomListener {
+        void onMessageReceived(Long roomId, ChatMessage message);
+        void onTypingIndicator(Long roomId, String username, boolean isTyping);
+        void onUserStatusChanged(Long roomId, Long userId, boolean isOnline);
+        void onMessageEdited(Long roomId, Long messageId, String newContent);
+        void onMessageDeleted(Long roomId, Long messageId);
+        void onUserJoined(Long roomId, String username);
+        void onUserLeft(Long roomId, String username);
+        // roomId is null for errors that aren't tied to a room
+        void onError(Long roomId, String error);
+    }
+
+    // Outcome of each message queued with a client key, so the sender can settle its local echo
+    public interface SendListener {
+        void onMessageSent(Long roomId, String clientKey);
+        void onMessageFailed(Long roomId, String clientKey);
+    }
+
+    private final StompTransport transport;
+    private final EngineScheduler scheduler;
+    private final SessionStore sessionStore;
+    private final FrameCodec codec;
+
+    private ConnectionListener connectionListener;
+    private RoomListener roomListener;
+    private SendListener sendListener;
+
+    private volatile boolean connected;
+    private boolean connecting;
+    // Bumped on every connect and disconnect so callbacks from an older connection are ignored
+    private int connectionGeneration;
+    private EngineScheduler.Cancellable pendingReconnect;
+    private StompTransport.Subscription errorSubscription;
+    private long connectStartedAt;
+    // When the connection last went away without being asked to; 0 while connected or after disconnect()
+    private long connectionLostAt;
+
+    private final Map<Long, RoomState> rooms = new LinkedHashMap<>();
+    private final Map<Long, EngineScheduler.Cancellable> typingStops = new HashMap<>();
+    // Rooms whose status updates are wanted, and the status-only subscriptions of those not in rooms
+    private final Set<Long> presenceRooms = new LinkedHashSet<>();
+    private final Map<Long, StompTransport.Subscription> presenceSubscriptions = new HashMap<>();
+    private final Outbox outbox = new Outbox();
+
+    // Run once when the connection opens
+    private final List<Runnable> pendingOpenCallbacks = new ArrayList<>();
+
+    public ChatEngine(StompTransport transport, EngineScheduler scheduler, SessionStore sessionStore, FrameCodec codec) {
+        this.transport = transport;
+        this.scheduler = scheduler;
+        this.sessionStore = sessionStore;
+        this.codec = codec;
+    }
+
+    public void setConnectionListener(ConnectionListener listener) {
+        this.connectionListener = listener;
+    }
+
+    public void setRoomListener(RoomListener listener) {
+        this.roomListener = listener;
+    }
+
+    public void setSendListener(SendListener listener) {
+        this.sendListener = listener;
+    }
+
+    // Safe to read from any thread
+    public boolean isConnected() {
+        return connected && transport.isConnected();
+    }
+
+    // Runs the callback as soon as the connection is open (immediately if it already is)
+    public void whenConnected(Runnable callback) {
+        if (isConnected()) {
+            callback.run();
+        } else {
+            pendingOpenCallbacks.add(callback);
+        }
+    }
+
+    public void connect() {
+        if (isConnected() || connecting || !sessionStore.isLoggedIn()) {
+            LOG.fine("Already connected, connecting or user not logged in");
+            return;
+        }
+
+        String token = sessionStore.getAccessToken();
+        if (token == null) {
+            LOG.warning("No auth token available");
+            if (connectionListener != null) {
+                connectionListener.onError("No authentication token");
+            }
+            return;
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Authorization", "Bearer " + token);
+
+        connecting = true;
+        connectStartedAt = System.nanoTime();
+        CONNECT_ATTEMPTS.increment();
+        int generation = ++connectionGeneration;
+        try {
+            transport.connect(headers, new TransportListener(generation));
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Error connecting", e);
+            connecting = false;
+            if (connectionListener != null) {
+                connectionListener.onError(e.getMessage());
+            }
+        }
+    }
+
+    // Leaves every room, drops anything unsent and closes the connection
+    public void disconnect() {
+        if (isConnected()) {
+            for (Long roomId : rooms.keySet()) {
+                sendQuietly(ChatProtocol.LEAVE_ROOM + roomId, codec.encodeLeave());
+            }
+        }
+        rooms.clear();
+        presenceRooms.clear();
+        for (Outbox.Entry entry : outbox.clear()) {
+            notifyFailed(entry.roomId, entry.clientKey);
+        }
+        OUTBOX_DEPTH.set(0);
+        cancelTypingStops();
+        closeConnection();
+        connectionLostAt = 0;
+        LOG.fine("Disconnected");
+    }
+
+    // Drops the connection and opens a new one after a pause; rooms are resubscribed when it opens
+    public void reconnect() {
+        LOG.fine("Attempting to reconnect...");
+        RECONNECTS.increment();
+        markConnectionLost();
+        closeConnection();
+        pendingReconnect = scheduler.schedule(() -> {
+            pendingReconnect = null;
+            connect();
+        }, RECONNECT_DELAY_MS);
+    }
+
+    // Subscribes to a room's topics without announcing the user in it
+    public void subscribeRoom(Long roomId) {
+        RoomState room = rooms.get(roomId);
+        if (room == null) {
+            room = new RoomState(roomId);
+            rooms.put(roomId, room);
+        }
+        if (isConnected()) {
+            subscribe(room);
+        }
+    }
+
+    // Subscribes to a room and sends the join; while disconnected both happen once it opens
+    public void joinRoom(Long roomId) {
+        subscribeRoom(roomId);
+        RoomState room = rooms.get(roomId);
+        room.joinRequested = true;
+        if (isConnected()) {
+            sendJoin(room);
+        }
+    }
+
+    // Sends the leave and drops the room's subscriptions and state
+    public void leaveRoom(Long roomId) {
+        if (rooms.containsKey(roomId) && isConnected()) {
+            sendQuietly(ChatProtocol.LEAVE_ROOM + roomId, codec.encodeLeave());
+        }
+        unsubscribeRoom(roomId);
+    }
+
+    // Drops the room's subscriptions and state without telling the server
+    public void unsubscribeRoom(Long roomId) {
+        RoomState room = rooms.remove(roomId);
+        if (room != null) {
+            cancelSubscriptions(room);
+        }
+        EngineScheduler.Cancellable typingStop = typingStops.remove(roomId);
+        if (typingStop != null) {
+            typingStop.cancel();
+        }
+        // Still listed somewhere, so keep hearing who is online
+        if (presenceRooms.contains(roomId) && isConnected()) {
+            subscribePresence(roomId);
+        }
+    }
+
+    // Replaces the set of rooms whose status updates reach the room listener without the rooms being
+    // subscribed; a room that is subscribed already gets them from its own status subscription
+    public void watchPresence(Collection<Long> roomIds) {
+        presenceRooms.clear();
+        presenceRooms.addAll(roomIds);
+        presenceSubscriptions.entrySet().removeIf(entry -> {
+            if (presenceRooms.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().cancel();
+            return true;
+        });
+        if (isConnected()) {
+            for (Long roomId : presenceRooms) {
+                subscribePresence(roomId);
+            }
+        }
+    }
+
+    public RoomState getRoomState(Long roomId) {
+        return rooms.get(roomId);
+    }
+
+    public Map<Long, RoomState> getRooms() {
+        return Collections.unmodifiableMap(rooms);
+    }
+
+    public int getQueuedMessageCount() {
+        return outbox.size();
+    }
+
+    public boolean sendMessage(Long roomId, String content) {
+        return sendMessage(roomId, content, null);
+    }
+
+    // Queues a message for a subscribed room. It goes out as soon as the connection allows,
+    // after anything queued before it. Returns false if it wasn't queued; otherwise the send
+    // listener hears how it went under clientKey, unless that is null.
+    public boolean sendMessage(Long roomId, String content, String clientKey) {
+        if (content == null || content.trim().isEmpty() || !rooms.containsKey(roomId)) {
+            LOG.fine("Cannot send message: empty content or room not subscribed");
+            return false;
+        }
+
+        String body = codec.encodeMessage(content.trim(), System.currentTimeMillis());
+        if (!outbox.offer(new Outbox.Entry(roomId, ChatProtocol.SEND_MESSAGE + roomId, body, clientKey))) {
+            LOG.warning("Outbox full, message not queued");
+            OUTBOX_REJECTED.increment();
+            if (roomListener != null) {
+                roomListener.onError(roomId, "Failed to send message");
+            }
+            return false;
+        }
+        OUTBOX_DEPTH.set(outbox.size());
+        drainOutbox();
+        return true;
+    }
+
+    // Typing is only worth sending live; a start is followed by an automatic stop after a pause
+    public void sendTyping(Long roomId, boolean isTyping) {
+        if (!isConnected() || !rooms.containsKey(roomId)) {
+            return;
+        }
+
+        sendQuietly(ChatProtocol.TYPING_INDICATOR + roomId, codec.encodeTyping(isTyping));
+
+        EngineScheduler.Cancellable typingStop = typingStops.remove(roomId);
+        if (typingStop != null) {
+            typingStop.cancel();
+        }
+        if (isTyping) {
+            typingStops.put(roomId, scheduler.schedule(() -> {
+                typingStops.remove(roomId);
+                sendTyping(roomId, false);
+            }, TYPING_STOP_DELAY_MS));
+        }
+    }
+
+    private void closeConnection() {
+        if (pendingReconnect != null) {
+            pendingReconnect.cancel();
+            pendingReconnect = null;
+        }
+        connectionGeneration++;
+        connecting = false;
+        connected = false;
+        CONNECTED.set(0);
+        dropConnectionState();
+        try {
+            transport.disconnect();
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Error disconnecting", e);
+        }
+    }
+
+    // Subscriptions and joins belong to a connection; rooms themselves survive it
+    private void dropConnectionState() {
+        for (RoomState room : rooms.values()) {
+            cancelSubscriptions(room);
+            room.joinSent = false;
+        }
+        for (StompTransport.Subscription subscription : presenceSubscriptions.values()) {
+            subscription.cancel();
+        }
+        presenceSubscriptions.clear();
+        if (errorSubscription != null) {
+            errorSubscription.cancel();
+            errorSubscription = null;
+        }
+        outbox.releaseInFlight();
+    }
+
+    private void onOpened() {
+        LOG.fine("Connection opened");
+        connecting = false;
+        connected = true;
+        CONNECTED.set(1);
+        CONNECT_TIME.recordSince(connectStartedAt);
+        if (connectionLostAt != 0) {
+            RECONNECT_TIME.recordSince(connectionLostAt);
+            connectionLostAt = 0;
+        }
+
+        String username = sessionStore.getUsername();
+        if (username != null) {
+            errorSubscription = transport.subscribe(ChatProtocol.errorQueue(username), payload ->
+                    scheduler.execute(() -> {
+                        LOG.warning("Received error message: " + payload);
+                        if (roomListener != null) {
+                            roomListener.onError(null, payload);
+                        }
+                    }));
+        }
+        for (RoomState room : rooms.values()) {
+            subscribe(room);
+            if (room.joinRequested) {
+                sendJoin(room);
+            }
+        }
+        for (Long roomId : presenceRooms) {
+            subscribePresence(roomId);
+        }
+        drainOutbox();
+
+        List<Runnable> openCallbacks = new ArrayList<>(pendingOpenCallbacks);
+        pendingOpenCallbacks.clear();
+        for (Runnable callback : openCallbacks) {
+            callback.run();
+        }
+        if (connectionListener != null) {
+            connectionListener.onConnected();
+        }
+    }
+
+    private void onConnectionLost() {
+        markConnectionLost();
+        connecting = false;
+        connected = false;
+        CONNECTED.set(0);
+        dropConnectionState();
+    }
+
+    // Keeps the first loss, so a reconnect is timed from when the connection actually went away
+    private void markConnectionLost() {
+        if (connectionLostAt == 0 && (connected || connecting)) {
+            connectionLostAt = System.nanoTime();
+        }
+    }
+
+    private void subscribe(RoomState room) {
+        if (!room.subscriptions.isEmpty()) {
+            return;
+        }
+        Long roomId = room.getRoomId();
+        // The room's own status subscription takes over
+        StompTransport.Subscription presence = presenceSubscriptions.remove(roomId);
+        if (presence != null) {
+            presence.cancel();
+        }
+
+        room.subscriptions.add(transport.subscribe(ChatProtocol.chatTopic(roomId),
+                frameHandler("chat message", codec::decodeMessage, message -> onMessage(room, message))));
+
+        room.subscriptions.add(transport.subscribe(ChatProtocol.typingTopic(roomId),
+                frameHandler("typing indicator", codec::decodeTyping, frame -> {
+                    if (rooms.get(roomId) != room) {
+                        return;
+                    }
+                    room.setTyping(frame.getUsername(), frame.isTyping());
+                    if (roomListener != null) {
+                        roomListener.onTypingIndicator(roomId, frame.getUsername(), frame.isTyping());
+                    }
+                })));
+
+        room.subscriptions.add(transport.subscribe(ChatProtocol.statusTopic(roomId),
+                frameHandler("status update", codec::decodeStatus, frame -> {
+                    if (rooms.get(roomId) != room) {
+                        return;
+                    }
+                    room.setOnline(frame.getUserId(), frame.isOnline());
+                    if (roomListener != null) {
+                        roomListener.onUserStatusChanged(roomId, frame.getUserId(), frame.isOnline());
+                    }
+                })));
+
+        room.subscriptions.add(transport.subscribe(ChatProtocol.eventsTopic(roomId),
+                frameHandler("room event", codec::decodeRoomEvent, event -> onRoomEvent(room, event))));
+
+        LOG.fine("Subscribed to chat room: " + roomId);
+    }
+
+    private void subscribePresence(Long roomId) {
+        if (rooms.containsKey(roomId) || presenceSubscriptions.containsKey(roomId)) {
+            return;
+        }
+        presenceSubscriptions.put(roomId, transport.subscribe(ChatProtocol.statusTopic(roomId),
+                frameHandler("status update", codec::decodeStatus, frame -> {
+                    if (!presenceRooms.contains(roomId) || rooms.containsKey(roomId)) {
+                        return;
+                    }
+                    if (roomListener != null) {
+                        roomListener.onUserStatusChanged(roomId, frame.getUserId(), frame.isOnline());
+                    }
+                })));
+    }
+
+    // Decodes on the transport's thread and hands the result to the engine thread, timing both
+    private <T> StompTransport.FrameHandler frameHandler(String kind, Function<String, T> decoder, Consumer<T> handler) {
+        return payload -> {
+            long receivedAt = System.nanoTime();
+            FRAMES_RECEIVED.increment();
+            T frame;
+            try {
+                frame = decoder.apply(payload);
+            } catch (Exception e) {
+                FRAME_DECODE_ERRORS.increment();
+                LOG.log(Level.WARNING, "Error parsing " + kind, e);
+                return;
+            }
+            if (frame instanceof ChatMessage) {
+                ((ChatMessage) frame).setReceivedAtNanos(receivedAt);
+            }
+            long decodedAt = System.nanoTime();
+            DECODE_TIME.recordNanos(decodedAt - receivedAt);
+            scheduler.execute(() -> {
+                HANDOFF_TIME.recordSince(decodedAt);
+                handler.accept(frame);
+            });
+        };
+    }
+
+    private void onMessage(RoomState room, ChatMessage message) {
+        // Frames still in flight for a room that has since been left
+        if (rooms.get(room.getRoomId()) != room) {
+            return;
+        }
+        if (!room.accept(message)) {
+            LOG.fine("Duplicate message dropped: " + message.getId());
+            DUPLICATES_DROPPED.increment();
+            return;
+        }
+        if (roomListener != null) {
+            long dispatchStart = System.nanoTime();
+            roomListener.onMessageReceived(room.getRoomId(), message);
+            DISPATCH_TIME.recordSince(dispatchStart);
+        }
+    }
+
+    private void onRoomEvent(RoomState room, FrameCodec.RoomEvent event) {
+        if (rooms.get(room.getRoomId()) != room || roomListener == null) {
+            return;
+        }
+        Long roomId = room.getRoomId();
+        String username = event.getUsername();
+        switch (event.getType()) {
+            case ChatProtocol.TYPE_USER_JOINED:
+                if (username != null && !username.equals(sessionStore.getUsername())) {
+                    roomListener.onUserJoined(roomId, username);
+                }
+                break;
+
+            case ChatProtocol.TYPE_USER_LEFT:
+                if (username != null && !username.equals(sessionStore.getUsername())) {
+                    roomListener.onUserLeft(roomId, username);
+                }
+                break;
+
+            case ChatProtocol.TYPE_MESSAGE_UPDATED:
+                if (event.getMessageId() != null && event.getNewContent() != null) {
+                    roomListener.onMessageEdited(roomId, event.getMessageId(), event.getNewContent());
+                }
+                break;
+
+            case ChatProtocol.TYPE_MESSAGE_DELETED:
+                if (event.getMessageId() != null) {
+                    roomListener.onMessageDeleted(roomId, event.getMessageId());
+                }
+                break;
+        }
+    }
+
+    private void sendJoin(RoomState room) {
+        if (room.joinSent) {
+            return;
+        }
+        room.joinSent = true;
+        sendQuietly(ChatProtocol.JOIN_ROOM + room.getRoomId(), codec.encodeJoin());
+        LOG.fine("Joined chat room: " + room.getRoomId());
+    }
+
+    private void drainOutbox() {
+        if (!isConnected()) {
+            return;
+        }
+        Outbox.Entry entry = outbox.nextToSend();
+        if (entry == null) {
+            return;
+        }
+
+        int generation = connectionGeneration;
+        transport.send(entry.destination, entry.body, new StompTransport.SendCallback() {
+            @Override
+            public void onSent() {
+                scheduler.execute(() -> {
+                    SEND_TIME.recordSince(entry.queuedAt);
+                    outbox.onSent(entry);
+                    OUTBOX_DEPTH.set(outbox.size());
+                    if (sendListener != null && entry.clientKey != null) {
+                        sendListener.onMessageSent(entry.roomId, entry.clientKey);
+                    }
+                    drainOutbox();
+                });
+            }
+
+            @Override
+            public void onFailed(Throwable error) {
+                scheduler.execute(() -> onSendFailed(entry, error, generation));
+            }
+        });
+    }
+
+    private void onSendFailed(Outbox.Entry entry, Throwable error, int generation) {
+        LOG.log(Level.WARNING, "Error sending message", error);
+        SEND_FAILURES.increment();
+        outbox.onFailed(entry);
+        if (entry.attempts >= MAX_SEND_ATTEMPTS) {
+            outbox.drop(entry);
+            OUTBOX_DEPTH.set(outbox.size());
+            if (roomListener != null) {
+                roomListener.onError(entry.roomId, "Failed to send message");
+            }
+            notifyFailed(entry.roomId, entry.clientKey);
+            drainOutbox();
+        } else if (generation == connectionGeneration) {
+            scheduler.schedule(this::drainOutbox, SEND_RETRY_DELAY_MS);
+        }
+        // Otherwise the connection it failed on is gone and the next one flushes it
+    }
+
+    private void notifyFailed(Long roomId, String clientKey) {
+        if (sendListener != null && clientKey != null) {
+            sendListener.onMessageFailed(roomId, clientKey);
+        }
+    }
+
+    private void sendQuietly(String destination, String body) {
+        transport.send(destination, body, new StompTransport.SendCallback() {
+            @Override
+            public void onSent() {
+            }
+
+            @Override
+            public void onFailed(Throwable error) {
+                LOG.log(Level.FINE, "Error sending to " + destination, error);
+            }
+        });
+    }
+
+    private void cancelSubscriptions(RoomState room) {
+        for (StompTransport.Subscription subscription : room.subscriptions) {
+            subscription.cancel();
+        }
+        room.subscriptions.clear();
+    }
+
+    private void cancelTypingStops() {
+        for (EngineScheduler.Cancellable typingStop : typingStops.values()) {
+            typingStop.cancel();
+        }
+        typingStops.clear();
+    }
+
+    // Hops transport callbacks onto the scheduler, dropping those from a connection already replaced
+    private class TransportListener implements StompTransport.Listener {
+        private final int generation;
+
+        TransportListener(int generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void onOpened() {
+            scheduler.execute(() -> {
+                if (generation == connectionGeneration) {
+                    ChatEngine.this.onOpened();
+                }
+            });
+        }
+
+        @Override
+        public void onClosed() {
+            scheduler.execute(() -> {
+                if (generation != connectionGeneration) {
+                    return;
+                }
+                LOG.fine("Connection closed");
+                CONNECTIONS_CLOSED.increment();
+                onConnectionLost();
+                if (connectionListener != null) {
+                    connectionListener.onDisconnected();
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            scheduler.execute(() -> {
+                if (generation != connectionGeneration) {
+                    return;
+                }
+                LOG.log(Level.WARNING, "Connection error", error);
+                CONNECTION_ERRORS.increment();
+                onConnectionLost();
+                if (connectionListener != null) {
+                    connectionListener.onError("Connection error: " +
+                            (error != null ? error.getMessage() : "Unknown error"));
+                }
+            });
+        }
+
+        @Override
+        public void onHeartbeatFailed() {
+            scheduler.execute(() -> {
+                if (generation == connectionGeneration) {
+                    LOG.warning("Server heartbeat failed");
+                    HEARTBEAT_FAILURES.increment();
+                    reconnect();
+                }
+            });
+        }
+
+        @Override
+        public void onSubscriptionError(String destination, Throwable error) {
+            scheduler.execute(() -> {
+                LOG.log(Level.WARNING, "Error in subscription to " + destination, error);
+                if (roomListener == null || generation != connectionGeneration) {
+                    return;
+                }
+                // Only losing the message stream is worth surfacing
+                for (RoomState room : rooms.values()) {
+                    if (ChatProtocol.chatTopic(room.getRoomId()).equals(destination)) {
+                        roomListener.onError(room.getRoomId(), "Failed to subscribe to chat room: "
+                                + (error != null ? error.getMessage() : "Unknown error"));
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.project.realtimechatui.engine;
+
+/**
+ * STOMP destinations and event types the chat server speaks.
+ */
+public final class ChatProtocol {
+    // Topics, suffixed with the room id
+    public static final String CHAT_TOPIC = "/topic/chat/";
+    public static final String TYPING_TOPIC = "/typing";
+    public static final String STATUS_TOPIC = "/status";
+    public static final String EVENTS_TOPIC = "/events";
+
+    // Per-user queue, prefixed with /user/{username}
+    public static final String ERROR_QUEUE = "/queue/errors";
+
+    // Application destinations, suffixed with the room id
+    public static final String SEND_MESSAGE = "/app/chat.sendMessage/";
+    public static final String TYPING_INDICATOR = "/app/chat.typing/";
+    public static final String JOIN_ROOM = "/app/chat.join/";
+    public static final String LEAVE_ROOM = "/app/chat.leave/";
+
+    // Room event types
+    public static final String TYPE_USER_JOINED = "user_joined";
+    public static final String TYPE_USER_LEFT = "user_left";
+    public static final String TYPE_MESSAGE_UPDATED = "message_updated";
+    public static final String TYPE_MESSAGE_DELETED = "message_deleted";
+
+    private ChatProtocol() {
+    }
+
+    public static String chatTopic(Long roomId) {
+        return CHAT_TOPIC + roomId;
+    }
+
+    public static String typingTopic(Long roomId) {
+        return CHAT_TOPIC + roomId + TYPING_TOPIC;
+    }
+
+    public static String statusTopic(Long roomId) {
+        return CHAT_TOPIC + roomId + STATUS_TOPIC;
+    }
+
+    public static String eventsTopic(Long roomId) {
+        return CHAT_TOPIC + roomId + EVENTS_TOPIC;
+    }
+
+    public static String errorQueue(String username) {
+        return "/user/" + username + ERROR_QUEUE;
+    }
+}
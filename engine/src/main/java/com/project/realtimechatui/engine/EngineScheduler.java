@@ -0,0 +1,16 @@
+package com.project.realtimechatui.engine;
+
+/**
+ * The single thread a {@link ChatEngine} runs on. All engine state is confined to it and every
+ * listener is called on it; on Android that is the main thread.
+ */
+public interface EngineScheduler {
+
+    interface Cancellable {
+        void cancel();
+    }
+
+    void execute(Runnable task);
+
+    Cancellable schedule(Runnable task, long delayMillis);
+}
@@ -0,0 +1,152 @@
+package com.project.realtimechatui.engine;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.project.realtimechatui.api.PostDecodeTypeAdapterFactory;
+import com.project.realtimechatui.api.models.ChatMessage;
+
+/**
+ * Encodes outgoing STOMP bodies and decodes incoming ones.
+ *
+ * Stateless and thread-safe: the engine decodes on the transport's thread so parsing never runs
+ * on the scheduler. Malformed frames throw, and the engine drops them.
+ */
+public class FrameCodec {
+    private final Gson gson;
+
+    // Pass the app's Gson so messages decode exactly as REST pages do
+    public FrameCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    // Same configuration as ApiClient.getGson, for running without the app
+    public static Gson defaultGson() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new PostDecodeTypeAdapterFactory())
+                .create();
+    }
+
+    public ChatMessage decodeMessage(String payload) {
+        return gson.fromJson(payload, ChatMessage.class);
+    }
+
+    public TypingFrame decodeTyping(String payload) {
+        JsonObject json = JsonParser.parseString(payload).getAsJsonObject();
+        return new TypingFrame(json.get("username").getAsString(), json.get("isTyping").getAsBoolean());
+    }
+
+    public StatusFrame decodeStatus(String payload) {
+        JsonObject json = JsonParser.parseString(payload).getAsJsonObject();
+        return new StatusFrame(json.get("userId").getAsLong(), json.get("online").getAsBoolean());
+    }
+
+    public RoomEvent decodeRoomEvent(String payload) {
+        JsonObject json = JsonParser.parseString(payload).getAsJsonObject();
+        return new RoomEvent(
+                json.get("type").getAsString(),
+                stringOrNull(json, "username"),
+                json.has("messageId") && !json.get("messageId").isJsonNull() ? json.get("messageId").getAsLong() : null,
+                stringOrNull(json, "newContent"));
+    }
+
+    public String encodeMessage(String content, long timestampMillis) {
+        JsonObject json = new JsonObject();
+        json.addProperty("content", content);
+        json.addProperty("timestamp", timestampMillis);
+        return json.toString();
+    }
+
+    public String encodeTyping(boolean isTyping) {
+        JsonObject json = new JsonObject();
+        json.addProperty("isTyping", isTyping);
+        return json.toString();
+    }
+
+    public String encodeJoin() {
+        return encodeAction("join");
+    }
+
+    public String encodeLeave() {
+        return encodeAction("leave");
+    }
+
+    private static String encodeAction(String action) {
+        JsonObject json = new JsonObject();
+        json.addProperty("action", action);
+        return json.toString();
+    }
+
+    private static String stringOrNull(JsonObject json, String name) {
+        JsonElement element = json.get(name);
+        return element != null && !element.isJsonNull() ? element.getAsString() : null;
+    }
+
+    public static final class TypingFrame {
+        private final String username;
+        private final boolean typing;
+
+        TypingFrame(String username, boolean typing) {
+            this.username = username;
+            this.typing = typing;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public boolean isTyping() {
+            return typing;
+        }
+    }
+
+    public static final class StatusFrame {
+        private final Long userId;
+        private final boolean online;
+
+        StatusFrame(Long userId, boolean online) {
+            this.userId = userId;
+            this.online = online;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public boolean isOnline() {
+            return online;
+        }
+    }
+
+    public static final class RoomEvent {
+        private final String type;
+        private final String username;
+        private final Long messageId;
+        private final String newContent;
+
+        RoomEvent(String type, String username, Long messageId, String newContent) {
+            this.type = type;
+            this.username = username;
+            this.messageId = messageId;
+            this.newContent = newContent;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public Long getMessageId() {
+            return messageId;
+        }
+
+        public String getNewContent() {
+            return newContent;
+        }
+    }
+}
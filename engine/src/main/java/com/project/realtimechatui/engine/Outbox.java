@@ -0,0 +1,95 @@
+package com.project.realtimechatui.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chat messages waiting to go out, oldest first.
+ *
+ * Messages queue while the connection is down and are sent one at a time once it is up, so they
+ * reach the server in the order they were written. A failed send stays at the head and is retried.
+ * Only touched on the engine's scheduler.
+ */
+final class Outbox {
+    static final int CAPACITY = 256;
+
+    static final class Entry {
+        final Long roomId;
+        final String destination;
+        final String body;
+        // The sender's key for the message, passed back with its outcome; may be null
+        final String clientKey;
+        final long queuedAt = System.nanoTime();
+        int attempts;
+
+        Entry(Long roomId, String destination, String body, String clientKey) {
+            this.roomId = roomId;
+            this.destination = destination;
+            this.body = body;
+            this.clientKey = clientKey;
+        }
+    }
+
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private Entry inFlight;
+
+    // False when the outbox is full
+    boolean offer(Entry entry) {
+        if (queue.size() >= CAPACITY) {
+            return false;
+        }
+        queue.addLast(entry);
+        return true;
+    }
+
+    // The next entry to send, or null if one is already in flight or there is nothing queued
+    Entry nextToSend() {
+        if (inFlight != null || queue.isEmpty()) {
+            return null;
+        }
+        inFlight = queue.peekFirst();
+        inFlight.attempts++;
+        return inFlight;
+    }
+
+    // A late callback for an entry that was already settled is ignored
+    void onSent(Entry entry) {
+        if (queue.peekFirst() == entry) {
+            queue.pollFirst();
+        }
+        if (inFlight == entry) {
+            inFlight = null;
+        }
+    }
+
+    void onFailed(Entry entry) {
+        if (inFlight == entry) {
+            inFlight = null;
+        }
+    }
+
+    void drop(Entry entry) {
+        queue.remove(entry);
+        if (inFlight == entry) {
+            inFlight = null;
+        }
+    }
+
+    // The connection went away; whatever was in flight is sent again on the next one
+    void releaseInFlight() {
+        inFlight = null;
+    }
+
+    // Returns what was dropped
+    List<Entry> clear() {
+        List<Entry> dropped = new ArrayList<>(queue);
+        queue.clear();
+        inFlight = null;
+        return dropped;
+    }
+
+    int size() {
+        return queue.size();
+    }
+}
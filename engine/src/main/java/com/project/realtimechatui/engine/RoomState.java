@@ -0,0 +1,112 @@
+package com.project.realtimechatui.engine;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What the engine knows about one room it has subscribed to: recently delivered message ids for
+ * dropping redeliveries, who is typing and who is online. Only touched on the engine's scheduler.
+ *
+ * Every collection here has a hard cap, so a room's footprint doesn't depend on how long the
+ * session runs or how many people pass through it.
+ */
+public class RoomState {
+    // Redeliveries after a reconnect or resend are recent, so a bounded window is enough
+    static final int RECENT_MESSAGE_IDS = 512;
+    // A typing stop can be lost with a dropped frame; past this the longest-typing entry goes first
+    static final int MAX_TYPING_USERS = 32;
+    // Presence in a very large room is only tracked for this many users, most recently online kept
+    static final int MAX_ONLINE_USERS = 2048;
+
+    private final Long roomId;
+    private final LinkedHashSet<Long> recentMessageIds = new LinkedHashSet<>();
+    private final Set<String> typingUsers = new LinkedHashSet<>();
+    private final Set<Long> onlineUsers = new LinkedHashSet<>();
+    private long deliveredCount;
+    private long duplicateCount;
+
+    // Subscriptions on the current connection, and whether the room was joined as well as watched
+    final List<StompTransport.Subscription> subscriptions = new ArrayList<>();
+    boolean joinRequested;
+    boolean joinSent;
+
+    RoomState(Long roomId) {
+        this.roomId = roomId;
+    }
+
+    // False for a message that was already delivered
+    boolean accept(ChatMessage message) {
+        if (message.hasId()) {
+            if (!recentMessageIds.add(message.getIdValue())) {
+                duplicateCount++;
+                return false;
+            }
+            trimOldest(recentMessageIds, RECENT_MESSAGE_IDS);
+        }
+        // Whoever just sent a message has stopped typing
+        if (message.getSenderName() != null) {
+            typingUsers.remove(message.getSenderName());
+        }
+        deliveredCount++;
+        return true;
+    }
+
+    void setTyping(String username, boolean isTyping) {
+        if (isTyping) {
+            typingUsers.add(username);
+            trimOldest(typingUsers, MAX_TYPING_USERS);
+        } else {
+            typingUsers.remove(username);
+        }
+    }
+
+    void setOnline(Long userId, boolean online) {
+        if (online) {
+            // Re-added so the most recently online are the ones kept
+            onlineUsers.remove(userId);
+            onlineUsers.add(userId);
+            trimOldest(onlineUsers, MAX_ONLINE_USERS);
+        } else {
+            onlineUsers.remove(userId);
+        }
+    }
+
+    private static <T> void trimOldest(Set<T> insertionOrdered, int max) {
+        Iterator<T> iterator = insertionOrdered.iterator();
+        while (insertionOrdered.size() > max && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public Set<String> getTypingUsers() {
+        return Collections.unmodifiableSet(typingUsers);
+    }
+
+    public boolean isOnline(Long userId) {
+        return onlineUsers.contains(userId);
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    // Entries held across every collection, for checking the caps hold
+    int retainedEntries() {
+        return recentMessageIds.size() + typingUsers.size() + onlineUsers.size() + subscriptions.size();
+    }
+}
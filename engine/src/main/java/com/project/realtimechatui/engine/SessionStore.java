@@ -0,0 +1,13 @@
+package com.project.realtimechatui.engine;
+
+/**
+ * The signed-in user, as far as the engine needs to know. Read when connecting and when room
+ * events need to tell the user's own joins and leaves apart.
+ */
+public interface SessionStore {
+    boolean isLoggedIn();
+
+    String getUsername();
+
+    String getAccessToken();
+}
@@ -0,0 +1,46 @@
+package com.project.realtimechatui.engine;
+
+import java.util.Map;
+
+/**
+ * The STOMP connection under a {@link ChatEngine}.
+ *
+ * Implementations may call back on any thread; the engine moves everything onto its scheduler.
+ * The app backs this with StompProtocolAndroid, load tests with a plain JVM client.
+ */
+public interface StompTransport {
+
+    interface Listener {
+        void onOpened();
+        void onClosed();
+        // error may be null when the client didn't say why
+        void onError(Throwable error);
+        void onHeartbeatFailed();
+        void onSubscriptionError(String destination, Throwable error);
+    }
+
+    interface FrameHandler {
+        void onFrame(String payload);
+    }
+
+    interface SendCallback {
+        void onSent();
+        void onFailed(Throwable error);
+    }
+
+    interface Subscription {
+        void cancel();
+    }
+
+    // Opens a new connection, dropping any previous one
+    void connect(Map<String, String> headers, Listener listener);
+
+    boolean isConnected();
+
+    Subscription subscribe(String destination, FrameHandler handler);
+
+    void send(String destination, String body, SendCallback callback);
+
+    // Closes the connection and cancels every subscription
+    void disconnect();
+}
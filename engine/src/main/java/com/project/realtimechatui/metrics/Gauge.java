@@ -0,0 +1,36 @@
+package com.project.realtimechatui.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The current value of something, such as a queue depth, with the highest value it has reached
+ * since the last reset. Safe from any thread.
+ */
+public final class Gauge {
+    private final AtomicLong value = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Gauge() {
+    }
+
+    public void set(long newValue) {
+        value.set(newValue);
+        long highest = max.get();
+        while (newValue > highest && !max.compareAndSet(highest, newValue)) {
+            highest = max.get();
+        }
+    }
+
+    public long get() {
+        return value.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // Keeps the current value so a reset doesn't make a live queue look empty
+    void reset() {
+        max.set(value.get());
+    }
+}
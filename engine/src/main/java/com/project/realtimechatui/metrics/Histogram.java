@@ -0,0 +1,140 @@
+package com.project.realtimechatui.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency distribution in microseconds, laid out like an HDR histogram: values under 64us get a
+ * bucket each, above that every power of two is split into 32 linear buckets, so any recorded
+ * value is reported within about 3%. Values above about 71 minutes are clamped.
+ *
+ * Recording is a few atomic increments on a fixed array and never allocates, so it can sit on
+ * the frame and render paths. Safe from any thread; a snapshot taken while others are recording
+ * may be off by the samples in flight.
+ */
+public final class Histogram {
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final long HIGHEST_VALUE = (1L << 32) - 1;
+    private static final int BUCKET_COUNT = indexOf(HIGHEST_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram() {
+    }
+
+    public void record(long micros) {
+        long value = Math.max(0, Math.min(micros, HIGHEST_VALUE));
+        buckets.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long highest = max.get();
+        while (value > highest && !max.compareAndSet(highest, value)) {
+            highest = max.get();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    // Records the time since startNanos, a System.nanoTime() reading
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long sampled = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            sampled += counts[i];
+        }
+        long highest = max.get();
+        return new Snapshot(sampled, sampled > 0 ? (double) total.get() / sampled : 0, highest,
+                valueAt(counts, sampled, 0.5, highest), valueAt(counts, sampled, 0.9, highest),
+                valueAt(counts, sampled, 0.99, highest), valueAt(counts, sampled, 0.999, highest));
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    // The upper end of the bucket holding the given fraction of samples, never above the real max
+    private static long valueAt(long[] counts, long sampled, double fraction, long highest) {
+        if (sampled == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * sampled));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), highest);
+            }
+        }
+        return highest;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        // Shift so the value lands in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((value >> shift) - SUB_BUCKETS);
+    }
+
+    static long highestInBucket(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * A histogram's summary at one moment, all values in microseconds.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final double mean;
+        private final long max;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+
+        Snapshot(long count, double mean, long max, long p50, long p90, long p99, long p999) {
+            this.count = count;
+            this.mean = mean;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public long getMax() { return max; }
+        public long getP50() { return p50; }
+        public long getP90() { return p90; }
+        public long getP99() { return p99; }
+        public long getP999() { return p999; }
+    }
+}
@@ -0,0 +1,64 @@
+package com.project.realtimechatui.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process registry of counters, gauges and latency histograms.
+ *
+ * Metrics are created on first lookup and live for the whole process; call sites look theirs up
+ * once and keep the instance in a static field, so updating one is allocation-free. Names are
+ * dotted, area first ("socket.reconnect", "frame.decode", "rest.getChatRooms"). Histograms are
+ * in microseconds.
+ *
+ * There is no exporter: {@link #snapshot()} is read by the debug screen and can be dumped as text
+ * wherever it is useful.
+ */
+public final class Metrics {
+    private static Metrics instance;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private volatile long resetAtMillis = System.currentTimeMillis();
+
+    private Metrics() {
+    }
+
+    public static synchronized Metrics getInstance() {
+        if (instance == null) {
+            instance = new Metrics();
+        }
+        return instance;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public Gauge gauge(String name) {
+        return gauges.computeIfAbsent(name, key -> new Gauge());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(resetAtMillis, counters, gauges, histograms);
+    }
+
+    // Zeroes every metric in place; instances held by call sites stay valid
+    public void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (Gauge gauge : gauges.values()) {
+            gauge.reset();
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        resetAtMillis = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,85 @@
+package com.project.realtimechatui.metrics;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Every metric's value at one moment, sorted by name.
+ */
+public final class MetricsSnapshot {
+    private final long sinceMillis;
+    private final long takenAtMillis = System.currentTimeMillis();
+    private final Map<String, Long> counters = new TreeMap<>();
+    private final Map<String, long[]> gauges = new TreeMap<>();
+    private final Map<String, Histogram.Snapshot> histograms = new TreeMap<>();
+
+    MetricsSnapshot(long sinceMillis, Map<String, Counter> counters, Map<String, Gauge> gauges,
+                    Map<String, Histogram> histograms) {
+        this.sinceMillis = sinceMillis;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            this.counters.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            this.gauges.put(entry.getKey(), new long[]{entry.getValue().get(), entry.getValue().getMax()});
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            this.histograms.put(entry.getKey(), entry.getValue().snapshot());
+        }
+    }
+
+    public Map<String, Long> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    // Current value and highest value since the last reset
+    public Map<String, long[]> getGauges() {
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    public Map<String, Histogram.Snapshot> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    public long getCounter(String name) {
+        Long value = counters.get(name);
+        return value != null ? value : 0;
+    }
+
+    public Histogram.Snapshot getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    // Plain-text table for logs, bug reports and the debug screen; latencies in milliseconds
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.US, "Metrics over the last %.1fs%n",
+                (takenAtMillis - sinceMillis) / 1000.0));
+
+        if (!histograms.isEmpty()) {
+            builder.append(String.format(Locale.US, "%n%-28s %8s %8s %8s %8s %8s %8s%n",
+                    "latency (ms)", "count", "p50", "p90", "p99", "p99.9", "max"));
+            for (Map.Entry<String, Histogram.Snapshot> entry : histograms.entrySet()) {
+                Histogram.Snapshot h = entry.getValue();
+                builder.append(String.format(Locale.US, "%-28s %8d %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                        entry.getKey(), h.getCount(), h.getP50() / 1000.0, h.getP90() / 1000.0,
+                        h.getP99() / 1000.0, h.getP999() / 1000.0, h.getMax() / 1000.0));
+            }
+        }
+        if (!gauges.isEmpty()) {
+            builder.append(String.format(Locale.US, "%n%-28s %8s %8s%n", "gauge", "now", "max"));
+            for (Map.Entry<String, long[]> entry : gauges.entrySet()) {
+                builder.append(String.format(Locale.US, "%-28s %8d %8d%n",
+                        entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+            }
+        }
+        if (!counters.isEmpty()) {
+            builder.append(String.format(Locale.US, "%n%-28s %8s%n", "counter", "total"));
+            for (Map.Entry<String, Long> entry : counters.entrySet()) {
+                builder.append(String.format(Locale.US, "%-28s %8d%n", entry.getKey(), entry.getValue()));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.project.realtimechatui.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shares the strings chat messages repeat, so each resident message points at one copy instead
+ * of holding its own: known types and statuses map to constants, and sender names (and any
+ * unknown type or status) go through a dictionary per room, since that is where they repeat.
+ *
+ * Bounded: a room keeps its MAX_NAMES_PER_ROOM most recently seen strings, and only the
+ * MAX_ROOMS most recently seen rooms are kept. A string that falls out just isn't shared with
+ * messages decoded after it. Thread-safe, as messages are decoded on transport and network threads.
+ */
+public final class MessageDictionary {
+    static final int MAX_ROOMS = 64;
+    static final int MAX_NAMES_PER_ROOM = 512;
+    private static MessageDictionary instance;
+
+    private final Map<Long, Map<String, String>> rooms = new LinkedHashMap<Long, Map<String, String>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Map<String, String>> eldest) {
+            return size() > MAX_ROOMS;
+        }
+    };
+
+    private MessageDictionary() {
+    }
+
+    public static synchronized MessageDictionary getInstance() {
+        if (instance == null) {
+            instance = new MessageDictionary();
+        }
+        return instance;
+    }
+
+    public String senderName(long chatRoomId, String senderName) {
+        return senderName != null ? share(chatRoomId, senderName) : null;
+    }
+
+    public String type(long chatRoomId, String type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case "TEXT":
+                return "TEXT";
+            case "IMAGE":
+                return "IMAGE";
+            case "FILE":
+                return "FILE";
+            case "SYSTEM":
+                return "SYSTEM";
+            default:
+                return share(chatRoomId, type);
+        }
+    }
+
+    public String status(long chatRoomId, String status) {
+        if (status == null) {
+            return null;
+        }
+        switch (status) {
+            case "SENT":
+                return "SENT";
+            case "DELIVERED":
+                return "DELIVERED";
+            case "READ":
+                return "READ";
+            default:
+                return share(chatRoomId, status);
+        }
+    }
+
+    public synchronized void clear() {
+        rooms.clear();
+    }
+
+    private synchronized String share(long chatRoomId, String value) {
+        Map<String, String> strings = rooms.get(chatRoomId);
+        if (strings == null) {
+            strings = new LinkedHashMap<String, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_NAMES_PER_ROOM;
+                }
+            };
+            rooms.put(chatRoomId, strings);
+        }
+        String shared = strings.get(value);
+        if (shared == null) {
+            strings.put(value, value);
+            shared = value;
+        }
+        return shared;
+    }
+}
@@ -0,0 +1,258 @@
+package com.project.realtimechatui.utils;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Parses wire timestamps to epoch millis and formats them for display.
+ *
+ * Accepted inputs: epoch millis (13 digits), epoch seconds (10 digits), and
+ * "yyyy-MM-dd'T'HH:mm:ss" or "yyyy-MM-dd HH:mm:ss", optionally followed by a fraction and a
+ * "Z" or "+hh:mm" offset. Times without an offset are UTC, which is what the server sends.
+ * Parsing is hand-rolled and allocation-free; models call it once when they are decoded and
+ * keep the result in a primitive field.
+ *
+ * Display strings are cached per local minute (times) and per local day (dates), so a list
+ * that rebinds the same rows doesn't format them again.
+ */
+public final class TimestampCodec {
+    public static final long UNKNOWN = 0;
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    private static final int CACHE_SIZE = 256; // power of two
+    private static final Entry[] timeCache = new Entry[CACHE_SIZE];
+    private static final Entry[] dateCache = new Entry[CACHE_SIZE];
+
+    // Immutable, so the caches can be shared across threads without locking
+    private static final class Entry {
+        final long bucket;
+        final String text;
+
+        Entry(long bucket, String text) {
+            this.bucket = bucket;
+            this.text = text;
+        }
+    }
+
+    private TimestampCodec() {
+    }
+
+    // Returns UNKNOWN for null, empty or unrecognised input
+    public static long parse(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        int length = value.length();
+        if (length == 0) {
+            return UNKNOWN;
+        }
+
+        if (allDigits(value, 0, length)) {
+            if (length == 13) {
+                return digits(value, 0, 13);
+            }
+            if (length == 10) {
+                return digits(value, 0, 10) * 1000;
+            }
+            return UNKNOWN;
+        }
+
+        // yyyy-MM-dd?HH:mm:ss
+        if (length < 19 || value.charAt(4) != '-' || value.charAt(7) != '-'
+                || (value.charAt(10) != 'T' && value.charAt(10) != ' ')
+                || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return UNKNOWN;
+        }
+        if (!allDigits(value, 0, 4) || !allDigits(value, 5, 7) || !allDigits(value, 8, 10)
+                || !allDigits(value, 11, 13) || !allDigits(value, 14, 16) || !allDigits(value, 17, 19)) {
+            return UNKNOWN;
+        }
+
+        int year = (int) digits(value, 0, 4);
+        int month = (int) digits(value, 5, 7);
+        int day = (int) digits(value, 8, 10);
+        int hour = (int) digits(value, 11, 13);
+        int minute = (int) digits(value, 14, 16);
+        int second = (int) digits(value, 17, 19);
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 60) {
+            return UNKNOWN;
+        }
+
+        int index = 19;
+        int millis = 0;
+        if (index < length && value.charAt(index) == '.') {
+            index++;
+            int scale = 100;
+            while (index < length && isDigit(value.charAt(index))) {
+                millis += (value.charAt(index) - '0') * scale; // digits past milliseconds are dropped
+                scale /= 10;
+                index++;
+            }
+        }
+
+        long offsetMillis = 0;
+        if (index < length) {
+            char sign = value.charAt(index);
+            if (sign == 'Z') {
+                index++;
+            } else if ((sign == '+' || sign == '-') && index + 3 <= length && allDigits(value, index + 1, index + 3)) {
+                int offsetHours = (int) digits(value, index + 1, index + 3);
+                int offsetMinutes = 0;
+                int minuteStart = index + 3;
+                if (minuteStart < length && value.charAt(minuteStart) == ':') {
+                    minuteStart++;
+                }
+                if (minuteStart + 2 <= length && allDigits(value, minuteStart, minuteStart + 2)) {
+                    offsetMinutes = (int) digits(value, minuteStart, minuteStart + 2);
+                    index = minuteStart + 2;
+                } else {
+                    index += 3;
+                }
+                offsetMillis = offsetHours * MILLIS_PER_HOUR + offsetMinutes * MILLIS_PER_MINUTE;
+                if (sign == '-') {
+                    offsetMillis = -offsetMillis;
+                }
+            }
+            if (index != length) {
+                return UNKNOWN;
+            }
+        }
+
+        return daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + hour * MILLIS_PER_HOUR + minute * MILLIS_PER_MINUTE + second * 1000L + millis
+                - offsetMillis;
+    }
+
+    // For ordering oldest first. An unknown time counts as the newest, so such a message sorts after
+    // every timed one instead of before them.
+    public static long sortKey(long epochMillis) {
+        return epochMillis == UNKNOWN ? Long.MAX_VALUE : epochMillis;
+    }
+
+    // "HH:mm" in the device time zone
+    public static String formatTime(long epochMillis) {
+        if (epochMillis == UNKNOWN) {
+            return "";
+        }
+        long localMillis = epochMillis + TimeZone.getDefault().getOffset(epochMillis);
+        long minuteBucket = Math.floorDiv(localMillis, MILLIS_PER_MINUTE);
+
+        int slot = (int) (minuteBucket & (CACHE_SIZE - 1));
+        Entry entry = timeCache[slot];
+        if (entry != null && entry.bucket == minuteBucket) {
+            return entry.text;
+        }
+
+        int minuteOfDay = (int) Math.floorMod(minuteBucket, 24 * 60L);
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        String text = new String(new char[]{
+                (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+                (char) ('0' + minute / 10), (char) ('0' + minute % 10)});
+        timeCache[slot] = new Entry(minuteBucket, text);
+        return text;
+    }
+
+    // "MMM dd" in the device time zone and locale
+    public static String formatDate(long epochMillis) {
+        if (epochMillis == UNKNOWN) {
+            return "";
+        }
+        long localMillis = epochMillis + TimeZone.getDefault().getOffset(epochMillis);
+        long dayBucket = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+
+        int slot = (int) (dayBucket & (CACHE_SIZE - 1));
+        Entry entry = dateCache[slot];
+        if (entry != null && entry.bucket == dayBucket) {
+            return entry.text;
+        }
+
+        // Once per day bucket, so SimpleDateFormat's cost doesn't matter here
+        SimpleDateFormat format = new SimpleDateFormat("MMM dd", Locale.getDefault());
+        String text = format.format(new Date(epochMillis));
+        dateCache[slot] = new Entry(dayBucket, text);
+        return text;
+    }
+
+    // Day number in the device time zone, for comparing calendar days
+    public static long localDay(long epochMillis) {
+        return Math.floorDiv(epochMillis + TimeZone.getDefault().getOffset(epochMillis), MILLIS_PER_DAY);
+    }
+
+    // Time left until localDay() next changes, for refreshing "Today" and "Yesterday" labels at midnight
+    public static long millisUntilNextDay(long nowMillis) {
+        TimeZone zone = TimeZone.getDefault();
+        long nextDay = (localDay(nowMillis) + 1) * MILLIS_PER_DAY;
+        // The offset at midnight, not now, in case a DST change falls in between
+        long midnight = nextDay - zone.getOffset(nextDay - zone.getOffset(nowMillis));
+        return Math.max(1, midnight - nowMillis);
+    }
+
+    // Day separator label: "Today", "Yesterday", then the date
+    public static String formatDay(long epochMillis, long nowMillis) {
+        long days = localDay(nowMillis) - localDay(epochMillis);
+        if (days == 0) {
+            return "Today";
+        } else if (days == 1) {
+            return "Yesterday";
+        }
+        return formatDate(epochMillis);
+    }
+
+    // Compact age for the chat list: "now", "5m", "3h", "2d", then the date
+    public static String formatRelative(long epochMillis, long nowMillis) {
+        if (epochMillis == UNKNOWN) {
+            return "";
+        }
+        long diffInMinutes = (nowMillis - epochMillis) / MILLIS_PER_MINUTE;
+        long diffInHours = diffInMinutes / 60;
+        long diffInDays = diffInHours / 24;
+
+        if (diffInMinutes < 1) {
+            return "now";
+        } else if (diffInMinutes < 60) {
+            return diffInMinutes + "m";
+        } else if (diffInHours < 24) {
+            return diffInHours + "h";
+        } else if (diffInDays < 7) {
+            return diffInDays + "d";
+        }
+        return formatDate(epochMillis);
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean allDigits(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long digits(String value, int start, int end) {
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+        return result;
+    }
+}
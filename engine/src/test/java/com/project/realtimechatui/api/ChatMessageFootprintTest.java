@@ -0,0 +1,80 @@
+package com.project.realtimechatui.api;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.engine.FrameCodec;
+import com.project.realtimechatui.testing.HeapMeter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * What a decoded message costs while a chat screen or cache holds it: tens of thousands of
+ * chat frames from one busy room decoded through the engine's codec and kept, measured as the
+ * heap after a full GC.
+ *
+ * With boxed IDs, the timestamp string and per-message copies of names and types a message held
+ * about 430 bytes here; the budget keeps it at half that at most.
+ */
+public class ChatMessageFootprintTest {
+    private static final int MESSAGES = 50_000;
+    private static final int SENDERS = 200;
+    private static final long ROOM_ID = 42;
+    private static final double BYTES_PER_MESSAGE_BUDGET = 215;
+
+    private final FrameCodec codec = new FrameCodec(FrameCodec.defaultGson());
+
+    @Test
+    public void residentMessagesStayCompact() throws Exception {
+        List<ChatMessage> resident = new ArrayList<>(MESSAGES);
+        long before = HeapMeter.retainedHeap();
+        for (int i = 0; i < MESSAGES; i++) {
+            resident.add(codec.decodeMessage(chatFrame(100_000 + i, i % SENDERS)));
+        }
+        long after = HeapMeter.retainedHeap();
+
+        double perMessage = (after - before) / (double) MESSAGES;
+        assertTrue("resident messages take " + perMessage + " bytes each", perMessage < BYTES_PER_MESSAGE_BUDGET);
+        assertEquals(MESSAGES, resident.size());
+    }
+
+    @Test
+    public void decodingSharesRepeatedStringsAndKeepsTheWireFormat() {
+        ChatMessage first = codec.decodeMessage(chatFrame(1, 7));
+        ChatMessage second = codec.decodeMessage(chatFrame(2, 7));
+        assertSame(first.getSenderName(), second.getSenderName());
+        assertSame(first.getType(), second.getType());
+        assertSame(first.getStatus(), second.getStatus());
+
+        assertEquals(Long.valueOf(1), first.getId());
+        assertEquals(Long.valueOf(ROOM_ID), first.getChatRoomId());
+        assertEquals(Long.valueOf(1007), first.getSenderId());
+        assertEquals(1718100001123L, first.getTimestampMillis());
+
+        // Encoding and decoding again gives the same message
+        ChatMessage copy = codec.decodeMessage(FrameCodec.defaultGson().toJson(first));
+        assertEquals(first.getId(), copy.getId());
+        assertEquals(first.getChatRoomId(), copy.getChatRoomId());
+        assertEquals(first.getSenderId(), copy.getSenderId());
+        assertEquals(first.getSenderName(), copy.getSenderName());
+        assertEquals(first.getContent(), copy.getContent());
+        assertEquals(first.getTimestampMillis(), copy.getTimestampMillis());
+        assertEquals(first.getStatus(), copy.getStatus());
+
+        // A message without IDs yet leaves them out rather than sending a sentinel
+        String unsent = FrameCodec.defaultGson().toJson(new ChatMessage(ROOM_ID, null, "hi", "TEXT"));
+        assertTrue(unsent, !unsent.contains("\"id\"") && !unsent.contains("senderId"));
+    }
+
+    private static String chatFrame(long id, int sender) {
+        return "{\"id\":" + id + ",\"chatRoomId\":" + ROOM_ID + ",\"senderId\":" + (1000 + sender)
+                + ",\"senderName\":\"user" + sender + "\",\"content\":\"message " + id
+                + " lorem ipsum dolor sit\",\"type\":\"TEXT\",\"timestamp\":\"2024-06-11T10:"
+                + String.format("%02d:%02d", (id / 60) % 60, id % 60) + ".123\",\"status\":\"DELIVERED\",\"edited\":false}";
+    }
+}
@@ -0,0 +1,388 @@
+package com.project.realtimechatui.engine;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.testing.JavaWebSocketTransport;
+import com.project.realtimechatui.testing.StandInBroker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ChatEngine against the stand-in broker over a real local WebSocket: delivery, dedupe of
+ * redelivered frames, recovery from dropped connections and silent heart-beats, and the outcome
+ * of each send.
+ */
+public class ChatEngineBrokerTest {
+    private static final long ROOM_ID = 1L;
+    private static final int HEARTBEAT_MS = 200;
+    private static final long TIMEOUT_S = 5;
+
+    private StandInBroker broker;
+    private final List<TestClient> clients = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        broker = new StandInBroker(0, HEARTBEAT_MS).startAndWait();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (TestClient client : clients) {
+            client.close();
+        }
+        broker.shutdown();
+    }
+
+    @Test
+    public void messagesReachEveryMemberInOrder() throws Exception {
+        TestClient alice = connectedClient(1, "alice");
+        TestClient bob = connectedClient(2, "bob");
+        alice.join(ROOM_ID);
+        bob.join(ROOM_ID);
+        awaitSubscribers(2);
+
+        // Held back frames must still arrive in send order
+        broker.faults().delay(20);
+        for (int i = 0; i < 10; i++) {
+            alice.send(ROOM_ID, "message " + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            ChatMessage message = bob.nextMessage();
+            assertEquals("message " + i, message.getContent());
+            assertEquals(Long.valueOf(ROOM_ID), message.getChatRoomId());
+            assertEquals("alice", message.getSenderName());
+        }
+        assertEquals(10, broker.getHistory(ROOM_ID).size());
+    }
+
+    @Test
+    public void redeliveredFramesAreDropped() throws Exception {
+        TestClient alice = connectedClient(1, "alice");
+        TestClient bob = connectedClient(2, "bob");
+        alice.join(ROOM_ID);
+        bob.join(ROOM_ID);
+        awaitSubscribers(2);
+
+        broker.faults().duplicateEvery(1);
+        for (int i = 0; i < 5; i++) {
+            alice.send(ROOM_ID, "message " + i);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals("message " + i, bob.nextMessage().getContent());
+        }
+        assertNull(bob.messages.poll(300, TimeUnit.MILLISECONDS));
+        long duplicates = bob.call(() -> bob.engine.getRoomState(ROOM_ID).getDuplicateCount());
+        assertTrue("expected redeliveries to be counted", duplicates > 0);
+    }
+
+    @Test
+    public void queuedMessagesGoOutAfterReconnect() throws Exception {
+        TestClient alice = connectedClient(1, "alice");
+        TestClient bob = connectedClient(2, "bob");
+        alice.join(ROOM_ID);
+        bob.join(ROOM_ID);
+        awaitSubscribers(2);
+
+        broker.disconnectAll();
+        assertTrue(alice.disconnected.tryAcquire(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(bob.disconnected.tryAcquire(TIMEOUT_S, TimeUnit.SECONDS));
+
+        // Written while offline: kept in the outbox, not dropped
+        alice.send(ROOM_ID, "while offline");
+        assertEquals(Integer.valueOf(1), alice.call(() -> alice.engine.getQueuedMessageCount()));
+
+        // Rooms are resubscribed by the engine itself; nobody calls join again
+        bob.connect();
+        awaitSubscribers(1);
+        alice.connect();
+        assertEquals("while offline", bob.nextMessage().getContent());
+        assertEquals("while offline", alice.nextMessage().getContent());
+        // The RECEIPT that settles it can trail the broadcast
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_S);
+        while (alice.call(() -> alice.engine.getQueuedMessageCount()) > 0) {
+            assertTrue("outbox never drained", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void sendOutcomesAreReportedByClientKey() throws Exception {
+        TestClient alice = connectedClient(1, "alice");
+        alice.join(ROOM_ID);
+        awaitSubscribers(1);
+
+        alice.send(ROOM_ID, "hello", "local-1");
+        assertEquals("sent local-1", alice.nextOutcome());
+
+        // Still queued when the user signs out: its echo must not stay pending
+        broker.disconnectAll();
+        assertTrue(alice.disconnected.tryAcquire(TIMEOUT_S, TimeUnit.SECONDS));
+        alice.send(ROOM_ID, "never sent", "local-2");
+        alice.call(() -> {
+            alice.engine.disconnect();
+            return null;
+        });
+        assertEquals("failed local-2", alice.nextOutcome());
+    }
+
+    @Test
+    public void watchedRoomsReportPresenceWithoutBeingSubscribed() throws Exception {
+        long listedRoom = 2L;
+        String statusTopic = ChatProtocol.statusTopic(listedRoom);
+        TestClient alice = connectedClient(1, "alice");
+        alice.call(() -> {
+            alice.engine.watchPresence(Arrays.asList(ROOM_ID, listedRoom));
+            return null;
+        });
+        alice.join(ROOM_ID);
+        awaitSubscribers(1);
+        awaitSubscribers(statusTopic, 1);
+        assertEquals(0, broker.getSubscriberCount(ChatProtocol.chatTopic(listedRoom)));
+
+        broker.publish(statusTopic, "{\"userId\":7,\"online\":true}");
+        assertEquals("2: 7 online", alice.nextStatus());
+
+        // Opening the room hands its status over to the room's own subscription, and closing it
+        // hands it back
+        alice.join(listedRoom);
+        awaitSubscribers(ChatProtocol.eventsTopic(listedRoom), 1);
+        broker.publish(statusTopic, "{\"userId\":7,\"online\":false}");
+        assertEquals("2: 7 offline", alice.nextStatus());
+        assertNull(alice.statuses.poll(300, TimeUnit.MILLISECONDS));
+
+        alice.call(() -> {
+            alice.engine.unsubscribeRoom(listedRoom);
+            return null;
+        });
+        // The status-only subscription is sent after the room's own are dropped
+        awaitSubscribers(ChatProtocol.eventsTopic(listedRoom), 0);
+        awaitSubscribers(statusTopic, 1);
+        broker.publish(statusTopic, "{\"userId\":7,\"online\":true}");
+        assertEquals("2: 7 online", alice.nextStatus());
+
+        alice.call(() -> {
+            alice.engine.watchPresence(Collections.emptyList());
+            return null;
+        });
+        awaitSubscribers(statusTopic, 0);
+    }
+
+    @Test
+    public void silentServerHeartbeatsTriggerReconnect() throws Exception {
+        TestClient alice = connectedClient(1, "alice");
+        TestClient bob = connectedClient(2, "bob");
+        alice.join(ROOM_ID);
+        bob.join(ROOM_ID);
+        awaitSubscribers(2);
+
+        broker.faults().dropHeartbeats(true);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_S);
+        while (alice.engine.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse("heart-beat failure should drop the connection", alice.engine.isConnected());
+
+        broker.faults().dropHeartbeats(false);
+        // The engine reconnects on its own after RECONNECT_DELAY_MS
+        assertTrue(alice.connected.tryAcquire(ChatEngine.RECONNECT_DELAY_MS + TimeUnit.SECONDS.toMillis(TIMEOUT_S),
+                TimeUnit.MILLISECONDS));
+        if (!bob.engine.isConnected()) {
+            assertTrue(bob.connected.tryAcquire(ChatEngine.RECONNECT_DELAY_MS + TimeUnit.SECONDS.toMillis(TIMEOUT_S),
+                    TimeUnit.MILLISECONDS));
+        }
+
+        awaitSubscribers(2);
+        alice.send(ROOM_ID, "after reconnect");
+        assertEquals("after reconnect", bob.nextMessage().getContent());
+    }
+
+    private TestClient connectedClient(long userId, String username) throws Exception {
+        TestClient client = new TestClient(userId, username, broker.addUser(userId, username));
+        clients.add(client);
+        client.connect();
+        return client;
+    }
+
+    // The events topic is the last a room subscribes to, so once it's there the room is ready
+    private void awaitSubscribers(int count) throws InterruptedException {
+        awaitSubscribers(ChatProtocol.eventsTopic(ROOM_ID), count);
+    }
+
+    private void awaitSubscribers(String destination, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_S);
+        while (broker.getSubscriberCount(destination) != count) {
+            assertTrue("subscriptions timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    // One engine with its own scheduler thread and transport, as one device would have
+    private class TestClient implements ChatEngine.ConnectionListener, ChatEngine.RoomListener, ChatEngine.SendListener {
+        final ExecutorScheduler scheduler;
+        final ChatEngine engine;
+        final BlockingQueue<ChatMessage> messages = new LinkedBlockingQueue<>();
+        final BlockingQueue<String> outcomes = new LinkedBlockingQueue<>();
+        final BlockingQueue<String> statuses = new LinkedBlockingQueue<>();
+        final Semaphore connected = new Semaphore(0);
+        final Semaphore disconnected = new Semaphore(0);
+        final AtomicInteger errors = new AtomicInteger();
+
+        TestClient(long userId, String username, String token) {
+            scheduler = new ExecutorScheduler("engine-" + username);
+            SessionStore session = new SessionStore() {
+                @Override
+                public boolean isLoggedIn() {
+                    return true;
+                }
+
+                @Override
+                public String getUsername() {
+                    return username;
+                }
+
+                @Override
+                public String getAccessToken() {
+                    return token;
+                }
+            };
+            engine = new ChatEngine(new JavaWebSocketTransport(broker.getUrl(), HEARTBEAT_MS), scheduler, session,
+                    new FrameCodec(FrameCodec.defaultGson()));
+            engine.setConnectionListener(this);
+            engine.setRoomListener(this);
+            engine.setSendListener(this);
+        }
+
+        void connect() throws InterruptedException {
+            scheduler.execute(engine::connect);
+            assertTrue("connect timed out", connected.tryAcquire(TIMEOUT_S, TimeUnit.SECONDS));
+        }
+
+        void join(long roomId) {
+            scheduler.execute(() -> engine.joinRoom(roomId));
+        }
+
+        void send(long roomId, String content) {
+            scheduler.execute(() -> engine.sendMessage(roomId, content));
+        }
+
+        void send(long roomId, String content, String clientKey) {
+            scheduler.execute(() -> engine.sendMessage(roomId, content, clientKey));
+        }
+
+        ChatMessage nextMessage() throws InterruptedException {
+            ChatMessage message = messages.poll(TIMEOUT_S, TimeUnit.SECONDS);
+            assertNotNull("no message arrived", message);
+            return message;
+        }
+
+        String nextOutcome() throws InterruptedException {
+            String outcome = outcomes.poll(TIMEOUT_S, TimeUnit.SECONDS);
+            assertNotNull("no send outcome reported", outcome);
+            return outcome;
+        }
+
+        String nextStatus() throws InterruptedException {
+            String status = statuses.poll(TIMEOUT_S, TimeUnit.SECONDS);
+            assertNotNull("no status update arrived", status);
+            return status;
+        }
+
+        <T> T call(java.util.concurrent.Callable<T> task) throws Exception {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            scheduler.execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            return result.get(TIMEOUT_S, TimeUnit.SECONDS);
+        }
+
+        void close() throws Exception {
+            call(() -> {
+                engine.disconnect();
+                return null;
+            });
+            scheduler.shutdown();
+        }
+
+        @Override
+        public void onConnected() {
+            connected.release();
+        }
+
+        @Override
+        public void onDisconnected() {
+            disconnected.release();
+        }
+
+        @Override
+        public void onError(String error) {
+            errors.incrementAndGet();
+        }
+
+        @Override
+        public void onMessageReceived(Long roomId, ChatMessage message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onTypingIndicator(Long roomId, String username, boolean isTyping) {
+        }
+
+        @Override
+        public void onUserStatusChanged(Long roomId, Long userId, boolean isOnline) {
+            statuses.add(roomId + ": " + userId + (isOnline ? " online" : " offline"));
+        }
+
+        @Override
+        public void onMessageEdited(Long roomId, Long messageId, String newContent) {
+        }
+
+        @Override
+        public void onMessageDeleted(Long roomId, Long messageId) {
+        }
+
+        @Override
+        public void onUserJoined(Long roomId, String username) {
+        }
+
+        @Override
+        public void onUserLeft(Long roomId, String username) {
+        }
+
+        @Override
+        public void onError(Long roomId, String error) {
+            errors.incrementAndGet();
+        }
+
+        @Override
+        public void onMessageSent(Long roomId, String clientKey) {
+            outcomes.add("sent " + clientKey);
+        }
+
+        @Override
+        public void onMessageFailed(Long roomId, String clientKey) {
+            outcomes.add("failed " + clientKey);
+        }
+    }
+}
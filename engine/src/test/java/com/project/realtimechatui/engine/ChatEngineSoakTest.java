@@ -0,0 +1,299 @@
+package com.project.realtimechatui.engine;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.testing.HeapMeter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A long session replayed through ChatEngine in memory: hundreds of thousands of chat frames
+ * decoded, deduped and dispatched across many rooms, with redeliveries, typing, presence from a
+ * large crowd, sends, room churn and reconnects mixed in.
+ *
+ * Checks that what the engine retains stays flat: the heap after a full GC at every checkpoint
+ * against a warmed-up baseline, and every per-room and per-connection collection against its cap.
+ */
+public class ChatEngineSoakTest {
+    private static final int ROOMS = 20;
+    private static final int SENDERS = 500;
+    private static final int WARMUP_MESSAGES = 50_000;
+    private static final int SOAK_MESSAGES = 400_000;
+    private static final int CHECKPOINT_EVERY = 50_000;
+    // Retained growth allowed between the baseline and any checkpoint. Keeping every message
+    // would cost well over ten times this.
+    private static final long HEAP_GROWTH_BUDGET_BYTES = 4L * 1024 * 1024;
+
+    private final ManualScheduler scheduler = new ManualScheduler();
+    private final InMemoryTransport transport = new InMemoryTransport();
+    private final Random random = new Random(20240611L);
+    private ChatEngine engine;
+    private long delivered;
+    private long nextMessageId = 1;
+
+    @Test
+    public void retainedMemoryStaysFlatOverALongSession() throws Exception {
+        engine = new ChatEngine(transport, scheduler, new FixedSession(), new FrameCodec(FrameCodec.defaultGson()));
+        engine.setRoomListener(new CountingListener());
+        engine.connect();
+        transport.open();
+        for (long roomId = 1; roomId <= ROOMS; roomId++) {
+            engine.joinRoom(roomId);
+        }
+
+        replay(WARMUP_MESSAGES);
+        long baseline = HeapMeter.retainedHeap();
+
+        long maxGrowth = 0;
+        for (int done = 0; done < SOAK_MESSAGES; done += CHECKPOINT_EVERY) {
+            replay(CHECKPOINT_EVERY);
+            maxGrowth = Math.max(maxGrowth, HeapMeter.retainedHeap() - baseline);
+        }
+        assertTrue("retained heap grew by " + maxGrowth + " bytes over the session",
+                maxGrowth < HEAP_GROWTH_BUDGET_BYTES);
+
+        // Every message arrived once, whatever was redelivered
+        assertEquals(WARMUP_MESSAGES + SOAK_MESSAGES, delivered);
+
+        // Nothing piles up per connection: each room's four topics plus the error queue, no
+        // subscriptions left from earlier connections or rooms, no stale timers or queued sends
+        assertEquals(ROOMS * 4 + 1, transport.liveSubscriptions());
+        assertEquals(0, engine.getQueuedMessageCount());
+        assertTrue("scheduled tasks piling up: " + scheduler.pending(), scheduler.pending() <= ROOMS);
+        assertEquals(ROOMS, engine.getRooms().size());
+
+        for (RoomState room : engine.getRooms().values()) {
+            assertTrue(room.getTypingUsers().size() <= RoomState.MAX_TYPING_USERS);
+            assertTrue("room " + room.getRoomId() + " holds " + room.retainedEntries() + " entries",
+                    room.retainedEntries() <= RoomState.RECENT_MESSAGE_IDS + RoomState.MAX_TYPING_USERS
+                            + RoomState.MAX_ONLINE_USERS + 4);
+        }
+    }
+
+    private void replay(int messages) {
+        String previousFrame = null;
+        long previousRoom = 0;
+        for (int i = 0; i < messages; i++) {
+            long roomId = 1 + random.nextInt(ROOMS);
+            int sender = random.nextInt(SENDERS);
+            String frame = chatFrame(nextMessageId++, roomId, sender);
+            transport.deliver(ChatProtocol.chatTopic(roomId), frame);
+
+            // Redeliveries of the frame before, as after a resend or a reconnect
+            if (i % 7 == 0 && previousFrame != null) {
+                transport.deliver(ChatProtocol.chatTopic(previousRoom), previousFrame);
+            }
+            previousFrame = frame;
+            previousRoom = roomId;
+
+            if (i % 5 == 0) {
+                // Some typing stops never arrive
+                transport.deliver(ChatProtocol.typingTopic(roomId),
+                        "{\"username\":\"user" + random.nextInt(SENDERS) + "\",\"isTyping\":" + (random.nextInt(4) != 0) + "}");
+            }
+            if (i % 11 == 0) {
+                // A crowd far larger than the presence cap
+                transport.deliver(ChatProtocol.statusTopic(roomId),
+                        "{\"userId\":" + random.nextInt(100_000) + ",\"online\":" + (random.nextInt(3) != 0) + "}");
+            }
+            if (i % 100 == 0) {
+                engine.sendMessage(roomId, "reply " + i);
+                engine.sendTyping(roomId, true);
+                transport.acknowledgeSends();
+            }
+            if (i % 1000 == 0) {
+                scheduler.runDue();
+            }
+            if (i % 10_000 == 0) {
+                // Room churn, then a dropped connection that the engine recovers from
+                engine.leaveRoom(roomId);
+                engine.joinRoom(roomId);
+                transport.drop();
+                engine.connect();
+                transport.open();
+                transport.acknowledgeSends();
+            }
+        }
+        transport.acknowledgeSends();
+        scheduler.runDue();
+    }
+
+    private static String chatFrame(long id, long roomId, int sender) {
+        return "{\"id\":" + id + ",\"chatRoomId\":" + roomId + ",\"senderId\":" + (1000 + sender)
+                + ",\"senderName\":\"user" + sender + "\",\"content\":\"message " + id
+                + " lorem ipsum dolor sit amet\",\"type\":\"TEXT\",\"timestamp\":\""
+                + (1_700_000_000_000L + id * 1000) + "\",\"status\":\"SENT\"}";
+    }
+
+    private class CountingListener implements ChatEngine.RoomListener {
+        @Override
+        public void onMessageReceived(Long roomId, ChatMessage message) {
+            delivered++;
+        }
+
+        @Override
+        public void onTypingIndicator(Long roomId, String username, boolean isTyping) {
+        }
+
+        @Override
+        public void onUserStatusChanged(Long roomId, Long userId, boolean isOnline) {
+        }
+
+        @Override
+        public void onMessageEdited(Long roomId, Long messageId, String newContent) {
+        }
+
+        @Override
+        public void onMessageDeleted(Long roomId, Long messageId) {
+        }
+
+        @Override
+        public void onUserJoined(Long roomId, String username) {
+        }
+
+        @Override
+        public void onUserLeft(Long roomId, String username) {
+        }
+
+        @Override
+        public void onError(Long roomId, String error) {
+        }
+    }
+
+    private static final class FixedSession implements SessionStore {
+        @Override
+        public boolean isLoggedIn() {
+            return true;
+        }
+
+        @Override
+        public String getUsername() {
+            return "soak";
+        }
+
+        @Override
+        public String getAccessToken() {
+            return "token-soak";
+        }
+    }
+
+    // Runs tasks inline on the test thread; delayed tasks wait until runDue()
+    private static final class ManualScheduler implements EngineScheduler {
+        private final List<Runnable> delayed = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public Cancellable schedule(Runnable task, long delayMillis) {
+            delayed.add(task);
+            return () -> delayed.remove(task);
+        }
+
+        void runDue() {
+            List<Runnable> due = new ArrayList<>(delayed);
+            delayed.clear();
+            for (Runnable task : due) {
+                task.run();
+            }
+        }
+
+        int pending() {
+            return delayed.size();
+        }
+    }
+
+    // Frames are delivered by the test; sends are acknowledged in batches so callbacks never nest
+    private static final class InMemoryTransport implements StompTransport {
+        private final Map<String, List<FrameHandler>> handlers = new HashMap<>();
+        private final List<SendCallback> unacknowledged = new ArrayList<>();
+        private Listener listener;
+        private boolean connected;
+
+        @Override
+        public void connect(Map<String, String> headers, Listener listener) {
+            this.listener = listener;
+        }
+
+        void open() {
+            connected = true;
+            listener.onOpened();
+        }
+
+        void drop() {
+            connected = false;
+            handlers.clear();
+            unacknowledged.clear();
+            listener.onClosed();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public Subscription subscribe(String destination, FrameHandler handler) {
+            handlers.computeIfAbsent(destination, key -> new ArrayList<>()).add(handler);
+            return () -> {
+                List<FrameHandler> forDestination = handlers.get(destination);
+                if (forDestination != null) {
+                    forDestination.remove(handler);
+                    if (forDestination.isEmpty()) {
+                        handlers.remove(destination);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void send(String destination, String body, SendCallback callback) {
+            unacknowledged.add(callback);
+        }
+
+        @Override
+        public void disconnect() {
+            connected = false;
+            handlers.clear();
+            unacknowledged.clear();
+        }
+
+        void deliver(String destination, String payload) {
+            List<FrameHandler> forDestination = handlers.get(destination);
+            if (forDestination != null) {
+                for (FrameHandler handler : new ArrayList<>(forDestination)) {
+                    handler.onFrame(payload);
+                }
+            }
+        }
+
+        void acknowledgeSends() {
+            while (!unacknowledged.isEmpty()) {
+                List<SendCallback> batch = new ArrayList<>(unacknowledged);
+                unacknowledged.clear();
+                for (SendCallback callback : batch) {
+                    callback.onSent();
+                }
+            }
+        }
+
+        int liveSubscriptions() {
+            int count = 0;
+            for (List<FrameHandler> forDestination : handlers.values()) {
+                count += forDestination.size();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.project.realtimechatui.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bucket layout and the precision the class promises: every value lands in exactly one bucket,
+ * buckets above the linear range are at most 1/32 of their lowest value wide, and reported
+ * percentiles are never below the true value nor more than that bucket width above it.
+ */
+public class HistogramTest {
+    private static final int LAST_BUCKET = Histogram.indexOf(Histogram.HIGHEST_VALUE);
+
+    @Test
+    public void smallValuesGetABucketEach() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, Histogram.indexOf(value));
+            assertEquals(value, Histogram.highestInBucket((int) value));
+        }
+        // First split bucket: 64 and 65
+        assertEquals(64, Histogram.indexOf(64));
+        assertEquals(64, Histogram.indexOf(65));
+        assertEquals(65, Histogram.highestInBucket(64));
+        assertEquals(65, Histogram.indexOf(66));
+    }
+
+    @Test
+    public void bucketsTileTheRangeWithoutGaps() {
+        long lowest = 0;
+        for (int index = 0; index <= LAST_BUCKET; index++) {
+            long highest = Histogram.highestInBucket(index);
+            assertEquals("lowest value of bucket " + index, index, Histogram.indexOf(lowest));
+            assertEquals("highest value of bucket " + index, index, Histogram.indexOf(highest));
+            if (lowest >= 64) {
+                // About 3%: each power of two is split into 32 buckets
+                assertTrue("bucket " + index + " is too wide", (highest - lowest + 1) * 32 <= lowest);
+            }
+            lowest = highest + 1;
+        }
+        assertTrue(Histogram.highestInBucket(LAST_BUCKET) >= Histogram.HIGHEST_VALUE);
+    }
+
+    @Test
+    public void subBucketEdges() {
+        // Each power of two from 64 up: its first value starts a bucket, the one before ends one
+        for (int power = 6; power < 32; power++) {
+            long edge = 1L << power;
+            assertEquals(Histogram.indexOf(edge - 1) + 1, Histogram.indexOf(edge));
+            assertEquals(edge - 1, Histogram.highestInBucket(Histogram.indexOf(edge - 1)));
+        }
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        Histogram histogram = new Histogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(Histogram.HIGHEST_VALUE, snapshot.getMax());
+        assertEquals(Histogram.HIGHEST_VALUE, snapshot.getP999());
+        assertEquals(0, snapshot.getP50());
+    }
+
+    @Test
+    public void emptyHistogramReportsZeros() {
+        Histogram.Snapshot snapshot = new Histogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getP99());
+        assertEquals(0.0, snapshot.getMean(), 0.0);
+    }
+
+    @Test
+    public void percentilesAreWithinTheStatedPrecision() {
+        Random random = new Random(7);
+        long[] values = new long[20_000];
+        Histogram histogram = new Histogram();
+        long total = 0;
+        for (int i = 0; i < values.length; i++) {
+            // Latency-like: mostly milliseconds, with a long tail into seconds
+            values[i] = (long) Math.exp(7 + 2 * random.nextGaussian());
+            histogram.record(values[i]);
+            total += Math.min(values[i], Histogram.HIGHEST_VALUE);
+        }
+        Arrays.sort(values);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        assertEquals((double) total / values.length, snapshot.getMean(), 1e-6);
+        assertWithinPrecision("p50", exact(values, 0.5), snapshot.getP50());
+        assertWithinPrecision("p90", exact(values, 0.9), snapshot.getP90());
+        assertWithinPrecision("p99", exact(values, 0.99), snapshot.getP99());
+        assertWithinPrecision("p99.9", exact(values, 0.999), snapshot.getP999());
+    }
+
+    @Test
+    public void resetEmptiesIt() {
+        Histogram histogram = new Histogram();
+        histogram.record(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.snapshot().getMax());
+        histogram.record(10);
+        assertEquals(10, histogram.snapshot().getP50());
+    }
+
+    // The sample at the same rank the histogram uses
+    private static long exact(long[] sorted, double fraction) {
+        int rank = (int) Math.max(1, Math.ceil(fraction * sorted.length));
+        return sorted[rank - 1];
+    }
+
+    private static void assertWithinPrecision(String name, long exact, long reported) {
+        assertTrue(name + ": " + reported + " is below " + exact, reported >= exact);
+        assertTrue(name + ": " + reported + " is too far above " + exact, reported <= exact + exact / 32);
+    }
+}
@@ -0,0 +1,95 @@
+package com.project.realtimechatui.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The registry and what a snapshot of it holds. Metrics are process-wide, so each test uses its own
+ * names.
+ */
+public class MetricsSnapshotTest {
+    private final Metrics metrics = Metrics.getInstance();
+
+    @Test
+    public void lookupsByNameShareOneMetric() {
+        // Call sites that record under the same name add up in one place
+        Counter first = metrics.counter("test.shared.count");
+        Counter second = metrics.counter("test.shared.count");
+        assertSame(first, second);
+        first.increment();
+        second.add(2);
+        assertEquals(3, metrics.snapshot().getCounter("test.shared.count"));
+
+        assertSame(metrics.histogram("test.shared.time"), metrics.histogram("test.shared.time"));
+        assertSame(metrics.gauge("test.shared.depth"), metrics.gauge("test.shared.depth"));
+    }
+
+    @Test
+    public void snapshotIsACopy() {
+        Counter counter = metrics.counter("test.copy.count");
+        Gauge gauge = metrics.gauge("test.copy.depth");
+        Histogram histogram = metrics.histogram("test.copy.time");
+        counter.add(5);
+        gauge.set(8);
+        gauge.set(3);
+        histogram.record(100);
+        histogram.record(300);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        counter.add(10);
+        gauge.set(50);
+        histogram.record(900);
+
+        assertEquals(5, snapshot.getCounter("test.copy.count"));
+        assertEquals(3, snapshot.getGauges().get("test.copy.depth")[0]);
+        assertEquals(8, snapshot.getGauges().get("test.copy.depth")[1]);
+        Histogram.Snapshot time = snapshot.getHistogram("test.copy.time");
+        assertEquals(2, time.getCount());
+        assertEquals(300, time.getMax());
+        assertEquals(200.0, time.getMean(), 0.0);
+
+        assertEquals(0, snapshot.getCounter("test.copy.missing"));
+        assertNull(snapshot.getHistogram("test.copy.missing"));
+    }
+
+    @Test
+    public void dumpListsEveryMetric() {
+        metrics.counter("test.dump.count").increment();
+        metrics.gauge("test.dump.depth").set(4);
+        metrics.histogram("test.dump.time").record(2500);
+
+        String dump = metrics.snapshot().dump();
+        assertTrue(dump, dump.contains("test.dump.count"));
+        assertTrue(dump, dump.contains("test.dump.depth"));
+        assertTrue(dump, dump.contains("test.dump.time"));
+        // Latencies are shown in milliseconds
+        assertTrue(dump, dump.contains("2.50"));
+    }
+
+    @Test
+    public void resetZeroesInPlace() {
+        Counter counter = metrics.counter("test.reset.count");
+        Gauge gauge = metrics.gauge("test.reset.depth");
+        Histogram histogram = metrics.histogram("test.reset.time");
+        counter.add(7);
+        gauge.set(9);
+        gauge.set(2);
+        histogram.record(40);
+
+        metrics.reset();
+
+        // Instances held by call sites keep working after a reset
+        assertSame(counter, metrics.counter("test.reset.count"));
+        counter.increment();
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getCounter("test.reset.count"));
+        assertEquals(0, snapshot.getHistogram("test.reset.time").getCount());
+        // A gauge keeps its current value; its high-water mark starts again from there
+        assertEquals(2, snapshot.getGauges().get("test.reset.depth")[0]);
+        assertEquals(2, snapshot.getGauges().get("test.reset.depth")[1]);
+    }
+}
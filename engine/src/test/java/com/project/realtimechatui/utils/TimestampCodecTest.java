@@ -0,0 +1,148 @@
+package com.project.realtimechatui.utils;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TimestampCodec.parse checked against java.time: random instants written in every accepted
+ * layout must come back as the same epoch millis java.time gives, with fraction digits past the
+ * millisecond dropped. The next-midnight delay is checked across DST changes.
+ */
+public class TimestampCodecTest {
+    private static final long FROM = Instant.parse("1970-01-01T00:00:00Z").toEpochMilli();
+    private static final long TO = Instant.parse("2100-01-01T00:00:00Z").toEpochMilli();
+
+    @Test
+    public void epochMillisAndSeconds() {
+        assertEquals(Instant.ofEpochMilli(1718100001123L).toEpochMilli(), TimestampCodec.parse("1718100001123"));
+        assertEquals(Instant.ofEpochSecond(1718100001L).toEpochMilli(), TimestampCodec.parse("1718100001"));
+        assertEquals(Instant.ofEpochSecond(1000000000L).toEpochMilli(), TimestampCodec.parse("1000000000"));
+    }
+
+    @Test
+    public void localTimesAreUtc() {
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            OffsetDateTime time = randomTime(random, ZoneOffset.UTC);
+            for (char separator : new char[]{'T', ' '}) {
+                String text = format(time, separator, null);
+                long expected = LocalDateTime.parse(text, formatter(separator, null))
+                        .toInstant(ZoneOffset.UTC).toEpochMilli();
+                assertEquals(text, expected, TimestampCodec.parse(text));
+            }
+        }
+    }
+
+    @Test
+    public void offsets() {
+        Random random = new Random(2);
+        // "+HH:MM" also writes Z for UTC
+        List<String> patterns = Arrays.asList("+HH:MM", "+HHMM", "+HH");
+        for (int i = 0; i < 3000; i++) {
+            String pattern = patterns.get(i % patterns.size());
+            int quarterHours = random.nextInt(26 * 4 + 1) - 12 * 4; // -12:00 to +14:00
+            if (pattern.equals("+HH")) {
+                quarterHours -= quarterHours % 4;
+            }
+            OffsetDateTime time = randomTime(random, ZoneOffset.ofTotalSeconds(quarterHours * 15 * 60));
+            char separator = i % 2 == 0 ? 'T' : ' ';
+            String text = format(time, separator, pattern);
+            long expected = OffsetDateTime.parse(text, formatter(separator, pattern)).toInstant().toEpochMilli();
+            assertEquals(text, expected, TimestampCodec.parse(text));
+        }
+    }
+
+    @Test
+    public void fractionsAreTruncatedToMillis() {
+        assertEquals(Instant.parse("2024-06-11T10:15:30.100Z").toEpochMilli(), TimestampCodec.parse("2024-06-11T10:15:30.1"));
+        assertEquals(Instant.parse("2024-06-11T10:15:30.120Z").toEpochMilli(), TimestampCodec.parse("2024-06-11T10:15:30.12"));
+        assertEquals(Instant.parse("2024-06-11T10:15:30.123Z").toEpochMilli(), TimestampCodec.parse("2024-06-11T10:15:30.123999999"));
+    }
+
+    @Test
+    public void unrecognisedInputIsUnknown() {
+        List<String> bad = new ArrayList<>(Arrays.asList(
+                "", "abc", "171810000112", "17181000011234", "-1718100001",
+                "2024-06-11", "2024-06-11T10:15", "2024/06/11T10:15:30", "2024-06-11X10:15:30",
+                "2024-13-11T10:15:30", "2024-00-11T10:15:30", "2024-06-32T10:15:30", "2024-06-11T24:15:30",
+                "2024-06-11T10:60:30", "2024-06-11T1a:15:30", "2024-06-11T10:15:30 UTC",
+                "2024-06-11T10:15:30+", "2024-06-11T10:15:30+5:30", "2024-06-11T10:15:30+05:3",
+                "2024-06-11T10:15:30Zjunk", "2024-06-11T10:15:30.123+05:30:00"));
+        bad.add(null);
+        for (String text : bad) {
+            assertEquals(String.valueOf(text), TimestampCodec.UNKNOWN, TimestampCodec.parse(text));
+        }
+    }
+
+    @Test
+    public void unknownTimesSortLast() {
+        assertEquals(Long.MAX_VALUE, TimestampCodec.sortKey(TimestampCodec.UNKNOWN));
+        long known = TimestampCodec.parse("2024-06-11T10:15:30Z");
+        assertEquals(known, TimestampCodec.sortKey(known));
+        assertTrue(TimestampCodec.sortKey(TimestampCodec.UNKNOWN) > TimestampCodec.sortKey(known));
+    }
+
+    @Test
+    public void nextDayIsReachedExactlyAtLocalMidnight() {
+        TimeZone saved = TimeZone.getDefault();
+        try {
+            for (String id : Arrays.asList("UTC", "America/New_York", "Australia/Lord_Howe", "Asia/Kolkata")) {
+                TimeZone.setDefault(TimeZone.getTimeZone(id));
+                // Every 7 hours through a year, so each hour of the day and both DST changes are crossed
+                long start = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+                for (long now = start; now < start + 366L * 24 * 3600_000; now += 7 * 3600_000L + 1) {
+                    long delay = TimestampCodec.millisUntilNextDay(now);
+                    long day = TimestampCodec.localDay(now);
+                    assertEquals(id + " " + now, day, TimestampCodec.localDay(now + delay - 1));
+                    assertEquals(id + " " + now, day + 1, TimestampCodec.localDay(now + delay));
+                }
+            }
+        } finally {
+            TimeZone.setDefault(saved);
+        }
+    }
+
+    // Millisecond instant with a random fraction of 0 to 9 digits, at the given offset
+    private static OffsetDateTime randomTime(Random random, ZoneOffset offset) {
+        long seconds = Math.floorDiv(FROM + (long) (random.nextDouble() * (TO - FROM)), 1000L);
+        int digits = random.nextInt(10);
+        int unit = (int) Math.pow(10, 9 - digits);
+        int nanos = random.nextInt(1_000_000_000 / unit) * unit;
+        return Instant.ofEpochSecond(seconds, nanos).atOffset(offset);
+    }
+
+    private static String format(OffsetDateTime time, char separator, String offsetPattern) {
+        return time.format(formatter(separator, offsetPattern));
+    }
+
+    // Optional fraction, written with as few digits as it needs; no offset means UTC
+    private static DateTimeFormatter formatter(char separator, String offsetPattern) {
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+                .appendPattern("uuuu-MM-dd")
+                .appendLiteral(separator)
+                .appendPattern("HH:mm:ss")
+                .optionalStart()
+                .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+                .optionalEnd();
+        if (offsetPattern != null) {
+            builder.appendOffset(offsetPattern, "Z");
+        }
+        return builder.toFormatter(Locale.ROOT);
+    }
+}
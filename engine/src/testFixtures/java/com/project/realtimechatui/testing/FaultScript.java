@@ -0,0 +1,74 @@
+package com.project.realtimechatui.testing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Faults the {@link StandInBroker} injects into what it sends. Every fault is counted rather than
+ * random, so a test that scripts the same faults sees the same frames. Safe to change while clients
+ * are connected; changes apply to frames sent afterwards.
+ */
+public class FaultScript {
+    private volatile boolean dropHeartbeats;
+    private volatile long delayMillis;
+    private volatile int duplicateEvery;
+    private final AtomicInteger chatMessageCount = new AtomicInteger();
+    private final AtomicInteger framesUntilDisconnect = new AtomicInteger(-1);
+
+    // The broker stops sending heart-beats, so clients see the server go quiet
+    public FaultScript dropHeartbeats(boolean drop) {
+        dropHeartbeats = drop;
+        return this;
+    }
+
+    // Every frame to clients is held back this long; order is kept
+    public FaultScript delay(long millis) {
+        delayMillis = millis;
+        return this;
+    }
+
+    // Every nth chat message is delivered twice, as a redelivery after a resend would be. 0 turns it off
+    public FaultScript duplicateEvery(int n) {
+        duplicateEvery = n;
+        return this;
+    }
+
+    // Every connection is dropped once this many more frames have gone out
+    public FaultScript disconnectAfter(int frames) {
+        framesUntilDisconnect.set(frames);
+        return this;
+    }
+
+    public FaultScript reset() {
+        dropHeartbeats = false;
+        delayMillis = 0;
+        duplicateEvery = 0;
+        chatMessageCount.set(0);
+        framesUntilDisconnect.set(-1);
+        return this;
+    }
+
+    boolean dropsHeartbeats() {
+        return dropHeartbeats;
+    }
+
+    long delayMillis() {
+        return delayMillis;
+    }
+
+    boolean shouldDuplicateChatMessage() {
+        int n = duplicateEvery;
+        return n > 0 && chatMessageCount.incrementAndGet() % n == 0;
+    }
+
+    // True exactly once, for the frame that uses up the countdown
+    boolean countFrameAndCheckDisconnect() {
+        int remaining = framesUntilDisconnect.get();
+        while (remaining > 0) {
+            if (framesUntilDisconnect.compareAndSet(remaining, remaining - 1)) {
+                return remaining == 1;
+            }
+            remaining = framesUntilDisconnect.get();
+        }
+        return false;
+    }
+}
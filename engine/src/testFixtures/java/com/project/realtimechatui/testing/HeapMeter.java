@@ -0,0 +1,24 @@
+package com.project.realtimechatui.testing;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Heap readings for tests that hold memory to a budget, so they all measure it the same way.
+ */
+public final class HeapMeter {
+    private HeapMeter() {
+    }
+
+    // Used heap after a full collection; the lowest of a few readings, to step around GC timing
+    public static long retainedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,234 @@
+package com.project.realtimechatui.testing;
+
+import com.project.realtimechatui.engine.StompTransport;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link StompTransport} for the JVM on Java-WebSocket, so a {@link com.project.realtimechatui.engine.ChatEngine}
+ * can run against the {@link StandInBroker} (or a real server) without Android.
+ *
+ * Opens once the broker's CONNECTED arrives. Sends ask for a RECEIPT and complete when it comes
+ * back. Heart-beats go out every interval, and a server silent for two intervals is reported as a
+ * failed heart-beat, as StompProtocolAndroid does.
+ */
+public class JavaWebSocketTransport implements StompTransport {
+    // Heart-beat timers for every transport in the process
+    private static final ScheduledExecutorService HEARTBEATS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stomp-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final URI uri;
+    private final long heartbeatMillis;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private volatile Client client;
+
+    public JavaWebSocketTransport(String url, long heartbeatMillis) {
+        this.uri = URI.create(url);
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    @Override
+    public void connect(Map<String, String> headers, Listener listener) {
+        disconnect();
+        Client newClient = new Client(uri, headers, listener);
+        client = newClient;
+        newClient.connect();
+    }
+
+    @Override
+    public boolean isConnected() {
+        Client current = client;
+        return current != null && current.stompConnected && current.isOpen();
+    }
+
+    @Override
+    public Subscription subscribe(String destination, FrameHandler handler) {
+        Client current = client;
+        if (current == null) {
+            return () -> { };
+        }
+        String id = "sub-" + nextId.getAndIncrement();
+        current.handlers.put(id, handler);
+        current.sendFrame(new StompFrame(StompFrame.SUBSCRIBE)
+                .header("id", id)
+                .header("destination", destination));
+        return () -> {
+            if (current.handlers.remove(id) != null && current.isOpen()) {
+                current.sendFrame(new StompFrame(StompFrame.UNSUBSCRIBE).header("id", id));
+            }
+        };
+    }
+
+    @Override
+    public void send(String destination, String body, SendCallback callback) {
+        Client current = client;
+        if (current == null || !current.isOpen()) {
+            callback.onFailed(new IOException("Not connected"));
+            return;
+        }
+        String receipt = "send-" + nextId.getAndIncrement();
+        current.receipts.put(receipt, callback);
+        current.sendFrame(new StompFrame(StompFrame.SEND)
+                .header("destination", destination)
+                .header("content-type", "application/json")
+                .header("receipt", receipt)
+                .body(body));
+    }
+
+    @Override
+    public void disconnect() {
+        Client current = client;
+        client = null;
+        if (current != null) {
+            current.shutdown();
+        }
+    }
+
+    private class Client extends WebSocketClient {
+        final Map<String, FrameHandler> handlers = new ConcurrentHashMap<>();
+        final Map<String, SendCallback> receipts = new ConcurrentHashMap<>();
+        private final Map<String, String> connectHeaders;
+        private final Listener listener;
+        volatile boolean stompConnected;
+        private volatile boolean closedByUs;
+        private volatile long lastReceivedMillis;
+        private ScheduledFuture<?> heartbeatTask;
+
+        Client(URI uri, Map<String, String> connectHeaders, Listener listener) {
+            super(uri);
+            this.connectHeaders = connectHeaders;
+            this.listener = listener;
+            // STOMP heart-beats do the liveness checking, so faults in them are what tests see
+            setConnectionLostTimeout(0);
+        }
+
+        void sendFrame(StompFrame frame) {
+            if (isOpen()) {
+                try {
+                    send(frame.encode());
+                } catch (Exception e) {
+                    // Closed under us; onClose reports it
+                }
+            }
+        }
+
+        void shutdown() {
+            closedByUs = true;
+            stopHeartbeats();
+            if (isOpen()) {
+                sendFrame(new StompFrame(StompFrame.DISCONNECT));
+            }
+            close();
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+            StompFrame connect = new StompFrame(StompFrame.CONNECT)
+                    .header("accept-version", "1.2")
+                    .header("host", uri.getHost())
+                    .header("heart-beat", heartbeatMillis + "," + heartbeatMillis);
+            for (Map.Entry<String, String> header : connectHeaders.entrySet()) {
+                connect.header(header.getKey(), header.getValue());
+            }
+            sendFrame(connect);
+        }
+
+        @Override
+        public void onMessage(String text) {
+            lastReceivedMillis = System.currentTimeMillis();
+            for (StompFrame frame : StompFrame.parseAll(text)) {
+                switch (frame.getCommand()) {
+                    case StompFrame.CONNECTED:
+                        stompConnected = true;
+                        startHeartbeats(frame.getHeader("heart-beat"));
+                        listener.onOpened();
+                        break;
+                    case StompFrame.MESSAGE:
+                        FrameHandler handler = handlers.get(frame.getHeader("subscription"));
+                        if (handler != null) {
+                            handler.onFrame(frame.getBody());
+                        }
+                        break;
+                    case StompFrame.RECEIPT:
+                        SendCallback callback = receipts.remove(frame.getHeader("receipt-id"));
+                        if (callback != null) {
+                            callback.onSent();
+                        }
+                        break;
+                    case StompFrame.ERROR:
+                        listener.onError(new IOException(frame.getHeader("message")));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+            stompConnected = false;
+            stopHeartbeats();
+            IOException closed = new IOException("Connection closed");
+            for (SendCallback callback : receipts.values()) {
+                callback.onFailed(closed);
+            }
+            receipts.clear();
+            if (!closedByUs) {
+                listener.onClosed();
+            }
+        }
+
+        @Override
+        public void onError(Exception error) {
+            if (!closedByUs) {
+                listener.onError(error);
+            }
+        }
+
+        private synchronized void startHeartbeats(String serverHeartBeat) {
+            long serverSends = 0;
+            if (serverHeartBeat != null && serverHeartBeat.contains(",")) {
+                serverSends = Long.parseLong(serverHeartBeat.substring(0, serverHeartBeat.indexOf(',')).trim());
+            }
+            if (heartbeatMillis <= 0) {
+                return;
+            }
+            long expectEvery = serverSends > 0 ? Math.max(serverSends, heartbeatMillis) : 0;
+            heartbeatTask = HEARTBEATS.scheduleAtFixedRate(() -> {
+                if (!isOpen()) {
+                    return;
+                }
+                try {
+                    send(StompFrame.HEARTBEAT);
+                } catch (Exception e) {
+                    return;
+                }
+                if (expectEvery > 0 && System.currentTimeMillis() - lastReceivedMillis > expectEvery * 2) {
+                    stopHeartbeats();
+                    listener.onHeartbeatFailed();
+                }
+            }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void stopHeartbeats() {
+            if (heartbeatTask != null) {
+                heartbeatTask.cancel(false);
+                heartbeatTask = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.project.realtimechatui.testing;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.project.realtimechatui.engine.ChatProtocol;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process stand-in for the chat backend's STOMP endpoint, for integration and load tests
+ * that must not touch the network.
+ *
+ * Speaks STOMP 1.2 over WebSocket on localhost: CONNECT/STOMP, SUBSCRIBE/UNSUBSCRIBE, SEND,
+ * RECEIPT, DISCONNECT and heart-beats. Behind /app/chat.* it does what the server does: messages
+ * get an id and a timestamp and go out on /topic/chat/{id}, typing goes to .../typing, joins and
+ * leaves to .../events. Anything sent straight to a /topic is relayed as is, which lets a test
+ * publish status or edit events.
+ *
+ * Every frame to clients goes through one thread, so delivery order is the order of sends, and
+ * through {@link #faults()} for scripted delays, duplicates, silent heart-beats and disconnects.
+ */
+public class StandInBroker extends WebSocketServer {
+    public static final int DEFAULT_HEARTBEAT_MS = 10000;
+
+    private final Map<String, Account> accountsByToken = new ConcurrentHashMap<>();
+    private final Map<WebSocket, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, List<String>> history = new ConcurrentHashMap<>();
+    private final AtomicLong nextMessageId = new AtomicLong(1);
+    private final AtomicLong nextFrameId = new AtomicLong(1);
+    private final FaultScript faults = new FaultScript();
+    private final ScheduledExecutorService outbound;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final int heartbeatMillis;
+
+    public StandInBroker() {
+        this(0, DEFAULT_HEARTBEAT_MS);
+    }
+
+    // Port 0 picks a free one; see getUrl
+    public StandInBroker(int port, int heartbeatMillis) {
+        super(new InetSocketAddress("127.0.0.1", port));
+        this.heartbeatMillis = heartbeatMillis;
+        setReuseAddr(true);
+        setConnectionLostTimeout(0);
+        outbound = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-broker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Starts the server and waits until it accepts connections
+    public StandInBroker startAndWait() throws InterruptedException {
+        start();
+        if (!started.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Broker did not start");
+        }
+        return this;
+    }
+
+    public void shutdown() throws InterruptedException {
+        stop(1000);
+        outbound.shutdownNow();
+    }
+
+    public String getUrl() {
+        return "ws://127.0.0.1:" + getPort() + "/ws";
+    }
+
+    public FaultScript faults() {
+        return faults;
+    }
+
+    // Registers a user and returns the bearer token they connect with
+    public String addUser(long userId, String username) {
+        String token = "token-" + username;
+        accountsByToken.put(token, new Account(userId, username));
+        return token;
+    }
+
+    // Message bodies broadcast on a room's chat topic, oldest first
+    public List<String> getHistory(long roomId) {
+        List<String> messages = history.get(roomId);
+        if (messages == null) {
+            return Collections.emptyList();
+        }
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    public int getConnectionCount() {
+        return sessions.size();
+    }
+
+    // Tests wait on this before publishing, since each client subscribes over its own connection
+    public int getSubscriberCount(String destination) {
+        int count = 0;
+        for (Session session : sessions.values()) {
+            if (session.subscriptions.containsValue(destination)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Drops every client connection at once, as a server restart or network loss would
+    public void disconnectAll() {
+        for (WebSocket connection : new ArrayList<>(sessions.keySet())) {
+            connection.close();
+        }
+    }
+
+    // Sends a frame's body to every subscriber of the destination
+    public void publish(String destination, String body) {
+        for (Session session : sessions.values()) {
+            for (Map.Entry<String, String> subscription : session.subscriptions.entrySet()) {
+                if (subscription.getValue().equals(destination)) {
+                    deliver(session, new StompFrame(StompFrame.MESSAGE)
+                            .header("subscription", subscription.getKey())
+                            .header("message-id", String.valueOf(nextFrameId.getAndIncrement()))
+                            .header("destination", destination)
+                            .header("content-type", "application/json")
+                            .body(body));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onStart() {
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket connection, ClientHandshake handshake) {
+        sessions.put(connection, new Session(connection));
+    }
+
+    @Override
+    public void onClose(WebSocket connection, int code, String reason, boolean remote) {
+        Session session = sessions.remove(connection);
+        if (session != null && session.heartbeat != null) {
+            session.heartbeat.cancel(false);
+        }
+    }
+
+    @Override
+    public void onError(WebSocket connection, Exception error) {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public void onMessage(WebSocket connection, String text) {
+        Session session = sessions.get(connection);
+        if (session == null) {
+            return;
+        }
+        for (StompFrame frame : StompFrame.parseAll(text)) {
+            handle(session, frame);
+        }
+    }
+
+    private void handle(Session session, StompFrame frame) {
+        switch (frame.getCommand()) {
+            case StompFrame.CONNECT:
+            case StompFrame.STOMP:
+                onConnect(session, frame);
+                return;
+            case StompFrame.DISCONNECT:
+                sendReceipt(session, frame);
+                session.connection.close();
+                return;
+            default:
+                break;
+        }
+
+        if (session.account == null) {
+            sendError(session, "Not connected", true);
+            return;
+        }
+
+        switch (frame.getCommand()) {
+            case StompFrame.SUBSCRIBE:
+                session.subscriptions.put(frame.getHeader("id"), frame.getHeader("destination"));
+                break;
+            case StompFrame.UNSUBSCRIBE:
+                session.subscriptions.remove(frame.getHeader("id"));
+                break;
+            case StompFrame.SEND:
+                onSend(session, frame);
+                break;
+            default:
+                sendError(session, "Unsupported command " + frame.getCommand(), false);
+                return;
+        }
+        sendReceipt(session, frame);
+    }
+
+    private void onConnect(Session session, StompFrame frame) {
+        String authorization = frame.getHeader("Authorization");
+        String token = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring("Bearer ".length()) : null;
+        Account account = token != null ? accountsByToken.get(token) : null;
+        if (account == null) {
+            sendError(session, "Unauthorized", true);
+            return;
+        }
+        session.account = account;
+
+        // heart-beat: cx,cy from the client; we send every max(ours, cy) if both want it
+        long clientWants = 0;
+        String heartBeat = frame.getHeader("heart-beat");
+        if (heartBeat != null && heartBeat.contains(",")) {
+            clientWants = Long.parseLong(heartBeat.substring(heartBeat.indexOf(',') + 1).trim());
+        }
+        long interval = clientWants > 0 && heartbeatMillis > 0 ? Math.max(heartbeatMillis, clientWants) : 0;
+
+        deliver(session, new StompFrame(StompFrame.CONNECTED)
+                .header("version", "1.2")
+                .header("heart-beat", heartbeatMillis + "," + heartbeatMillis)
+                .header("user-name", account.username));
+
+        if (interval > 0) {
+            session.heartbeat = outbound.scheduleAtFixedRate(() -> {
+                if (!faults.dropsHeartbeats() && session.connection.isOpen()) {
+                    session.connection.send(StompFrame.HEARTBEAT);
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void onSend(Session session, StompFrame frame) {
+        String destination = frame.getHeader("destination");
+        if (destination == null) {
+            sendError(session, "SEND without destination", false);
+            return;
+        }
+        if (destination.startsWith("/topic/")) {
+            publish(destination, frame.getBody());
+            return;
+        }
+
+        Long roomId = roomIdOf(destination);
+        if (roomId == null) {
+            sendError(session, "Unknown destination " + destination, false);
+            return;
+        }
+        String username = session.account.username;
+
+        if (destination.startsWith(ChatProtocol.SEND_MESSAGE)) {
+            JsonObject request = JsonParser.parseString(frame.getBody()).getAsJsonObject();
+            JsonObject message = new JsonObject();
+            message.addProperty("id", nextMessageId.getAndIncrement());
+            message.addProperty("chatRoomId", roomId);
+            message.addProperty("senderId", session.account.userId);
+            message.addProperty("senderName", username);
+            message.addProperty("content", request.has("content") ? request.get("content").getAsString() : "");
+            message.addProperty("type", "TEXT");
+            message.addProperty("timestamp", String.valueOf(System.currentTimeMillis()));
+            message.addProperty("status", "SENT");
+            String body = message.toString();
+
+            List<String> roomHistory = history.computeIfAbsent(roomId, id -> new ArrayList<>());
+            synchronized (roomHistory) {
+                roomHistory.add(body);
+            }
+            publish(ChatProtocol.chatTopic(roomId), body);
+        } else if (destination.startsWith(ChatProtocol.TYPING_INDICATOR)) {
+            JsonObject request = JsonParser.parseString(frame.getBody()).getAsJsonObject();
+            JsonObject typing = new JsonObject();
+            typing.addProperty("username", username);
+            typing.addProperty("isTyping", request.has("isTyping") && request.get("isTyping").getAsBoolean());
+            publish(ChatProtocol.typingTopic(roomId), typing.toString());
+        } else if (destination.startsWith(ChatProtocol.JOIN_ROOM)) {
+            publish(ChatProtocol.eventsTopic(roomId), roomEvent(ChatProtocol.TYPE_USER_JOINED, username));
+        } else if (destination.startsWith(ChatProtocol.LEAVE_ROOM)) {
+            publish(ChatProtocol.eventsTopic(roomId), roomEvent(ChatProtocol.TYPE_USER_LEFT, username));
+        } else {
+            sendError(session, "Unknown destination " + destination, false);
+        }
+    }
+
+    private static String roomEvent(String type, String username) {
+        JsonObject event = new JsonObject();
+        event.addProperty("type", type);
+        event.addProperty("username", username);
+        return event.toString();
+    }
+
+    private static Long roomIdOf(String destination) {
+        int slash = destination.lastIndexOf('/');
+        try {
+            return Long.parseLong(destination.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void sendReceipt(Session session, StompFrame frame) {
+        String receipt = frame.getHeader("receipt");
+        if (receipt != null) {
+            deliver(session, new StompFrame(StompFrame.RECEIPT).header("receipt-id", receipt));
+        }
+    }
+
+    private void sendError(Session session, String message, boolean close) {
+        deliver(session, new StompFrame(StompFrame.ERROR).header("message", message).body(message));
+        if (close) {
+            outbound.execute(session.connection::close);
+        }
+    }
+
+    private void deliver(Session session, StompFrame frame) {
+        String text = frame.encode();
+        boolean duplicate = StompFrame.MESSAGE.equals(frame.getCommand())
+                && frame.getHeader("destination").matches("/topic/chat/\\d+")
+                && faults.shouldDuplicateChatMessage();
+        Runnable send = () -> {
+            if (!session.connection.isOpen()) {
+                return;
+            }
+            session.connection.send(text);
+            if (duplicate) {
+                session.connection.send(text);
+            }
+            if (faults.countFrameAndCheckDisconnect()) {
+                disconnectAll();
+            }
+        };
+        long delay = faults.delayMillis();
+        if (delay > 0) {
+            outbound.schedule(send, delay, TimeUnit.MILLISECONDS);
+        } else {
+            outbound.execute(send);
+        }
+    }
+
+    private static final class Account {
+        final long userId;
+        final String username;
+
+        Account(long userId, String username) {
+            this.userId = userId;
+            this.username = username;
+        }
+    }
+
+    private static final class Session {
+        final WebSocket connection;
+        // Subscription id to destination
+        final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+        volatile Account account;
+        volatile ScheduledFuture<?> heartbeat;
+
+        Session(WebSocket connection) {
+            this.connection = connection;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.project.realtimechatui.testing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A STOMP 1.2 frame as text: command, headers, blank line, body, NUL.
+ *
+ * Header values are escaped as the spec asks (except on CONNECT and CONNECTED). A bare end of line
+ * between frames is a heart-beat and parses to nothing.
+ */
+public final class StompFrame {
+    public static final String CONNECT = "CONNECT";
+    public static final String STOMP = "STOMP";
+    public static final String CONNECTED = "CONNECTED";
+    public static final String SUBSCRIBE = "SUBSCRIBE";
+    public static final String UNSUBSCRIBE = "UNSUBSCRIBE";
+    public static final String SEND = "SEND";
+    public static final String MESSAGE = "MESSAGE";
+    public static final String RECEIPT = "RECEIPT";
+    public static final String ERROR = "ERROR";
+    public static final String DISCONNECT = "DISCONNECT";
+
+    public static final String HEARTBEAT = "\n";
+
+    private final String command;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private String body = "";
+
+    public StompFrame(String command) {
+        this.command = command;
+    }
+
+    public StompFrame header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public StompFrame body(String body) {
+        this.body = body != null ? body : "";
+        return this;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String encode() {
+        boolean escape = !CONNECT.equals(command) && !CONNECTED.equals(command);
+        StringBuilder builder = new StringBuilder(command.length() + body.length() + 64);
+        builder.append(command).append('\n');
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            builder.append(escape ? escape(header.getKey()) : header.getKey())
+                    .append(':')
+                    .append(escape ? escape(header.getValue()) : header.getValue())
+                    .append('\n');
+        }
+        return builder.append('\n').append(body).append('\0').toString();
+    }
+
+    // Every frame in one WebSocket text message, skipping heart-beats
+    public static List<StompFrame> parseAll(String text) {
+        List<StompFrame> frames = new ArrayList<>(1);
+        int start = 0;
+        while (start < text.length()) {
+            // Heart-beats and the EOLs that may trail a frame
+            while (start < text.length() && (text.charAt(start) == '\n' || text.charAt(start) == '\r')) {
+                start++;
+            }
+            if (start >= text.length()) {
+                break;
+            }
+            int end = text.indexOf('\0', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            frames.add(parse(text.substring(start, end)));
+            start = end + 1;
+        }
+        return frames;
+    }
+
+    private static StompFrame parse(String raw) {
+        int headerEnd = raw.indexOf("\n\n");
+        int bodyStart = headerEnd + 2;
+        if (headerEnd < 0) {
+            headerEnd = raw.indexOf("\r\n\r\n");
+            bodyStart = headerEnd + 4;
+        }
+        String head = headerEnd >= 0 ? raw.substring(0, headerEnd) : raw;
+        String[] lines = head.split("\r?\n");
+
+        StompFrame frame = new StompFrame(lines[0].trim());
+        boolean escaped = !CONNECT.equals(frame.command) && !CONNECTED.equals(frame.command);
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon);
+            String value = lines[i].substring(colon + 1);
+            // The first occurrence of a repeated header wins
+            frame.headers.putIfAbsent(escaped ? unescape(name) : name, escaped ? unescape(value) : value);
+        }
+        if (headerEnd >= 0) {
+            frame.body = raw.substring(bodyStart);
+        }
+        return frame;
+    }
+
+    private static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case ':': builder.append("\\c"); break;
+                default: builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 'n': builder.append('\n'); break;
+                    case 'r': builder.append('\r'); break;
+                    case 'c': builder.append(':'); break;
+                    default: builder.append(next);
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return command + headers;
+    }
+}
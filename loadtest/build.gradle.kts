@@ -0,0 +1,28 @@
+// Load generator: N senders and M rooms pushed through the stand-in broker into one ChatEngine,
+// measuring what the client sees. Plain JVM, no emulator or device:
+//   ./gradlew :loadtest:run --args="--scenario hot-room"
+//   ./gradlew :loadtest:run --args="--scenario many-rooms --duration 60"
+// Run with --args="--help" for every option.
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    implementation(project(":engine"))
+    // StandInBroker and JavaWebSocketTransport
+    implementation(testFixtures(project(":engine")))
+}
+
+application {
+    mainClass.set("com.project.realtimechatui.loadtest.LoadGenerator")
+    applicationDefaultJvmArgs = listOf("-Xms512m", "-Xmx512m")
+}
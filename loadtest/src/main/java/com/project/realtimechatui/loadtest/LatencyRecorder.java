@@ -0,0 +1,39 @@
+package com.project.realtimechatui.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Every latency sample of a run, in microseconds. Runs are minutes at most, so keeping the raw
+ * samples and sorting once at the end is cheaper and more exact than a histogram.
+ */
+final class LatencyRecorder {
+    private long[] samples = new long[1 << 14];
+    private int count;
+
+    synchronized void record(long micros) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = micros;
+    }
+
+    synchronized void reset() {
+        count = 0;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    // Percentiles as fractions (0.5, 0.99...); an empty recorder reports zeros
+    synchronized long[] percentiles(double... fractions) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        long[] result = new long[fractions.length];
+        for (int i = 0; i < fractions.length && sorted.length > 0; i++) {
+            int index = (int) Math.ceil(fractions[i] * sorted.length) - 1;
+            result[i] = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.project.realtimechatui.loadtest;
+
+/**
+ * Load generator options. A scenario sets a starting point; options after it override its values.
+ */
+final class LoadConfig {
+    int senders = 20;
+    int rooms = 10;
+    int messagesPerSecond = 100;
+    int durationSeconds = 30;
+    int warmupSeconds = 5;
+    int minMessageBytes = 8;
+    int maxMessageBytes = 400;
+    double typingPerSecond = 10;
+    double presencePerSecond = 5;
+    int duplicateEvery = 0;
+    long seed = 20240611L;
+
+    static final String USAGE = String.join("\n",
+            "Options:",
+            "  --scenario hot-room|many-rooms  hot-room: 200 msg/s into one room from 50 senders",
+            "                                  many-rooms: one client in 500 rooms, 500 msg/s spread across them",
+            "  --senders N                     simulated users sending messages",
+            "  --rooms M                       rooms the measured client is in; every message goes to one of them",
+            "  --rate R                        messages per second, across all senders",
+            "  --duration S                    measured seconds",
+            "  --warmup S                      seconds of load before measuring starts",
+            "  --message-bytes MIN:MAX         content length range; most messages are near MIN",
+            "  --typing R                      typing indicators per second",
+            "  --presence R                    presence changes per second",
+            "  --duplicate-every N             broker redelivers every Nth chat frame (0 = off)",
+            "  --seed N                        random seed for rooms, sizes and noise");
+
+    static LoadConfig parse(String[] args) {
+        LoadConfig config = new LoadConfig();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if ("--help".equals(option)) {
+                throw new IllegalArgumentException(USAGE);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option + "\n" + USAGE);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--scenario":
+                    config.applyScenario(value);
+                    break;
+                case "--senders":
+                    config.senders = Integer.parseInt(value);
+                    break;
+                case "--rooms":
+                    config.rooms = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    config.messagesPerSecond = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    config.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    config.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "--message-bytes":
+                    String[] range = value.split(":");
+                    config.minMessageBytes = Integer.parseInt(range[0]);
+                    config.maxMessageBytes = Integer.parseInt(range[range.length - 1]);
+                    break;
+                case "--typing":
+                    config.typingPerSecond = Double.parseDouble(value);
+                    break;
+                case "--presence":
+                    config.presencePerSecond = Double.parseDouble(value);
+                    break;
+                case "--duplicate-every":
+                    config.duplicateEvery = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    config.seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option + "\n" + USAGE);
+            }
+        }
+        if (config.senders < 1 || config.rooms < 1 || config.messagesPerSecond < 1
+                || config.minMessageBytes > config.maxMessageBytes) {
+            throw new IllegalArgumentException("Senders, rooms and rate must be positive and MIN <= MAX\n" + USAGE);
+        }
+        return config;
+    }
+
+    private void applyScenario(String scenario) {
+        switch (scenario) {
+            case "hot-room":
+                senders = 50;
+                rooms = 1;
+                messagesPerSecond = 200;
+                typingPerSecond = 30;
+                presencePerSecond = 5;
+                break;
+            case "many-rooms":
+                senders = 50;
+                rooms = 500;
+                messagesPerSecond = 500;
+                typingPerSecond = 50;
+                presencePerSecond = 50;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scenario " + scenario + "\n" + USAGE);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return senders + " senders, " + rooms + " rooms, " + messagesPerSecond + " msg/s, "
+                + minMessageBytes + "-" + maxMessageBytes + " bytes, typing " + typingPerSecond + "/s, presence "
+                + presencePerSecond + "/s, " + warmupSeconds + "s warmup + " + durationSeconds + "s measured"
+                + (duplicateEvery > 0 ? ", every " + duplicateEvery + "th frame redelivered" : "");
+    }
+}
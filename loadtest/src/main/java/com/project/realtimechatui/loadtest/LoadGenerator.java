@@ -0,0 +1,221 @@
+package com.project.realtimechatui.loadtest;
+
+import com.google.gson.JsonObject;
+import com.project.realtimechatui.engine.ChatProtocol;
+import com.project.realtimechatui.metrics.Metrics;
+import com.project.realtimechatui.testing.StandInBroker;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the client's real-time path at scale on a JVM: a stand-in broker, N senders writing into
+ * M rooms at a fixed total rate with typing and presence noise, and one ChatEngine joined to every
+ * room taking it all in.
+ *
+ * Reports what the client saw: throughput, end-to-end latency percentiles (send to listener
+ * callback, so decode and the engine queue are included), allocation by the client's threads and
+ * overall, and messages that were dropped or delivered twice, followed by the engine's own
+ * metrics for the measured window (senders are bare transports, so those are the observer's alone).
+ */
+public final class LoadGenerator {
+    static final int HEARTBEAT_MS = 10000;
+    private static final long OBSERVER_ID = 1L;
+    private static final long DRAIN_TIMEOUT_MS = 10000;
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.out.println("Load: " + config);
+
+        StandInBroker broker = new StandInBroker(0, HEARTBEAT_MS).startAndWait();
+        broker.faults().duplicateEvery(config.duplicateEvery);
+
+        ObserverClient observer = new ObserverClient(broker.getUrl(), broker.addUser(OBSERVER_ID, ObserverClient.USERNAME));
+        observer.connectAndJoin(config.rooms);
+        awaitSubscriptions(broker, config.rooms);
+
+        AtomicLong acked = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<SenderClient> senders = new ArrayList<>(config.senders);
+        for (int i = 0; i < config.senders; i++) {
+            long userId = 1000 + i;
+            SenderClient sender = new SenderClient(broker.getUrl(), config.seed + i, acked, failed);
+            sender.connect(broker.addUser(userId, "sender" + i));
+            senders.add(sender);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledExecutorService load = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                    Thread thread = new Thread(runnable, "load-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // Each sender gets an equal share of the rate, staggered so they don't fire together
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) * config.senders / config.messagesPerSecond;
+        for (int i = 0; i < senders.size(); i++) {
+            SenderClient sender = senders.get(i);
+            load.scheduleAtFixedRate(() -> sender.sendMessage(config.rooms, config.minMessageBytes, config.maxMessageBytes),
+                    periodNanos * i / senders.size(), periodNanos, TimeUnit.NANOSECONDS);
+        }
+        Random noise = new Random(config.seed);
+        if (config.typingPerSecond > 0) {
+            load.scheduleAtFixedRate(() -> senders.get(noise.nextInt(senders.size()))
+                            .sendTyping(1 + noise.nextInt(config.rooms), noise.nextBoolean()),
+                    0, (long) (TimeUnit.SECONDS.toNanos(1) / config.typingPerSecond), TimeUnit.NANOSECONDS);
+        }
+        if (config.presencePerSecond > 0) {
+            // Presence comes from the server, so it is published straight onto the room topics
+            load.scheduleAtFixedRate(() -> {
+                        JsonObject status = new JsonObject();
+                        status.addProperty("userId", 1000 + noise.nextInt(senders.size()));
+                        status.addProperty("online", noise.nextBoolean());
+                        broker.publish(ChatProtocol.statusTopic((long) (1 + noise.nextInt(config.rooms))), status.toString());
+                    },
+                    0, (long) (TimeUnit.SECONDS.toNanos(1) / config.presencePerSecond), TimeUnit.NANOSECONDS);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.warmupSeconds));
+
+        AllocationMeter allocations = new AllocationMeter(observer.getClientThreadIds());
+        long ackedAtStart = acked.get();
+        long startNanos = System.nanoTime();
+        observer.startMeasuring();
+        Metrics.getInstance().reset();
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.durationSeconds));
+
+        observer.stopMeasuring();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long ackedInWindow = acked.get() - ackedAtStart;
+        AllocationMeter.Usage usage = allocations.stop();
+
+        load.shutdownNow();
+        load.awaitTermination(5, TimeUnit.SECONDS);
+
+        // Let everything already accepted by the broker arrive before counting what is missing
+        long[] counts = observer.deliveryCounts();
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (counts[0] < acked.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            counts = observer.deliveryCounts();
+        }
+
+        report(config, observer, seconds, ackedInWindow, acked.get(), failed.get(), counts, usage);
+
+        for (SenderClient sender : senders) {
+            sender.close();
+        }
+        observer.close();
+        broker.shutdown();
+    }
+
+    private static void awaitSubscriptions(StandInBroker broker, int rooms) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        for (long roomId = 1; roomId <= rooms; roomId++) {
+            while (broker.getSubscriberCount(ChatProtocol.eventsTopic(roomId)) < 1) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("Observer did not subscribe to every room");
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static void report(LoadConfig config, ObserverClient observer, double seconds, long ackedInWindow,
+                               long ackedTotal, long failedTotal, long[] counts, AllocationMeter.Usage usage) {
+        long unique = counts[0];
+        long deliveredTwice = counts[1];
+        long dedupedByEngine = counts[2];
+        long delivered = observer.getMeasuredDelivered();
+        long[] p = observer.getLatencies().percentiles(0.5, 0.9, 0.99, 0.999, 1.0);
+
+        System.out.println();
+        System.out.printf("Throughput   sent %.1f msg/s (target %d), delivered %.1f msg/s%n",
+                ackedInWindow / seconds, config.messagesPerSecond, delivered / seconds);
+        System.out.printf("Latency ms   p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f  (%d samples)%n",
+                p[0] / 1000.0, p[1] / 1000.0, p[2] / 1000.0, p[3] / 1000.0, p[4] / 1000.0, observer.getLatencies().count());
+        System.out.printf("Allocation   client threads %.1f MB/s (%.0f bytes/message), whole JVM %.1f MB/s%n",
+                usage.clientBytes / seconds / 1e6, delivered > 0 ? (double) usage.clientBytes / delivered : 0.0,
+                usage.totalBytes / seconds / 1e6);
+        System.out.printf("Delivery     accepted by broker %d, unique delivered %d, dropped %d, delivered twice %d%n",
+                ackedTotal, unique, Math.max(0, ackedTotal - unique), deliveredTwice);
+        System.out.printf("             redeliveries caught by engine dedupe %d, failed sends %d%n",
+                dedupedByEngine, failedTotal);
+        System.out.printf("Noise        typing events %d, presence events %d, client errors %d%n",
+                observer.getTypingEvents(), observer.getPresenceEvents(), observer.getErrors());
+        System.out.println();
+        System.out.print(Metrics.getInstance().snapshot().dump());
+    }
+
+    // Bytes allocated between construction and stop, by the client's threads and by the whole JVM
+    private static final class AllocationMeter {
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final long[] clientThreadIds;
+        private final long clientStart;
+        private final long totalStart;
+
+        static final class Usage {
+            final long clientBytes;
+            final long totalBytes;
+
+            Usage(long clientBytes, long totalBytes) {
+                this.clientBytes = clientBytes;
+                this.totalBytes = totalBytes;
+            }
+        }
+
+        AllocationMeter(Set<Long> clientThreadIds) {
+            // The client's threads are all running by the end of warmup
+            this.clientThreadIds = toArray(clientThreadIds);
+            clientStart = allocated(this.clientThreadIds);
+            totalStart = allocated(threads.getAllThreadIds());
+        }
+
+        Usage stop() {
+            return new Usage(allocated(clientThreadIds) - clientStart,
+                    allocated(threads.getAllThreadIds()) - totalStart);
+        }
+
+        private long allocated(long[] ids) {
+            long total = 0;
+            for (long bytes : threads.getThreadAllocatedBytes(ids)) {
+                if (bytes > 0) {
+                    total += bytes;
+                }
+            }
+            return total;
+        }
+
+        private static long[] toArray(Set<Long> ids) {
+            long[] result = new long[ids.size()];
+            int i = 0;
+            for (Long id : ids) {
+                if (i < result.length) {
+                    result[i++] = id;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.project.realtimechatui.loadtest;
+
+import com.project.realtimechatui.api.models.ChatMessage;
+import com.project.realtimechatui.engine.ChatEngine;
+import com.project.realtimechatui.engine.ExecutorScheduler;
+import com.project.realtimechatui.engine.FrameCodec;
+import com.project.realtimechatui.engine.RoomState;
+import com.project.realtimechatui.engine.SessionStore;
+import com.project.realtimechatui.engine.StompTransport;
+import com.project.realtimechatui.testing.JavaWebSocketTransport;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The client under load: one ChatEngine in every room, exactly as the app runs it, with its
+ * decode happening on the transport thread and dispatch on the engine thread. Records what reaches
+ * the listener.
+ */
+final class ObserverClient implements ChatEngine.ConnectionListener, ChatEngine.RoomListener {
+    static final String USERNAME = "observer";
+
+    private final ExecutorScheduler scheduler = new ExecutorScheduler("load-observer");
+    private final ChatEngine engine;
+    private final CountDownLatch connected = new CountDownLatch(1);
+    private final LatencyRecorder latencies = new LatencyRecorder();
+
+    // Threads that do client work: the engine's, and whichever deliver frames to the decoder
+    private final Set<Long> clientThreadIds = ConcurrentHashMap.newKeySet();
+
+    // Engine thread only
+    private final Set<Long> seenMessageIds = new HashSet<>();
+    private long delivered;
+    private long deliveredTwice;
+
+    private final AtomicLong typingEvents = new AtomicLong();
+    private final AtomicLong presenceEvents = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean measuring;
+    private volatile long measuredDelivered;
+
+    ObserverClient(String url, String token) {
+        SessionStore session = new SessionStore() {
+            @Override
+            public boolean isLoggedIn() {
+                return true;
+            }
+
+            @Override
+            public String getUsername() {
+                return USERNAME;
+            }
+
+            @Override
+            public String getAccessToken() {
+                return token;
+            }
+        };
+        StompTransport transport = new ThreadRecordingTransport(
+                new JavaWebSocketTransport(url, LoadGenerator.HEARTBEAT_MS), clientThreadIds);
+        engine = new ChatEngine(transport, scheduler, session, new FrameCodec(FrameCodec.defaultGson()));
+        engine.setConnectionListener(this);
+        engine.setRoomListener(this);
+        scheduler.execute(() -> clientThreadIds.add(Thread.currentThread().getId()));
+    }
+
+    void connectAndJoin(int rooms) throws Exception {
+        scheduler.execute(engine::connect);
+        if (!connected.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Observer could not connect");
+        }
+        scheduler.execute(() -> {
+            for (long roomId = 1; roomId <= rooms; roomId++) {
+                engine.joinRoom(roomId);
+            }
+        });
+    }
+
+    void startMeasuring() {
+        latencies.reset();
+        measuredDelivered = 0;
+        measuring = true;
+    }
+
+    void stopMeasuring() {
+        measuring = false;
+    }
+
+    Set<Long> getClientThreadIds() {
+        return clientThreadIds;
+    }
+
+    LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    long getMeasuredDelivered() {
+        return measuredDelivered;
+    }
+
+    long getTypingEvents() {
+        return typingEvents.get();
+    }
+
+    long getPresenceEvents() {
+        return presenceEvents.get();
+    }
+
+    long getErrors() {
+        return errors.get();
+    }
+
+    // Snapshot taken on the engine thread: unique delivered, delivered twice, dropped by the engine's dedupe
+    long[] deliveryCounts() throws Exception {
+        CompletableFuture<long[]> result = new CompletableFuture<>();
+        scheduler.execute(() -> {
+            long dedupedByEngine = 0;
+            for (RoomState room : engine.getRooms().values()) {
+                dedupedByEngine += room.getDuplicateCount();
+            }
+            result.complete(new long[]{seenMessageIds.size(), deliveredTwice, dedupedByEngine, delivered});
+        });
+        return result.get(10, TimeUnit.SECONDS);
+    }
+
+    void close() throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        scheduler.execute(() -> {
+            engine.disconnect();
+            done.complete(null);
+        });
+        done.get(10, TimeUnit.SECONDS);
+        scheduler.shutdown();
+    }
+
+    @Override
+    public void onConnected() {
+        connected.countDown();
+    }
+
+    @Override
+    public void onDisconnected() {
+        errors.incrementAndGet();
+    }
+
+    @Override
+    public void onError(String error) {
+        errors.incrementAndGet();
+    }
+
+    @Override
+    public void onMessageReceived(Long roomId, ChatMessage message) {
+        long sentAt = SenderClient.sentAtNanos(message.getContent());
+        delivered++;
+        if (!seenMessageIds.add(message.getId())) {
+            deliveredTwice++;
+        }
+        if (measuring) {
+            measuredDelivered++;
+            if (sentAt > 0) {
+                latencies.record((System.nanoTime() - sentAt) / 1000);
+            }
+        }
+    }
+
+    @Override
+    public void onTypingIndicator(Long roomId, String username, boolean isTyping) {
+        typingEvents.incrementAndGet();
+    }
+
+    @Override
+    public void onUserStatusChanged(Long roomId, Long userId, boolean isOnline) {
+        presenceEvents.incrementAndGet();
+    }
+
+    @Override
+    public void onMessageEdited(Long roomId, Long messageId, String newContent) {
+    }
+
+    @Override
+    public void onMessageDeleted(Long roomId, Long messageId) {
+    }
+
+    @Override
+    public void onUserJoined(Long roomId, String username) {
+    }
+
+    @Override
+    public void onUserLeft(Long roomId, String username) {
+    }
+
+    @Override
+    public void onError(Long roomId, String error) {
+        errors.incrementAndGet();
+    }
+
+    // Notes which threads hand frames to the engine's decoders, for the allocation figures
+    private static final class ThreadRecordingTransport implements StompTransport {
+        private final StompTransport delegate;
+        private final Set<Long> threadIds;
+
+        ThreadRecordingTransport(StompTransport delegate, Set<Long> threadIds) {
+            this.delegate = delegate;
+            this.threadIds = threadIds;
+        }
+
+        @Override
+        public void connect(Map<String, String> headers, Listener listener) {
+            delegate.connect(headers, listener);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return delegate.isConnected();
+        }
+
+        @Override
+        public Subscription subscribe(String destination, FrameHandler handler) {
+            return delegate.subscribe(destination, payload -> {
+                threadIds.add(Thread.currentThread().getId());
+                handler.onFrame(payload);
+            });
+        }
+
+        @Override
+        public void send(String destination, String body, SendCallback callback) {
+            delegate.send(destination, body, callback);
+        }
+
+        @Override
+        public void disconnect() {
+            delegate.disconnect();
+        }
+    }
+}
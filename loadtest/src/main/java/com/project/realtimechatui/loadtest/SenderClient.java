@@ -0,0 +1,124 @@
+package com.project.realtimechatui.loadtest;
+
+import com.project.realtimechatui.engine.ChatProtocol;
+import com.project.realtimechatui.engine.FrameCodec;
+import com.project.realtimechatui.engine.StompTransport;
+import com.project.realtimechatui.testing.JavaWebSocketTransport;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One simulated user writing into rooms. Bare STOMP rather than a full engine, so the senders cost
+ * as little as possible and the measured client is the only engine in the run.
+ *
+ * Content starts with the send time ("t=<nanoTime>|") so the observer can work out end-to-end
+ * latency; the rest is padding up to the drawn size.
+ */
+final class SenderClient {
+    private static final String STAMP_PREFIX = "t=";
+    private static final String FILLER = "lorem ipsum dolor sit amet consectetur adipiscing elit sed do ";
+
+    private final JavaWebSocketTransport transport;
+    private final FrameCodec codec = new FrameCodec(FrameCodec.defaultGson());
+    private final Random random;
+    private final AtomicLong acked;
+    private final AtomicLong failed;
+
+    SenderClient(String url, long seed, AtomicLong acked, AtomicLong failed) {
+        this.transport = new JavaWebSocketTransport(url, LoadGenerator.HEARTBEAT_MS);
+        this.random = new Random(seed);
+        this.acked = acked;
+        this.failed = failed;
+    }
+
+    void connect(String token) throws InterruptedException {
+        CountDownLatch opened = new CountDownLatch(1);
+        transport.connect(Collections.singletonMap("Authorization", "Bearer " + token), new StompTransport.Listener() {
+            @Override
+            public void onOpened() {
+                opened.countDown();
+            }
+
+            @Override
+            public void onClosed() {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+
+            @Override
+            public void onHeartbeatFailed() {
+            }
+
+            @Override
+            public void onSubscriptionError(String destination, Throwable error) {
+            }
+        });
+        if (!opened.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Sender could not connect");
+        }
+    }
+
+    // Called from one scheduled task at a time, so the Random needs no locking
+    void sendMessage(int rooms, int minBytes, int maxBytes) {
+        long roomId = 1 + random.nextInt(rooms);
+        String content = content(minBytes, maxBytes);
+        transport.send(ChatProtocol.SEND_MESSAGE + roomId, codec.encodeMessage(content, System.currentTimeMillis()),
+                new StompTransport.SendCallback() {
+                    @Override
+                    public void onSent() {
+                        acked.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onFailed(Throwable error) {
+                        failed.incrementAndGet();
+                    }
+                });
+    }
+
+    void sendTyping(long roomId, boolean isTyping) {
+        transport.send(ChatProtocol.TYPING_INDICATOR + roomId, codec.encodeTyping(isTyping), new StompTransport.SendCallback() {
+            @Override
+            public void onSent() {
+            }
+
+            @Override
+            public void onFailed(Throwable error) {
+            }
+        });
+    }
+
+    void close() {
+        transport.disconnect();
+    }
+
+    static long sentAtNanos(String content) {
+        if (content == null || !content.startsWith(STAMP_PREFIX)) {
+            return 0;
+        }
+        int end = content.indexOf('|');
+        try {
+            return Long.parseLong(content.substring(STAMP_PREFIX.length(), end > 0 ? end : content.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Mostly short chat lines near the minimum, one in ten anywhere up to the maximum
+    private String content(int minBytes, int maxBytes) {
+        int span = maxBytes - minBytes;
+        int length = minBytes + (random.nextInt(10) == 0 ? random.nextInt(span + 1) : random.nextInt(span / 10 + 1));
+        StringBuilder builder = new StringBuilder(Math.max(length, 32));
+        builder.append(STAMP_PREFIX).append(System.nanoTime()).append('|');
+        while (builder.length() < length) {
+            builder.append(FILLER, 0, Math.min(FILLER.length(), length - builder.length()));
+        }
+        return builder.toString();
+    }
+}
@@ -22,4 +22,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "RealTimeChatUI"
 include(":app")
+include(":engine")
+include(":benchmarks")
+include(":loadtest")
  
\ No newline at end of file